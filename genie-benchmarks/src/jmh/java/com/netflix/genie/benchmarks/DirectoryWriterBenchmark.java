@@ -0,0 +1,110 @@
+/*
+ *
+ *  Copyright 2016 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.benchmarks;
+
+import com.netflix.genie.web.resources.writers.DefaultDirectoryWriter;
+import com.netflix.genie.web.resources.writers.DirectoryWriter;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for rendering job directory listings which the UI and API request for every job output page.
+ *
+ * @author agent
+ * @since 3.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DirectoryWriterBenchmark {
+
+    private static final String REQUEST_URL = "http://localhost:8080/api/v3/jobs/benchmark/output/";
+    private static final int SUB_DIRECTORIES = 10;
+
+    @Param({"100", "1000", "10000"})
+    protected int fileCount;
+
+    private final DirectoryWriter writer = new DefaultDirectoryWriter();
+    private File directory;
+
+    /**
+     * Create a directory holding the requested number of files and a handful of sub directories.
+     *
+     * @throws IOException on error creating the files
+     */
+    @Setup
+    public void setup() throws IOException {
+        this.directory = Files.createTempDirectory("genie-benchmark-directory").toFile();
+        for (int i = 0; i < SUB_DIRECTORIES; i++) {
+            FileUtils.forceMkdir(new File(this.directory, "dir" + i));
+        }
+        for (int i = 0; i < this.fileCount; i++) {
+            FileUtils.writeStringToFile(
+                new File(this.directory, "file" + i + ".log"),
+                "Some log output for file " + i,
+                StandardCharsets.UTF_8
+            );
+        }
+    }
+
+    /**
+     * Remove the directory created for the run.
+     *
+     * @throws IOException on error deleting the files
+     */
+    @TearDown
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(this.directory);
+    }
+
+    /**
+     * Render the directory as HTML.
+     *
+     * @return The HTML
+     * @throws Exception on error reading the directory
+     */
+    @Benchmark
+    public String toHtml() throws Exception {
+        return this.writer.toHtml(this.directory, REQUEST_URL, true);
+    }
+
+    /**
+     * Render the directory as JSON.
+     *
+     * @return The JSON
+     * @throws Exception on error reading the directory
+     */
+    @Benchmark
+    public String toJson() throws Exception {
+        return this.writer.toJson(this.directory, REQUEST_URL, true);
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ *
+ *  Copyright 2016 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.netflix.genie.common.dto.ClusterCriteria;
+import com.netflix.genie.common.dto.Job;
+import com.netflix.genie.common.dto.JobRequest;
+import com.netflix.genie.common.dto.JobStatus;
+import com.netflix.genie.common.dto.search.JobSearchResult;
+import com.netflix.genie.common.util.JsonUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for the JSON serialization and deserialization of the DTOs which cross the REST API most often.
+ *
+ * @author agent
+ * @since 3.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class DtoJsonBenchmark {
+
+    private static final ObjectWriter JOB_REQUEST_WRITER = JsonUtils.getMapper().writerFor(JobRequest.class);
+    private static final ObjectReader JOB_REQUEST_READER = JsonUtils.getMapper().readerFor(JobRequest.class);
+    private static final ObjectWriter JOB_WRITER = JsonUtils.getMapper().writerFor(Job.class);
+    private static final ObjectReader JOB_READER = JsonUtils.getMapper().readerFor(Job.class);
+    private static final ObjectWriter JOB_SEARCH_RESULT_WRITER
+        = JsonUtils.getMapper().writerFor(JobSearchResult.class);
+    private static final ObjectReader JOB_SEARCH_RESULT_READER
+        = JsonUtils.getMapper().readerFor(JobSearchResult.class);
+
+    private JobRequest jobRequest;
+    private String jobRequestJson;
+    private Job job;
+    private String jobJson;
+    private JobSearchResult jobSearchResult;
+    private String jobSearchResultJson;
+
+    /**
+     * Build the DTOs and their serialized forms once for the whole run.
+     *
+     * @throws IOException on serialization error
+     */
+    @Setup
+    public void setup() throws IOException {
+        final String id = UUID.randomUUID().toString();
+        final Date now = new Date();
+
+        this.jobRequest = new JobRequest.Builder(
+            "benchmarkJob",
+            "genie",
+            "3.0.0",
+            "-f query.q --hiveconf mapreduce.job.queuename=adhoc",
+            Lists.newArrayList(
+                new ClusterCriteria(Sets.newHashSet("sched:sla", "type:yarn")),
+                new ClusterCriteria(Sets.newHashSet("sched:adhoc", "type:yarn"))
+            ),
+            Sets.newHashSet("type:hive", "ver:1.2.1")
+        )
+            .withId(id)
+            .withDescription("A job request used for benchmarking")
+            .withTags(Sets.newHashSet("team:bdp", "priority:high", "source:benchmark"))
+            .withDependencies(Sets.newHashSet("s3://genie/jobs/query.q", "s3://genie/jobs/udfs.jar"))
+            .withSetupFile("s3://genie/jobs/setup.sh")
+            .withEmail("genie@example.com")
+            .withApplications(Lists.newArrayList("hadoop", "hive"))
+            .withTimeout(3600)
+            .build();
+        this.jobRequestJson = JOB_REQUEST_WRITER.writeValueAsString(this.jobRequest);
+
+        this.job = new Job.Builder("benchmarkJob", "genie", "3.0.0", this.jobRequest.getCommandArgs())
+            .withId(id)
+            .withDescription("A job used for benchmarking")
+            .withTags(this.jobRequest.getTags())
+            .withStatus(JobStatus.RUNNING)
+            .withStatusMsg("Job is running")
+            .withStarted(now)
+            .withClusterName("h2prod")
+            .withCommandName("hive")
+            .withArchiveLocation("s3://genie/archive/" + id + ".tar.gz")
+            .withCreated(now)
+            .withUpdated(now)
+            .build();
+        this.jobJson = JOB_WRITER.writeValueAsString(this.job);
+
+        this.jobSearchResult
+            = new JobSearchResult(id, "benchmarkJob", JobStatus.SUCCEEDED, now, now, "h2prod", "hive");
+        this.jobSearchResultJson = JOB_SEARCH_RESULT_WRITER.writeValueAsString(this.jobSearchResult);
+    }
+
+    /**
+     * Serialize a job request.
+     *
+     * @return The JSON string
+     * @throws IOException on serialization error
+     */
+    @Benchmark
+    public String serializeJobRequest() throws IOException {
+        return JOB_REQUEST_WRITER.writeValueAsString(this.jobRequest);
+    }
+
+    /**
+     * Deserialize a job request.
+     *
+     * @return The job request
+     * @throws IOException on deserialization error
+     */
+    @Benchmark
+    public JobRequest deserializeJobRequest() throws IOException {
+        return JOB_REQUEST_READER.readValue(this.jobRequestJson);
+    }
+
+    /**
+     * Serialize a job.
+     *
+     * @return The JSON string
+     * @throws IOException on serialization error
+     */
+    @Benchmark
+    public String serializeJob() throws IOException {
+        return JOB_WRITER.writeValueAsString(this.job);
+    }
+
+    /**
+     * Deserialize a job.
+     *
+     * @return The job
+     * @throws IOException on deserialization error
+     */
+    @Benchmark
+    public Job deserializeJob() throws IOException {
+        return JOB_READER.readValue(this.jobJson);
+    }
+
+    /**
+     * Serialize a job search result.
+     *
+     * @return The JSON string
+     * @throws IOException on serialization error
+     */
+    @Benchmark
+    public String serializeJobSearchResult() throws IOException {
+        return JOB_SEARCH_RESULT_WRITER.writeValueAsString(this.jobSearchResult);
+    }
+
+    /**
+     * Deserialize a job search result.
+     *
+     * @return The job search result
+     * @throws IOException on deserialization error
+     */
+    @Benchmark
+    public JobSearchResult deserializeJobSearchResult() throws IOException {
+        return JOB_SEARCH_RESULT_READER.readValue(this.jobSearchResultJson);
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ *
+ *  Copyright 2016 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.benchmarks;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.netflix.genie.common.dto.Application;
+import com.netflix.genie.common.dto.ApplicationStatus;
+import com.netflix.genie.common.dto.Cluster;
+import com.netflix.genie.common.dto.ClusterCriteria;
+import com.netflix.genie.common.dto.ClusterStatus;
+import com.netflix.genie.common.dto.Command;
+import com.netflix.genie.common.dto.CommandStatus;
+import com.netflix.genie.common.dto.Job;
+import com.netflix.genie.common.dto.JobRequest;
+import com.netflix.genie.common.dto.JobStatus;
+import com.netflix.genie.common.exceptions.GenieException;
+import com.netflix.genie.core.services.ApplicationService;
+import com.netflix.genie.core.services.ClusterService;
+import com.netflix.genie.core.services.CommandService;
+import com.netflix.genie.core.services.JobPersistenceService;
+import com.netflix.genie.core.services.JobSubmitterService;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.Banner;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for {@link com.netflix.genie.core.services.impl.LocalJobRunner#submitJob(JobRequest)} against an
+ * embedded HSQL database. This covers cluster and command selection, persisting the runtime environment and the
+ * full workflow chain up to (but not including) launching the process.
+ *
+ * @author agent
+ * @since 3.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class LocalJobRunnerBenchmark {
+
+    private static final Set<String> CLUSTER_TAGS = Sets.newHashSet("sched:adhoc", "type:yarn");
+    private static final Set<String> COMMAND_TAGS = Sets.newHashSet("type:hive", "ver:1.2.1");
+    private static final int CONFIG_COUNT = 5;
+
+    private File jobsDir;
+    private ConfigurableApplicationContext context;
+    private JobPersistenceService jobPersistenceService;
+    private JobSubmitterService jobSubmitterService;
+    private JobRequest jobRequest;
+
+    /**
+     * Start the Spring context and save a cluster, command and application a job can resolve to.
+     *
+     * @throws GenieException on error saving the resources
+     * @throws IOException    on error creating the jobs directory
+     */
+    @Setup(Level.Trial)
+    public void setup() throws GenieException, IOException {
+        this.jobsDir = Files.createTempDirectory("genie-benchmark-jobs").toFile();
+        this.context = new SpringApplicationBuilder(LocalJobRunnerBenchmarkConfig.class)
+            .web(false)
+            .bannerMode(Banner.Mode.OFF)
+            .properties(
+                "spring.datasource.url=jdbc:hsqldb:mem:genie-benchmark-db;shutdown=true",
+                "spring.datasource.username=SA",
+                "spring.datasource.password=",
+                "spring.jpa.hibernate.ddl-auto=create",
+                "spring.jpa.hibernate.naming-strategy=org.hibernate.cfg.ImprovedNamingStrategy",
+                "genie.jobs.dir.location=" + this.jobsDir.getAbsolutePath()
+            )
+            .run();
+
+        this.jobPersistenceService = this.context.getBean(JobPersistenceService.class);
+        this.jobSubmitterService = this.context.getBean(JobSubmitterService.class);
+        final ApplicationService applicationService = this.context.getBean(ApplicationService.class);
+        final ClusterService clusterService = this.context.getBean(ClusterService.class);
+        final CommandService commandService = this.context.getBean(CommandService.class);
+
+        final String applicationId = applicationService.createApplication(
+            new Application.Builder("hive", "genie", "1.2.1", ApplicationStatus.ACTIVE)
+                .withConfigs(this.getFiles("s3://genie/applications/hive/config"))
+                .withDependencies(this.getFiles("s3://genie/applications/hive/lib"))
+                .withSetupFile("s3://genie/applications/hive/setup.sh")
+                .build()
+        );
+        final String commandId = commandService.createCommand(
+            new Command.Builder("hive", "genie", "1.2.1", CommandStatus.ACTIVE, "hive", 5000L)
+                .withTags(COMMAND_TAGS)
+                .withConfigs(this.getFiles("s3://genie/commands/hive/config"))
+                .withSetupFile("s3://genie/commands/hive/setup.sh")
+                .build()
+        );
+        commandService.addApplicationsForCommand(commandId, Lists.newArrayList(applicationId));
+        final String clusterId = clusterService.createCluster(
+            new Cluster.Builder("h2prod", "genie", "2.7.1", ClusterStatus.UP)
+                .withTags(CLUSTER_TAGS)
+                .withConfigs(this.getFiles("s3://genie/clusters/h2prod/config"))
+                .withSetupFile("s3://genie/clusters/h2prod/setup.sh")
+                .build()
+        );
+        clusterService.addCommandsForCluster(clusterId, Lists.newArrayList(commandId));
+    }
+
+    /**
+     * Save a new job request and job the way the coordinator would before handing it to the job runner.
+     *
+     * @throws GenieException on error saving the job
+     */
+    @Setup(Level.Invocation)
+    public void createJob() throws GenieException {
+        final String id = UUID.randomUUID().toString();
+        this.jobRequest = new JobRequest.Builder(
+            "benchmarkJob",
+            "genie",
+            "3.0.0",
+            "-f query.q",
+            Lists.newArrayList(new ClusterCriteria(CLUSTER_TAGS)),
+            COMMAND_TAGS
+        )
+            .withId(id)
+            .withSetupFile("s3://genie/jobs/setup.sh")
+            .withDependencies(Sets.newHashSet("s3://genie/jobs/" + id + "/query.q"))
+            .withDisableLogArchival(true)
+            .build();
+        this.jobPersistenceService.createJobRequest(this.jobRequest);
+        this.jobPersistenceService.createJob(
+            new Job.Builder(
+                this.jobRequest.getName(),
+                this.jobRequest.getUser(),
+                this.jobRequest.getVersion(),
+                this.jobRequest.getCommandArgs()
+            )
+                .withId(id)
+                .withStatus(JobStatus.INIT)
+                .build()
+        );
+    }
+
+    /**
+     * Clean out the job directories generated during the iteration so the disk doesn't fill up.
+     *
+     * @throws IOException on error deleting the directories
+     */
+    @TearDown(Level.Iteration)
+    public void cleanJobDirectories() throws IOException {
+        FileUtils.cleanDirectory(this.jobsDir);
+    }
+
+    /**
+     * Shut down the Spring context and remove the jobs directory.
+     *
+     * @throws IOException on error deleting the directory
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        this.context.close();
+        FileUtils.deleteDirectory(this.jobsDir);
+    }
+
+    /**
+     * Submit the job saved for this invocation.
+     *
+     * @throws GenieException on error submitting the job
+     */
+    @Benchmark
+    public void submitJob() throws GenieException {
+        this.jobSubmitterService.submitJob(this.jobRequest);
+    }
+
+    private Set<String> getFiles(final String prefix) {
+        final Set<String> files = Sets.newHashSet();
+        for (int i = 0; i < CONFIG_COUNT; i++) {
+            files.add(prefix + "/file" + i);
+        }
+        return files;
+    }
+}
@@ -0,0 +1,228 @@
+/*
+ *
+ *  Copyright 2016 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.benchmarks;
+
+import com.google.common.collect.Lists;
+import com.netflix.genie.common.exceptions.GenieException;
+import com.netflix.genie.core.jobs.workflow.WorkflowTask;
+import com.netflix.genie.core.jobs.workflow.impl.ApplicationTask;
+import com.netflix.genie.core.jobs.workflow.impl.ClusterTask;
+import com.netflix.genie.core.jobs.workflow.impl.CommandTask;
+import com.netflix.genie.core.jobs.workflow.impl.InitialSetupTask;
+import com.netflix.genie.core.jobs.workflow.impl.JobKillLogicTask;
+import com.netflix.genie.core.jobs.workflow.impl.JobTask;
+import com.netflix.genie.core.jpa.repositories.JpaApplicationRepository;
+import com.netflix.genie.core.jpa.repositories.JpaClusterRepository;
+import com.netflix.genie.core.jpa.repositories.JpaCommandRepository;
+import com.netflix.genie.core.jpa.repositories.JpaJobExecutionRepository;
+import com.netflix.genie.core.jpa.repositories.JpaJobRepository;
+import com.netflix.genie.core.jpa.repositories.JpaJobRequestRepository;
+import com.netflix.genie.core.jpa.services.JpaApplicationServiceImpl;
+import com.netflix.genie.core.jpa.services.JpaClusterServiceImpl;
+import com.netflix.genie.core.jpa.services.JpaCommandServiceImpl;
+import com.netflix.genie.core.jpa.services.JpaJobPersistenceServiceImpl;
+import com.netflix.genie.core.jpa.services.JpaJobSearchServiceImpl;
+import com.netflix.genie.core.services.ApplicationService;
+import com.netflix.genie.core.services.ClusterService;
+import com.netflix.genie.core.services.CommandService;
+import com.netflix.genie.core.services.JobPersistenceService;
+import com.netflix.genie.core.services.JobSearchService;
+import com.netflix.genie.core.services.JobSubmitterService;
+import com.netflix.genie.core.services.impl.GenieFileTransferService;
+import com.netflix.genie.core.services.impl.LocalJobRunner;
+import com.netflix.genie.core.services.impl.RandomizedClusterLoadBalancerImpl;
+import com.netflix.spectator.api.DefaultRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.context.PropertyPlaceholderAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.orm.jpa.EntityScan;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+
+import java.util.List;
+
+/**
+ * Spring configuration for the {@link LocalJobRunnerBenchmark}. Only the data source, JPA and the services the job
+ * runner needs are loaded so the rest of the web application (security, discovery, leadership, etc) doesn't have to
+ * be stood up. The workflow stops short of the kickoff task so no processes are launched.
+ *
+ * @author agent
+ * @since 3.0.0
+ */
+@Configuration
+@ImportAutoConfiguration(
+    {
+        PropertyPlaceholderAutoConfiguration.class,
+        DataSourceAutoConfiguration.class,
+        HibernateJpaAutoConfiguration.class
+    }
+)
+@EntityScan("com.netflix.genie.core.jpa.entities")
+@EnableJpaRepositories("com.netflix.genie.core.jpa.repositories")
+@EnableTransactionManagement
+public class LocalJobRunnerBenchmarkConfig {
+
+    /**
+     * Get JPA based implementation of the ApplicationService.
+     *
+     * @param applicationRepo The application repository to use.
+     * @param commandRepo     The command repository to use.
+     * @return An application service instance.
+     */
+    @Bean
+    public ApplicationService applicationService(
+        final JpaApplicationRepository applicationRepo,
+        final JpaCommandRepository commandRepo
+    ) {
+        return new JpaApplicationServiceImpl(applicationRepo, commandRepo);
+    }
+
+    /**
+     * Get JPA based implementation of the ClusterService.
+     *
+     * @param clusterRepo The cluster repository to use.
+     * @param commandRepo The command repository to use.
+     * @return A cluster service instance.
+     */
+    @Bean
+    public ClusterService clusterService(
+        final JpaClusterRepository clusterRepo,
+        final JpaCommandRepository commandRepo
+    ) {
+        return new JpaClusterServiceImpl(clusterRepo, commandRepo);
+    }
+
+    /**
+     * Get JPA based implementation of the CommandService.
+     *
+     * @param commandRepo the command repository to use
+     * @param appRepo     the application repository to use
+     * @param clusterRepo the cluster repository to use
+     * @return A command service instance.
+     */
+    @Bean
+    public CommandService commandService(
+        final JpaCommandRepository commandRepo,
+        final JpaApplicationRepository appRepo,
+        final JpaClusterRepository clusterRepo
+    ) {
+        return new JpaCommandServiceImpl(commandRepo, appRepo, clusterRepo);
+    }
+
+    /**
+     * Get JPA based implementation of the JobSearchService.
+     *
+     * @param jobRepository          The repository to use for job entities
+     * @param jobRequestRepository   The repository to use for job request entities
+     * @param jobExecutionRepository The repository to use for job execution entities
+     * @return A job search service instance.
+     */
+    @Bean
+    public JobSearchService jobSearchService(
+        final JpaJobRepository jobRepository,
+        final JpaJobRequestRepository jobRequestRepository,
+        final JpaJobExecutionRepository jobExecutionRepository
+    ) {
+        return new JpaJobSearchServiceImpl(jobRepository, jobRequestRepository, jobExecutionRepository);
+    }
+
+    /**
+     * Get JPA based implementation of the JobPersistenceService.
+     *
+     * @param jobRepo          The job repository to use
+     * @param jobRequestRepo   The job request repository to use
+     * @param jobExecutionRepo The jobExecution Repository to use
+     * @param applicationRepo  The application repository to use
+     * @param clusterRepo      The cluster repository to use
+     * @param commandRepo      The command repository to use
+     * @return A job search service instance.
+     */
+    @Bean
+    public JobPersistenceService jobPersistenceService(
+        final JpaJobRepository jobRepo,
+        final JpaJobRequestRepository jobRequestRepo,
+        final JpaJobExecutionRepository jobExecutionRepo,
+        final JpaApplicationRepository applicationRepo,
+        final JpaClusterRepository clusterRepo,
+        final JpaCommandRepository commandRepo
+    ) {
+        return new JpaJobPersistenceServiceImpl(
+            jobRepo,
+            jobRequestRepo,
+            jobExecutionRepo,
+            applicationRepo,
+            clusterRepo,
+            commandRepo
+        );
+    }
+
+    /**
+     * Get the job submitter under test. File transfers and attachments are stubbed out and the kickoff task is left
+     * off the workflow.
+     *
+     * @param jobSearchService      The job search service to use
+     * @param jobPersistenceService The job persistence service to use
+     * @param applicationService    The application service to use
+     * @param clusterService        The cluster service to use
+     * @param commandService        The command service to use
+     * @param publisher             The event publisher to use
+     * @param jobsDir               The directory to create job directories in
+     * @return The local job runner
+     * @throws GenieException on error creating the services
+     */
+    @Bean
+    public JobSubmitterService jobSubmitterService(
+        final JobSearchService jobSearchService,
+        final JobPersistenceService jobPersistenceService,
+        final ApplicationService applicationService,
+        final ClusterService clusterService,
+        final CommandService commandService,
+        final ApplicationEventPublisher publisher,
+        @Value("${genie.jobs.dir.location}") final String jobsDir
+    ) throws GenieException {
+        final List<WorkflowTask> tasks = Lists.newArrayList(
+            new JobKillLogicTask(),
+            new InitialSetupTask(),
+            new ClusterTask(),
+            new ApplicationTask(),
+            new CommandTask(),
+            new JobTask(new StubAttachmentService())
+        );
+        return new LocalJobRunner(
+            jobSearchService,
+            jobPersistenceService,
+            applicationService,
+            clusterService,
+            commandService,
+            new RandomizedClusterLoadBalancerImpl(),
+            new GenieFileTransferService(Lists.newArrayList(new StubFileTransfer()), new DefaultRegistry()),
+            publisher,
+            tasks,
+            new FileSystemResource(jobsDir),
+            "localhost",
+            Integer.MAX_VALUE,
+            new DefaultRegistry()
+        );
+    }
+}
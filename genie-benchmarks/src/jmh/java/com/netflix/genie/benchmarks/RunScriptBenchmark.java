@@ -0,0 +1,327 @@
+/*
+ *
+ *  Copyright 2016 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.benchmarks;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.netflix.genie.common.dto.Application;
+import com.netflix.genie.common.dto.ApplicationStatus;
+import com.netflix.genie.common.dto.Cluster;
+import com.netflix.genie.common.dto.ClusterCriteria;
+import com.netflix.genie.common.dto.ClusterStatus;
+import com.netflix.genie.common.dto.Command;
+import com.netflix.genie.common.dto.CommandStatus;
+import com.netflix.genie.common.dto.JobRequest;
+import com.netflix.genie.common.exceptions.GenieException;
+import com.netflix.genie.core.jobs.JobConstants;
+import com.netflix.genie.core.jobs.JobDirectoryLayout;
+import com.netflix.genie.core.jobs.JobExecutionEnvironment;
+import com.netflix.genie.core.jobs.RunScript;
+import com.netflix.genie.core.jobs.RunScriptTemplate;
+import com.netflix.genie.core.jobs.workflow.WorkflowTask;
+import com.netflix.genie.core.jobs.workflow.impl.ApplicationTask;
+import com.netflix.genie.core.jobs.workflow.impl.ClusterTask;
+import com.netflix.genie.core.jobs.workflow.impl.CommandTask;
+import com.netflix.genie.core.jobs.workflow.impl.InitialSetupTask;
+import com.netflix.genie.core.jobs.workflow.impl.JobKillLogicTask;
+import com.netflix.genie.core.jobs.workflow.impl.JobTask;
+import com.netflix.genie.core.services.impl.GenieFileTransferService;
+import com.netflix.spectator.api.DefaultRegistry;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for generating a job's run script and directory tree by running the full chain of workflow tasks
+ * short of actually launching the process. File transfers and attachments are stubbed out. The number of writes to
+ * the run script per job is reported as an auxiliary counter.
+ *
+ * @author agent
+ * @since 3.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RunScriptBenchmark {
+
+    @Param({"1", "5"})
+    protected int applicationCount;
+
+    @Param({"2", "20"})
+    protected int configCount;
+
+    private File baseDir;
+    private GenieFileTransferService fileTransferService;
+    private List<WorkflowTask> tasks;
+    private Cluster cluster;
+    private Command command;
+    private List<Application> applications;
+    private RunScript model;
+
+    /**
+     * Build the resources the job runs with and the workflow task chain.
+     *
+     * @throws GenieException on error creating the services
+     * @throws IOException    on error creating the base directory
+     */
+    @Setup
+    public void setup() throws GenieException, IOException {
+        this.baseDir = Files.createTempDirectory("genie-benchmark-jobs").toFile();
+        this.fileTransferService = new GenieFileTransferService(
+            Lists.newArrayList(new StubFileTransfer()),
+            new DefaultRegistry()
+        );
+        this.tasks = Lists.newArrayList(
+            new JobKillLogicTask(),
+            new InitialSetupTask(),
+            new ClusterTask(),
+            new ApplicationTask(),
+            new CommandTask(),
+            new JobTask(new StubAttachmentService())
+        );
+
+        this.cluster = new Cluster.Builder("h2prod", "genie", "2.7.1", ClusterStatus.UP)
+            .withId("cluster1")
+            .withConfigs(this.getFiles("s3://genie/clusters/h2prod/config", this.configCount))
+            .withSetupFile("s3://genie/clusters/h2prod/setup.sh")
+            .build();
+        this.command = new Command.Builder("hive", "genie", "1.2.1", CommandStatus.ACTIVE, "hive", 5000L)
+            .withId("command1")
+            .withConfigs(this.getFiles("s3://genie/commands/hive/config", this.configCount))
+            .withSetupFile("s3://genie/commands/hive/setup.sh")
+            .build();
+        this.applications = Lists.newArrayList();
+        for (int i = 0; i < this.applicationCount; i++) {
+            this.applications.add(
+                new Application.Builder("app" + i, "genie", "1.0.0", ApplicationStatus.ACTIVE)
+                    .withId("app" + i)
+                    .withConfigs(this.getFiles("s3://genie/applications/app" + i + "/config", this.configCount))
+                    .withDependencies(this.getFiles("s3://genie/applications/app" + i + "/lib", this.configCount))
+                    .withSetupFile("s3://genie/applications/app" + i + "/setup.sh")
+                    .build()
+            );
+        }
+
+        this.model = new RunScript();
+        this.model.setKillHandlerEnabled(true);
+        this.model.addEnvironmentVariable(JobConstants.GENIE_JOB_DIR_ENV_VAR, this.baseDir.getAbsolutePath());
+        this.model.addSetupFile(
+            "Sourcing setup file from Cluster: cluster1",
+            "${GENIE_JOB_DIR}/genie/cluster/cluster1/setup.sh"
+        );
+        for (final Application application : this.applications) {
+            this.model.addSetupFile(
+                "Sourcing setup file from Application: " + application.getId(),
+                "${GENIE_JOB_DIR}/genie/applications/" + application.getId() + "/setup.sh"
+            );
+        }
+        this.model.setCommandLine("hive -f query.q");
+    }
+
+    /**
+     * Clean out the job directories generated during the iteration so the disk doesn't fill up.
+     *
+     * @throws IOException on error deleting the directories
+     */
+    @TearDown(Level.Iteration)
+    public void cleanJobDirectories() throws IOException {
+        FileUtils.cleanDirectory(this.baseDir);
+    }
+
+    /**
+     * Remove the base directory at the end of the run.
+     *
+     * @throws IOException on error deleting the directory
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(this.baseDir);
+    }
+
+    /**
+     * Run the workflow chain for a new job and generate its run script from the model the tasks built.
+     *
+     * @param counters Counters of the writes made to the run script
+     * @return The run script which was generated
+     * @throws GenieException on error in a task
+     * @throws IOException    on error writing the script
+     */
+    @Benchmark
+    public File generateRunScript(final WriteCounters counters) throws GenieException, IOException {
+        final String id = UUID.randomUUID().toString();
+        final File jobDir = new File(this.baseDir, id);
+        if (!jobDir.mkdirs()) {
+            throw new IOException("Unable to create job directory " + jobDir);
+        }
+
+        final JobRequest jobRequest = new JobRequest.Builder(
+            "benchmarkJob",
+            "genie",
+            "3.0.0",
+            "-f query.q",
+            Lists.newArrayList(new ClusterCriteria(Sets.newHashSet("sched:adhoc"))),
+            Sets.newHashSet("type:hive")
+        )
+            .withId(id)
+            .withSetupFile("s3://genie/jobs/setup.sh")
+            .withDependencies(this.getFiles("s3://genie/jobs/" + id, this.configCount))
+            .build();
+
+        final JobExecutionEnvironment jee
+            = new JobExecutionEnvironment.Builder(jobRequest, this.cluster, this.command, jobDir)
+            .withApplications(this.applications)
+            .build();
+
+        final RunScript model = new RunScript();
+        final Map<String, Object> context = new HashMap<>();
+        context.put(JobConstants.JOB_EXECUTION_ENV_KEY, jee);
+        context.put(JobConstants.FILE_TRANSFER_SERVICE_KEY, this.fileTransferService);
+        context.put(JobConstants.RUN_SCRIPT_KEY, model);
+        context.put(JobConstants.JOB_DIRECTORY_LAYOUT_KEY, JobDirectoryLayout.plan(jee));
+        for (final WorkflowTask task : this.tasks) {
+            task.executeTask(context);
+        }
+
+        // Same as the kickoff task but counting the writes made to the file
+        final File runScript = new File(jobDir, JobConstants.GENIE_JOB_LAUNCHER_SCRIPT);
+        try (final FileChannel channel = FileChannel.open(
+            runScript.toPath(),
+            StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING,
+            StandardOpenOption.WRITE
+        )) {
+            RunScriptTemplate.DEFAULT.write(model, new CountingChannel(channel, counters));
+        }
+        counters.jobs++;
+        return runScript;
+    }
+
+    /**
+     * Render a run script from a model which was already built to measure the template on its own.
+     *
+     * @return The rendered script
+     */
+    @Benchmark
+    public byte[] renderRunScript() {
+        return RunScriptTemplate.DEFAULT.render(this.model);
+    }
+
+    private Set<String> getFiles(final String prefix, final int count) {
+        final Set<String> files = Sets.newHashSet();
+        for (int i = 0; i < count; i++) {
+            files.add(prefix + "/file" + i);
+        }
+        return files;
+    }
+
+    /**
+     * Counters reported alongside the timings so the number of writes per job can be tracked.
+     *
+     * @author agent
+     * @since 3.0.0
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class WriteCounters {
+        /**
+         * How many times the run script channel was written to.
+         */
+        public long writes;
+
+        /**
+         * How many jobs had their run script generated.
+         */
+        public long jobs;
+
+        /**
+         * Reset the counters before each iteration.
+         */
+        @Setup(Level.Iteration)
+        public void reset() {
+            this.writes = 0;
+            this.jobs = 0;
+        }
+    }
+
+    /**
+     * A channel which counts the writes made through it. Each write to a file channel is a write system call.
+     */
+    private static final class CountingChannel implements WritableByteChannel {
+        private final WritableByteChannel delegate;
+        private final WriteCounters counters;
+
+        /**
+         * Constructor.
+         *
+         * @param delegate The channel to write to
+         * @param counters The counters to increment
+         */
+        CountingChannel(final WritableByteChannel delegate, final WriteCounters counters) {
+            this.delegate = delegate;
+            this.counters = counters;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int write(final ByteBuffer src) throws IOException {
+            this.counters.writes++;
+            return this.delegate.write(src);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean isOpen() {
+            return this.delegate.isOpen();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void close() throws IOException {
+            this.delegate.close();
+        }
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ *
+ *  Copyright 2016 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.benchmarks;
+
+import com.netflix.genie.common.exceptions.GenieException;
+import com.netflix.genie.core.services.AttachmentService;
+
+import java.io.File;
+import java.io.InputStream;
+
+/**
+ * An attachment service which stores nothing so benchmarks of the job workflow aren't dominated by disk I/O.
+ *
+ * @author agent
+ * @since 3.0.0
+ */
+public class StubAttachmentService implements AttachmentService {
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void save(final String jobId, final String filename, final InputStream content) throws GenieException {
+        // Intentionally does nothing
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean saveExisting(final String jobId, final String filename, final String sha256) throws GenieException {
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void copy(final String jobId, final File destination) throws GenieException {
+        // Intentionally does nothing
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void delete(final String jobId) throws GenieException {
+        // Intentionally does nothing
+    }
+}
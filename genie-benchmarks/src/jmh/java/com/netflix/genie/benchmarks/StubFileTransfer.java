@@ -0,0 +1,136 @@
+/*
+ *
+ *  Copyright 2016 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.benchmarks;
+
+import com.netflix.genie.common.exceptions.GenieException;
+import com.netflix.genie.core.services.FileMetadata;
+import com.netflix.genie.core.services.FileTransfer;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * A file transfer implementation which accepts every path and never touches the file system or network so that
+ * benchmarks only measure the Genie code around the transfer.
+ *
+ * @author agent
+ * @since 3.0.0
+ */
+public class StubFileTransfer implements FileTransfer {
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * None so every path is routed here by isValid.
+     */
+    @Override
+    public Set<String> getSchemes() {
+        return Collections.emptySet();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isValid(final String fileName) throws GenieException {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void getFile(final String srcRemotePath, final String dstLocalPath) throws GenieException {
+        // Intentionally does nothing
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void putFile(final String srcLocalPath, final String dstRemotePath) throws GenieException {
+        // Intentionally does nothing
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getFileSize(final String remotePath) throws GenieException {
+        return 0L;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isRangeSupported() {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public InputStream getFileRange(
+        final String srcRemotePath,
+        final long offset,
+        final long length
+    ) throws GenieException {
+        return new ByteArrayInputStream(new byte[0]);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public FileMetadata getFileMetadata(final String remotePath) throws GenieException {
+        return new FileMetadata(0L, null, 0L);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public InputStream getFileStream(final String srcRemotePath) throws GenieException {
+        return new ByteArrayInputStream(new byte[0]);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void putFile(final ReadableByteChannel source, final String dstRemotePath) throws GenieException {
+        // Intentionally does nothing
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public FileMetadata getFileIfModified(
+        final String srcRemotePath,
+        final String dstLocalPath,
+        final String eTag
+    ) throws GenieException {
+        return new FileMetadata(0L, null, 0L);
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ *
+ *  Copyright 2016 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.benchmarks;
+
+import com.netflix.genie.core.jpa.entities.CommonFieldsEntity;
+import com.netflix.genie.core.jpa.specifications.JpaSpecificationUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for the tag handling done on every entity read, write and search.
+ *
+ * @author agent
+ * @since 3.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class TagsBenchmark {
+
+    @Param({"5", "20", "100"})
+    protected int tagCount;
+
+    private Set<String> tags;
+    private Set<String> criteria;
+    private CommonFieldsEntity entity;
+
+    /**
+     * Create the tags and an entity which already holds them.
+     */
+    @Setup
+    public void setup() {
+        this.tags = new HashSet<>();
+        for (int i = 0; i < this.tagCount; i++) {
+            this.tags.add("tag" + i + ":" + UUID.randomUUID().toString());
+        }
+        // Search criteria are normally a small subset of the tags on an entity
+        this.criteria = new HashSet<>();
+        this.tags.stream().limit(3).forEach(this.criteria::add);
+
+        this.entity = new CommonFieldsEntity();
+        this.entity.setTags(this.tags);
+    }
+
+    /**
+     * Store tags on an entity as happens when saving a resource.
+     *
+     * @return The entity
+     */
+    @Benchmark
+    public CommonFieldsEntity setTags() {
+        final CommonFieldsEntity commonFieldsEntity = new CommonFieldsEntity();
+        commonFieldsEntity.setTags(this.tags);
+        return commonFieldsEntity;
+    }
+
+    /**
+     * Read tags back off an entity which has already been loaded as happens when converting to a DTO.
+     *
+     * @return The tags
+     */
+    @Benchmark
+    public Set<String> getTags() {
+        return this.entity.getTags();
+    }
+
+    /**
+     * Check whether an entity matches search criteria as done when choosing commands for a job.
+     *
+     * @return Whether all the criteria matched
+     */
+    @Benchmark
+    public boolean matchTags() {
+        return this.entity.getTags().containsAll(this.criteria);
+    }
+
+    /**
+     * Build the like clause used by the specifications to search on tags.
+     *
+     * @return The like clause
+     */
+    @Benchmark
+    public String getTagLikeString() {
+        return JpaSpecificationUtils.getTagLikeString(this.tags);
+    }
+}
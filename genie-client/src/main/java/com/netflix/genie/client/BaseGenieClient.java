@@ -20,19 +20,19 @@ package com.netflix.genie.client;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.type.TypeFactory;
 import com.netflix.genie.client.apis.GenieService;
 import com.netflix.genie.client.interceptor.ResponseMappingInterceptor;
 import com.netflix.genie.client.interceptor.SecurityHeaderInterceptor;
 import com.netflix.genie.client.security.TokenFetcher;
 import com.netflix.genie.common.exceptions.GenieException;
+import com.netflix.genie.common.util.JsonUtils;
 import okhttp3.OkHttpClient;
 import retrofit2.Retrofit;
 import retrofit2.converter.jackson.JacksonConverterFactory;
 
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 
 
 /**
@@ -46,6 +46,12 @@ public abstract class BaseGenieClient {
     protected static final String FILE_PATH_DELIMITER = "/";
     protected static final String STATUS = "status";
 
+    // Shared with the retrofit converter. Resources carry HAL links and other fields the DTOs don't model.
+    private static final ObjectMapper MAPPER = JsonUtils
+        .getMapper()
+        .copy()
+        .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
     protected GenieService genieService;
 
     private TokenFetcher tokenFetcher;
@@ -83,12 +89,9 @@ public abstract class BaseGenieClient {
 
         final OkHttpClient client = builder.build();
 
-        final ObjectMapper mapper = new ObjectMapper().
-            configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
-
         final Retrofit retrofit = new Retrofit.Builder()
             .baseUrl(configuration.getServiceUrl())
-            .addConverterFactory(JacksonConverterFactory.create(mapper))
+            .addConverterFactory(JacksonConverterFactory.create(MAPPER))
             .client(client)
             .build();
 
@@ -106,21 +109,30 @@ public abstract class BaseGenieClient {
     }
 
     /**
-     * Helper method used to parse out a list of Entities out of the HAL Response received from Genie. It takes the
-     * json node and looks for the appropriate key to get the list.
-     *
-     * @param node A json node root object for the json response.
-     * @param key The key to lookup the list of entities.
+     * Helper method used to bind a list of Entities out of the HAL Response received from Genie directly to the given
+     * type without rendering the tree back to a string first.
      *
+     * @param node  A json node root object for the json response.
+     * @param key   The key to lookup the list of entities.
+     * @param clazz The type of the entities in the list.
+     * @param <T>   The type of the entities in the list.
      * @return A list of entities.
      * @throws IOException If there is any problem.
      */
-    protected List<Map<String, String>> getListFromHalObject(
-        final JsonNode node, final String key
+    protected <T> List<T> getListFromHalObject(
+        final JsonNode node, final String key, final Class<T> clazz
     ) throws IOException {
-        final ObjectMapper mapper = new ObjectMapper();
-        return (ArrayList<Map<String, String>>)
-            mapper.readValue(node.get("_embedded").get(key).toString(),
-                List.class);
+        return MAPPER
+            .readerFor(TypeFactory.defaultInstance().constructCollectionType(List.class, clazz))
+            .readValue(getEmbeddedNode(node, key));
+    }
+
+    private static JsonNode getEmbeddedNode(final JsonNode node, final String key) {
+        final JsonNode embedded = node.get("_embedded");
+        if (embedded == null || embedded.get(key) == null) {
+            // Genie leaves the embedded section out entirely when a search has no results
+            return MAPPER.createArrayNode();
+        }
+        return embedded.get(key);
     }
 }
@@ -25,9 +25,9 @@ import com.netflix.genie.common.dto.Job;
 import com.netflix.genie.common.dto.JobExecution;
 import com.netflix.genie.common.dto.JobRequest;
 import com.netflix.genie.common.dto.JobStatus;
+import com.netflix.genie.common.dto.search.JobSearchResult;
 import com.netflix.genie.common.exceptions.GenieException;
 import com.netflix.genie.common.exceptions.GeniePreconditionException;
-import com.netflix.genie.common.exceptions.GenieServerException;
 import okhttp3.MediaType;
 import okhttp3.MultipartBody;
 import okhttp3.RequestBody;
@@ -37,8 +37,6 @@ import retrofit2.Response;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -143,34 +141,26 @@ public class JobClient extends BaseGenieClient {
      * @throws IOException If the response received is not 2xx.
      */
     public List<Job> getJobs(final Map<String, String> options) throws IOException, GenieException {
-
-        try {
-            final SimpleDateFormat dateFormatter = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'");
-
-            final JsonNode content =  genieService.getJobs(options).execute().body();
-
-            final ArrayList<Job> jobList = new ArrayList<>();
-            for (Map<String, String> job: getListFromHalObject(content, "jobSearchResultList")) {
-                jobList.add(
-                    new Job.Builder(
-                        job.get("name"),
-                        job.get("user"),
-                        job.get("version"),
-                        job.get("commandArgs")
-                    )
-                        .withId(job.get("id"))
-                        .withStatus(JobStatus.parse(job.get("status")))
-                        .withClusterName(job.get("clusterName"))
-                        .withCommandName(job.get("commandName"))
-                        .withStarted(dateFormatter.parse(job.get("started")))
-                        .withFinished(dateFormatter.parse(job.get("finished")))
-                        .build());
-            }
-            return jobList;
-
-        } catch (ParseException e) {
-            throw new GenieServerException("Incorrect Date format returned by Genie server.");
+        final JsonNode content = genieService.getJobs(options).execute().body();
+
+        final List<Job> jobList = new ArrayList<>();
+        for (final JobSearchResult job : getListFromHalObject(content, "jobSearchResultList", JobSearchResult.class)) {
+            jobList.add(
+                new Job.Builder(
+                    job.getName(),
+                    null,
+                    null,
+                    null
+                )
+                    .withId(job.getId())
+                    .withStatus(job.getStatus())
+                    .withClusterName(job.getClusterName())
+                    .withCommandName(job.getCommandName())
+                    .withStarted(job.getStarted())
+                    .withFinished(job.getFinished())
+                    .build());
         }
+        return jobList;
     }
 
     /**
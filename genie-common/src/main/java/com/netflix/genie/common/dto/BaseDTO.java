@@ -18,11 +18,11 @@
 package com.netflix.genie.common.dto;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import com.netflix.genie.common.util.JsonDateDeserializer;
 import com.netflix.genie.common.util.JsonDateSerializer;
+import com.netflix.genie.common.util.JsonUtils;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
 
@@ -94,8 +94,7 @@ public abstract class BaseDTO implements Serializable {
     @Override
     public String toString() {
         try {
-            final ObjectMapper mapper = new ObjectMapper();
-            return mapper.writeValueAsString(this);
+            return JsonUtils.getMapper().writeValueAsString(this);
         } catch (final JsonProcessingException ioe) {
             return ioe.getLocalizedMessage();
         }
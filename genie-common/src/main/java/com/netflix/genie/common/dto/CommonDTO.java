@@ -17,12 +17,13 @@
  */
 package com.netflix.genie.common.dto;
 
+import com.google.common.collect.ImmutableSet;
 import lombok.Getter;
 import org.hibernate.validator.constraints.NotEmpty;
 
 import javax.validation.constraints.Size;
-import java.util.Collections;
 import java.util.HashSet;
+import java.util.Objects;
 import java.util.Set;
 
 /**
@@ -36,7 +37,7 @@ public abstract class CommonDTO extends BaseDTO {
 
     private static final long serialVersionUID = -2082573569004634251L;
 
-    private final Set<String> tags = new HashSet<>();
+    private final Set<String> tags;
 
     @NotEmpty
     @Size(max = 255)
@@ -62,16 +63,16 @@ public abstract class CommonDTO extends BaseDTO {
         this.user = builder.bUser;
         this.version = builder.bVersion;
         this.description = builder.bDescription;
-        this.tags.addAll(builder.bTags);
+        this.tags = ImmutableSet.copyOf(builder.bTags.stream().filter(Objects::nonNull).iterator());
     }
 
     /**
-     * Get a readonly copy of the tags.
+     * Get the tags. The set is immutable so it is shared rather than copied on every call.
      *
      * @return The tags. Read only. Will throw exception if try to modify.
      */
     public Set<String> getTags() {
-        return Collections.unmodifiableSet(this.tags);
+        return this.tags;
     }
 
     /**
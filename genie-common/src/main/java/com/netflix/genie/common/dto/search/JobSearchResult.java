@@ -19,8 +19,10 @@ package com.netflix.genie.common.dto.search;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import com.netflix.genie.common.dto.JobStatus;
+import com.netflix.genie.common.util.JsonDateDeserializer;
 import com.netflix.genie.common.util.JsonDateSerializer;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
@@ -65,8 +67,8 @@ public class JobSearchResult extends BaseSearchResult {
         @NotBlank @JsonProperty("id") final String id,
         @NotBlank @JsonProperty("name") final String name,
         @NotNull @JsonProperty("status") final JobStatus status,
-        @JsonProperty("started") final Date started,
-        @JsonProperty("finished") final Date finished,
+        @JsonProperty("started") @JsonDeserialize(using = JsonDateDeserializer.class) final Date started,
+        @JsonProperty("finished") @JsonDeserialize(using = JsonDateDeserializer.class) final Date finished,
         @JsonProperty("clusterName") final String clusterName,
         @JsonProperty("commandName") final String commandName
     ) {
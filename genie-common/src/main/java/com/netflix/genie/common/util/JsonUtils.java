@@ -34,12 +34,27 @@ import java.util.Collection;
  * @since 3.0.0
  */
 public final class JsonUtils {
+
+    // ObjectMapper is thread safe once configured and expensive to create so share one per JVM
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
     /**
      * Protected constructor for a utility class.
      */
     protected JsonUtils() {
     }
 
+    /**
+     * Get the shared, default configured, object mapper. The mapper must not be reconfigured by callers. Derive an
+     * {@link com.fasterxml.jackson.databind.ObjectReader} or {@link com.fasterxml.jackson.databind.ObjectWriter}
+     * (which are immutable and can be cached as constants) when a different set of features is needed.
+     *
+     * @return The shared object mapper
+     */
+    public static ObjectMapper getMapper() {
+        return MAPPER;
+    }
+
     /**
      * Convert a Java object to a JSON string.
      *
@@ -49,8 +64,7 @@ public final class JsonUtils {
      */
     public static String marshall(final Object value) throws GenieException {
         try {
-            final ObjectMapper mapper = new ObjectMapper();
-            return mapper.writeValueAsString(value);
+            return MAPPER.writeValueAsString(value);
         } catch (final JsonProcessingException jpe) {
             throw new GenieServerException(jpe);
         }
@@ -70,11 +84,10 @@ public final class JsonUtils {
             final TypeReference<T> typeReference
     ) throws GenieException {
         try {
-            final ObjectMapper mapper = new ObjectMapper();
             if (StringUtils.isNotBlank(source)) {
-                return mapper.readValue(source, typeReference);
+                return MAPPER.readValue(source, typeReference);
             } else {
-                return mapper.readValue("[]", typeReference);
+                return MAPPER.readValue("[]", typeReference);
             }
         } catch (final IOException ioe) {
             throw new GenieServerException(ioe);
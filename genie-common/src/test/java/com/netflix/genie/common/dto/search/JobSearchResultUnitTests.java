@@ -18,12 +18,14 @@
 package com.netflix.genie.common.dto.search;
 
 import com.netflix.genie.common.dto.JobStatus;
+import com.netflix.genie.common.util.JsonUtils;
 import com.netflix.genie.test.categories.UnitTest;
 import org.hamcrest.Matchers;
 import org.junit.Assert;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
 
+import java.io.IOException;
 import java.util.Date;
 import java.util.UUID;
 
@@ -69,4 +71,32 @@ public class JobSearchResultUnitTests {
         Assert.assertNull(searchResult2.getClusterName());
         Assert.assertNull(searchResult2.getCommandName());
     }
+
+    /**
+     * Make sure a search result can make a round trip through JSON using the shared mapper.
+     *
+     * @throws IOException on serialization error
+     */
+    @Test
+    public void canSerializeAndDeserialize() throws IOException {
+        // The serialized form has second precision
+        final Date started = new Date(1460000000000L);
+        final JobSearchResult searchResult = new JobSearchResult(
+            UUID.randomUUID().toString(),
+            UUID.randomUUID().toString(),
+            JobStatus.SUCCEEDED,
+            started,
+            null,
+            UUID.randomUUID().toString(),
+            UUID.randomUUID().toString()
+        );
+
+        final String json = JsonUtils.getMapper().writeValueAsString(searchResult);
+        final JobSearchResult result = JsonUtils.getMapper().readerFor(JobSearchResult.class).readValue(json);
+        Assert.assertThat(result, Matchers.is(searchResult));
+        Assert.assertThat(result.getStatus(), Matchers.is(JobStatus.SUCCEEDED));
+        Assert.assertThat(result.getStarted(), Matchers.is(started));
+        Assert.assertNull(result.getFinished());
+        Assert.assertThat(result.getClusterName(), Matchers.is(searchResult.getClusterName()));
+    }
 }
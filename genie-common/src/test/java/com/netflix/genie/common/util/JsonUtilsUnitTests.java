@@ -46,6 +46,15 @@ public class JsonUtilsUnitTests {
         Assert.assertThat(utils, Matchers.notNullValue());
     }
 
+    /**
+     * Make sure the same mapper instance is shared across calls.
+     */
+    @Test
+    public void canGetSharedMapper() {
+        Assert.assertThat(JsonUtils.getMapper(), Matchers.notNullValue());
+        Assert.assertSame(JsonUtils.getMapper(), JsonUtils.getMapper());
+    }
+
     /**
      * Test to make sure we can marshall an Object to a JSON string.
      *
@@ -0,0 +1,89 @@
+/*
+ *
+ *  Copyright 2016 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.core.jobs;
+
+import com.netflix.genie.common.exceptions.GeniePreconditionException;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * The formats a job directory can be archived in once the job is done.
+ *
+ * @author agent
+ * @since 3.0.0
+ */
+public enum JobArchiveFormat {
+
+    /**
+     * A single gzip compressed tar stream. Reading any member means reading the archive up to that member.
+     */
+    TAR_GZ(".tar.gz"),
+
+    /**
+     * A zip file. Every member is compressed separately and indexed by the central directory at the end of the file
+     * so single members can be read without reading the rest of the archive.
+     */
+    ZIP(".zip");
+
+    private final String extension;
+
+    JobArchiveFormat(final String extension) {
+        this.extension = extension;
+    }
+
+    /**
+     * Get the file extension, including the leading dot, archives of this format use.
+     *
+     * @return The extension
+     */
+    public String getExtension() {
+        return this.extension;
+    }
+
+    /**
+     * Parse the archive format from either the name of the format or the extension without the leading dot.
+     *
+     * @param value string to parse/convert
+     * @return TAR_GZ or ZIP if match
+     * @throws GeniePreconditionException if invalid value passed in
+     */
+    public static JobArchiveFormat parse(final String value) throws GeniePreconditionException {
+        if (StringUtils.isNotBlank(value)) {
+            for (final JobArchiveFormat format : JobArchiveFormat.values()) {
+                if (value.equalsIgnoreCase(format.toString()) || ("." + value).equalsIgnoreCase(format.extension)) {
+                    return format;
+                }
+            }
+        }
+        throw new GeniePreconditionException("Unacceptable job archive format. Must be one of {tar.gz, zip}");
+    }
+
+    /**
+     * Get the format of an archive from its location.
+     *
+     * @param location The location of the archive
+     * @return The format the extension of the location matches. TAR_GZ if none match as that is the original format.
+     */
+    public static JobArchiveFormat fromLocation(final String location) {
+        for (final JobArchiveFormat format : JobArchiveFormat.values()) {
+            if (StringUtils.endsWithIgnoreCase(location, format.extension)) {
+                return format;
+            }
+        }
+        return TAR_GZ;
+    }
+}
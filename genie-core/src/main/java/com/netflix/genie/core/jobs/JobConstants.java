@@ -124,6 +124,22 @@ public final class JobConstants {
      **/
     public static final String GENIE_DONE_FILE_NAME = "./genie/genie.done";
 
+    /**
+     * Manifest of the job directory written by Genie once a job is done, relative to the job directory.
+     **/
+    public static final String GENIE_MANIFEST_FILE_NAME = "genie/genie.manifest.json";
+
+    /**
+     * Marker written by Genie once the job directory has been uploaded to the archive location, relative to the job
+     * directory.
+     **/
+    public static final String GENIE_ARCHIVED_FILE_NAME = "genie/genie.archived";
+
+    /**
+     * Timeline of the steps taken to set up and launch a job written by Genie, relative to the job directory.
+     **/
+    public static final String GENIE_SETUP_TIMELINE_FILE_NAME = "genie/logs/genie.setup.json";
+
     /**
      * Genie log file path.
      **/
@@ -200,9 +216,14 @@ public final class JobConstants {
     public static final String KILL_PARENT_PID_FLAG = "-P";
 
     /**
-     * Key used to look up the writer object.
+     * Key used to look up the run script model the workflow tasks contribute to.
+     */
+    public static final String RUN_SCRIPT_KEY = "runScript";
+
+    /**
+     * Key used to look up the planned layout of the job directory.
      */
-    public static final String WRITER_KEY = "writer";
+    public static final String JOB_DIRECTORY_LAYOUT_KEY = "jobDirectoryLayout";
 
 //    /**
 //     * Key to store when the job was started on the system.
@@ -0,0 +1,242 @@
+/*
+ *
+ *  Copyright 2016 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.core.jobs;
+
+import com.netflix.genie.common.dto.Application;
+import lombok.Getter;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * The layout of a job's working directory. Every path is computed once from the job directory so callers don't
+ * concatenate and canonicalize paths over and over, and the directories a job needs are planned up front so the whole
+ * tree can be created in a single pass.
+ * <p>
+ * Only the job directory is needed to look up paths so the same layout can be used when the job is launched, archived
+ * or cleaned up.
+ *
+ * @author agent
+ * @since 3.0.0
+ */
+public class JobDirectoryLayout {
+
+    private static final String DONE_FILE_NAME = Paths.get(JobConstants.GENIE_DONE_FILE_NAME).getFileName().toString();
+
+    @Getter
+    private final Path jobDirectory;
+    @Getter
+    private final Path genieDirectory;
+    @Getter
+    private final Path logsDirectory;
+    @Getter
+    private final Path applicationsDirectory;
+    @Getter
+    private final Path commandDirectory;
+    @Getter
+    private final Path clusterDirectory;
+    // Parents are always added before their children
+    private final Set<Path> directories = new LinkedHashSet<>();
+
+    /**
+     * Constructor. Plans the top level directories every job has.
+     *
+     * @param jobDirectory The working directory of the job. Expected to be absolute and canonical.
+     */
+    public JobDirectoryLayout(final Path jobDirectory) {
+        this.jobDirectory = jobDirectory;
+        this.genieDirectory = jobDirectory.resolve(JobConstants.GENIE_PATH_VAR);
+        this.logsDirectory = this.genieDirectory.resolve(JobConstants.LOGS_PATH_VAR);
+        this.applicationsDirectory = this.genieDirectory.resolve(JobConstants.APPLICATION_PATH_VAR);
+        this.commandDirectory = this.genieDirectory.resolve(JobConstants.COMMAND_PATH_VAR);
+        this.clusterDirectory = this.genieDirectory.resolve(JobConstants.CLUSTER_PATH_VAR);
+
+        this.directories.add(this.genieDirectory);
+        this.directories.add(this.logsDirectory);
+        this.directories.add(this.applicationsDirectory);
+        this.directories.add(this.commandDirectory);
+        this.directories.add(this.clusterDirectory);
+    }
+
+    /**
+     * Plan the layout for a job about to be launched including the directories of its cluster, command and
+     * applications. The job directory is canonicalized here once for all the workflow tasks.
+     *
+     * @param jobExecEnv The execution environment of the job
+     * @return The planned layout
+     * @throws IOException If the job directory can't be canonicalized
+     */
+    public static JobDirectoryLayout plan(final JobExecutionEnvironment jobExecEnv) throws IOException {
+        final JobDirectoryLayout layout
+            = new JobDirectoryLayout(jobExecEnv.getJobWorkingDir().getCanonicalFile().toPath());
+        layout.addEntity(AdminResources.CLUSTER, jobExecEnv.getCluster().getId());
+        if (jobExecEnv.getApplications() != null) {
+            for (final Application application : jobExecEnv.getApplications()) {
+                layout.addEntity(AdminResources.APPLICATION, application.getId());
+            }
+        }
+        layout.addEntity(AdminResources.COMMAND, jobExecEnv.getCommand().getId());
+        return layout;
+    }
+
+    /**
+     * Plan the directories for an application, command or cluster the job uses.
+     *
+     * @param adminResources The type of the entity
+     * @param id             The id of the entity
+     * @return This layout
+     */
+    public JobDirectoryLayout addEntity(final AdminResources adminResources, final String id) {
+        this.directories.add(this.getEntityDirectory(adminResources, id));
+        this.directories.add(this.getEntityConfigDirectory(adminResources, id));
+        this.directories.add(this.getEntityDependenciesDirectory(adminResources, id));
+        return this;
+    }
+
+    /**
+     * Create every planned directory which doesn't already exist. Only the deepest directories are passed to
+     * {@link Files#createDirectories} as their parents are created along the way, so the tree costs close to one
+     * metadata operation per directory.
+     *
+     * @throws IOException If a directory can't be created
+     */
+    public void create() throws IOException {
+        final Set<Path> parents = new HashSet<>();
+        for (final Path directory : this.directories) {
+            parents.add(directory.getParent());
+        }
+        for (final Path directory : this.directories) {
+            if (!parents.contains(directory)) {
+                Files.createDirectories(directory);
+            }
+        }
+    }
+
+    /**
+     * Get every directory planned for the job with parents before their children.
+     *
+     * @return Read only view of the directories
+     */
+    public Set<Path> getDirectories() {
+        return Collections.unmodifiableSet(this.directories);
+    }
+
+    /**
+     * Get the directory of an application, command or cluster.
+     *
+     * @param adminResources The type of the entity
+     * @param id             The id of the entity
+     * @return The directory
+     */
+    public Path getEntityDirectory(final AdminResources adminResources, final String id) {
+        switch (adminResources) {
+            case APPLICATION:
+                return this.applicationsDirectory.resolve(id);
+            case COMMAND:
+                return this.commandDirectory.resolve(id);
+            case CLUSTER:
+                return this.clusterDirectory.resolve(id);
+            default:
+                throw new IllegalArgumentException("Unknown resource type " + adminResources);
+        }
+    }
+
+    /**
+     * Get the config directory of an application, command or cluster.
+     *
+     * @param adminResources The type of the entity
+     * @param id             The id of the entity
+     * @return The directory
+     */
+    public Path getEntityConfigDirectory(final AdminResources adminResources, final String id) {
+        return this.getEntityDirectory(adminResources, id).resolve(JobConstants.CONFIG_FILE_PATH_PREFIX);
+    }
+
+    /**
+     * Get the dependencies directory of an application, command or cluster.
+     *
+     * @param adminResources The type of the entity
+     * @param id             The id of the entity
+     * @return The directory
+     */
+    public Path getEntityDependenciesDirectory(final AdminResources adminResources, final String id) {
+        return this.getEntityDirectory(adminResources, id).resolve(JobConstants.DEPENDENCY_FILE_PATH_PREFIX);
+    }
+
+    /**
+     * Get the run script of the job.
+     *
+     * @return The path of the run script
+     */
+    public Path getRunScript() {
+        return this.jobDirectory.resolve(JobConstants.GENIE_JOB_LAUNCHER_SCRIPT);
+    }
+
+    /**
+     * Get the file the run script writes the exit code of the job to.
+     *
+     * @return The path of the done file
+     */
+    public Path getDoneFile() {
+        return this.genieDirectory.resolve(DONE_FILE_NAME);
+    }
+
+    /**
+     * Get the marker file written once the job directory has been archived.
+     *
+     * @return The path of the archived marker
+     */
+    public Path getArchivedFile() {
+        return this.jobDirectory.resolve(JobConstants.GENIE_ARCHIVED_FILE_NAME);
+    }
+
+    /**
+     * Get the manifest of the job directory saved when the job finished.
+     *
+     * @return The path of the manifest
+     */
+    public Path getManifestFile() {
+        return this.jobDirectory.resolve(JobConstants.GENIE_MANIFEST_FILE_NAME);
+    }
+
+    /**
+     * Get the timeline of the steps taken to set up and launch the job.
+     *
+     * @return The path of the setup timeline
+     */
+    public Path getSetupTimelineFile() {
+        return this.jobDirectory.resolve(JobConstants.GENIE_SETUP_TIMELINE_FILE_NAME);
+    }
+
+    /**
+     * Get the local file the job directory is archived to before it is uploaded.
+     *
+     * @param jobId  The id of the job
+     * @param format The format of the archive
+     * @return The path of the archive
+     */
+    public Path getArchiveFile(final String jobId, final JobArchiveFormat format) {
+        return this.logsDirectory.resolve(jobId + format.getExtension());
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ *
+ *  Copyright 2016 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.core.jobs;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Class that represents the structure of the manifest of every file and directory within a job directory.
+ *
+ * @author agent
+ * @since 3.0.0
+ */
+@Getter
+@Setter
+public class JobDirectoryManifest {
+    private String jobId;
+    private boolean checksums;
+    private int numFiles;
+    private int numDirectories;
+    private long totalSize;
+    private List<Entry> entries = new ArrayList<>();
+
+    /**
+     * A single file or directory within the job directory.
+     *
+     * @author agent
+     * @since 3.0.0
+     */
+    @Getter
+    @Setter
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class Entry {
+        private String path;
+        private boolean directory;
+        private long size;
+        private long lastModified;
+        private String md5;
+        private String crc32;
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ *
+ *  Copyright 2016 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.core.jobs;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.netflix.genie.common.util.JsonDateSerializer;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The steps taken to set up and launch a job and how long each of them took. Saved in the job directory so slow
+ * launches can be diagnosed after the fact.
+ *
+ * @author agent
+ * @since 3.0.0
+ */
+public class JobSetupTimeline {
+
+    private final Date started;
+    private final long startedNanos;
+    private final List<Step> steps = new ArrayList<>();
+
+    /**
+     * Constructor. The timeline starts now.
+     */
+    public JobSetupTimeline() {
+        this.started = new Date();
+        this.startedNanos = System.nanoTime();
+    }
+
+    /**
+     * Get the time the setup started.
+     *
+     * @return The time the setup started
+     */
+    @JsonSerialize(using = JsonDateSerializer.class)
+    public Date getStarted() {
+        return new Date(this.started.getTime());
+    }
+
+    /**
+     * Get the steps taken so far in the order they finished.
+     *
+     * @return The steps as an unmodifiable list
+     */
+    public List<Step> getSteps() {
+        return Collections.unmodifiableList(this.steps);
+    }
+
+    /**
+     * Add a step to the timeline.
+     *
+     * @param name       The name of the step
+     * @param startNanos The value of System.nanoTime() when the step started
+     * @param endNanos   The value of System.nanoTime() when the step finished
+     * @return The step which was added
+     */
+    public Step addStep(final String name, final long startNanos, final long endNanos) {
+        final Step step = new Step(name, startNanos - this.startedNanos, endNanos - startNanos);
+        this.steps.add(step);
+        return step;
+    }
+
+    /**
+     * A single step of the setup.
+     *
+     * @author agent
+     * @since 3.0.0
+     */
+    @Getter
+    public static class Step {
+        private final String name;
+        private final long start;
+        private final long duration;
+        @JsonIgnore
+        private final long durationNanos;
+
+        /**
+         * Constructor.
+         *
+         * @param name             The name of the step
+         * @param startOffsetNanos How long after the start of the setup the step started in nanoseconds
+         * @param durationNanos    How long the step took in nanoseconds
+         */
+        Step(final String name, final long startOffsetNanos, final long durationNanos) {
+            this.name = name;
+            // Milliseconds are easier to read when looking at the saved timeline
+            this.start = TimeUnit.NANOSECONDS.toMillis(startOffsetNanos);
+            this.duration = TimeUnit.NANOSECONDS.toMillis(durationNanos);
+            this.durationNanos = durationNanos;
+        }
+    }
+}
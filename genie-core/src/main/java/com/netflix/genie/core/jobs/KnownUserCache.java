@@ -0,0 +1,115 @@
+/*
+ *
+ *  Copyright 2016 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.core.jobs;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.netflix.genie.common.exceptions.GenieException;
+import com.netflix.genie.common.exceptions.GenieServerException;
+import com.netflix.spectator.api.Counter;
+import com.netflix.spectator.api.Registry;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A node wide cache of the operating system users known to exist so jobs run as their users don't need to check for,
+ * or create, the user every time. The first job for a user runs the verifier while any other jobs for the same user
+ * wait for it, so concurrent jobs never try to create the same user twice.
+ * <p>
+ * Users which couldn't be verified aren't cached. Entries expire so users removed from the node are created again.
+ *
+ * @author agent
+ * @since 3.0.0
+ */
+public class KnownUserCache {
+
+    private final Cache<String, Boolean> users;
+    private final Counter hitRate;
+    private final Counter missRate;
+    private final Counter createdRate;
+
+    /**
+     * Constructor.
+     *
+     * @param registry           The metrics registry to use
+     * @param maxUsers           The maximum number of users to remember
+     * @param expireAfterSeconds How long to trust that a user exists before checking again
+     */
+    public KnownUserCache(final Registry registry, final long maxUsers, final long expireAfterSeconds) {
+        this.users = CacheBuilder
+            .newBuilder()
+            .maximumSize(maxUsers)
+            .expireAfterWrite(expireAfterSeconds, TimeUnit.SECONDS)
+            .build();
+        this.hitRate = registry.counter("genie.jobs.users.cache.hit.rate");
+        this.missRate = registry.counter("genie.jobs.users.cache.miss.rate");
+        this.createdRate = registry.counter("genie.jobs.users.created.rate");
+    }
+
+    /**
+     * Make sure a user exists, calling the verifier unless the user is already known.
+     *
+     * @param user     The user
+     * @param verifier Checks the user exists and creates it if not
+     * @throws GenieException If the verifier fails
+     */
+    public void ensureUser(final String user, final Verifier verifier) throws GenieException {
+        if (this.users.getIfPresent(user) != null) {
+            this.hitRate.increment();
+            return;
+        }
+
+        this.missRate.increment();
+        try {
+            this.users.get(
+                user,
+                () -> {
+                    if (verifier.verify()) {
+                        this.createdRate.increment();
+                    }
+                    return Boolean.TRUE;
+                }
+            );
+        } catch (final ExecutionException | UncheckedExecutionException e) {
+            if (e.getCause() instanceof GenieException) {
+                throw (GenieException) e.getCause();
+            }
+            throw new GenieServerException("Unable to verify user " + user + " due to " + e.getCause());
+        }
+    }
+
+    /**
+     * Checks a user exists, creating it if necessary.
+     *
+     * @author agent
+     * @since 3.0.0
+     */
+    @FunctionalInterface
+    public interface Verifier {
+
+        /**
+         * Make sure the user exists.
+         *
+         * @return True if the user had to be created
+         * @throws GenieException If the user doesn't exist and couldn't be created
+         */
+        boolean verify() throws GenieException;
+    }
+}
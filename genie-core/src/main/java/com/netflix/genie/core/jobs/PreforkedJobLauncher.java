@@ -0,0 +1,377 @@
+/*
+ *
+ *  Copyright 2016 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.core.jobs;
+
+import com.netflix.genie.common.exceptions.GenieException;
+import com.netflix.genie.common.exceptions.GenieServerException;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.SystemUtils;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Launches jobs through a long lived helper process instead of starting several processes per job. The helper is a
+ * shell started once, through sudo when jobs run as their own users, which reads one launch request per line on its
+ * standard input. For each request it hands the job directory to the user, starts the run script detached in its
+ * own session and answers with the process id of the job, so no separate chown, chmod or sudo processes are forked
+ * by Genie and the process id doesn't need to be read from the JVM's process implementation.
+ * <p>
+ * Requests are handled concurrently by the helper as handing a large job directory to the user can take a while, so
+ * each one carries an id which the helper answers with. The helper is started on first use and restarted if it dies.
+ * A launch which isn't answered in time is given up on without disturbing the others. The helper keeps handling it
+ * and if the job is started after all it's killed as soon as its process id comes back, so Genie never leaves a job
+ * running which it has already failed.
+ *
+ * @author agent
+ * @since 3.0.0
+ */
+@Slf4j
+public class PreforkedJobLauncher implements Closeable {
+
+    private static final String NO_USER = "-";
+    private static final char SEPARATOR = '\t';
+    private static final String OK = "OK ";
+    private static final String LAUNCH = "LAUNCH";
+    private static final String KILL = "KILL";
+    private static final String SETSID = SystemUtils.IS_OS_LINUX ? "setsid " : "";
+    // Kills are sent with the process id of a job which was launched after its request was given up on. The helper
+    // sends the same signal as the job kill service so the run script kills its process group on the way out.
+    static final String HELPER_SCRIPT = new StringBuilder()
+        .append("while IFS=$'\\t' read -r command id args; do\n")
+        .append("    if [ \"${command}\" = \"" + KILL + "\" ]; then\n")
+        .append("        kill \"${args}\" 2> /dev/null\n")
+        .append("        continue\n")
+        .append("    fi\n")
+        .append("    IFS=$'\\t' read -r user dir logs script log <<< \"${args}\"\n")
+        .append("    (\n")
+        .append("        if ! cd \"${dir}\"; then\n")
+        .append("            echo \"ERROR ${id} Could not change to ${dir}\"\n")
+        .append("            exit\n")
+        .append("        fi\n")
+        .append("        if [ \"${user}\" != \"" + NO_USER + "\" ]; then\n")
+        .append("            if ! chown -R \"${user}\" \"${dir}\" || ! chmod g+w \"${logs}\" ")
+        .append("|| ! chown \"${SUDO_USER:-$(id -un)}\" \"${log}\"; then\n")
+        .append("                echo \"ERROR ${id} Could not give ${dir} to ${user}\"\n")
+        .append("                exit\n")
+        .append("            fi\n")
+        .append("            sudo -u \"${user}\" " + SETSID + "bash \"${script}\" >> \"${log}\" 2>&1 < /dev/null &\n")
+        .append("        else\n")
+        .append("            " + SETSID + "bash \"${script}\" >> \"${log}\" 2>&1 < /dev/null &\n")
+        .append("        fi\n")
+        .append("        echo \"OK ${id} $!\"\n")
+        .append("    ) &\n")
+        .append("done\n")
+        .toString();
+
+    private final List<String> helperCommand;
+    private final long timeout;
+    private final AtomicLong requestIds = new AtomicLong();
+    private Helper helper;
+
+    /**
+     * Constructor. The helper isn't started until the first job is launched.
+     *
+     * @param runAsUserEnabled Whether jobs are run as the user who submitted them, which requires the helper to run
+     *                         as root through sudo
+     * @param timeout          How long to wait for the helper to launch a job in milliseconds before giving up on it.
+     *                         Handing the job directory to the user takes longer the larger the directory is.
+     */
+    public PreforkedJobLauncher(final boolean runAsUserEnabled, final long timeout) {
+        this(
+            runAsUserEnabled
+                ? Arrays.asList("sudo", "bash", "-c", HELPER_SCRIPT)
+                : Arrays.asList("bash", "-c", HELPER_SCRIPT),
+            timeout
+        );
+    }
+
+    /**
+     * Constructor for tests to start the helper with a different command.
+     *
+     * @param helperCommand The command which starts the helper
+     * @param timeout       How long to wait for the helper to launch a job in milliseconds before giving up on it
+     */
+    PreforkedJobLauncher(final List<String> helperCommand, final long timeout) {
+        this.helperCommand = helperCommand;
+        this.timeout = timeout;
+    }
+
+    /**
+     * Launch the run script of a job.
+     *
+     * @param user   The user to run the job as or null to run it as the user running Genie
+     * @param layout The layout of the job directory
+     * @return The process id of the job. Its process group has the same id on Linux.
+     * @throws GenieException If the job can't be launched
+     */
+    public int launch(final String user, final JobDirectoryLayout layout) throws GenieException {
+        final Path genieLog = layout.getJobDirectory().resolve(StringUtils.removeStart(JobConstants.GENIE_LOG_PATH, "/"));
+        final String id = Long.toString(this.requestIds.incrementAndGet());
+        final String request = buildRequest(
+            LAUNCH,
+            id,
+            StringUtils.isBlank(user) ? NO_USER : user,
+            layout.getJobDirectory().toString(),
+            layout.getLogsDirectory().toString(),
+            layout.getRunScript().toString(),
+            genieLog.toString()
+        );
+
+        final CompletableFuture<String> pendingResponse = new CompletableFuture<>();
+        final Helper requestHelper;
+        try {
+            // Created by Genie so Genie still owns the log once the directory is given to the user
+            if (!Files.exists(genieLog)) {
+                Files.createFile(genieLog);
+            }
+            requestHelper = this.send(id, request, pendingResponse);
+        } catch (final IOException ioe) {
+            throw new GenieServerException("Unable to launch job in " + layout.getJobDirectory(), ioe);
+        }
+
+        // Only the request is written under the lock so other jobs can be launched while this one is handled
+        final String response;
+        try {
+            response = this.await(requestHelper, id, pendingResponse);
+        } catch (final TimeoutException te) {
+            log.warn("Gave up on launching job in {}. It's killed if it's launched later.", layout.getJobDirectory());
+            throw new GenieServerException("Timed out launching job in " + layout.getJobDirectory(), te);
+        } catch (final InterruptedException ie) {
+            requestHelper.abandon(id);
+            Thread.currentThread().interrupt();
+            throw new GenieServerException("Interrupted while launching job in " + layout.getJobDirectory(), ie);
+        } catch (final ExecutionException ee) {
+            this.stop(requestHelper);
+            throw new GenieServerException(
+                "Launcher exited while launching job in " + layout.getJobDirectory(),
+                ee.getCause()
+            );
+        }
+
+        if (!response.startsWith(OK)) {
+            throw new GenieServerException("Unable to launch job in " + layout.getJobDirectory() + ": " + response);
+        }
+        try {
+            return Integer.parseInt(response.substring(OK.length()).trim());
+        } catch (final NumberFormatException nfe) {
+            throw new GenieServerException("Launcher returned an invalid process id " + response, nfe);
+        }
+    }
+
+    /**
+     * Stop the helper. Jobs it launched keep running.
+     */
+    @Override
+    public synchronized void close() {
+        if (this.helper != null) {
+            log.info("Stopping job launcher helper");
+            this.helper.stop();
+            this.helper = null;
+        }
+    }
+
+    private synchronized Helper send(
+        final String id,
+        final String request,
+        final CompletableFuture<String> pendingResponse
+    ) throws IOException {
+        if (this.helper == null || !this.helper.process.isAlive()) {
+            if (this.helper != null) {
+                this.helper.stop();
+            }
+            log.info("Starting job launcher helper");
+            this.helper = new Helper(this.helperCommand);
+        }
+        this.helper.pending.put(id, pendingResponse);
+        try {
+            this.helper.write(request);
+        } catch (final IOException ioe) {
+            this.helper.stop();
+            this.helper = null;
+            throw ioe;
+        }
+        return this.helper;
+    }
+
+    private String await(
+        final Helper requestHelper,
+        final String id,
+        final CompletableFuture<String> pendingResponse
+    ) throws TimeoutException, InterruptedException, ExecutionException {
+        try {
+            return pendingResponse.get(this.timeout, TimeUnit.MILLISECONDS);
+        } catch (final TimeoutException te) {
+            if (requestHelper.abandon(id)) {
+                throw te;
+            }
+            // The response came in while giving up so it's being completed right now
+            return pendingResponse.get();
+        }
+    }
+
+    private synchronized void stop(final Helper stale) {
+        // Another launch may have replaced the helper already
+        if (this.helper == stale) {
+            log.warn("Restarting job launcher helper");
+            this.helper = null;
+        }
+        stale.stop();
+    }
+
+    private static String buildRequest(final String... fields) throws GenieServerException {
+        final StringBuilder request = new StringBuilder();
+        for (final String field : fields) {
+            if (StringUtils.containsAny(field, SEPARATOR, '\n', '\r') || field.isEmpty()) {
+                throw new GenieServerException("Invalid launch request field [" + field + "]");
+            }
+            if (request.length() > 0) {
+                request.append(SEPARATOR);
+            }
+            request.append(field);
+        }
+        return request.append('\n').toString();
+    }
+
+    /**
+     * A running helper process, the requests it hasn't answered yet and the requests which were given up on.
+     *
+     * @author agent
+     * @since 3.0.0
+     */
+    private static final class Helper {
+        private final Process process;
+        private final Writer requests;
+        private final Map<String, CompletableFuture<String>> pending = new ConcurrentHashMap<>();
+        private final Set<String> abandoned = ConcurrentHashMap.newKeySet();
+
+        /**
+         * Constructor. Starts the helper and the thread reading its responses.
+         *
+         * @param command The command to start the helper with
+         * @throws IOException If the helper can't be started
+         */
+        Helper(final List<String> command) throws IOException {
+            final ProcessBuilder builder = new ProcessBuilder(command);
+            builder.redirectError(ProcessBuilder.Redirect.INHERIT);
+            this.process = builder.start();
+            this.requests = new OutputStreamWriter(this.process.getOutputStream(), StandardCharsets.UTF_8);
+            final Thread reader = new Thread(this::readResponses, "genie-job-launcher-responses");
+            reader.setDaemon(true);
+            reader.start();
+        }
+
+        /**
+         * Write a request to the helper.
+         *
+         * @param request The request including its line break
+         * @throws IOException If the helper can't be written to
+         */
+        synchronized void write(final String request) throws IOException {
+            this.requests.write(request);
+            this.requests.flush();
+        }
+
+        /**
+         * Give up on a request. The job is killed if the helper launches it anyway.
+         *
+         * @param id The id of the request
+         * @return False if the request was already answered
+         */
+        boolean abandon(final String id) {
+            // Marked first so the response can't slip through between the two
+            this.abandoned.add(id);
+            if (this.pending.remove(id) == null) {
+                this.abandoned.remove(id);
+                return false;
+            }
+            return true;
+        }
+
+        /**
+         * Stop the helper and fail the requests still waiting for it.
+         */
+        void stop() {
+            this.process.destroy();
+            this.failPending();
+        }
+
+        private void readResponses() {
+            try (final BufferedReader responses = new BufferedReader(
+                new InputStreamReader(this.process.getInputStream(), StandardCharsets.UTF_8)
+            )) {
+                String line;
+                while ((line = responses.readLine()) != null) {
+                    // Each response is the status, the id of the request and the process id or error message
+                    final String[] fields = line.split(" ", 3);
+                    final CompletableFuture<String> pendingResponse
+                        = fields.length == 3 ? this.pending.remove(fields[1]) : null;
+                    if (pendingResponse != null) {
+                        pendingResponse.complete(fields[0] + " " + fields[2]);
+                    } else if (fields.length == 3 && this.abandoned.remove(fields[1])) {
+                        this.killLateLaunch(fields[1], fields[0] + " " + fields[2]);
+                    } else {
+                        log.warn("Ignoring unexpected response [{}] from job launcher helper", line);
+                    }
+                }
+            } catch (final IOException ioe) {
+                log.debug("Unable to read from job launcher helper", ioe);
+            } finally {
+                this.failPending();
+            }
+        }
+
+        private void killLateLaunch(final String id, final String response) {
+            if (!response.startsWith(OK)) {
+                log.info("Launch request {} which was given up on failed: {}", id, response);
+                return;
+            }
+            final String pid = response.substring(OK.length()).trim();
+            log.warn("Killing job with process id {} which was launched after its request was given up on", pid);
+            try {
+                this.write(buildRequest(KILL, id, pid));
+            } catch (final GenieServerException | IOException e) {
+                log.error("Unable to kill job with process id {} which Genie gave up on launching", pid, e);
+            }
+        }
+
+        private void failPending() {
+            for (final CompletableFuture<String> pendingResponse : this.pending.values()) {
+                pendingResponse.completeExceptionally(new IOException("Job launcher helper exited"));
+            }
+        }
+    }
+}
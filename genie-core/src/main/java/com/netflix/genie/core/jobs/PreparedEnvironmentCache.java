@@ -0,0 +1,231 @@
+/*
+ *
+ *  Copyright 2016 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.core.jobs;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.netflix.genie.common.exceptions.GenieException;
+import com.netflix.genie.common.exceptions.GenieServerException;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.FileUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileSystemException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * A node wide cache of the files jobs need from their applications, command and cluster. The first job to use an
+ * entity downloads its setup file, configs and dependencies into a snapshot and every later job gets a copy of the
+ * snapshot made of hard links instead of downloading the same files again. Where the job directories are on a
+ * different file system than the cache the files are copied instead.
+ * <p>
+ * Snapshots are keyed by the type, id and updated time of the entity so a snapshot is never used again once its entity
+ * is updated. Files in a snapshot are made read only as every job shares them. Evicting a snapshot doesn't affect
+ * jobs which already linked to it. Linked files share their owner with the snapshot so linking has to be disabled
+ * when job directories are handed over to other users, e.g. when jobs run as the user who submitted them. Otherwise
+ * the last user to get a snapshot would own the files every later job receives.
+ *
+ * @author agent
+ * @since 3.0.0
+ */
+@Slf4j
+public class PreparedEnvironmentCache {
+
+    private final Path cacheDirectory;
+    private final Cache<String, Path> snapshots;
+    private volatile boolean linksSupported;
+
+    /**
+     * Constructor.
+     *
+     * @param cacheDirectory  The directory to keep the snapshots in. Should be on the same file system as the jobs.
+     * @param maxEnvironments The maximum number of snapshots to keep on disk at once
+     * @param linkFiles       Whether to hard link the files of snapshots into job directories instead of copying them
+     * @throws IOException If the cache directory can't be created or cleaned up
+     */
+    public PreparedEnvironmentCache(
+        final Path cacheDirectory,
+        final long maxEnvironments,
+        final boolean linkFiles
+    ) throws IOException {
+        this.cacheDirectory = Files.createDirectories(cacheDirectory);
+        this.linksSupported = linkFiles;
+        this.snapshots = CacheBuilder
+            .newBuilder()
+            .maximumSize(maxEnvironments)
+            .removalListener(
+                (RemovalListener<String, Path>) notification
+                    -> FileUtils.deleteQuietly(notification.getValue().toFile())
+            )
+            .build();
+
+        // There is no way to know which entity versions snapshots left over from a previous run belong to
+        FileUtils.cleanDirectory(this.cacheDirectory.toFile());
+    }
+
+    /**
+     * Put the files of an application, command or cluster into a job directory. If there is no snapshot for the
+     * current version of the entity yet the preparer is called once to download the files into a new snapshot, while
+     * any other jobs needing the same entity wait for it.
+     *
+     * @param adminResources The type of the entity
+     * @param id             The id of the entity
+     * @param updated        When the entity was last updated
+     * @param layout         The layout of the job directory to put the files in. The directories of the entity
+     *                       must already exist.
+     * @param preparer       Downloads the files of the entity into the directory tree rooted at the path passed to it
+     * @throws GenieException If the files can't be downloaded
+     */
+    public void cloneInto(
+        final AdminResources adminResources,
+        final String id,
+        final Date updated,
+        final JobDirectoryLayout layout,
+        final Preparer preparer
+    ) throws GenieException {
+        final String key = adminResources.name() + "/" + id + "/" + updated.getTime();
+        final Path snapshot;
+        try {
+            snapshot = this.snapshots.get(key, () -> this.materialize(key, adminResources, id, preparer));
+        } catch (final ExecutionException | UncheckedExecutionException e) {
+            if (e.getCause() instanceof GenieException) {
+                throw (GenieException) e.getCause();
+            }
+            throw new GenieServerException("Unable to prepare files of " + key + " due to " + e.getCause());
+        }
+
+        final Path target = layout.getEntityDirectory(adminResources, id);
+        try {
+            this.copy(new JobDirectoryLayout(snapshot).getEntityDirectory(adminResources, id), target);
+        } catch (final IOException ioe) {
+            // Most likely the snapshot was evicted while we were copying it so fall back to downloading the files
+            log.warn("Unable to copy snapshot of {} to {}. Downloading files instead.", key, target, ioe);
+            try {
+                FileUtils.cleanDirectory(target.toFile());
+                Files.createDirectories(layout.getEntityConfigDirectory(adminResources, id));
+                Files.createDirectories(layout.getEntityDependenciesDirectory(adminResources, id));
+            } catch (final IOException cleanupException) {
+                throw new GenieServerException("Unable to reset directory " + target + " due to " + cleanupException);
+            }
+            preparer.prepare(layout.getJobDirectory().toString());
+        }
+    }
+
+    private Path materialize(
+        final String key,
+        final AdminResources adminResources,
+        final String id,
+        final Preparer preparer
+    ) throws GenieException, IOException {
+        log.info("Preparing snapshot of files for {}", key);
+        // Unique per snapshot so a late eviction of a previous snapshot can never remove this one
+        final Path root = this.cacheDirectory.resolve(
+            Hashing.sha256().hashString(key, StandardCharsets.UTF_8).toString() + "." + UUID.randomUUID().toString()
+        );
+        try {
+            new JobDirectoryLayout(root).addEntity(adminResources, id).create();
+            preparer.prepare(root.toString());
+            Files.walkFileTree(
+                root,
+                new SimpleFileVisitor<Path>() {
+                    @Override
+                    public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) {
+                        if (!file.toFile().setWritable(false, false)) {
+                            log.debug("Unable to make {} read only", file);
+                        }
+                        return FileVisitResult.CONTINUE;
+                    }
+                }
+            );
+            return root;
+        } catch (final GenieException | IOException | RuntimeException e) {
+            FileUtils.deleteQuietly(root.toFile());
+            throw e;
+        }
+    }
+
+    private void copy(final Path source, final Path target) throws IOException {
+        Files.walkFileTree(
+            source,
+            new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult preVisitDirectory(
+                    final Path dir,
+                    final BasicFileAttributes attrs
+                ) throws IOException {
+                    Files.createDirectories(target.resolve(source.relativize(dir).toString()));
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) throws IOException {
+                    link(file, target.resolve(source.relativize(file).toString()));
+                    return FileVisitResult.CONTINUE;
+                }
+            }
+        );
+    }
+
+    private void link(final Path file, final Path link) throws IOException {
+        if (this.linksSupported) {
+            try {
+                Files.createLink(link, file);
+                return;
+            } catch (final NoSuchFileException | FileAlreadyExistsException e) {
+                throw e;
+            } catch (final UnsupportedOperationException | FileSystemException e) {
+                // Usually the jobs and the cache are on different devices. Not going to change until restart.
+                log.warn("Unable to hard link {} to {}. Copying files from now on.", link, file, e);
+                this.linksSupported = false;
+            }
+        }
+        Files.copy(file, link, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Downloads the files of an entity.
+     *
+     * @author agent
+     * @since 3.0.0
+     */
+    @FunctionalInterface
+    public interface Preparer {
+
+        /**
+         * Download the files of the entity.
+         *
+         * @param root The root directory to download the files under. Laid out the same as a job directory.
+         * @throws GenieException If the files can't be downloaded
+         */
+        void prepare(String root) throws GenieException;
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ *
+ *  Copyright 2016 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.core.jobs;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The per job model the workflow tasks contribute to while preparing a job. Once every task has run the model is
+ * rendered into the run script by a {@link RunScriptTemplate} in a single write.
+ *
+ * @author agent
+ * @since 3.0.0
+ */
+public class RunScript {
+
+    private final Map<String, String> environmentVariables = new LinkedHashMap<>();
+    private final List<SetupFile> setupFiles = new ArrayList<>();
+    @Getter
+    @Setter
+    private boolean killHandlerEnabled;
+    @Getter
+    @Setter
+    private String commandLine;
+
+    /**
+     * Add an environment variable to export at the top of the script. Variables are exported in the order they were
+     * added.
+     *
+     * @param name  The name of the variable
+     * @param value The value of the variable. Not quoted so it can reference previously exported variables.
+     */
+    public void addEnvironmentVariable(final String name, final String value) {
+        this.environmentVariables.put(name, value);
+    }
+
+    /**
+     * Add a setup file to source before the command is run. Files are sourced in the order they were added.
+     *
+     * @param description A description of where the file came from which is written as a comment above it
+     * @param path        The path of the file to source
+     */
+    public void addSetupFile(final String description, final String path) {
+        this.setupFiles.add(new SetupFile(description, path));
+    }
+
+    /**
+     * Get the environment variables to export in the order they were added.
+     *
+     * @return Read only view of the variables
+     */
+    public Map<String, String> getEnvironmentVariables() {
+        return Collections.unmodifiableMap(this.environmentVariables);
+    }
+
+    /**
+     * Get the setup files to source in the order they were added.
+     *
+     * @return Read only view of the setup files
+     */
+    public List<SetupFile> getSetupFiles() {
+        return Collections.unmodifiableList(this.setupFiles);
+    }
+
+    /**
+     * A setup file sourced by the run script.
+     *
+     * @author agent
+     * @since 3.0.0
+     */
+    @Getter
+    public static class SetupFile {
+        private final String description;
+        private final String path;
+
+        /**
+         * Constructor.
+         *
+         * @param description A description of where the file came from
+         * @param path        The path of the file to source
+         */
+        public SetupFile(final String description, final String path) {
+            this.description = description;
+            this.path = path;
+        }
+    }
+}
@@ -0,0 +1,233 @@
+/*
+ *
+ *  Copyright 2016 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.core.jobs;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A run script template which is parsed once into literal text and slots so that generating the script for a job
+ * is a single pass over the {@link RunScript} model into one buffer which is then written to disk in a single write.
+ * <p>
+ * Slots are written as {@code {{name}}} so they can't be confused with shell variable expansion. The supported slots
+ * are {@code killHandler}, {@code environment}, {@code setupFiles} and {@code command}. Instances are immutable and
+ * safe to share between threads.
+ *
+ * @author agent
+ * @since 3.0.0
+ */
+public class RunScriptTemplate {
+
+    /**
+     * The template used to generate the run script of every job.
+     */
+    public static final RunScriptTemplate DEFAULT = new RunScriptTemplate(
+        "{{killHandler}}"
+            + "{{environment}}"
+            + "{{setupFiles}}"
+            + "# Dump the environment to a env.log file" + System.lineSeparator()
+            + "env > ${" + JobConstants.GENIE_JOB_DIR_ENV_VAR + "}" + JobConstants.GENIE_ENV_PATH
+            + System.lineSeparator()
+            + System.lineSeparator()
+            + "# Kick off the command in background mode and wait for it using its pid" + System.lineSeparator()
+            + "{{command}}"
+            + JobConstants.STDOUT_REDIRECT
+            + JobConstants.STDOUT_LOG_FILE_NAME
+            + JobConstants.STDERR_REDIRECT
+            + JobConstants.STDERR_LOG_FILE_NAME
+            + " &" + System.lineSeparator()
+            + "wait $!" + System.lineSeparator()
+            + System.lineSeparator()
+            + "# Write the return code from the command in the done file." + System.lineSeparator()
+            + JobConstants.GENIE_DONE_FILE_CONTENT_PREFIX + JobConstants.GENIE_DONE_FILE_NAME + System.lineSeparator()
+    );
+
+    private static final String SLOT_START = "{{";
+    private static final String SLOT_END = "}}";
+    // Rough guess at the size of each variable part of the script to avoid growing the buffer while rendering
+    private static final int ESTIMATED_SLOT_LENGTH = 1024;
+
+    private final List<Object> segments = new ArrayList<>();
+    private final int literalLength;
+
+    /**
+     * Constructor. Parses the template.
+     *
+     * @param template The template text
+     * @throws IllegalArgumentException If the template has an unknown or unterminated slot
+     */
+    public RunScriptTemplate(final String template) {
+        int length = 0;
+        int position = 0;
+        while (position < template.length()) {
+            final int start = template.indexOf(SLOT_START, position);
+            if (start < 0) {
+                break;
+            }
+            final int end = template.indexOf(SLOT_END, start + SLOT_START.length());
+            if (end < 0) {
+                throw new IllegalArgumentException("Unterminated slot in run script template at " + start);
+            }
+            if (start > position) {
+                final String literal = template.substring(position, start);
+                this.segments.add(literal);
+                length += literal.length();
+            }
+            this.segments.add(Slot.parse(template.substring(start + SLOT_START.length(), end)));
+            position = end + SLOT_END.length();
+        }
+        if (position < template.length()) {
+            final String literal = template.substring(position);
+            this.segments.add(literal);
+            length += literal.length();
+        }
+        this.literalLength = length;
+    }
+
+    /**
+     * Render the run script for a job.
+     *
+     * @param runScript The model of the job's run script
+     * @return The UTF-8 encoded contents of the script
+     */
+    public byte[] render(final RunScript runScript) {
+        final StringBuilder builder
+            = new StringBuilder(this.literalLength + this.segments.size() * ESTIMATED_SLOT_LENGTH);
+        for (final Object segment : this.segments) {
+            if (segment instanceof Slot) {
+                this.renderSlot((Slot) segment, runScript, builder);
+            } else {
+                builder.append((String) segment);
+            }
+        }
+        return builder.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Render the run script for a job and write it to the given file, replacing any existing contents.
+     *
+     * @param runScript The model of the job's run script
+     * @param file      The file to write the script to
+     * @throws IOException On error writing the file
+     */
+    public void write(final RunScript runScript, final Path file) throws IOException {
+        try (final FileChannel channel = FileChannel.open(
+            file,
+            StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING,
+            StandardOpenOption.WRITE
+        )) {
+            this.write(runScript, channel);
+        }
+    }
+
+    /**
+     * Render the run script for a job and write it to the given channel. The whole script is handed to the channel
+     * at once so a file channel will normally write it with a single system call.
+     *
+     * @param runScript The model of the job's run script
+     * @param channel   The channel to write to. Not closed.
+     * @throws IOException On error writing to the channel
+     */
+    public void write(final RunScript runScript, final WritableByteChannel channel) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.wrap(this.render(runScript));
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private void renderSlot(final Slot slot, final RunScript runScript, final StringBuilder builder) {
+        switch (slot) {
+            case KILL_HANDLER:
+                if (runScript.isKillHandlerEnabled()) {
+                    builder.append(JobConstants.JOB_KILL_HANDLER_LOGIC).append(System.lineSeparator());
+                }
+                break;
+            case ENVIRONMENT:
+                for (final Map.Entry<String, String> variable : runScript.getEnvironmentVariables().entrySet()) {
+                    builder
+                        .append(JobConstants.EXPORT)
+                        .append(variable.getKey())
+                        .append(JobConstants.EQUALS_SYMBOL)
+                        .append(variable.getValue())
+                        .append(System.lineSeparator())
+                        .append(System.lineSeparator());
+                }
+                break;
+            case SETUP_FILES:
+                for (final RunScript.SetupFile setupFile : runScript.getSetupFiles()) {
+                    builder
+                        .append("# ")
+                        .append(setupFile.getDescription())
+                        .append(System.lineSeparator())
+                        .append(JobConstants.SOURCE)
+                        .append(setupFile.getPath())
+                        .append(System.lineSeparator())
+                        .append(System.lineSeparator());
+                }
+                break;
+            case COMMAND:
+                if (runScript.getCommandLine() != null) {
+                    builder.append(runScript.getCommandLine());
+                }
+                break;
+            default:
+                throw new IllegalStateException("Unhandled run script template slot " + slot);
+        }
+    }
+
+    /**
+     * The parts of the template filled in from the model.
+     */
+    private enum Slot {
+        KILL_HANDLER("killHandler"),
+        ENVIRONMENT("environment"),
+        SETUP_FILES("setupFiles"),
+        COMMAND("command");
+
+        private final String name;
+
+        Slot(final String name) {
+            this.name = name;
+        }
+
+        /**
+         * Find the slot with the given name.
+         *
+         * @param name The name used in the template
+         * @return The slot
+         * @throws IllegalArgumentException If there is no slot with the name
+         */
+        static Slot parse(final String name) {
+            for (final Slot slot : values()) {
+                if (slot.name.equals(name)) {
+                    return slot;
+                }
+            }
+            throw new IllegalArgumentException("Unknown run script template slot " + name);
+        }
+    }
+}
@@ -21,6 +21,7 @@ import com.netflix.genie.common.dto.Application;
 import com.netflix.genie.common.exceptions.GenieException;
 import com.netflix.genie.core.jobs.AdminResources;
 import com.netflix.genie.core.jobs.FileType;
+import com.netflix.genie.core.jobs.PreparedEnvironmentCache;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 
@@ -37,6 +38,25 @@ import java.util.Map;
 @Slf4j
 public class ApplicationTask extends GenieBaseTask {
 
+    private final PreparedEnvironmentCache preparedEnvironmentCache;
+
+    /**
+     * Constructor. The files of the applications are always downloaded.
+     */
+    public ApplicationTask() {
+        this(null);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param preparedEnvironmentCache The cache to clone the files of the applications from. Null to always download
+     *                                 them.
+     */
+    public ApplicationTask(final PreparedEnvironmentCache preparedEnvironmentCache) {
+        this.preparedEnvironmentCache = preparedEnvironmentCache;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -49,66 +69,72 @@ public class ApplicationTask extends GenieBaseTask {
         super.executeTask(context);
 
         if (this.jobExecEnv.getApplications() != null) {
-            for (Application application : this.jobExecEnv.getApplications()) {
+            for (final Application application : this.jobExecEnv.getApplications()) {
+                final String applicationSetupFile = application.getSetupFile();
 
-                // Create the directory for this application under applications in the cwd
-                createEntityInstanceDirectory(
+                super.fetchEntityFiles(
+                    this.preparedEnvironmentCache,
+                    AdminResources.APPLICATION,
                     application.getId(),
-                    AdminResources.APPLICATION
-                );
+                    application.getUpdated(),
+                    root -> {
+                        // Get the setup file if specified
+                        if (StringUtils.isNotBlank(applicationSetupFile)) {
+                            this.fts.getFile(
+                                applicationSetupFile,
+                                super.buildLocalFilePath(
+                                    root,
+                                    application.getId(),
+                                    applicationSetupFile,
+                                    FileType.SETUP,
+                                    AdminResources.APPLICATION
+                                )
+                            );
+                        }
 
-                // Create the config directory for this id
-                createEntityInstanceConfigDirectory(
-                    application.getId(),
-                    AdminResources.APPLICATION
-                );
+                        // Iterate over and get all dependencies
+                        for (final String dependencyFile : application.getDependencies()) {
+                            this.fts.getFile(
+                                dependencyFile,
+                                super.buildLocalFilePath(
+                                    root,
+                                    application.getId(),
+                                    dependencyFile,
+                                    FileType.DEPENDENCIES,
+                                    AdminResources.APPLICATION
+                                )
+                            );
+                        }
 
-                // Create the dependencies directory for this id
-                createEntityInstanceDependenciesDirectory(
-                    application.getId(),
-                    AdminResources.APPLICATION
+                        // Iterate over and get all configuration files
+                        for (final String configFile : application.getConfigs()) {
+                            this.fts.getFile(
+                                configFile,
+                                super.buildLocalFilePath(
+                                    root,
+                                    application.getId(),
+                                    configFile,
+                                    FileType.CONFIG,
+                                    AdminResources.APPLICATION
+                                )
+                            );
+                        }
+                    }
                 );
 
-                // Get the setup file if specified and add it as source command in launcher script
-                final String applicationSetupFile = application.getSetupFile();
-                if (applicationSetupFile != null && StringUtils.isNotBlank(applicationSetupFile)) {
-                    final String localPath = super.buildLocalFilePath(
-                        this.jobWorkingDirectory,
-                        application.getId(),
-                        applicationSetupFile,
-                        FileType.SETUP,
-                        AdminResources.APPLICATION
-                    );
-                    this.fts.getFile(applicationSetupFile, localPath);
-
+                // Add the setup file as source command in launcher script
+                if (StringUtils.isNotBlank(applicationSetupFile)) {
                     super.generateSetupFileSourceSnippet(
                         application.getId(),
                         "Application:",
-                        localPath);
-                }
-
-                // Iterate over and get all dependencies
-                for (final String dependencyFile: application.getDependencies()) {
-                    final String localPath = super.buildLocalFilePath(
-                        this.jobWorkingDirectory,
-                        application.getId(),
-                        dependencyFile,
-                        FileType.DEPENDENCIES,
-                        AdminResources.APPLICATION
-                    );
-                    this.fts.getFile(dependencyFile, localPath);
-                }
-
-                // Iterate over and get all configuration files
-                for (final String configFile: application.getConfigs()) {
-                    final String localPath = super.buildLocalFilePath(
-                        this.jobWorkingDirectory,
-                        application.getId(),
-                        configFile,
-                        FileType.CONFIG,
-                        AdminResources.APPLICATION
+                        super.buildLocalFilePath(
+                            this.jobWorkingDirectory,
+                            application.getId(),
+                            applicationSetupFile,
+                            FileType.SETUP,
+                            AdminResources.APPLICATION
+                        )
                     );
-                    this.fts.getFile(configFile, localPath);
                 }
             }
         }
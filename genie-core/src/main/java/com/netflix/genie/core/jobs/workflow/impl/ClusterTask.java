@@ -17,9 +17,11 @@
  */
 package com.netflix.genie.core.jobs.workflow.impl;
 
+import com.netflix.genie.common.dto.Cluster;
 import com.netflix.genie.common.exceptions.GenieException;
 import com.netflix.genie.core.jobs.AdminResources;
 import com.netflix.genie.core.jobs.FileType;
+import com.netflix.genie.core.jobs.PreparedEnvironmentCache;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 
@@ -35,6 +37,25 @@ import java.util.Map;
  */
 @Slf4j
 public class ClusterTask extends GenieBaseTask {
+
+    private final PreparedEnvironmentCache preparedEnvironmentCache;
+
+    /**
+     * Constructor. The files of the cluster are always downloaded.
+     */
+    public ClusterTask() {
+        this(null);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param preparedEnvironmentCache The cache to clone the files of the cluster from. Null to always download them.
+     */
+    public ClusterTask(final PreparedEnvironmentCache preparedEnvironmentCache) {
+        this.preparedEnvironmentCache = preparedEnvironmentCache;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -47,54 +68,58 @@ public class ClusterTask extends GenieBaseTask {
 
         super.executeTask(context);
 
-        // Create the directory for this application under applications in the cwd
-        createEntityInstanceDirectory(
-            this.jobExecEnv.getCluster().getId(),
-            AdminResources.CLUSTER
-        );
+        final Cluster cluster = this.jobExecEnv.getCluster();
+        final String clusterSetupFile = cluster.getSetupFile();
 
-        // Create the config directory for this id
-        createEntityInstanceConfigDirectory(
-            this.jobExecEnv.getCluster().getId(),
-            AdminResources.CLUSTER
-        );
+        super.fetchEntityFiles(
+            this.preparedEnvironmentCache,
+            AdminResources.CLUSTER,
+            cluster.getId(),
+            cluster.getUpdated(),
+            root -> {
+                // Get the set up file for cluster
+                if (StringUtils.isNotBlank(clusterSetupFile)) {
+                    this.fts.getFile(
+                        clusterSetupFile,
+                        super.buildLocalFilePath(
+                            root,
+                            cluster.getId(),
+                            clusterSetupFile,
+                            FileType.SETUP,
+                            AdminResources.CLUSTER
+                        )
+                    );
+                }
 
-        // Create the dependencies directory for this id
-        createEntityInstanceDependenciesDirectory(
-            this.jobExecEnv.getCluster().getId(),
-            AdminResources.CLUSTER
+                // Iterate over and get all configuration files
+                for (final String configFile : cluster.getConfigs()) {
+                    this.fts.getFile(
+                        configFile,
+                        super.buildLocalFilePath(
+                            root,
+                            cluster.getId(),
+                            configFile,
+                            FileType.CONFIG,
+                            AdminResources.CLUSTER
+                        )
+                    );
+                }
+            }
         );
 
-        // Get the set up file for cluster and add it to source in launcher script
-        final String clusterSetupFile = jobExecEnv.getCluster().getSetupFile();
-
-        if (clusterSetupFile != null && StringUtils.isNotBlank(clusterSetupFile)) {
-            final String localPath = super.buildLocalFilePath(
-                this.jobWorkingDirectory,
-                jobExecEnv.getCluster().getId(),
-                clusterSetupFile,
-                FileType.SETUP,
-                AdminResources.CLUSTER
-            );
-
-            fts.getFile(clusterSetupFile, localPath);
-
+        // Add the set up file for cluster to source in launcher script
+        if (StringUtils.isNotBlank(clusterSetupFile)) {
             super.generateSetupFileSourceSnippet(
-                jobExecEnv.getCluster().getId(),
+                cluster.getId(),
                 "Cluster:",
-                localPath);
-        }
-
-        // Iterate over and get all configuration files
-        for (final String configFile: jobExecEnv.getCluster().getConfigs()) {
-            final String localPath = super.buildLocalFilePath(
-                this.jobWorkingDirectory,
-                jobExecEnv.getCluster().getId(),
-                configFile,
-                FileType.CONFIG,
-                AdminResources.CLUSTER
+                super.buildLocalFilePath(
+                    this.jobWorkingDirectory,
+                    cluster.getId(),
+                    clusterSetupFile,
+                    FileType.SETUP,
+                    AdminResources.CLUSTER
+                )
             );
-            this.fts.getFile(configFile, localPath);
         }
     }
 }
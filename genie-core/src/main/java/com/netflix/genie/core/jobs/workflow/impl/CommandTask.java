@@ -17,9 +17,11 @@
  */
 package com.netflix.genie.core.jobs.workflow.impl;
 
+import com.netflix.genie.common.dto.Command;
 import com.netflix.genie.common.exceptions.GenieException;
 import com.netflix.genie.core.jobs.AdminResources;
 import com.netflix.genie.core.jobs.FileType;
+import com.netflix.genie.core.jobs.PreparedEnvironmentCache;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 
@@ -36,6 +38,24 @@ import java.util.Map;
 @Slf4j
 public class CommandTask extends GenieBaseTask {
 
+    private final PreparedEnvironmentCache preparedEnvironmentCache;
+
+    /**
+     * Constructor. The files of the command are always downloaded.
+     */
+    public CommandTask() {
+        this(null);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param preparedEnvironmentCache The cache to clone the files of the command from. Null to always download them.
+     */
+    public CommandTask(final PreparedEnvironmentCache preparedEnvironmentCache) {
+        this.preparedEnvironmentCache = preparedEnvironmentCache;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -48,53 +68,58 @@ public class CommandTask extends GenieBaseTask {
 
         super.executeTask(context);
 
-        // Create the directory for this command under command dir in the cwd
-        createEntityInstanceDirectory(
-            this.jobExecEnv.getCommand().getId(),
-            AdminResources.COMMAND
-        );
+        final Command command = this.jobExecEnv.getCommand();
+        final String commandSetupFile = command.getSetupFile();
 
-        // Create the config directory for this id
-        createEntityInstanceConfigDirectory(
-            this.jobExecEnv.getCommand().getId(),
-            AdminResources.COMMAND
-        );
+        super.fetchEntityFiles(
+            this.preparedEnvironmentCache,
+            AdminResources.COMMAND,
+            command.getId(),
+            command.getUpdated(),
+            root -> {
+                // Get the setup file if specified
+                if (StringUtils.isNotBlank(commandSetupFile)) {
+                    this.fts.getFile(
+                        commandSetupFile,
+                        super.buildLocalFilePath(
+                            root,
+                            command.getId(),
+                            commandSetupFile,
+                            FileType.SETUP,
+                            AdminResources.COMMAND
+                        )
+                    );
+                }
 
-        // Create the dependencies directory for this id
-        createEntityInstanceDependenciesDirectory(
-            this.jobExecEnv.getCommand().getId(),
-            AdminResources.COMMAND
+                // Iterate over and get all configuration files
+                for (final String configFile : command.getConfigs()) {
+                    this.fts.getFile(
+                        configFile,
+                        super.buildLocalFilePath(
+                            root,
+                            command.getId(),
+                            configFile,
+                            FileType.CONFIG,
+                            AdminResources.COMMAND
+                        )
+                    );
+                }
+            }
         );
 
-        // Get the setup file if specified and add it as source command in launcher script
-        final String commandSetupFile = jobExecEnv.getCommand().getSetupFile();
-        if (commandSetupFile != null && StringUtils.isNotBlank(commandSetupFile)) {
-            final String localPath = super.buildLocalFilePath(
-                this.jobWorkingDirectory,
-                jobExecEnv.getCommand().getId(),
-                commandSetupFile,
-                FileType.SETUP,
-                AdminResources.COMMAND
-            );
-
-            this.fts.getFile(commandSetupFile, localPath);
-
+        // Add the setup file as source command in launcher script
+        if (StringUtils.isNotBlank(commandSetupFile)) {
             super.generateSetupFileSourceSnippet(
-                jobExecEnv.getCommand().getId(),
+                command.getId(),
                 "Command:",
-                localPath);
-        }
-
-        // Iterate over and get all configuration files
-        for (final String configFile: jobExecEnv.getCommand().getConfigs()) {
-            final String localPath = super.buildLocalFilePath(
-                this.jobWorkingDirectory,
-                jobExecEnv.getCommand().getId(),
-                configFile,
-                FileType.CONFIG,
-                AdminResources.COMMAND
+                super.buildLocalFilePath(
+                    this.jobWorkingDirectory,
+                    command.getId(),
+                    commandSetupFile,
+                    FileType.SETUP,
+                    AdminResources.COMMAND
+                )
             );
-            this.fts.getFile(configFile, localPath);
         }
     }
 }
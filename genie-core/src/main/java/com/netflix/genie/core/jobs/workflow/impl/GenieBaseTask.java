@@ -23,16 +23,18 @@ import com.netflix.genie.common.exceptions.GenieServerException;
 import com.netflix.genie.core.jobs.AdminResources;
 import com.netflix.genie.core.jobs.FileType;
 import com.netflix.genie.core.jobs.JobConstants;
+import com.netflix.genie.core.jobs.JobDirectoryLayout;
 import com.netflix.genie.core.jobs.JobExecutionEnvironment;
+import com.netflix.genie.core.jobs.PreparedEnvironmentCache;
+import com.netflix.genie.core.jobs.RunScript;
 import com.netflix.genie.core.jobs.workflow.WorkflowTask;
 import com.netflix.genie.core.services.impl.GenieFileTransferService;
 import lombok.extern.slf4j.Slf4j;
 import org.hibernate.validator.constraints.NotBlank;
 
 import javax.validation.constraints.NotNull;
-import java.io.File;
 import java.io.IOException;
-import java.io.Writer;
+import java.util.Date;
 import java.util.Map;
 
 /**
@@ -49,7 +51,8 @@ public abstract class GenieBaseTask implements WorkflowTask {
     protected JobExecutionEnvironment jobExecEnv;
     protected String jobWorkingDirectory;
     protected String genieDir;
-    protected Writer writer;
+    protected JobDirectoryLayout layout;
+    protected RunScript runScript;
 
     /**
      * {@inheritDoc}
@@ -70,17 +73,21 @@ public abstract class GenieBaseTask implements WorkflowTask {
 
         this.fts = (GenieFileTransferService) context.get(JobConstants.FILE_TRANSFER_SERVICE_KEY);
 
-        try {
-            this.jobWorkingDirectory = this.jobExecEnv.getJobWorkingDir().getCanonicalPath();
-        } catch (IOException ioe) {
-            throw new GenieServerException("Could not get base job working directory due to " + ioe);
+        // Plan the layout once per job and share it with the rest of the tasks
+        this.layout = (JobDirectoryLayout) context.get(JobConstants.JOB_DIRECTORY_LAYOUT_KEY);
+        if (this.layout == null) {
+            try {
+                this.layout = JobDirectoryLayout.plan(this.jobExecEnv);
+            } catch (IOException ioe) {
+                throw new GenieServerException("Could not get base job working directory due to " + ioe);
+            }
+            context.put(JobConstants.JOB_DIRECTORY_LAYOUT_KEY, this.layout);
         }
 
-        this.writer = (Writer) context.get(JobConstants.WRITER_KEY);
+        this.runScript = (RunScript) context.get(JobConstants.RUN_SCRIPT_KEY);
 
-        this.genieDir = this.jobWorkingDirectory
-            + JobConstants.FILE_PATH_DELIMITER
-            + JobConstants.GENIE_PATH_VAR;
+        this.jobWorkingDirectory = this.layout.getJobDirectory().toString();
+        this.genieDir = this.layout.getGenieDirectory().toString();
     }
 
     /**
@@ -163,155 +170,48 @@ public abstract class GenieBaseTask implements WorkflowTask {
     }
 
     /**
-     * Helper method to create the directory for a particular application, cluster or command in the
-     * current working directory for the job.
+     * Helper method to get the files of an application, command or cluster into the job directory. If a cache of
+     * prepared environments is available the files are cloned from it, otherwise they are downloaded directly.
      *
-     * @param id The id of entity instance
+     * @param cache The cache of prepared environments. Null to always download the files.
      * @param adminResources The type of entity Application, Cluster or Command
-     *
+     * @param id The id of the entity
+     * @param updated When the entity was last updated. Null to always download the files.
+     * @param preparer Downloads the files of the entity under the root directory passed to it
      * @throws GenieException If there is any problem
      */
-    public void createEntityInstanceDirectory(
-        @NotBlank
-        final String id,
+    protected void fetchEntityFiles(
+        final PreparedEnvironmentCache cache,
         @NotNull
-        final AdminResources adminResources
-    ) throws GenieException {
-        String entityPathVar = null;
-
-        switch (adminResources) {
-            case APPLICATION:
-                entityPathVar = JobConstants.APPLICATION_PATH_VAR;
-                break;
-            case COMMAND:
-                entityPathVar = JobConstants.COMMAND_PATH_VAR;
-                break;
-            case CLUSTER:
-                entityPathVar = JobConstants.CLUSTER_PATH_VAR;
-                break;
-            // TODO The @NotNull validation will make sure we never reach default, but checkstyle forces a default.
-            default:
-        }
-
-        this.createDirectory(
-            this.genieDir
-                + JobConstants.FILE_PATH_DELIMITER
-                + entityPathVar
-                + JobConstants.FILE_PATH_DELIMITER
-                + id);
-    }
-
-    /**
-     * Helper method to create the config directory for a particular application, cluster or command in the
-     * current working directory for the job.
-     *
-     * @param id The id of entity instance
-     * @param adminResources The type of entity Application, Cluster or Command
-     *
-     * @throws GenieException If there is any problem
-     */
-    public void createEntityInstanceConfigDirectory(
+        final AdminResources adminResources,
         @NotBlank
         final String id,
+        final Date updated,
         @NotNull
-        final AdminResources adminResources
+        final PreparedEnvironmentCache.Preparer preparer
     ) throws GenieException {
-        String entityPathVar = null;
-
-        switch (adminResources) {
-            case APPLICATION:
-                entityPathVar = JobConstants.APPLICATION_PATH_VAR;
-                break;
-            case COMMAND:
-                entityPathVar = JobConstants.COMMAND_PATH_VAR;
-                break;
-            case CLUSTER:
-                entityPathVar = JobConstants.CLUSTER_PATH_VAR;
-                break;
-            // TODO The @NotNull validation will make sure we never reach default, but checkstyle forces a default.
-            default:
-        }
-
-        this.createDirectory(
-            this.genieDir
-                + JobConstants.FILE_PATH_DELIMITER
-                + entityPathVar
-                + JobConstants.FILE_PATH_DELIMITER
-                + id
-                + JobConstants.FILE_PATH_DELIMITER
-                + JobConstants.CONFIG_FILE_PATH_PREFIX);
-    }
-
-    /**
-     * Helper method to create the dependency directory for a particular application, cluster or command in the
-     * current working directory for the job.
-     *
-     * @param id The id of entity instance
-     * @param adminResources The type of entity Application, Cluster or Command
-     *
-     * @throws GenieException If there is any problem
-     */
-    public void createEntityInstanceDependenciesDirectory(
-        @NotBlank
-        final String id,
-        @NotNull
-        final AdminResources adminResources
-    ) throws GenieException {
-        String entityPathVar = null;
-
-        switch (adminResources) {
-            case APPLICATION:
-                entityPathVar = JobConstants.APPLICATION_PATH_VAR;
-                break;
-            case COMMAND:
-                entityPathVar = JobConstants.COMMAND_PATH_VAR;
-                break;
-            case CLUSTER:
-                entityPathVar = JobConstants.CLUSTER_PATH_VAR;
-                break;
-            // TODO The @NotNull validation will make sure we never reach default, but checkstyle forces a default.
-            default:
+        if (cache == null || updated == null) {
+            preparer.prepare(this.jobWorkingDirectory);
+        } else {
+            cache.cloneInto(adminResources, id, updated, this.layout, preparer);
         }
-
-        this.createDirectory(
-            this.genieDir
-                + JobConstants.FILE_PATH_DELIMITER
-                + entityPathVar
-                + JobConstants.FILE_PATH_DELIMITER
-                + id
-                + JobConstants.FILE_PATH_DELIMITER
-                + JobConstants.DEPENDENCY_FILE_PATH_PREFIX);
     }
 
     /**
-     * Helper method to create directories on local filesystem.
+     * Helper method to add a setup file to the run script so it is sourced before the command runs.
      *
-     * @param dirPath The directory path to create
-     * @throws GenieException If there is a problem.
+     * @param id The id of the entity the setup file belongs to
+     * @param type The type of the entity the setup file belongs to
+     * @param filePath The local path of the setup file
      */
-    protected void createDirectory(
-        @NotBlank(message = "Directory path cannot be blank.")
-        final String dirPath
-    ) throws GenieException {
-        final File dir = new File(dirPath);
-        if (!dir.mkdirs()) {
-            throw new GenieServerException("Could not create directory: " + dirPath);
-        }
-    }
-
     protected void generateSetupFileSourceSnippet(
         final String id,
         final String type,
         final String filePath
-    ) throws IOException {
-        writer.write("# Sourcing setup file from " + type + " " + id + System.lineSeparator());
-
-        writer.write(
-            JobConstants.SOURCE
-                + filePath.replace(this.jobWorkingDirectory, "${" + JobConstants.GENIE_JOB_DIR_ENV_VAR + "}")
-                + System.lineSeparator());
-
-        // Append new line
-        writer.write(System.lineSeparator());
+    ) {
+        this.runScript.addSetupFile(
+            "Sourcing setup file from " + type + " " + id,
+            filePath.replace(this.jobWorkingDirectory, "${" + JobConstants.GENIE_JOB_DIR_ENV_VAR + "}")
+        );
     }
 }
@@ -18,6 +18,7 @@
 package com.netflix.genie.core.jobs.workflow.impl;
 
 import com.netflix.genie.common.exceptions.GenieException;
+import com.netflix.genie.common.exceptions.GenieServerException;
 import com.netflix.genie.core.jobs.JobConstants;
 import lombok.extern.slf4j.Slf4j;
 
@@ -46,99 +47,52 @@ public class InitialSetupTask extends GenieBaseTask {
 
         super.executeTask(context);
 
-        /** create top level directory structure for the job **/
-
-        // Genie Directory {basedir/genie}
-        super.createDirectory(this.jobWorkingDirectory
-            + JobConstants.FILE_PATH_DELIMITER
-            + JobConstants.GENIE_PATH_VAR);
-
-        // Genie Logs directory {basedir/genie/logs}
-        super.createDirectory(this.jobWorkingDirectory
-            + JobConstants.FILE_PATH_DELIMITER
-            + JobConstants.GENIE_PATH_VAR
-            + JobConstants.FILE_PATH_DELIMITER
-            + JobConstants.LOGS_PATH_VAR);
-
-        // Genie applications directory {basedir/genie/applications}
-        super.createDirectory(this.jobWorkingDirectory
-            + JobConstants.FILE_PATH_DELIMITER
-            + JobConstants.GENIE_PATH_VAR
-            + JobConstants.FILE_PATH_DELIMITER
-            + JobConstants.APPLICATION_PATH_VAR);
-
-        // Genie command directory {basedir/genie/command}
-        super.createDirectory(this.jobWorkingDirectory
-            + JobConstants.FILE_PATH_DELIMITER
-            + JobConstants.GENIE_PATH_VAR
-            + JobConstants.FILE_PATH_DELIMITER
-            + JobConstants.COMMAND_PATH_VAR);
-
-        // Genie cluster directory {basedir/genie/cluster}
-        super.createDirectory(this.jobWorkingDirectory
-            + JobConstants.FILE_PATH_DELIMITER
-            + JobConstants.GENIE_PATH_VAR
-            + JobConstants.FILE_PATH_DELIMITER
-            + JobConstants.CLUSTER_PATH_VAR);
+        /** create the whole directory structure for the job including the cluster, command and applications **/
+        try {
+            this.layout.create();
+        } catch (final IOException ioe) {
+            throw new GenieServerException("Could not create job directory structure due to " + ioe);
+        }
 
         /** set the env variables in the launcher script **/
 
         // set environment variable for the job directory
-        writer.write(JobConstants.EXPORT
-            + JobConstants.GENIE_JOB_DIR_ENV_VAR
-            + JobConstants.EQUALS_SYMBOL
-            + this.jobWorkingDirectory
-            + System.lineSeparator());
-
-        // Append new line
-        writer.write(System.lineSeparator());
+        this.runScript.addEnvironmentVariable(JobConstants.GENIE_JOB_DIR_ENV_VAR, this.jobWorkingDirectory);
 
         // create environment variable for the application directory
-        writer.write(JobConstants.EXPORT
-            + JobConstants.GENIE_APPLICATION_DIR_ENV_VAR
-            + JobConstants.EQUALS_SYMBOL
-            + "${"
-            + JobConstants.GENIE_JOB_DIR_ENV_VAR
-            + "}"
-            + JobConstants.FILE_PATH_DELIMITER
-            + JobConstants.GENIE_PATH_VAR
-            + JobConstants.FILE_PATH_DELIMITER
-            + JobConstants.APPLICATION_PATH_VAR
-            + System.lineSeparator());
-
-        // Append new line
-        writer.write(System.lineSeparator());
+        this.runScript.addEnvironmentVariable(
+            JobConstants.GENIE_APPLICATION_DIR_ENV_VAR,
+            "${"
+                + JobConstants.GENIE_JOB_DIR_ENV_VAR
+                + "}"
+                + JobConstants.FILE_PATH_DELIMITER
+                + JobConstants.GENIE_PATH_VAR
+                + JobConstants.FILE_PATH_DELIMITER
+                + JobConstants.APPLICATION_PATH_VAR
+        );
 
         // create environment variable for the command directory
-        writer.write(JobConstants.EXPORT
-            + JobConstants.GENIE_COMMAND_DIR_ENV_VAR
-            + JobConstants.EQUALS_SYMBOL
-            + "${"
-            + JobConstants.GENIE_JOB_DIR_ENV_VAR
-            + "}"
-            + JobConstants.FILE_PATH_DELIMITER
-            + JobConstants.GENIE_PATH_VAR
-            + JobConstants.FILE_PATH_DELIMITER
-            + JobConstants.COMMAND_PATH_VAR
-            + System.lineSeparator());
-
-        // Append new line
-        writer.write(System.lineSeparator());
+        this.runScript.addEnvironmentVariable(
+            JobConstants.GENIE_COMMAND_DIR_ENV_VAR,
+            "${"
+                + JobConstants.GENIE_JOB_DIR_ENV_VAR
+                + "}"
+                + JobConstants.FILE_PATH_DELIMITER
+                + JobConstants.GENIE_PATH_VAR
+                + JobConstants.FILE_PATH_DELIMITER
+                + JobConstants.COMMAND_PATH_VAR
+        );
 
         // create environment variable for the cluster directory
-        writer.write(JobConstants.EXPORT
-            + JobConstants.GENIE_CLUSTER_DIR_ENV_VAR
-            + JobConstants.EQUALS_SYMBOL
-            + "${"
-            + JobConstants.GENIE_JOB_DIR_ENV_VAR
-            + "}"
-            + JobConstants.FILE_PATH_DELIMITER
-            + JobConstants.GENIE_PATH_VAR
-            + JobConstants.FILE_PATH_DELIMITER
-            + JobConstants.CLUSTER_PATH_VAR
-            + System.lineSeparator());
-
-        // Append new line
-        writer.write(System.lineSeparator());
+        this.runScript.addEnvironmentVariable(
+            JobConstants.GENIE_CLUSTER_DIR_ENV_VAR,
+            "${"
+                + JobConstants.GENIE_JOB_DIR_ENV_VAR
+                + "}"
+                + JobConstants.FILE_PATH_DELIMITER
+                + JobConstants.GENIE_PATH_VAR
+                + JobConstants.FILE_PATH_DELIMITER
+                + JobConstants.CLUSTER_PATH_VAR
+        );
     }
 }
@@ -22,6 +22,9 @@ import com.netflix.genie.common.dto.JobRequest;
 import com.netflix.genie.common.exceptions.GenieException;
 import com.netflix.genie.common.exceptions.GenieServerException;
 import com.netflix.genie.core.jobs.JobConstants;
+import com.netflix.genie.core.jobs.KnownUserCache;
+import com.netflix.genie.core.jobs.PreforkedJobLauncher;
+import com.netflix.genie.core.jobs.RunScriptTemplate;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.exec.CommandLine;
 import org.apache.commons.exec.Executor;
@@ -53,6 +56,8 @@ public class JobKickoffTask extends GenieBaseTask {
     private boolean isUserCreationEnabled;
     private Executor executor;
     private String hostname;
+    private PreforkedJobLauncher launcher;
+    private KnownUserCache knownUserCache;
 
     /**
      * Constructor.
@@ -67,11 +72,34 @@ public class JobKickoffTask extends GenieBaseTask {
         final boolean userCreationEnabled,
         final Executor executor,
         final String hostname
+    ) {
+        this(runAsUserEnabled, userCreationEnabled, executor, hostname, null, null);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param runAsUserEnabled Flag that tells if job should be run as user specified in the request
+     * @param userCreationEnabled Flag that tells if the user specified should be created
+     * @param executor An executor object used to run jobs
+     * @param hostname Hostname for the node the job is running on
+     * @param launcher The long lived launcher to start jobs through or null to start a new process per job
+     * @param knownUserCache The cache of users known to exist or null to check for the user on every job
+     */
+    public JobKickoffTask(
+        final boolean runAsUserEnabled,
+        final boolean userCreationEnabled,
+        final Executor executor,
+        final String hostname,
+        final PreforkedJobLauncher launcher,
+        final KnownUserCache knownUserCache
     ) {
         this.isRunAsUserEnabled = runAsUserEnabled;
         this.isUserCreationEnabled = userCreationEnabled;
         this.executor = executor;
         this.hostname = hostname;
+        this.launcher = launcher;
+        this.knownUserCache = knownUserCache;
     }
     /**
      * {@inheritDoc}
@@ -84,29 +112,34 @@ public class JobKickoffTask extends GenieBaseTask {
         log.info("Executing Job Kickoff Task in the workflow.");
         super.executeTask(context);
 
-        // At this point all contents are written to the run script and we call an explicit flush and close to write
-        // the contents to the file before we execute it.
+        // At this point every task has contributed to the run script model so render it to the file in one write
+        // before we execute it.
         try {
-            writer.flush();
-            writer.close();
+            RunScriptTemplate.DEFAULT.write(this.runScript, this.layout.getRunScript());
         } catch (IOException e) {
             throw new GenieServerException("Failed to execute job with exception." + e);
         }
 
-        final String runScript = this.jobWorkingDirectory
-            + JobConstants.FILE_PATH_DELIMITER
-            + JobConstants.GENIE_JOB_LAUNCHER_SCRIPT;
-
         if (this.isUserCreationEnabled) {
             createUser(this.jobExecEnv.getJobRequest().getUser(), this.jobExecEnv.getJobRequest().getGroup());
         }
 
+        if (this.launcher != null) {
+            // Ownership and the detached launch are handled by the launcher in a single request
+            final int processId = this.launcher.launch(
+                this.isRunAsUserEnabled ? this.jobExecEnv.getJobRequest().getUser() : null,
+                this.layout
+            );
+            context.put(JobConstants.JOB_EXECUTION_DTO_KEY, this.buildJobExecution(processId));
+            return;
+        }
+
         final List<String> command = new ArrayList<>();
         if (this.isRunAsUserEnabled) {
             changeOwnershipOfDirectory(this.jobWorkingDirectory, this.jobExecEnv.getJobRequest().getUser());
 
             // This is needed because the genie.log file is still generated as the user running Genie system.
-            makeDirGroupWritable(this.jobWorkingDirectory + "/genie/logs");
+            makeDirGroupWritable(this.layout.getLogsDirectory().toString());
             command.add("sudo");
             command.add("-u");
             command.add(this.jobExecEnv.getJobRequest().getUser());
@@ -118,7 +151,7 @@ public class JobKickoffTask extends GenieBaseTask {
             command.add("setsid");
         }
         command.add("bash");
-        command.add(runScript);
+        command.add(this.layout.getRunScript().toString());
 
         // Cannot convert to executor because it does not provide an api to get process id.
         final ProcessBuilder pb = new ProcessBuilder(command);
@@ -129,20 +162,24 @@ public class JobKickoffTask extends GenieBaseTask {
         try {
             final Process process = pb.start();
             final int processId = this.getProcessId(process);
-            final JobRequest request = this.jobExecEnv.getJobRequest();
-            final Calendar calendar = Calendar.getInstance(UTC);
-//            context.put(JobConstants.JOB_STARTED_KEY, new Date(calendar.getTime().getTime()));
-            calendar.add(Calendar.SECOND, request.getTimeout());
-            final JobExecution jobExecution = new JobExecution
-                .Builder(this.hostname, processId, this.jobExecEnv.getCommand().getCheckDelay(), calendar.getTime())
-                .withId(request.getId())
-                .build();
-            context.put(JobConstants.JOB_EXECUTION_DTO_KEY, jobExecution);
+            context.put(JobConstants.JOB_EXECUTION_DTO_KEY, this.buildJobExecution(processId));
         } catch (IOException ie) {
             throw new GenieServerException("Unable to start command " + String.valueOf(command), ie);
         }
     }
 
+    // Helper method to build the execution information of a job started with the given process id
+    private JobExecution buildJobExecution(final int processId) {
+        final JobRequest request = this.jobExecEnv.getJobRequest();
+        final Calendar calendar = Calendar.getInstance(UTC);
+//        context.put(JobConstants.JOB_STARTED_KEY, new Date(calendar.getTime().getTime()));
+        calendar.add(Calendar.SECOND, request.getTimeout());
+        return new JobExecution
+            .Builder(this.hostname, processId, this.jobExecEnv.getCommand().getCheckDelay(), calendar.getTime())
+            .withId(request.getId())
+            .build();
+    }
+
     // Helper method to add write permissions to a directory for the group owner
     private void makeDirGroupWritable(final String dir) throws GenieServerException {
         log.debug("Adding write permissions for the directory " + dir + " for the group.");
@@ -159,7 +196,7 @@ public class JobKickoffTask extends GenieBaseTask {
     }
 
     /**
-     * Create user on the system.
+     * Create user on the system. Users known to exist from earlier jobs aren't checked again if a cache is set.
      *
      * @param user user id
      * @param group group id
@@ -168,6 +205,17 @@ public class JobKickoffTask extends GenieBaseTask {
     public void createUser(
         final String user,
         final String group) throws GenieException {
+        if (this.knownUserCache != null) {
+            this.knownUserCache.ensureUser(user, () -> this.createUserIfMissing(user, group));
+        } else {
+            this.createUserIfMissing(user, group);
+        }
+    }
+
+    // Helper method to create a user unless it already exists. Returns true if the user was created.
+    private boolean createUserIfMissing(
+        final String user,
+        final String group) throws GenieException {
 
         // First check if user already exists
         final CommandLine idCheckCommandLine = new CommandLine("id");
@@ -177,6 +225,7 @@ public class JobKickoffTask extends GenieBaseTask {
         try {
             this.executor.execute(idCheckCommandLine);
             log.debug("User already exists");
+            return false;
         } catch (IOException ioe) {
             log.debug("User does not exist. Creating it now.");
 
@@ -209,6 +258,7 @@ public class JobKickoffTask extends GenieBaseTask {
             } catch (IOException ioexception) {
                 throw new GenieServerException("Could not create user " + user + "with exception " + ioexception);
             }
+            return true;
         }
     }
 
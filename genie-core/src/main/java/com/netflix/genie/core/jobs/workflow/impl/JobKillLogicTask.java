@@ -18,7 +18,6 @@
 package com.netflix.genie.core.jobs.workflow.impl;
 
 import com.netflix.genie.common.exceptions.GenieException;
-import com.netflix.genie.core.jobs.JobConstants;
 import lombok.extern.slf4j.Slf4j;
 
 import javax.validation.constraints.NotNull;
@@ -45,7 +44,7 @@ public class JobKillLogicTask extends GenieBaseTask {
         log.debug("Executing JobKillLogic Task in the workflow.");
         super.executeTask(context);
 
-        // Append logic for handling job kill signal
-        writer.write(JobConstants.JOB_KILL_HANDLER_LOGIC + System.lineSeparator());
+        // Include the logic for handling job kill signal in the run script
+        this.runScript.setKillHandlerEnabled(true);
     }
 }
@@ -70,14 +70,10 @@ public class JobTask extends GenieBaseTask {
 
             this.fts.getFile(jobSetupFile, localPath);
 
-            writer.write("# Sourcing setup file specified in job request" + System.lineSeparator());
-            writer.write(
-                JobConstants.SOURCE
-                    + localPath.replace(this.jobWorkingDirectory, "${" + JobConstants.GENIE_JOB_DIR_ENV_VAR + "}")
-                    + System.lineSeparator());
-
-            // Append new line
-            writer.write(System.lineSeparator());
+            this.runScript.addSetupFile(
+                "Sourcing setup file specified in job request",
+                localPath.replace(this.jobWorkingDirectory, "${" + JobConstants.GENIE_JOB_DIR_ENV_VAR + "}")
+            );
         }
 
         // Iterate over and get all dependencies
@@ -94,41 +90,11 @@ public class JobTask extends GenieBaseTask {
             jobExecEnv.getJobRequest().getId(),
             jobExecEnv.getJobWorkingDir());
 
-        // Print out the current Envrionment to a env file before running the command.
-        writer.write("# Dump the environment to a env.log file" + System.lineSeparator());
-        writer.write("env > " + "${"
-            + JobConstants.GENIE_JOB_DIR_ENV_VAR + "}"
-            + JobConstants.GENIE_ENV_PATH
-            + System.lineSeparator());
-
-        // Append new line
-        writer.write(System.lineSeparator());
-
-        writer.write("# Kick off the command in background mode and wait for it using its pid"
-            + System.lineSeparator());
-
-        writer.write(
+        // The environment dump, wait and done file handling are part of the run script template
+        this.runScript.setCommandLine(
             jobExecEnv.getCommand().getExecutable()
                 + JobConstants.WHITE_SPACE
                 + jobExecEnv.getJobRequest().getCommandArgs()
-                + JobConstants.STDOUT_REDIRECT
-                + JobConstants.STDOUT_LOG_FILE_NAME
-                + JobConstants.STDERR_REDIRECT
-                + JobConstants.STDERR_LOG_FILE_NAME
-                + " &"
-                + System.lineSeparator()
         );
-
-        // Wait for the above process started in background mode. Wait lets us get interrupted by kill signals.
-        writer.write("wait $!" + System.lineSeparator());
-
-        // Append new line
-        writer.write(System.lineSeparator());
-
-        // capture exit code and write to genie.done file
-        writer.write("# Write the return code from the command in the done file." + System.lineSeparator());
-        writer.write(JobConstants.GENIE_DONE_FILE_CONTENT_PREFIX
-            + JobConstants.GENIE_DONE_FILE_NAME
-            + System.lineSeparator());
     }
 }
@@ -22,6 +22,7 @@ import com.netflix.genie.common.dto.ApplicationStatus;
 import com.netflix.genie.common.exceptions.GenieException;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.BatchSize;
 
 import javax.persistence.Basic;
 import javax.persistence.CollectionTable;
@@ -65,6 +66,7 @@ public class ApplicationEntity extends SetupFileEntity {
     private String type;
 
     @ElementCollection(fetch = FetchType.EAGER)
+    @BatchSize(size = COLLECTION_BATCH_SIZE)
     @CollectionTable(
         name = "application_configs",
         joinColumns = @JoinColumn(name = "application_id", referencedColumnName = "id")
@@ -73,6 +75,7 @@ public class ApplicationEntity extends SetupFileEntity {
     private Set<String> configs = new HashSet<>();
 
     @ElementCollection(fetch = FetchType.EAGER)
+    @BatchSize(size = COLLECTION_BATCH_SIZE)
     @CollectionTable(
         name = "application_dependencies",
         joinColumns = @JoinColumn(name = "application_id", referencedColumnName = "id")
@@ -81,6 +84,7 @@ public class ApplicationEntity extends SetupFileEntity {
     private Set<String> dependencies = new HashSet<>();
 
     @ManyToMany(mappedBy = "applications", fetch = FetchType.LAZY)
+    @BatchSize(size = COLLECTION_BATCH_SIZE)
     private Set<CommandEntity> commands = new HashSet<>();
 
 //    @ManyToMany(mappedBy = "applications", fetch = FetchType.LAZY)
@@ -21,6 +21,7 @@ import com.netflix.genie.common.dto.Cluster;
 import com.netflix.genie.common.dto.ClusterStatus;
 import com.netflix.genie.common.exceptions.GenieException;
 import com.netflix.genie.common.exceptions.GeniePreconditionException;
+import org.hibernate.annotations.BatchSize;
 
 import javax.persistence.Basic;
 import javax.persistence.CollectionTable;
@@ -64,6 +65,7 @@ public class ClusterEntity extends SetupFileEntity {
     private ClusterStatus status;
 
     @ElementCollection(fetch = FetchType.EAGER)
+    @BatchSize(size = COLLECTION_BATCH_SIZE)
     @CollectionTable(
         name = "cluster_configs",
         joinColumns = @JoinColumn(name = "cluster_id", referencedColumnName = "id")
@@ -73,6 +75,7 @@ public class ClusterEntity extends SetupFileEntity {
 
     // TODO: Make lazy?
     @ManyToMany(fetch = FetchType.EAGER)
+    @BatchSize(size = COLLECTION_BATCH_SIZE)
     @JoinTable(
         name = "clusters_commands",
         joinColumns = {
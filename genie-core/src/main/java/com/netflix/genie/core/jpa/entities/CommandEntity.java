@@ -22,6 +22,7 @@ import com.netflix.genie.common.dto.CommandStatus;
 import com.netflix.genie.common.exceptions.GenieException;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.BatchSize;
 import org.hibernate.validator.constraints.Length;
 import org.hibernate.validator.constraints.NotBlank;
 
@@ -80,6 +81,7 @@ public class CommandEntity extends SetupFileEntity {
     private long checkDelay = Command.DEFAULT_CHECK_DELAY;
 
     @ElementCollection(fetch = FetchType.EAGER)
+    @BatchSize(size = COLLECTION_BATCH_SIZE)
     @CollectionTable(
         name = "command_configs",
         joinColumns = @JoinColumn(name = "command_id", referencedColumnName = "id")
@@ -89,6 +91,7 @@ public class CommandEntity extends SetupFileEntity {
 
     // TODO: Make lazy?
     @ManyToMany(fetch = FetchType.EAGER)
+    @BatchSize(size = COLLECTION_BATCH_SIZE)
     @JoinTable(
         name = "commands_applications",
         joinColumns = {
@@ -102,6 +105,7 @@ public class CommandEntity extends SetupFileEntity {
     private List<ApplicationEntity> applications = new ArrayList<>();
 
     @ManyToMany(mappedBy = "commands", fetch = FetchType.LAZY)
+    @BatchSize(size = COLLECTION_BATCH_SIZE)
     private Set<ClusterEntity> clusters = new HashSet<>();
 
     @OneToMany(mappedBy = "cluster", fetch = FetchType.LAZY)
@@ -17,16 +17,17 @@
  */
 package com.netflix.genie.core.jpa.entities;
 
-import com.google.common.collect.Sets;
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableSet;
 import com.netflix.genie.common.exceptions.GenieException;
 import org.hibernate.validator.constraints.NotBlank;
 
 import javax.persistence.Basic;
 import javax.persistence.Column;
 import javax.persistence.MappedSuperclass;
+import javax.persistence.Transient;
 import javax.validation.constraints.Size;
-import java.util.Arrays;
-import java.util.HashSet;
+import java.util.Objects;
 import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
@@ -44,7 +45,13 @@ public class CommonFieldsEntity extends BaseEntity {
     protected static final String GENIE_ID_TAG_NAMESPACE = GENIE_TAG_NAMESPACE + "id:";
     protected static final String GENIE_NAME_TAG_NAMESPACE = GENIE_TAG_NAMESPACE + "name:";
     protected static final String PIPE = "|";
-    protected static final String PIPE_REGEX = "\\" + PIPE;
+
+    /**
+     * How many collections of the same role to initialize in one IN query when loading a page of entities.
+     */
+    protected static final int COLLECTION_BATCH_SIZE = 100;
+
+    private static final Splitter TAG_SPLITTER = Splitter.on(PIPE).omitEmptyStrings();
 
     private static final long serialVersionUID = -5040659007494311180L;
 
@@ -76,6 +83,12 @@ public class CommonFieldsEntity extends BaseEntity {
     @Size(max = 2048, message = "Max length in database is 2048 characters")
     private String tags;
 
+    // Parsed view of the tags column. Only rebuilt when the column value changes underneath it (e.g. JPA load).
+    @Transient
+    private String parsedTags;
+    @Transient
+    private Set<String> tagSet;
+
     /**
      * Default constructor.
      */
@@ -159,16 +172,14 @@ public class CommonFieldsEntity extends BaseEntity {
     /**
      * Get the tags attached to this entity.
      *
-     * @return The tags attached to this entity
+     * @return The tags attached to this entity as an immutable set. Copy before modifying.
      */
     public Set<String> getTags() {
-        final Set<String> returnTags = new HashSet<>();
-
-        if (this.tags != null) {
-            returnTags.addAll(Arrays.asList(this.tags.split(PIPE_REGEX)));
+        if (this.tagSet == null || !Objects.equals(this.parsedTags, this.tags)) {
+            this.tagSet = this.tags == null ? ImmutableSet.of() : ImmutableSet.copyOf(TAG_SPLITTER.split(this.tags));
+            this.parsedTags = this.tags;
         }
-
-        return returnTags;
+        return this.tagSet;
     }
 
     /**
@@ -177,14 +188,14 @@ public class CommonFieldsEntity extends BaseEntity {
      * @param tags The tags to set
      */
     public void setTags(final Set<String> tags) {
-        this.tags = null;
         if (tags != null && !tags.isEmpty()) {
-            this.tags = tags
-                .stream()
-                .sorted(String.CASE_INSENSITIVE_ORDER)
-                .reduce((one, two) -> one + PIPE + two)
-                .get();
+            this.tagSet = ImmutableSet.copyOf(tags.stream().sorted(String.CASE_INSENSITIVE_ORDER).iterator());
+            this.tags = this.tagSet.stream().collect(Collectors.joining(PIPE));
+        } else {
+            this.tagSet = ImmutableSet.of();
+            this.tags = null;
         }
+        this.parsedTags = this.tags;
     }
 
     /**
@@ -194,15 +205,10 @@ public class CommonFieldsEntity extends BaseEntity {
      * @throws GenieException On any exception
      */
     protected Set<String> getFinalTags() throws GenieException {
-        final Set<String> finalTags;
-        if (this.tags == null) {
-            finalTags = Sets.newHashSet();
-        } else {
-            finalTags = Sets.newHashSet(this.tags.split(PIPE_REGEX))
-                .stream()
-                .filter(tag -> !tag.contains(GENIE_TAG_NAMESPACE))
-                .collect(Collectors.toSet());
-        }
+        final Set<String> finalTags = this.getTags()
+            .stream()
+            .filter(tag -> !tag.contains(GENIE_TAG_NAMESPACE))
+            .collect(Collectors.toSet());
         if (this.getId() == null) {
             this.setId(UUID.randomUUID().toString());
         }
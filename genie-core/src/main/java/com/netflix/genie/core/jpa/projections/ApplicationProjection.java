@@ -0,0 +1,87 @@
+/*
+ *
+ *  Copyright 2016 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.core.jpa.projections;
+
+import com.netflix.genie.common.dto.Application;
+import com.netflix.genie.common.dto.ApplicationStatus;
+
+import java.util.Date;
+
+/**
+ * A row of application data joined with at most one of its configuration files. The dependencies are read separately
+ * as {@link DependencyProjection} rows so the two collections aren't multiplied together.
+ *
+ * @author agent
+ * @since 3.0.0
+ */
+public class ApplicationProjection extends SetupFileProjection {
+
+    private final ApplicationStatus status;
+    private final String type;
+
+    /**
+     * Constructor used by JPQL constructor expressions.
+     *
+     * @param id          The id of the application
+     * @param name        The name of the application
+     * @param user        The user who owns the application
+     * @param version     The version of the application
+     * @param description The description of the application
+     * @param tags        The pipe delimited tags as stored in the database
+     * @param created     When the application was created
+     * @param updated     When the application was last updated
+     * @param setupFile   The setup file location of the application
+     * @param status      The status of the application
+     * @param type        The type of the application
+     * @param config      One configuration file location of the application or null if there are none
+     */
+    public ApplicationProjection(
+        final String id,
+        final String name,
+        final String user,
+        final String version,
+        final String description,
+        final String tags,
+        final Date created,
+        final Date updated,
+        final String setupFile,
+        final ApplicationStatus status,
+        final String type,
+        final String config
+    ) {
+        super(id, name, user, version, description, tags, created, updated, setupFile, config);
+        this.status = status;
+        this.type = type;
+    }
+
+    /**
+     * Get an application builder populated with everything in this row except the configs and dependencies.
+     *
+     * @return The builder
+     */
+    public Application.Builder getBuilder() {
+        return new Application.Builder(this.getName(), this.getUser(), this.getVersion(), this.status)
+            .withId(this.getId())
+            .withCreated(this.getCreated())
+            .withUpdated(this.getUpdated())
+            .withDescription(this.getDescription())
+            .withTags(this.getTags())
+            .withSetupFile(this.getSetupFile())
+            .withType(this.type);
+    }
+}
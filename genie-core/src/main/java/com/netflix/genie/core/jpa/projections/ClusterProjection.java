@@ -0,0 +1,81 @@
+/*
+ *
+ *  Copyright 2016 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.core.jpa.projections;
+
+import com.netflix.genie.common.dto.Cluster;
+import com.netflix.genie.common.dto.ClusterStatus;
+
+import java.util.Date;
+
+/**
+ * A row of cluster data joined with at most one of its configuration files.
+ *
+ * @author agent
+ * @since 3.0.0
+ */
+public class ClusterProjection extends SetupFileProjection {
+
+    private final ClusterStatus status;
+
+    /**
+     * Constructor used by JPQL constructor expressions.
+     *
+     * @param id          The id of the cluster
+     * @param name        The name of the cluster
+     * @param user        The user who owns the cluster
+     * @param version     The version of the cluster
+     * @param description The description of the cluster
+     * @param tags        The pipe delimited tags as stored in the database
+     * @param created     When the cluster was created
+     * @param updated     When the cluster was last updated
+     * @param setupFile   The setup file location of the cluster
+     * @param status      The status of the cluster
+     * @param config      One configuration file location of the cluster or null if there are none
+     */
+    public ClusterProjection(
+        final String id,
+        final String name,
+        final String user,
+        final String version,
+        final String description,
+        final String tags,
+        final Date created,
+        final Date updated,
+        final String setupFile,
+        final ClusterStatus status,
+        final String config
+    ) {
+        super(id, name, user, version, description, tags, created, updated, setupFile, config);
+        this.status = status;
+    }
+
+    /**
+     * Get a cluster builder populated with everything in this row except the configs.
+     *
+     * @return The builder
+     */
+    public Cluster.Builder getBuilder() {
+        return new Cluster.Builder(this.getName(), this.getUser(), this.getVersion(), this.status)
+            .withId(this.getId())
+            .withCreated(this.getCreated())
+            .withUpdated(this.getUpdated())
+            .withDescription(this.getDescription())
+            .withTags(this.getTags())
+            .withSetupFile(this.getSetupFile());
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ *
+ *  Copyright 2016 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.core.jpa.projections;
+
+import com.netflix.genie.common.dto.Command;
+import com.netflix.genie.common.dto.CommandStatus;
+
+import java.util.Date;
+
+/**
+ * A row of command data joined with at most one of its configuration files.
+ *
+ * @author agent
+ * @since 3.0.0
+ */
+public class CommandProjection extends SetupFileProjection {
+
+    private final CommandStatus status;
+    private final String executable;
+    private final long checkDelay;
+
+    /**
+     * Constructor used by JPQL constructor expressions.
+     *
+     * @param id          The id of the command
+     * @param name        The name of the command
+     * @param user        The user who owns the command
+     * @param version     The version of the command
+     * @param description The description of the command
+     * @param tags        The pipe delimited tags as stored in the database
+     * @param created     When the command was created
+     * @param updated     When the command was last updated
+     * @param setupFile   The setup file location of the command
+     * @param status      The status of the command
+     * @param executable  The executable of the command
+     * @param checkDelay  The delay between checks of jobs run with this command
+     * @param config      One configuration file location of the command or null if there are none
+     */
+    public CommandProjection(
+        final String id,
+        final String name,
+        final String user,
+        final String version,
+        final String description,
+        final String tags,
+        final Date created,
+        final Date updated,
+        final String setupFile,
+        final CommandStatus status,
+        final String executable,
+        final long checkDelay,
+        final String config
+    ) {
+        super(id, name, user, version, description, tags, created, updated, setupFile, config);
+        this.status = status;
+        this.executable = executable;
+        this.checkDelay = checkDelay;
+    }
+
+    /**
+     * Get a command builder populated with everything in this row except the configs.
+     *
+     * @return The builder
+     */
+    public Command.Builder getBuilder() {
+        return new Command.Builder(
+            this.getName(),
+            this.getUser(),
+            this.getVersion(),
+            this.status,
+            this.executable,
+            this.checkDelay
+        )
+            .withId(this.getId())
+            .withCreated(this.getCreated())
+            .withUpdated(this.getUpdated())
+            .withDescription(this.getDescription())
+            .withTags(this.getTags())
+            .withSetupFile(this.getSetupFile());
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ *
+ *  Copyright 2016 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.core.jpa.projections;
+
+import lombok.Getter;
+
+/**
+ * A dependency file of an application read without loading the application.
+ *
+ * @author agent
+ * @since 3.0.0
+ */
+@Getter
+public class DependencyProjection {
+
+    private final String applicationId;
+    private final String dependency;
+
+    /**
+     * Constructor used by JPQL constructor expressions.
+     *
+     * @param applicationId The id of the application
+     * @param dependency    The dependency file location
+     */
+    public DependencyProjection(final String applicationId, final String dependency) {
+        this.applicationId = applicationId;
+        this.dependency = dependency;
+    }
+}
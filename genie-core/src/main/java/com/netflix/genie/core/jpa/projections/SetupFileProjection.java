@@ -0,0 +1,100 @@
+/*
+ *
+ *  Copyright 2016 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.core.jpa.projections;
+
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableSet;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.util.Date;
+import java.util.Set;
+
+/**
+ * Base projection of the fields shared by all entities which have a setup file plus a single configuration file
+ * location. One instance is created per row so a resource with N configs is represented by N projections which share
+ * everything but the config.
+ *
+ * @author agent
+ * @since 3.0.0
+ */
+@Getter(AccessLevel.PROTECTED)
+public abstract class SetupFileProjection {
+
+    private static final Splitter TAG_SPLITTER = Splitter.on('|').omitEmptyStrings();
+
+    @Getter
+    private final String id;
+    private final String name;
+    private final String user;
+    private final String version;
+    private final String description;
+    private final String tags;
+    private final Date created;
+    private final Date updated;
+    private final String setupFile;
+    @Getter
+    private final String config;
+
+    /**
+     * Constructor.
+     *
+     * @param id          The id of the resource
+     * @param name        The name of the resource
+     * @param user        The user who owns the resource
+     * @param version     The version of the resource
+     * @param description The description of the resource
+     * @param tags        The pipe delimited tags as stored in the database
+     * @param created     When the resource was created
+     * @param updated     When the resource was last updated
+     * @param setupFile   The setup file location of the resource
+     * @param config      One configuration file location of the resource or null if there are none
+     */
+    protected SetupFileProjection(
+        final String id,
+        final String name,
+        final String user,
+        final String version,
+        final String description,
+        final String tags,
+        final Date created,
+        final Date updated,
+        final String setupFile,
+        final String config
+    ) {
+        this.id = id;
+        this.name = name;
+        this.user = user;
+        this.version = version;
+        this.description = description;
+        this.tags = tags;
+        this.created = created == null ? null : new Date(created.getTime());
+        this.updated = updated == null ? null : new Date(updated.getTime());
+        this.setupFile = setupFile;
+        this.config = config;
+    }
+
+    /**
+     * Get the tags of the resource split out of the delimited database representation.
+     *
+     * @return The tags
+     */
+    protected Set<String> getTags() {
+        return this.tags == null ? ImmutableSet.of() : ImmutableSet.copyOf(TAG_SPLITTER.split(this.tags));
+    }
+}
@@ -16,10 +16,18 @@
 package com.netflix.genie.core.jpa.repositories;
 
 import com.netflix.genie.core.jpa.entities.JobEntity;
+import com.netflix.genie.core.jpa.projections.ApplicationProjection;
+import com.netflix.genie.core.jpa.projections.ClusterProjection;
+import com.netflix.genie.core.jpa.projections.CommandProjection;
+import com.netflix.genie.core.jpa.projections.DependencyProjection;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 /**
  * Job repository.
  *
@@ -27,4 +35,63 @@ import org.springframework.stereotype.Repository;
  */
 @Repository
 public interface JpaJobRepository extends JpaRepository<JobEntity, String>, JpaSpecificationExecutor {
+
+    /**
+     * Get the cluster a job ran on without loading the job or cluster entities. Returns one row per configuration
+     * file of the cluster (or a single row with a null config if it has none).
+     *
+     * @param id The id of the job
+     * @return The cluster rows. Empty if the job doesn't exist or has no cluster.
+     */
+    @Query(
+        "SELECT NEW com.netflix.genie.core.jpa.projections.ClusterProjection("
+            + "c.id, c.name, c.user, c.version, c.description, c.tags, c.created, c.updated, c.setupFile, c.status, "
+            + "cfg"
+            + ") FROM JobEntity j JOIN j.cluster c LEFT JOIN c.configs cfg WHERE j.id = :id"
+    )
+    List<ClusterProjection> findClusterByJobId(@Param("id") final String id);
+
+    /**
+     * Get the command a job ran with without loading the job or command entities. Returns one row per configuration
+     * file of the command (or a single row with a null config if it has none).
+     *
+     * @param id The id of the job
+     * @return The command rows. Empty if the job doesn't exist or has no command.
+     */
+    @Query(
+        "SELECT NEW com.netflix.genie.core.jpa.projections.CommandProjection("
+            + "c.id, c.name, c.user, c.version, c.description, c.tags, c.created, c.updated, c.setupFile, c.status, "
+            + "c.executable, c.checkDelay, cfg"
+            + ") FROM JobEntity j JOIN j.command c LEFT JOIN c.configs cfg WHERE j.id = :id"
+    )
+    List<CommandProjection> findCommandByJobId(@Param("id") final String id);
+
+    /**
+     * Get the applications a job ran with without loading the job or application entities. Returns one row per
+     * configuration file of each application (or a single row with a null config if it has none), ordered as the
+     * applications were attached to the job.
+     *
+     * @param id The id of the job
+     * @return The application rows. Empty if the job doesn't exist or has no applications.
+     */
+    @Query(
+        "SELECT NEW com.netflix.genie.core.jpa.projections.ApplicationProjection("
+            + "a.id, a.name, a.user, a.version, a.description, a.tags, a.created, a.updated, a.setupFile, a.status, "
+            + "a.type, cfg"
+            + ") FROM JobEntity j JOIN j.applications a LEFT JOIN a.configs cfg WHERE j.id = :id ORDER BY INDEX(a)"
+    )
+    List<ApplicationProjection> findApplicationsByJobId(@Param("id") final String id);
+
+    /**
+     * Get the dependencies of the applications a job ran with. Read separately from the configuration files so the
+     * rows don't grow with the product of the two.
+     *
+     * @param id The id of the job
+     * @return One row per dependency of each application. Empty if the applications have no dependencies.
+     */
+    @Query(
+        "SELECT NEW com.netflix.genie.core.jpa.projections.DependencyProjection(a.id, dep) "
+            + "FROM JobEntity j JOIN j.applications a JOIN a.dependencies dep WHERE j.id = :id"
+    )
+    List<DependencyProjection> findApplicationDependenciesByJobId(@Param("id") final String id);
 }
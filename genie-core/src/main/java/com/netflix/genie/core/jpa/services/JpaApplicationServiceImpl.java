@@ -366,7 +366,7 @@ public class JpaApplicationServiceImpl implements ApplicationService {
         final Set<String> tags
     ) throws GenieException {
         final ApplicationEntity app = this.findApplication(id);
-        final Set<String> appTags = app.getTags();
+        final Set<String> appTags = Sets.newHashSet(app.getTags());
         appTags.addAll(tags);
         app.setTags(appTags);
     }
@@ -418,7 +418,7 @@ public class JpaApplicationServiceImpl implements ApplicationService {
         final String tag
     ) throws GenieException {
         final ApplicationEntity app = this.findApplication(id);
-        final Set<String> tags = app.getTags();
+        final Set<String> tags = Sets.newHashSet(app.getTags());
         tags.remove(tag);
         app.setTags(tags);
     }
@@ -321,7 +321,7 @@ public class JpaClusterServiceImpl implements ClusterService {
         final Set<String> tags
     ) throws GenieException {
         final ClusterEntity cluster = this.findCluster(id);
-        final Set<String> clusterTags = cluster.getTags();
+        final Set<String> clusterTags = Sets.newHashSet(cluster.getTags());
         clusterTags.addAll(tags);
         cluster.setTags(clusterTags);
     }
@@ -373,7 +373,7 @@ public class JpaClusterServiceImpl implements ClusterService {
         final String tag
     ) throws GenieException {
         final ClusterEntity cluster = this.findCluster(id);
-        final Set<String> tags = cluster.getTags();
+        final Set<String> tags = Sets.newHashSet(cluster.getTags());
         tags.remove(tag);
         cluster.setTags(tags);
     }
@@ -320,7 +320,7 @@ public class JpaCommandServiceImpl implements CommandService {
         final Set<String> tags
     ) throws GenieException {
         final CommandEntity command = this.findCommand(id);
-        final Set<String> commandTags = command.getTags();
+        final Set<String> commandTags = Sets.newHashSet(command.getTags());
         commandTags.addAll(tags);
         command.setTags(commandTags);
     }
@@ -372,7 +372,7 @@ public class JpaCommandServiceImpl implements CommandService {
         final String tag
     ) throws GenieException {
         final CommandEntity command = this.findCommand(id);
-        final Set<String> commandTags = command.getTags();
+        final Set<String> commandTags = Sets.newHashSet(command.getTags());
         commandTags.remove(tag);
         command.setTags(commandTags);
     }
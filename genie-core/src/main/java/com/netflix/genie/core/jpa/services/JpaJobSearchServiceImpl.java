@@ -28,13 +28,14 @@ import com.netflix.genie.common.dto.JobStatus;
 import com.netflix.genie.common.dto.search.JobSearchResult;
 import com.netflix.genie.common.exceptions.GenieException;
 import com.netflix.genie.common.exceptions.GenieNotFoundException;
-import com.netflix.genie.core.jpa.entities.ApplicationEntity;
-import com.netflix.genie.core.jpa.entities.ClusterEntity;
-import com.netflix.genie.core.jpa.entities.CommandEntity;
 import com.netflix.genie.core.jpa.entities.JobEntity;
 import com.netflix.genie.core.jpa.entities.JobEntity_;
 import com.netflix.genie.core.jpa.entities.JobExecutionEntity;
 import com.netflix.genie.core.jpa.entities.JobRequestEntity;
+import com.netflix.genie.core.jpa.projections.ApplicationProjection;
+import com.netflix.genie.core.jpa.projections.ClusterProjection;
+import com.netflix.genie.core.jpa.projections.CommandProjection;
+import com.netflix.genie.core.jpa.projections.DependencyProjection;
 import com.netflix.genie.core.jpa.repositories.JpaJobExecutionRepository;
 import com.netflix.genie.core.jpa.repositories.JpaJobRepository;
 import com.netflix.genie.core.jpa.repositories.JpaJobRequestRepository;
@@ -57,9 +58,14 @@ import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
 import javax.validation.constraints.NotNull;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -269,17 +275,20 @@ public class JpaJobSearchServiceImpl implements JobSearchService {
     @Override
     public Cluster getJobCluster(@NotBlank final String id) throws GenieException {
         log.debug("Called for job with id {}", id);
-        final JobEntity job = this.jobRepository.findOne(id);
-        if (job != null) {
-            final ClusterEntity cluster = job.getCluster();
-            if (cluster != null) {
-                return cluster.getDTO();
-            } else {
+        final List<ClusterProjection> rows = this.jobRepository.findClusterByJobId(id);
+        if (rows.isEmpty()) {
+            if (this.jobRepository.exists(id)) {
                 throw new GenieNotFoundException("Job " + id + " doesn't have a cluster associated with it");
+            } else {
+                throw new GenieNotFoundException("No job with id " + id + " exists. Unable to get cluster");
             }
-        } else {
-            throw new GenieNotFoundException("No job with id " + id + " exists. Unable to get cluster");
         }
+
+        return rows
+            .get(0)
+            .getBuilder()
+            .withConfigs(getNonNull(rows, ClusterProjection::getConfig))
+            .build();
     }
 
     /**
@@ -288,17 +297,20 @@ public class JpaJobSearchServiceImpl implements JobSearchService {
     @Override
     public Command getJobCommand(@NotBlank final String id) throws GenieException {
         log.debug("Called for job with id {}", id);
-        final JobEntity job = this.jobRepository.findOne(id);
-        if (job != null) {
-            final CommandEntity command = job.getCommand();
-            if (command != null) {
-                return command.getDTO();
-            } else {
+        final List<CommandProjection> rows = this.jobRepository.findCommandByJobId(id);
+        if (rows.isEmpty()) {
+            if (this.jobRepository.exists(id)) {
                 throw new GenieNotFoundException("Job " + id + " doesn't have a command associated with it");
+            } else {
+                throw new GenieNotFoundException("No job with id " + id + " exists. Unable to get command");
             }
-        } else {
-            throw new GenieNotFoundException("No job with id " + id + " exists. Unable to get command");
         }
+
+        return rows
+            .get(0)
+            .getBuilder()
+            .withConfigs(getNonNull(rows, CommandProjection::getConfig))
+            .build();
     }
 
     /**
@@ -307,17 +319,43 @@ public class JpaJobSearchServiceImpl implements JobSearchService {
     @Override
     public List<Application> getJobApplications(@NotBlank final String id) throws GenieException {
         log.debug("Called for job with id {}", id);
-        final JobEntity job = this.jobRepository.findOne(id);
-        if (job != null) {
-            final List<ApplicationEntity> applications = job.getApplications();
-            if (applications != null && !applications.isEmpty()) {
-                return applications.stream().map(ApplicationEntity::getDTO).collect(Collectors.toList());
+        final List<ApplicationProjection> rows = this.jobRepository.findApplicationsByJobId(id);
+        if (rows.isEmpty()) {
+            if (this.jobRepository.exists(id)) {
+                throw new GenieNotFoundException("Job " + id + " doesn't have any applications associated with it");
             } else {
-                throw new GenieNotFoundException("Job " + id + " doesn't have a cluster associated with it");
+                throw new GenieNotFoundException("No job with id " + id + " exists. Unable to get applications");
             }
-        } else {
-            throw new GenieNotFoundException("No job with id " + id + " exists. Unable to get cluster");
         }
+
+        // Rows are ordered by application order so grouping while preserving encounter order keeps that ordering
+        final Map<String, List<ApplicationProjection>> applications = rows
+            .stream()
+            .collect(Collectors.groupingBy(ApplicationProjection::getId, LinkedHashMap::new, Collectors.toList()));
+        final Map<String, Set<String>> dependencies = this.jobRepository
+            .findApplicationDependenciesByJobId(id)
+            .stream()
+            .collect(
+                Collectors.groupingBy(
+                    DependencyProjection::getApplicationId,
+                    Collectors.mapping(DependencyProjection::getDependency, Collectors.toSet())
+                )
+            );
+
+        return applications
+            .values()
+            .stream()
+            .map(
+                applicationRows -> applicationRows
+                    .get(0)
+                    .getBuilder()
+                    .withConfigs(getNonNull(applicationRows, ApplicationProjection::getConfig))
+                    .withDependencies(
+                        dependencies.getOrDefault(applicationRows.get(0).getId(), Collections.emptySet())
+                    )
+                    .build()
+            )
+            .collect(Collectors.toList());
     }
 
     /**
@@ -332,4 +370,8 @@ public class JpaJobSearchServiceImpl implements JobSearchService {
             throw new GenieNotFoundException("No job execution found for id " + jobId);
         }
     }
+
+    private static <T> Set<String> getNonNull(final List<T> rows, final Function<T, String> mapper) {
+        return rows.stream().map(mapper).filter(Objects::nonNull).collect(Collectors.toSet());
+    }
 }
@@ -149,72 +149,28 @@ public interface GenieNodeStatistics {
     void incrGenieForwardedJobs();
 
     /**
-     * Get number of killed jobs on this instance.
-     *
-     * @return number of killed jobs on this instance
-     */
-    AtomicLong getGenieKilledJobs();
-
-    /**
-     * Increment number of killed jobs atomically.
-     */
-    void incrGenieKilledJobs();
-
-    /**
-     * A setter method for 2xx count.
-     *
-     * @param genie2xxCount long value to set
-     */
-    void setGenie2xxCount(AtomicLong genie2xxCount);
-
-    /**
-     * A setter method for 4xx count.
-     *
-     * @param genie4xxCount long value to set
-     */
-    void setGenie4xxCount(AtomicLong genie4xxCount);
-
-    /**
-     * A setter method for 5xx count.
-     *
-     * @param genie5xxCount long value to set
-     */
-    void setGenie5xxCount(AtomicLong genie5xxCount);
-
-    /**
-     * A setter method for job submissions.
+     * Get number of kill requests forwarded from this instance to the instance running the job.
      *
-     * @param genieJobSubmissions long value to set
+     * @return number of forwarded kill requests from this instance
      */
-    void setGenieJobSubmissions(AtomicLong genieJobSubmissions);
+    AtomicLong getGenieForwardedKills();
 
     /**
-     * A setter method for successful jobs.
-     *
-     * @param genieSuccessfulJobs long value to set
+     * Increment number of forwarded kill requests atomically.
      */
-    void setGenieSuccessfulJobs(AtomicLong genieSuccessfulJobs);
+    void incrGenieForwardedKills();
 
     /**
-     * A setter method for forwarded jobs.
-     *
-     * @param genieForwardedJobs long value to set
-     */
-    void setGenieForwardedJobs(AtomicLong genieForwardedJobs);
-
-    /**
-     * A setter method for failed jobs.
+     * Get number of killed jobs on this instance.
      *
-     * @param genieFailedJobs long value to set
+     * @return number of killed jobs on this instance
      */
-    void setGenieFailedJobs(AtomicLong genieFailedJobs);
+    AtomicLong getGenieKilledJobs();
 
     /**
-     * A setter method for killed jobs.
-     *
-     * @param genieKilledJobs long value to set
+     * Increment number of killed jobs atomically.
      */
-    void setGenieKilledJobs(AtomicLong genieKilledJobs);
+    void incrGenieKilledJobs();
 
     /**
      * Get number of running jobs on this instance.
@@ -223,13 +179,6 @@ public interface GenieNodeStatistics {
      */
     AtomicInteger getGenieRunningJobs();
 
-    /**
-     * Set number of running jobs on this instance.
-     *
-     * @param genieRunningJobs number of running jobs on this instance
-     */
-    void setGenieRunningJobs(int genieRunningJobs);
-
     /**
      * Get number of running jobs with runtime less than 15 mins.
      *
@@ -237,14 +186,6 @@ public interface GenieNodeStatistics {
      */
     AtomicInteger getGenieRunningJobs0To15m();
 
-    /**
-     * Set the number of running jobs with runtime less than 15 mins.
-     *
-     * @param genieRunningJobs0To15m number of running jobs with runtime less
-     *                               than 15 mins
-     */
-    void setGenieRunningJobs0To15m(int genieRunningJobs0To15m);
-
     /**
      * Get the number of running jobs with runtime between 15 mins and 2 hours.
      *
@@ -252,14 +193,6 @@ public interface GenieNodeStatistics {
      */
     AtomicInteger getGenieRunningJobs15mTo2h();
 
-    /**
-     * Set the number of running jobs with runtime between 15 mins and 2 hours.
-     *
-     * @param genieRunningJobs15mTo2h number of running jobs with runtime
-     *                                between 15 mins and 2 hours
-     */
-    void setGenieRunningJobs15mTo2h(int genieRunningJobs15mTo2h);
-
     /**
      * Get the number of running jobs with runtime between 2 to 8 hours.
      *
@@ -267,26 +200,10 @@ public interface GenieNodeStatistics {
      */
     AtomicInteger getGenieRunningJobs2hTo8h();
 
-    /**
-     * Set the number of running jobs with runtime between 2 to 8 hours.
-     *
-     * @param genieRunningJobs2hTo8h number of running jobs with runtime between
-     *                               2 to 8 hours.
-     */
-    void setGenieRunningJobs2hTo8h(int genieRunningJobs2hTo8h);
-
     /**
      * Get the number of running jobs with runtime greater than 8 hours.
      *
      * @return number of running jobs with runtime greater than 8 hours
      */
     AtomicInteger getGenieRunningJobs8hPlus();
-
-    /**
-     * Set the number of running jobs with runtime greater than 8 hours.
-     *
-     * @param genieRunningJobs8hPlus number of running jobs with runtime greater
-     *                               than 8 hours
-     */
-    void setGenieRunningJobs8hPlus(int genieRunningJobs8hPlus);
 }
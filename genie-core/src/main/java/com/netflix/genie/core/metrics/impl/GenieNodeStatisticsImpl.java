@@ -62,6 +62,7 @@ public class GenieNodeStatisticsImpl implements GenieNodeStatistics {
     private AtomicLong genieSuccessfulJobs = new AtomicLong(0);
     //    @Monitor(name = "Forwarded_Jobs", type = DataSourceType.COUNTER)
     private AtomicLong genieForwardedJobs = new AtomicLong(0);
+    private AtomicLong genieForwardedKills = new AtomicLong(0);
     //    @Monitor(name = "Failed_Jobs", type = DataSourceType.COUNTER)
     private AtomicLong genieFailedJobs = new AtomicLong(0);
     //    @Monitor(name = "Killed_Jobs", type = DataSourceType.COUNTER)
@@ -97,9 +98,10 @@ public class GenieNodeStatisticsImpl implements GenieNodeStatistics {
     }
 
     /**
-     * {@inheritDoc}
+     * A setter method for 2xx count.
+     *
+     * @param genie2xxCount long value to set
      */
-    @Override
     public void setGenie2xxCount(final AtomicLong genie2xxCount) {
         this.genie2xxCount = genie2xxCount;
     }
@@ -123,9 +125,10 @@ public class GenieNodeStatisticsImpl implements GenieNodeStatistics {
     }
 
     /**
-     * {@inheritDoc}
+     * A setter method for 4xx count.
+     *
+     * @param genie4xxCount long value to set
      */
-    @Override
     public void setGenie4xxCount(final AtomicLong genie4xxCount) {
         this.genie4xxCount = genie4xxCount;
     }
@@ -149,9 +152,10 @@ public class GenieNodeStatisticsImpl implements GenieNodeStatistics {
     }
 
     /**
-     * {@inheritDoc}
+     * A setter method for 5xx count.
+     *
+     * @param genie5xxCount long value to set
      */
-    @Override
     public void setGenie5xxCount(final AtomicLong genie5xxCount) {
         this.genie5xxCount = genie5xxCount;
     }
@@ -175,9 +179,10 @@ public class GenieNodeStatisticsImpl implements GenieNodeStatistics {
     }
 
     /**
-     * {@inheritDoc}
+     * A setter method for job submissions.
+     *
+     * @param genieJobSubmissions long value to set
      */
-    @Override
     public void setGenieJobSubmissions(final AtomicLong genieJobSubmissions) {
         this.genieJobSubmissions = genieJobSubmissions;
     }
@@ -237,9 +242,10 @@ public class GenieNodeStatisticsImpl implements GenieNodeStatistics {
     }
 
     /**
-     * {@inheritDoc}
+     * A setter method for successful jobs.
+     *
+     * @param genieSuccessfulJobs long value to set
      */
-    @Override
     public void setGenieSuccessfulJobs(final AtomicLong genieSuccessfulJobs) {
         this.genieSuccessfulJobs = genieSuccessfulJobs;
     }
@@ -263,9 +269,10 @@ public class GenieNodeStatisticsImpl implements GenieNodeStatistics {
     }
 
     /**
-     * {@inheritDoc}
+     * A setter method for failed jobs.
+     *
+     * @param genieFailedJobs long value to set
      */
-    @Override
     public void setGenieFailedJobs(final AtomicLong genieFailedJobs) {
         this.genieFailedJobs = genieFailedJobs;
     }
@@ -289,9 +296,10 @@ public class GenieNodeStatisticsImpl implements GenieNodeStatistics {
     }
 
     /**
-     * {@inheritDoc}
+     * A setter method for forwarded jobs.
+     *
+     * @param genieForwardedJobs long value to set
      */
-    @Override
     public void setGenieForwardedJobs(final AtomicLong genieForwardedJobs) {
         this.genieForwardedJobs = genieForwardedJobs;
     }
@@ -309,15 +317,43 @@ public class GenieNodeStatisticsImpl implements GenieNodeStatistics {
      * {@inheritDoc}
      */
     @Override
-    public AtomicLong getGenieKilledJobs() {
+    public AtomicLong getGenieForwardedKills() {
         log.debug("called");
-        return this.genieKilledJobs;
+        return this.genieForwardedKills;
+    }
+
+    /**
+     * A setter method for forwarded kill requests.
+     *
+     * @param genieForwardedKills long value to set
+     */
+    public void setGenieForwardedKills(final AtomicLong genieForwardedKills) {
+        this.genieForwardedKills = genieForwardedKills;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void incrGenieForwardedKills() {
+        log.debug("called");
+        this.genieForwardedKills.incrementAndGet();
     }
 
     /**
      * {@inheritDoc}
      */
     @Override
+    public AtomicLong getGenieKilledJobs() {
+        log.debug("called");
+        return this.genieKilledJobs;
+    }
+
+    /**
+     * A setter method for killed jobs.
+     *
+     * @param genieKilledJobs long value to set
+     */
     public void setGenieKilledJobs(final AtomicLong genieKilledJobs) {
         this.genieKilledJobs = genieKilledJobs;
     }
@@ -340,9 +376,10 @@ public class GenieNodeStatisticsImpl implements GenieNodeStatistics {
     }
 
     /**
-     * {@inheritDoc}
+     * Set number of running jobs on this instance.
+     *
+     * @param genieRunningJobs number of running jobs on this instance
      */
-    @Override
     public void setGenieRunningJobs(final int genieRunningJobs) {
         this.genieRunningJobs.set(genieRunningJobs);
     }
@@ -356,9 +393,11 @@ public class GenieNodeStatisticsImpl implements GenieNodeStatistics {
     }
 
     /**
-     * {@inheritDoc}
+     * Set the number of running jobs with runtime less than 15 mins.
+     *
+     * @param genieRunningJobs0To15m number of running jobs with runtime less
+     *                               than 15 mins
      */
-    @Override
     public void setGenieRunningJobs0To15m(final int genieRunningJobs0To15m) {
         this.genieRunningJobs0To15m.set(genieRunningJobs0To15m);
     }
@@ -372,9 +411,11 @@ public class GenieNodeStatisticsImpl implements GenieNodeStatistics {
     }
 
     /**
-     * {@inheritDoc}
+     * Set the number of running jobs with runtime between 15 mins and 2 hours.
+     *
+     * @param genieRunningJobs15mTo2h number of running jobs with runtime
+     *                                between 15 mins and 2 hours
      */
-    @Override
     public void setGenieRunningJobs15mTo2h(final int genieRunningJobs15mTo2h) {
         this.genieRunningJobs15mTo2h.set(genieRunningJobs15mTo2h);
     }
@@ -388,9 +429,11 @@ public class GenieNodeStatisticsImpl implements GenieNodeStatistics {
     }
 
     /**
-     * {@inheritDoc}
+     * Set the number of running jobs with runtime between 2 to 8 hours.
+     *
+     * @param genieRunningJobs2hTo8h number of running jobs with runtime between
+     *                               2 to 8 hours.
      */
-    @Override
     public void setGenieRunningJobs2hTo8h(final int genieRunningJobs2hTo8h) {
         this.genieRunningJobs2hTo8h.set(genieRunningJobs2hTo8h);
     }
@@ -404,9 +447,11 @@ public class GenieNodeStatisticsImpl implements GenieNodeStatistics {
     }
 
     /**
-     * {@inheritDoc}
+     * Set the number of running jobs with runtime greater than 8 hours.
+     *
+     * @param genieRunningJobs8hPlus number of running jobs with runtime greater
+     *                               than 8 hours
      */
-    @Override
     public void setGenieRunningJobs8hPlus(final int genieRunningJobs8hPlus) {
         this.genieRunningJobs8hPlus.set(genieRunningJobs8hPlus);
     }
@@ -0,0 +1,376 @@
+/*
+ *
+ *  Copyright 2016 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.core.metrics.impl;
+
+import com.netflix.genie.common.dto.JobExecution;
+import com.netflix.genie.core.events.JobFinishedEvent;
+import com.netflix.genie.core.events.JobStartedEvent;
+import com.netflix.genie.core.metrics.GenieNodeStatistics;
+import com.netflix.spectator.api.Counter;
+import com.netflix.spectator.api.Registry;
+import org.springframework.context.event.EventListener;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Implementation of GenieNodeStatistics which publishes the statistics through the Spectator registry. Counters are
+ * the registry's own so they're reported as rates. The running job statistics are gauges computed from the jobs
+ * started on this node which haven't finished yet.
+ *
+ * @author agent
+ * @since 3.0.0
+ */
+public class SpectatorGenieNodeStatisticsImpl implements GenieNodeStatistics {
+
+    private static final String STATUS_TAG = "status";
+    private static final String AGE_TAG = "age";
+    private static final long FIFTEEN_MINUTES = TimeUnit.MINUTES.toMillis(15L);
+    private static final long TWO_HOURS = TimeUnit.HOURS.toMillis(2L);
+    private static final long EIGHT_HOURS = TimeUnit.HOURS.toMillis(8L);
+
+    private final Registry registry;
+    private final Map<String, Long> runningJobs = new ConcurrentHashMap<>();
+    private final Counter genie2xxCount;
+    private final Counter genie4xxCount;
+    private final Counter genie5xxCount;
+    private final Counter genieJobSubmissions;
+    private final Counter jobSubmissionRetryCount;
+    private final Counter successEmailCount;
+    private final Counter failedEmailCount;
+    private final Counter genieSuccessfulJobs;
+    private final Counter genieFailedJobs;
+    private final Counter genieForwardedJobs;
+    private final Counter genieForwardedKills;
+    private final Counter genieKilledJobs;
+
+    /**
+     * Constructor.
+     *
+     * @param registry The metrics registry to publish the statistics through
+     */
+    public SpectatorGenieNodeStatisticsImpl(final Registry registry) {
+        this.registry = registry;
+        this.genie2xxCount = registry.counter(registry.createId("genie.requests.rate").withTag(STATUS_TAG, "2xx"));
+        this.genie4xxCount = registry.counter(registry.createId("genie.requests.rate").withTag(STATUS_TAG, "4xx"));
+        this.genie5xxCount = registry.counter(registry.createId("genie.requests.rate").withTag(STATUS_TAG, "5xx"));
+        this.genieJobSubmissions = registry.counter("genie.jobs.submit.rate");
+        this.jobSubmissionRetryCount = registry.counter("genie.jobs.submit.retry.rate");
+        this.successEmailCount = registry.counter("genie.notifications.email.success.rate");
+        this.failedEmailCount = registry.counter("genie.notifications.email.failure.rate");
+        this.genieSuccessfulJobs = registry.counter("genie.jobs.successful.rate");
+        this.genieFailedJobs = registry.counter("genie.jobs.failed.rate");
+        this.genieForwardedJobs = registry.counter("genie.jobs.forwarded.rate");
+        this.genieForwardedKills = registry.counter("genie.jobs.kill.forwarded.rate");
+        this.genieKilledJobs = registry.counter("genie.jobs.killed.rate");
+
+        // The age buckets are worked out from the running jobs whenever the registry is polled
+        registry.gauge(
+            registry.createId("genie.jobs.running.age.gauge").withTag(AGE_TAG, "0To15m"),
+            this,
+            statistics -> statistics.countRunningJobs(0L, FIFTEEN_MINUTES)
+        );
+        registry.gauge(
+            registry.createId("genie.jobs.running.age.gauge").withTag(AGE_TAG, "15mTo2h"),
+            this,
+            statistics -> statistics.countRunningJobs(FIFTEEN_MINUTES, TWO_HOURS)
+        );
+        registry.gauge(
+            registry.createId("genie.jobs.running.age.gauge").withTag(AGE_TAG, "2hTo8h"),
+            this,
+            statistics -> statistics.countRunningJobs(TWO_HOURS, EIGHT_HOURS)
+        );
+        registry.gauge(
+            registry.createId("genie.jobs.running.age.gauge").withTag(AGE_TAG, "8hPlus"),
+            this,
+            statistics -> statistics.countRunningJobs(EIGHT_HOURS, Long.MAX_VALUE)
+        );
+    }
+
+    /**
+     * Start tracking the age of a job started on this node.
+     *
+     * @param event The event of the started job
+     */
+    @EventListener
+    public void onJobStarted(final JobStartedEvent event) {
+        final JobExecution jobExecution = event.getJobExecution();
+        // Jobs which haven't been saved yet have no creation time so they're as old as the event
+        final long started = jobExecution.getCreated() == null
+            ? this.registry.clock().wallTime()
+            : jobExecution.getCreated().getTime();
+        this.runningJobs.putIfAbsent(jobExecution.getId(), started);
+    }
+
+    /**
+     * Stop tracking a job once it's finished.
+     *
+     * @param event The event of the finished job
+     */
+    @EventListener
+    public void onJobFinished(final JobFinishedEvent event) {
+        this.runningJobs.remove(event.getJobExecution().getId());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public AtomicLong getGenie2xxCount() {
+        return new AtomicLong(this.genie2xxCount.count());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void incrGenie2xxCount() {
+        this.genie2xxCount.increment();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public AtomicLong getGenie4xxCount() {
+        return new AtomicLong(this.genie4xxCount.count());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void incrGenie4xxCount() {
+        this.genie4xxCount.increment();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public AtomicLong getGenie5xxCount() {
+        return new AtomicLong(this.genie5xxCount.count());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void incrGenie5xxCount() {
+        this.genie5xxCount.increment();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public AtomicLong getGenieJobSubmissions() {
+        return new AtomicLong(this.genieJobSubmissions.count());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void incrGenieJobSubmissions() {
+        this.genieJobSubmissions.increment();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public AtomicLong getSuccessfulEmailSentCount() {
+        return new AtomicLong(this.successEmailCount.count());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void incrSuccessfulEmailCount() {
+        this.successEmailCount.increment();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public AtomicLong getJobSubmissionRetryCount() {
+        return new AtomicLong(this.jobSubmissionRetryCount.count());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void incrJobSubmissionRetryCount() {
+        this.jobSubmissionRetryCount.increment();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public AtomicLong getFailedEmailSentCount() {
+        return new AtomicLong(this.failedEmailCount.count());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void incrFailedEmailCount() {
+        this.failedEmailCount.increment();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public AtomicLong getGenieSuccessfulJobs() {
+        return new AtomicLong(this.genieSuccessfulJobs.count());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void incrGenieSuccessfulJobs() {
+        this.genieSuccessfulJobs.increment();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public AtomicLong getGenieFailedJobs() {
+        return new AtomicLong(this.genieFailedJobs.count());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void incrGenieFailedJobs() {
+        this.genieFailedJobs.increment();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public AtomicLong getGenieForwardedJobs() {
+        return new AtomicLong(this.genieForwardedJobs.count());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void incrGenieForwardedJobs() {
+        this.genieForwardedJobs.increment();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public AtomicLong getGenieForwardedKills() {
+        return new AtomicLong(this.genieForwardedKills.count());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void incrGenieForwardedKills() {
+        this.genieForwardedKills.increment();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public AtomicLong getGenieKilledJobs() {
+        return new AtomicLong(this.genieKilledJobs.count());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void incrGenieKilledJobs() {
+        this.genieKilledJobs.increment();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public AtomicInteger getGenieRunningJobs() {
+        return new AtomicInteger(this.runningJobs.size());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public AtomicInteger getGenieRunningJobs0To15m() {
+        return new AtomicInteger(this.countRunningJobs(0L, FIFTEEN_MINUTES));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public AtomicInteger getGenieRunningJobs15mTo2h() {
+        return new AtomicInteger(this.countRunningJobs(FIFTEEN_MINUTES, TWO_HOURS));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public AtomicInteger getGenieRunningJobs2hTo8h() {
+        return new AtomicInteger(this.countRunningJobs(TWO_HOURS, EIGHT_HOURS));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public AtomicInteger getGenieRunningJobs8hPlus() {
+        return new AtomicInteger(this.countRunningJobs(EIGHT_HOURS, Long.MAX_VALUE));
+    }
+
+    private int countRunningJobs(final long minAge, final long maxAge) {
+        final long now = this.registry.clock().wallTime();
+        int count = 0;
+        for (final long started : this.runningJobs.values()) {
+            final long age = now - started;
+            if (age >= minAge && age < maxAge) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
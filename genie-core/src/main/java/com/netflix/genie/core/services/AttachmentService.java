@@ -41,6 +41,18 @@ public interface AttachmentService {
      */
     void save(final String jobId, final String filename, final InputStream content) throws GenieException;
 
+    /**
+     * Save an attachment for a job from content the service already stores so a client which sent it before doesn't
+     * need to upload it again.
+     *
+     * @param jobId    The id of the job to save the attachment for
+     * @param filename The name of the attachment
+     * @param sha256   The hex encoded SHA-256 digest of the contents of the attachment
+     * @return true if the content was already present and saved for the job, false if it has to be uploaded
+     * @throws GenieException For any error during the save process
+     */
+    boolean saveExisting(final String jobId, final String filename, final String sha256) throws GenieException;
+
     /**
      * Copy all the attachments for a job into the specified directory.
      *
@@ -0,0 +1,51 @@
+/*
+ *
+ *  Copyright 2016 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.core.services;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * The metadata of a file in a location handled by a FileTransfer implementation.
+ *
+ * @author agent
+ * @since 3.0.0
+ */
+@Getter
+@EqualsAndHashCode
+@ToString
+public class FileMetadata {
+
+    private final long size;
+    private final String eTag;
+    private final long lastModified;
+
+    /**
+     * Constructor.
+     *
+     * @param size         The size of the file in bytes
+     * @param eTag         An opaque identifier of the version of the file which changes whenever its contents do
+     * @param lastModified When the file was last modified in milliseconds since the epoch
+     */
+    public FileMetadata(final long size, final String eTag, final long lastModified) {
+        this.size = size;
+        this.eTag = eTag;
+        this.lastModified = lastModified;
+    }
+}
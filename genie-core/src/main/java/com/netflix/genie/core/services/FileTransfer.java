@@ -19,15 +19,40 @@ package com.netflix.genie.core.services;
 
 import com.netflix.genie.common.exceptions.GenieException;
 
+import java.io.File;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Set;
+
 /**
  * API to handle file transfer for genie jobs. There will be an implementation for different files systems
- * including local.
+ * including local. Support for another file system, e.g. hdfs, is added by registering an implementation which
+ * returns its scheme from getSchemes.
+ * <p>
+ * Only isValid, getFile and putFile have to be implemented. The other methods default to transferring whole files
+ * through temporary local files with those, which implementations should override where the file system allows
+ * something cheaper. Ranged reads aren't supported unless an implementation overrides isRangeSupported and
+ * getFileRange, as emulating them would download the whole file for every range.
  *
  * @author amsharma
  * @since 3.0.0
  */
 public interface FileTransfer {
 
+    /**
+     * Get the URI schemes of the files this implementation handles, e.g. s3 for s3:// paths. Files are routed to
+     * implementations by their scheme without calling isValid.
+     *
+     * @return The lower case schemes. Empty if files should only be routed to this implementation by isValid, which is
+     * the default.
+     */
+    default Set<String> getSchemes() {
+        return Collections.emptySet();
+    }
+
     /**
      * This method validates whether it can handle operations for a particular file
      * based on the prefix of the file like s3://, hdfs:// etc.
@@ -37,7 +62,6 @@ public interface FileTransfer {
      *
      * @throws GenieException if there are errors
      */
-    // TODO can we use a map of file system type to impl
     boolean isValid(final String fileName) throws GenieException;
 
     /**
@@ -50,6 +74,29 @@ public interface FileTransfer {
      */
     void getFile(String srcRemotePath, String dstLocalPath) throws GenieException;
 
+    /**
+     * Gets a file from any remote location unless the version of the file in the remote location is the one
+     * identified by the given ETag, i.e. the version the caller already has. Implementations verify the integrity of
+     * the local copy where they can and download it again if it's corrupted. The local file is replaced if it exists.
+     *
+     * @param srcRemotePath Source path of the file to copy
+     * @param dstLocalPath  Destination path of the file to copy to
+     * @param eTag          The ETag of the version the caller already has or null to always copy the file
+     * @return The metadata of the version copied or null if the remote file still matches the ETag and nothing was
+     * copied. By default the file is always copied and the metadata has no ETag so it's copied again next time.
+     *
+     * @throws GenieException exception in case of an error
+     */
+    default FileMetadata getFileIfModified(
+        final String srcRemotePath,
+        final String dstLocalPath,
+        final String eTag
+    ) throws GenieException {
+        this.getFile(srcRemotePath, dstLocalPath);
+        final File file = new File(dstLocalPath);
+        return new FileMetadata(file.length(), null, file.lastModified());
+    }
+
     /**
      * Puts a file from Genie's local working directory to a remote location.
      *
@@ -59,6 +106,102 @@ public interface FileTransfer {
      * @throws GenieException exception in case of an error
      */
     void putFile(String srcLocalPath, String dstRemotePath) throws GenieException;
+
+    /**
+     * Get the size of a file in a remote location. By default this is taken from getFileMetadata, so it downloads the
+     * whole file unless that's overridden.
+     *
+     * @param remotePath Path of the file in the remote location
+     * @return The size of the file in bytes
+     *
+     * @throws GenieException exception in case of an error
+     */
+    default long getFileSize(final String remotePath) throws GenieException {
+        return this.getFileMetadata(remotePath).getSize();
+    }
+
+    /**
+     * Whether getFileRange is supported, i.e. reads only the requested part of a file. Callers which would read many
+     * parts of a file should fetch it once in full when it isn't.
+     *
+     * @return False by default
+     */
+    default boolean isRangeSupported() {
+        return false;
+    }
+
+    /**
+     * Read part of a file in a remote location without fetching the rest of it. The caller is responsible for closing
+     * the returned stream. Only supported if isRangeSupported returns true.
+     *
+     * @param srcRemotePath Path of the file in the remote location
+     * @param offset        The offset of the first byte to read
+     * @param length        How many bytes to read
+     * @return A stream of the requested bytes
+     *
+     * @throws GenieException               exception in case of an error
+     * @throws UnsupportedOperationException if ranged reads aren't supported, which is the default
+     */
+    default InputStream getFileRange(
+        final String srcRemotePath,
+        final long offset,
+        final long length
+    ) throws GenieException {
+        throw new UnsupportedOperationException(
+            this.getClass().getName() + " doesn't support reading ranges of files like " + srcRemotePath
+        );
+    }
+
+    /**
+     * Get the metadata of a file in a remote location. By default the whole file is downloaded to a temporary file,
+     * which is deleted again, to find out its size and the metadata has no ETag. Implementations should override this
+     * with a lookup of the metadata alone.
+     *
+     * @param remotePath Path of the file in the remote location
+     * @return The metadata of the file
+     *
+     * @throws GenieException exception in case of an error. GenieNotFoundException if there's no file at the path.
+     */
+    default FileMetadata getFileMetadata(final String remotePath) throws GenieException {
+        final Path download = TemporaryDownloads.download(this, remotePath);
+        try {
+            final File file = download.toFile();
+            return new FileMetadata(file.length(), null, file.lastModified());
+        } finally {
+            TemporaryDownloads.delete(download);
+        }
+    }
+
+    /**
+     * Read a file in a remote location as a stream instead of copying it to a local file first. The caller is
+     * responsible for closing the returned stream.
+     *
+     * @param srcRemotePath Path of the file in the remote location
+     * @return A stream of the contents of the file
+     *
+     * @throws GenieException exception in case of an error
+     */
+    default InputStream getFileStream(final String srcRemotePath) throws GenieException {
+        return Channels.newInputStream(TemporaryDownloads.open(this, srcRemotePath, 0L));
+    }
+
+    /**
+     * Puts the contents read from a channel until it's exhausted to a remote location, so producers don't need to
+     * write a local file first. The caller is responsible for closing the channel.
+     *
+     * @param source        The channel to read the contents from
+     * @param dstRemotePath Destination path of the file to write
+     *
+     * @throws GenieException exception in case of an error
+     */
+    default void putFile(final ReadableByteChannel source, final String dstRemotePath) throws GenieException {
+        final Path file = TemporaryDownloads.copy(source);
+        try {
+            this.putFile(file.toString(), dstRemotePath);
+        } finally {
+            TemporaryDownloads.delete(file);
+        }
+    }
 }
 
 //
@@ -22,6 +22,7 @@ import com.netflix.genie.common.dto.JobRequest;
 import com.netflix.genie.common.dto.JobStatus;
 import com.netflix.genie.common.exceptions.GenieException;
 import com.netflix.genie.common.exceptions.GenieServerException;
+import com.netflix.genie.core.jobs.JobArchiveFormat;
 import com.netflix.genie.core.jobs.JobConstants;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
@@ -46,6 +47,7 @@ public class JobCoordinatorService {
     private final JobKillService jobKillService;
 
     private String baseArchiveLocation;
+    private JobArchiveFormat archiveFormat;
 
     /**
      * Constructor.
@@ -54,17 +56,20 @@ public class JobCoordinatorService {
      * @param jobSubmitterService   implementation of the job submitter service
      * @param jobKillService        The job kill service to use
      * @param baseArchiveLocation   The base directory location of where the job dir should be archived
+     * @param archiveFormat         The format the job dir should be archived in
      */
     public JobCoordinatorService(
         final JobPersistenceService jobPersistenceService,
         final JobSubmitterService jobSubmitterService,
         final JobKillService jobKillService,
-        final String baseArchiveLocation
+        final String baseArchiveLocation,
+        final JobArchiveFormat archiveFormat
     ) {
         this.jobPersistenceService = jobPersistenceService;
         this.jobSubmitterService = jobSubmitterService;
         this.jobKillService = jobKillService;
         this.baseArchiveLocation = baseArchiveLocation;
+        this.archiveFormat = archiveFormat;
     }
 
     /**
@@ -98,7 +103,7 @@ public class JobCoordinatorService {
             archiveLocation = this.baseArchiveLocation
                 + JobConstants.FILE_PATH_DELIMITER
                 + jobRequest.getId()
-                + ".tar.gz";
+                + this.archiveFormat.getExtension();
         }
 
         // create the job object in the database with status INIT
@@ -0,0 +1,73 @@
+/*
+ *
+ *  Copyright 2016 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.core.services;
+
+import com.netflix.genie.common.exceptions.GenieException;
+import com.netflix.genie.core.jobs.JobDirectoryManifest;
+import org.hibernate.validator.constraints.NotBlank;
+
+import javax.validation.constraints.NotNull;
+import java.io.OutputStream;
+
+/**
+ * APIs for building manifests of the contents of job directories on this node.
+ *
+ * @author agent
+ * @since 3.0.0
+ */
+public interface JobDirectoryManifestService {
+
+    /**
+     * Get the manifest of the given job's directory. If a manifest was saved when the job finished it's returned
+     * unless checksums are asked for and it was saved without them, otherwise the directory is walked.
+     *
+     * @param jobId            The id of the job
+     * @param includeChecksums Whether the MD5 and CRC32 of each file should be calculated when the directory is walked
+     * @return The manifest
+     * @throws GenieException If the job directory doesn't exist or can't be read
+     */
+    JobDirectoryManifest getManifest(
+        @NotBlank final String jobId,
+        final boolean includeChecksums
+    ) throws GenieException;
+
+    /**
+     * Write the manifest of the given job's directory as JSON to the given stream. A saved manifest is copied to the
+     * stream as is unless checksums are asked for and it was saved without them. Otherwise the manifest is written as
+     * the directory is walked rather than built in memory first so a failure part way leaves the JSON incomplete.
+     *
+     * @param jobId            The id of the job
+     * @param includeChecksums Whether the MD5 and CRC32 of each file should be calculated when the directory is walked
+     * @param outputStream     The stream to write to. Not closed by this method.
+     * @throws GenieException If the job directory doesn't exist or can't be read
+     */
+    void writeManifest(
+        @NotBlank final String jobId,
+        final boolean includeChecksums,
+        @NotNull final OutputStream outputStream
+    ) throws GenieException;
+
+    /**
+     * Walk the directory of a finished job and save the manifest within the job directory so later requests don't
+     * have to walk it again. Whether checksums are included is up to the implementation.
+     *
+     * @param jobId The id of the job
+     * @throws GenieException If the job directory doesn't exist or the manifest can't be written
+     */
+    void saveManifest(@NotBlank final String jobId) throws GenieException;
+}
@@ -0,0 +1,131 @@
+/*
+ *
+ *  Copyright 2016 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.core.services;
+
+import com.netflix.genie.common.exceptions.GenieException;
+import com.netflix.genie.common.exceptions.GenieServerException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Downloads files to temporary local files for the default methods of FileTransfer which only have getFile to work
+ * with.
+ *
+ * @author agent
+ * @since 3.0.0
+ */
+@Slf4j
+final class TemporaryDownloads {
+
+    private static final String PREFIX = "genie-download";
+
+    private TemporaryDownloads() {
+    }
+
+    /**
+     * Download a file to a new temporary file. The caller has to delete it.
+     *
+     * @param fileTransfer  The implementation to download the file with
+     * @param srcRemotePath The path of the file to download
+     * @return The temporary file
+     * @throws GenieException If the file can't be downloaded
+     */
+    static Path download(final FileTransfer fileTransfer, final String srcRemotePath) throws GenieException {
+        final Path download;
+        try {
+            download = Files.createTempFile(PREFIX, null);
+        } catch (final IOException ioe) {
+            throw new GenieServerException(ioe);
+        }
+        try {
+            fileTransfer.getFile(srcRemotePath, download.toString());
+            return download;
+        } catch (final GenieException | RuntimeException e) {
+            delete(download);
+            throw e;
+        }
+    }
+
+    /**
+     * Download a file and open it at the given position. The download is deleted once the channel is closed.
+     *
+     * @param fileTransfer  The implementation to download the file with
+     * @param srcRemotePath The path of the file to download
+     * @param offset        The position to open the file at
+     * @return The open file
+     * @throws GenieException If the file can't be downloaded or opened
+     */
+    static SeekableByteChannel open(
+        final FileTransfer fileTransfer,
+        final String srcRemotePath,
+        final long offset
+    ) throws GenieException {
+        final Path download = download(fileTransfer, srcRemotePath);
+        try {
+            return Files
+                .newByteChannel(download, StandardOpenOption.READ, StandardOpenOption.DELETE_ON_CLOSE)
+                .position(offset);
+        } catch (final IOException ioe) {
+            delete(download);
+            throw new GenieServerException(ioe);
+        }
+    }
+
+    /**
+     * Copy a channel to a new temporary file. The caller has to delete it.
+     *
+     * @param source The channel to read until exhausted
+     * @return The temporary file
+     * @throws GenieException If the channel can't be copied
+     */
+    static Path copy(final ReadableByteChannel source) throws GenieException {
+        try {
+            final Path file = Files.createTempFile(PREFIX, null);
+            try {
+                Files.copy(Channels.newInputStream(source), file, StandardCopyOption.REPLACE_EXISTING);
+                return file;
+            } catch (final IOException | RuntimeException e) {
+                delete(file);
+                throw e;
+            }
+        } catch (final IOException ioe) {
+            throw new GenieServerException(ioe);
+        }
+    }
+
+    /**
+     * Delete a temporary file, logging any error.
+     *
+     * @param file The file to delete
+     */
+    static void delete(final Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (final IOException ioe) {
+            log.error("Unable to delete temporary file {}", file, ioe);
+        }
+    }
+}
@@ -0,0 +1,344 @@
+/*
+ *
+ *  Copyright 2016 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.core.services.impl;
+
+import com.google.common.hash.HashingInputStream;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.Striped;
+import com.netflix.genie.common.exceptions.GenieConflictException;
+import com.netflix.genie.common.exceptions.GenieException;
+import com.netflix.genie.common.exceptions.GeniePreconditionException;
+import com.netflix.genie.common.exceptions.GenieServerException;
+import com.netflix.genie.core.services.AttachmentService;
+import com.netflix.genie.core.util.LocalFileCopier;
+import com.netflix.spectator.api.Counter;
+import com.netflix.spectator.api.Registry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Locale;
+import java.util.concurrent.locks.Lock;
+import java.util.regex.Pattern;
+
+/**
+ * Implementation of the AttachmentService interface which stores each distinct attachment once on the local
+ * filesystem no matter how many jobs it's sent with.
+ * <p>
+ * The contents are kept under {@literal blobs/<sha256>} in the store directory and every job referencing them gets a
+ * hard link under {@literal jobs/<jobId>/<sha256>/<filename>} and a marker under {@literal refs/<sha256>/<jobId>}.
+ * The markers of a blob are its reference count and the blob is deleted once the last job referencing it is deleted.
+ * Job directories receive hard links to the blobs as well so the blobs are made read only. Space is only freed once
+ * those job directories are gone too. Linked files share their owner with the blob so jobs get copies instead when
+ * their directories are handed over to other users, e.g. when jobs run as the user who submitted them. A job can't
+ * have two attachments with the same file name but different contents as they'd overwrite each other in its
+ * directory.
+ *
+ * @author agent
+ * @since 3.0.0
+ */
+@Slf4j
+public class ContentAddressedAttachmentService implements AttachmentService {
+
+    private static final Pattern SHA256 = Pattern.compile("[0-9a-f]{64}");
+    private static final String BLOBS = "blobs";
+    private static final String JOBS = "jobs";
+    private static final String REFS = "refs";
+    private static final String TMP = "tmp";
+
+    private final Path blobsDirectory;
+    private final Path jobsDirectory;
+    private final Path refsDirectory;
+    private final Path tmpDirectory;
+    private final LocalFileCopier copier;
+    private final boolean linkIntoJobs;
+    private final Striped<Lock> locks = Striped.lock(64);
+    private final Counter deduplicatedRate;
+    private final Counter deduplicatedBytes;
+    private final Counter storedBytes;
+    private final Counter collectedRate;
+
+    /**
+     * Constructor.
+     *
+     * @param storeDirectory The directory to store the attachments in. Created if it doesn't exist.
+     * @param linkIntoJobs   Whether to hard link the attachments into job directories instead of copying them
+     * @param registry       The metrics registry to use
+     * @throws IOException if the store directory can't be created
+     */
+    public ContentAddressedAttachmentService(
+        final Path storeDirectory,
+        final boolean linkIntoJobs,
+        final Registry registry
+    ) throws IOException {
+        this.blobsDirectory = Files.createDirectories(storeDirectory.resolve(BLOBS));
+        this.jobsDirectory = Files.createDirectories(storeDirectory.resolve(JOBS));
+        this.refsDirectory = Files.createDirectories(storeDirectory.resolve(REFS));
+        this.tmpDirectory = Files.createDirectories(storeDirectory.resolve(TMP));
+        this.copier = new LocalFileCopier(registry);
+        this.linkIntoJobs = linkIntoJobs;
+        this.deduplicatedRate = registry.counter("genie.jobs.attachments.deduplicated.rate");
+        this.deduplicatedBytes = registry.counter("genie.jobs.attachments.deduplicated.bytes");
+        this.storedBytes = registry.counter("genie.jobs.attachments.stored.bytes");
+        this.collectedRate = registry.counter("genie.jobs.attachments.collected.rate");
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The content is hashed while it's written to a temporary file which is discarded if the same content is
+     * already stored. Fails with a conflict if the job already has a different attachment with the same name.
+     */
+    @Override
+    public void save(
+        final String jobId,
+        final String filename,
+        final InputStream content
+    ) throws GenieException {
+        this.validateFilename(filename);
+        final Path tmp;
+        final String sha256;
+        try {
+            tmp = Files.createTempFile(this.tmpDirectory, null, null);
+        } catch (final IOException ioe) {
+            throw new GenieServerException(ioe);
+        }
+        try {
+            try (final HashingInputStream in = new HashingInputStream(Hashing.sha256(), content)) {
+                Files.copy(in, tmp, StandardCopyOption.REPLACE_EXISTING);
+                sha256 = in.hash().toString();
+            }
+
+            final Lock lock = this.locks.get(sha256);
+            lock.lock();
+            try {
+                this.checkFilename(jobId, filename, sha256);
+                final Path blob = this.getBlob(sha256);
+                final long size = Files.size(tmp);
+                if (Files.exists(blob)) {
+                    this.deduplicatedRate.increment();
+                    this.deduplicatedBytes.increment(size);
+                } else {
+                    Files.createDirectories(blob.getParent());
+                    Files.move(tmp, blob, StandardCopyOption.ATOMIC_MOVE);
+                    // Jobs get hard links to the blob so it must never change
+                    if (!blob.toFile().setReadOnly()) {
+                        log.warn("Unable to make attachment {} read only", blob);
+                    }
+                    this.storedBytes.increment(size);
+                }
+                this.reference(jobId, filename, sha256, blob);
+            } finally {
+                lock.unlock();
+            }
+            log.info("Saved {} for job {} as {}", filename, jobId, sha256);
+        } catch (final IOException ioe) {
+            throw new GenieServerException(ioe);
+        } finally {
+            try {
+                Files.deleteIfExists(tmp);
+            } catch (final IOException ioe) {
+                log.error("Unable to delete temporary attachment {}", tmp, ioe);
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Fails with a conflict if the job already has a different attachment with the same name.
+     */
+    @Override
+    public boolean saveExisting(
+        final String jobId,
+        final String filename,
+        final String sha256
+    ) throws GenieException {
+        this.validateFilename(filename);
+        final String hash = sha256 == null ? null : sha256.toLowerCase(Locale.ENGLISH);
+        if (hash == null || !SHA256.matcher(hash).matches()) {
+            throw new GeniePreconditionException(sha256 + " isn't a hex encoded SHA-256 digest");
+        }
+
+        final Lock lock = this.locks.get(hash);
+        lock.lock();
+        try {
+            final Path blob = this.getBlob(hash);
+            if (!Files.exists(blob)) {
+                return false;
+            }
+            this.checkFilename(jobId, filename, hash);
+            this.reference(jobId, filename, hash, blob);
+            this.deduplicatedRate.increment();
+            this.deduplicatedBytes.increment(Files.size(blob));
+            log.info("Saved {} for job {} from existing attachment {}", filename, jobId, hash);
+            return true;
+        } catch (final IOException ioe) {
+            throw new GenieServerException(ioe);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The attachments are hard linked into the destination when possible and linking into jobs is enabled.
+     */
+    @Override
+    public void copy(final String jobId, final File destination) throws GenieException {
+        if (destination.exists() && !destination.isDirectory()) {
+            throw new GeniePreconditionException(destination + " is not a directory and it needs to be.");
+        }
+        final Path jobDirectory = this.jobsDirectory.resolve(jobId);
+        if (!Files.isDirectory(jobDirectory)) {
+            return;
+        }
+        try {
+            Files.createDirectories(destination.toPath());
+            try (final DirectoryStream<Path> hashes = Files.newDirectoryStream(jobDirectory)) {
+                for (final Path hash : hashes) {
+                    try (final DirectoryStream<Path> attachments = Files.newDirectoryStream(hash)) {
+                        for (final Path attachment : attachments) {
+                            final Path target = destination.toPath().resolve(attachment.getFileName());
+                            if (this.linkIntoJobs) {
+                                this.copier.link(attachment, target);
+                            } else {
+                                this.copier.copy(attachment, target);
+                            }
+                        }
+                    }
+                }
+            }
+        } catch (final IOException ioe) {
+            throw new GenieServerException(ioe);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Removes the references of the job and deletes any attachment no other job references anymore.
+     */
+    @Override
+    public void delete(final String jobId) throws GenieException {
+        final Path jobDirectory = this.jobsDirectory.resolve(jobId);
+        if (!Files.isDirectory(jobDirectory)) {
+            return;
+        }
+        try {
+            try (final DirectoryStream<Path> hashes = Files.newDirectoryStream(jobDirectory)) {
+                for (final Path hash : hashes) {
+                    this.release(jobId, hash);
+                }
+            }
+            FileUtils.deleteDirectory(jobDirectory.toFile());
+        } catch (final IOException ioe) {
+            throw new GenieServerException(ioe);
+        }
+    }
+
+    /**
+     * Make sure the job doesn't have an attachment with the same file name but other contents already.
+     */
+    private void checkFilename(
+        final String jobId,
+        final String filename,
+        final String sha256
+    ) throws GenieConflictException, IOException {
+        final Path jobDirectory = this.jobsDirectory.resolve(jobId);
+        if (!Files.isDirectory(jobDirectory)) {
+            return;
+        }
+        try (final DirectoryStream<Path> hashes = Files.newDirectoryStream(jobDirectory)) {
+            for (final Path hash : hashes) {
+                if (!hash.getFileName().toString().equals(sha256) && Files.exists(hash.resolve(filename))) {
+                    throw new GenieConflictException(
+                        "Job " + jobId + " already has a different attachment named " + filename
+                    );
+                }
+            }
+        }
+    }
+
+    private void reference(
+        final String jobId,
+        final String filename,
+        final String sha256,
+        final Path blob
+    ) throws IOException {
+        final Path link = Files.createDirectories(this.jobsDirectory.resolve(jobId).resolve(sha256)).resolve(filename);
+        Files.deleteIfExists(link);
+        Files.createLink(link, blob);
+        final Path ref = Files.createDirectories(this.refsDirectory.resolve(sha256)).resolve(jobId);
+        if (!Files.exists(ref)) {
+            Files.createFile(ref);
+        }
+    }
+
+    /**
+     * Remove the references of a job to one blob and delete the blob if no other job references it.
+     */
+    private void release(final String jobId, final Path hash) throws IOException {
+        final String sha256 = hash.getFileName().toString();
+        final Lock lock = this.locks.get(sha256);
+        lock.lock();
+        try {
+            FileUtils.deleteDirectory(hash.toFile());
+            final Path refs = this.refsDirectory.resolve(sha256);
+            Files.deleteIfExists(refs.resolve(jobId));
+            if (Files.isDirectory(refs) && this.isEmpty(refs)) {
+                Files.delete(refs);
+                Files.deleteIfExists(this.getBlob(sha256));
+                this.collectedRate.increment();
+                log.debug("Deleted attachment {} as no jobs reference it anymore", sha256);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean isEmpty(final Path directory) throws IOException {
+        try (final DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+            return !entries.iterator().hasNext();
+        }
+    }
+
+    private Path getBlob(final String sha256) {
+        // Fan out on the first byte so no single directory gets too large
+        return this.blobsDirectory.resolve(sha256.substring(0, 2)).resolve(sha256);
+    }
+
+    private void validateFilename(final String filename) throws GeniePreconditionException {
+        if (
+            StringUtils.isBlank(filename)
+                || !new File(filename).getName().equals(filename)
+                || ".".equals(filename)
+                || "..".equals(filename)
+            ) {
+            throw new GeniePreconditionException("Invalid attachment file name " + filename);
+        }
+    }
+}
@@ -21,6 +21,9 @@ import com.netflix.genie.common.exceptions.GenieException;
 import com.netflix.genie.common.exceptions.GeniePreconditionException;
 import com.netflix.genie.common.exceptions.GenieServerException;
 import com.netflix.genie.core.services.AttachmentService;
+import com.netflix.genie.core.util.LocalFileCopier;
+import com.netflix.spectator.api.DefaultRegistry;
+import com.netflix.spectator.api.Registry;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.io.FileUtils;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -30,6 +33,7 @@ import org.springframework.stereotype.Service;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Optional;
 
 /**
  * Implementation of the AttachmentService interface which saves and retrieves attachments from the local filesystem.
@@ -42,17 +46,30 @@ import java.io.InputStream;
 public class FileSystemAttachmentService implements AttachmentService {
 
     private String attachmentsDirectory;
+    private final LocalFileCopier copier;
 
     /**
      * Constructor.
      *
      * @param attachmentsDirectory The directory to use or null if want to default to system temp directory
      */
+    public FileSystemAttachmentService(final String attachmentsDirectory) {
+        this(attachmentsDirectory, Optional.empty());
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param attachmentsDirectory The directory to use or null if want to default to system temp directory
+     * @param registry             The metrics registry to use if there is one
+     */
     @Autowired
     public FileSystemAttachmentService(
-        @Value("${genie.jobs.attachments.dir:#{null}}") final String attachmentsDirectory
+        @Value("${genie.jobs.attachments.dir:#{null}}") final String attachmentsDirectory,
+        final Optional<Registry> registry
     ) {
         this.attachmentsDirectory = attachmentsDirectory;
+        this.copier = new LocalFileCopier(registry.orElseGet(DefaultRegistry::new));
     }
 
     /**
@@ -75,6 +92,23 @@ public class FileSystemAttachmentService implements AttachmentService {
 
     /**
      * {@inheritDoc}
+     * <p>
+     * Attachments aren't indexed by their contents so they always have to be uploaded.
+     */
+    @Override
+    public boolean saveExisting(
+        final String jobId,
+        final String filename,
+        final String sha256
+    ) throws GenieException {
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The attachments of a job are only ever used by that job so they're hard linked into the destination when
+     * possible rather than copied.
      */
     @Override
     public void copy(final String jobId, final File destination) throws GenieException {
@@ -84,7 +118,7 @@ public class FileSystemAttachmentService implements AttachmentService {
         final File source = new File(this.getAttachmentDirectory(), jobId);
         if (source.exists() && source.isDirectory()) {
             try {
-                FileUtils.copyDirectory(source, destination);
+                this.copier.linkDirectory(source.toPath(), destination.toPath());
             } catch (final IOException ioe) {
                 throw new GenieServerException(ioe);
             }
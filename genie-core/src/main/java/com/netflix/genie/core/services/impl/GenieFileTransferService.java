@@ -17,18 +17,47 @@
  */
 package com.netflix.genie.core.services.impl;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import com.google.common.util.concurrent.Striped;
 import com.netflix.genie.common.exceptions.GenieException;
 import com.netflix.genie.common.exceptions.GenieNotFoundException;
+import com.netflix.genie.common.exceptions.GenieServerException;
+import com.netflix.genie.core.services.FileMetadata;
 import com.netflix.genie.core.services.FileTransfer;
+import com.netflix.spectator.api.Id;
+import com.netflix.spectator.api.Registry;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.FileUtils;
 import org.hibernate.validator.constraints.NotBlank;
 
+import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
 
 /**
- * This class abstracts away all the implementations of FileTransfer interface. It iterates through a list of
- * available implementations and tries to perform the file transfer operations.
+ * This class abstracts away all the implementations of FileTransfer interface. Files are routed to the first
+ * implementation in the list which handles their URI scheme. Files with a scheme no implementation declares go to the
+ * first implementation in the list which says they're valid.
  *
  * @author amsharma
  * @since 3.0.0
@@ -36,20 +65,96 @@ import java.util.List;
 @Slf4j
 public class GenieFileTransferService {
 
+    private static final String DEFAULT_SCHEME = "file";
+    private static final String FILE_TRANSFER_TAG = "fileTransfer";
+    private static final String OPERATION_TAG = "operation";
+
     private final List<FileTransfer> fileTransferList;
+    private final Map<String, FileTransfer> fileTransfersByScheme;
+    private final Path cacheDirectory;
+    private final Cache<String, CachedFile> cachedFiles;
+    private final Striped<Lock> locks = Striped.lock(64);
+    private volatile boolean linksSupported;
+    private final Registry registry;
+    private final Id transferTimerId;
+    private final Id transferBytesId;
+    private final Id transferFailureRateId;
 
     /**
      * Constructor.
      *
      * @param fileTransferImpls List of implementations of all fileTransfer interface
+     * @param registry          The metrics registry to use
      *
      * @throws GenieException If there is any problem
      */
     public GenieFileTransferService(
         @NotNull
-        final List<FileTransfer> fileTransferImpls
+        final List<FileTransfer> fileTransferImpls,
+        @NotNull
+        final Registry registry
     ) throws GenieException {
-        this.fileTransferList = fileTransferImpls; }
+        this.fileTransferList = fileTransferImpls;
+        this.fileTransfersByScheme = indexBySchemes(fileTransferImpls);
+        this.cacheDirectory = null;
+        this.cachedFiles = null;
+        this.registry = registry;
+        this.transferTimerId = registry.createId("genie.files.transfer.timer");
+        this.transferBytesId = registry.createId("genie.files.transfer.bytes");
+        this.transferFailureRateId = registry.createId("genie.files.transfer.failure.rate");
+    }
+
+    /**
+     * Constructor which keeps a copy of every file fetched with getFile in a local cache. Later requests for the same
+     * file only download it again if the remote file changed, otherwise the cached copy is linked to the destination.
+     * Cached files are read only as every destination shares them.
+     * <p>
+     * Linked destinations share their owner with the cached copy. Disable linking when the destinations are handed
+     * over to other users, e.g. when jobs run as the user who submitted them, or the last user to get a file would
+     * own the copy every later destination receives.
+     *
+     * @param fileTransferImpls List of implementations of all fileTransfer interface
+     * @param cacheDirectory    The directory to keep the cached files in. Should be on the same file system as the
+     *                          destinations so files can be hard linked.
+     * @param maxCachedFiles    The maximum number of files to keep in the cache
+     * @param linkCachedFiles   Whether to hard link cached files to their destinations instead of copying them
+     * @param registry          The metrics registry to use
+     * @throws GenieException If there is any problem
+     */
+    public GenieFileTransferService(
+        @NotNull
+        final List<FileTransfer> fileTransferImpls,
+        @NotNull
+        final Path cacheDirectory,
+        @Min(1L)
+        final long maxCachedFiles,
+        final boolean linkCachedFiles,
+        @NotNull
+        final Registry registry
+    ) throws GenieException {
+        this.fileTransferList = fileTransferImpls;
+        this.fileTransfersByScheme = indexBySchemes(fileTransferImpls);
+        this.linksSupported = linkCachedFiles;
+        this.registry = registry;
+        this.transferTimerId = registry.createId("genie.files.transfer.timer");
+        this.transferBytesId = registry.createId("genie.files.transfer.bytes");
+        this.transferFailureRateId = registry.createId("genie.files.transfer.failure.rate");
+        try {
+            this.cacheDirectory = Files.createDirectories(cacheDirectory);
+            // There is no way to know which versions of the remote files copies left over from a previous run are
+            FileUtils.cleanDirectory(this.cacheDirectory.toFile());
+        } catch (final IOException ioe) {
+            throw new GenieServerException("Unable to create file cache directory " + cacheDirectory, ioe);
+        }
+        this.cachedFiles = CacheBuilder
+            .newBuilder()
+            .maximumSize(maxCachedFiles)
+            .removalListener(
+                (RemovalListener<String, CachedFile>) notification
+                    -> FileUtils.deleteQuietly(notification.getValue().getPath().toFile())
+            )
+            .build();
+    }
 
     /**
      * Get the file needed by Genie for job execution.
@@ -66,15 +171,20 @@ public class GenieFileTransferService {
     ) throws GenieException {
         log.debug("Called with src path {} and destination path {}", srcRemotePath, dstLocalPath);
 
-        for (FileTransfer ft: fileTransferList) {
-            if (ft.isValid(srcRemotePath)) {
-                ft.getFile(srcRemotePath, dstLocalPath);
-                return;
+        final FileTransfer ft = this.getFileTransfer(srcRemotePath);
+        this.time(
+            ft,
+            "getFile",
+            () -> {
+                if (this.cachedFiles == null) {
+                    ft.getFile(srcRemotePath, dstLocalPath);
+                } else {
+                    this.getCachedFile(ft, srcRemotePath, Paths.get(dstLocalPath));
+                }
+                return null;
             }
-        }
-
-        throw new GenieNotFoundException("Could not find the appropriate FileTransfer implementation to get file"
-            + srcRemotePath);
+        );
+        this.recordBytes(ft, "getFile", new File(dstLocalPath).length());
     }
 
     /**
@@ -92,14 +202,297 @@ public class GenieFileTransferService {
     ) throws GenieException {
         log.debug("Called with src path {} and destination path {}", srcLocalPath, dstRemotePath);
 
-        for (FileTransfer ft: fileTransferList) {
-            if (ft.isValid(dstRemotePath)) {
+        final FileTransfer ft = this.getFileTransfer(dstRemotePath);
+        this.time(
+            ft,
+            "putFile",
+            () -> {
                 ft.putFile(srcLocalPath, dstRemotePath);
+                return null;
+            }
+        );
+        this.recordBytes(ft, "putFile", new File(srcLocalPath).length());
+    }
+
+    /**
+     * Get the size of a file in a remote location.
+     *
+     * @param remotePath Path of the file in the remote location
+     * @return The size of the file in bytes
+     * @throws GenieException If there is any problem
+     */
+    public long getFileSize(
+        @NotBlank(message = "Remote file path cannot be empty.")
+        final String remotePath
+    ) throws GenieException {
+        log.debug("Called with path {}", remotePath);
+
+        final FileTransfer ft = this.getFileTransfer(remotePath);
+        return this.time(ft, "getFileSize", () -> ft.getFileSize(remotePath));
+    }
+
+    /**
+     * Whether parts of a file in a remote location can be read without fetching the whole file.
+     *
+     * @param remotePath Path of the file in the remote location
+     * @return True if getFileRange reads only the part requested
+     * @throws GenieException If there is any problem
+     */
+    public boolean isRangeSupported(
+        @NotBlank(message = "Remote file path cannot be empty.")
+        final String remotePath
+    ) throws GenieException {
+        return this.getFileTransfer(remotePath).isRangeSupported();
+    }
+
+    /**
+     * Read part of a file in a remote location. Only supported if isRangeSupported returns true for the path.
+     *
+     * @param srcRemotePath Path of the file in the remote location
+     * @param offset        The offset of the first byte to read
+     * @param length        How many bytes to read
+     * @return A stream of the requested bytes which the caller must close
+     * @throws GenieException If there is any problem
+     */
+    public InputStream getFileRange(
+        @NotBlank(message = "Source file path cannot be empty.")
+        final String srcRemotePath,
+        @Min(0L)
+        final long offset,
+        @Min(0L)
+        final long length
+    ) throws GenieException {
+        log.debug("Called with src path {} offset {} and length {}", srcRemotePath, offset, length);
+
+        final FileTransfer ft = this.getFileTransfer(srcRemotePath);
+        // Only covers opening the stream as the caller reads it
+        return this.time(ft, "getFileRange", () -> ft.getFileRange(srcRemotePath, offset, length));
+    }
+
+    /**
+     * Get the metadata of a file in a remote location.
+     *
+     * @param remotePath Path of the file in the remote location
+     * @return The size, ETag and modification time of the file
+     * @throws GenieException If there is any problem
+     */
+    public FileMetadata getFileMetadata(
+        @NotBlank(message = "Remote file path cannot be empty.")
+        final String remotePath
+    ) throws GenieException {
+        log.debug("Called with path {}", remotePath);
+
+        final FileTransfer ft = this.getFileTransfer(remotePath);
+        return this.time(ft, "getFileMetadata", () -> ft.getFileMetadata(remotePath));
+    }
+
+    /**
+     * Read a file in a remote location as a stream.
+     *
+     * @param srcRemotePath Path of the file in the remote location
+     * @return A stream of the contents of the file which the caller must close
+     * @throws GenieException If there is any problem
+     */
+    public InputStream getFileStream(
+        @NotBlank(message = "Source file path cannot be empty.")
+        final String srcRemotePath
+    ) throws GenieException {
+        log.debug("Called with src path {}", srcRemotePath);
+
+        final FileTransfer ft = this.getFileTransfer(srcRemotePath);
+        // Only covers opening the stream as the caller reads it
+        return this.time(ft, "getFileStream", () -> ft.getFileStream(srcRemotePath));
+    }
+
+    /**
+     * Put the contents of a channel to a remote location without writing a local file first.
+     *
+     * @param source        The channel to read until exhausted. The caller must close it.
+     * @param dstRemotePath The remote destination path where the contents have to be put
+     * @throws GenieException If there is any problem
+     */
+    public void putFile(
+        @NotNull
+        final ReadableByteChannel source,
+        @NotBlank (message = "Destination remote path cannot be empty")
+        final String dstRemotePath
+    ) throws GenieException {
+        log.debug("Called with destination path {}", dstRemotePath);
+
+        final FileTransfer ft = this.getFileTransfer(dstRemotePath);
+        this.time(
+            ft,
+            "putChannel",
+            () -> {
+                ft.putFile(source, dstRemotePath);
+                return null;
+            }
+        );
+    }
+
+    private FileTransfer getFileTransfer(final String path) throws GenieException {
+        final FileTransfer fileTransfer = this.fileTransfersByScheme.get(getScheme(path));
+        if (fileTransfer != null) {
+            return fileTransfer;
+        }
+        for (final FileTransfer ft : this.fileTransferList) {
+            if (ft.isValid(path)) {
+                return ft;
+            }
+        }
+        throw new GenieNotFoundException("Could not find the appropriate FileTransfer implementation for " + path);
+    }
+
+    private <T> T time(
+        final FileTransfer fileTransfer,
+        final String operation,
+        final Transfer<T> transfer
+    ) throws GenieException {
+        final String fileTransferName = fileTransfer.getClass().getSimpleName();
+        final long start = System.nanoTime();
+        try {
+            return transfer.call();
+        } catch (final GenieException | RuntimeException e) {
+            this.registry
+                .counter(
+                    this.transferFailureRateId
+                        .withTag(FILE_TRANSFER_TAG, fileTransferName)
+                        .withTag(OPERATION_TAG, operation)
+                )
+                .increment();
+            throw e;
+        } finally {
+            this.registry
+                .timer(
+                    this.transferTimerId
+                        .withTag(FILE_TRANSFER_TAG, fileTransferName)
+                        .withTag(OPERATION_TAG, operation)
+                )
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void recordBytes(final FileTransfer fileTransfer, final String operation, final long bytes) {
+        this.registry
+            .distributionSummary(
+                this.transferBytesId
+                    .withTag(FILE_TRANSFER_TAG, fileTransfer.getClass().getSimpleName())
+                    .withTag(OPERATION_TAG, operation)
+            )
+            .record(bytes);
+    }
+
+    private static String getScheme(final String path) {
+        final int index = path.indexOf(':');
+        // Paths without a scheme are local paths
+        return index > 0 ? path.substring(0, index).toLowerCase(Locale.ENGLISH) : DEFAULT_SCHEME;
+    }
+
+    private static Map<String, FileTransfer> indexBySchemes(final List<FileTransfer> fileTransfers) {
+        final Map<String, FileTransfer> index = new HashMap<>();
+        for (final FileTransfer fileTransfer : fileTransfers) {
+            for (final String scheme : fileTransfer.getSchemes()) {
+                // Earlier implementations in the list take precedence like they do when routing by isValid
+                index.putIfAbsent(scheme, fileTransfer);
+            }
+        }
+        return index;
+    }
+
+    private void getCachedFile(
+        final FileTransfer fileTransfer,
+        final String srcRemotePath,
+        final Path dstLocalPath
+    ) throws GenieException {
+        // Only one download of the same file at a time so concurrent jobs needing it share a single download
+        final Lock lock = this.locks.get(srcRemotePath);
+        lock.lock();
+        try {
+            final CachedFile cached = this.cachedFiles.getIfPresent(srcRemotePath);
+            // Unique per download so a late eviction of a previous copy can never remove this one
+            final Path download = this.cacheDirectory.resolve(UUID.randomUUID().toString());
+            final FileMetadata metadata;
+            try {
+                metadata = fileTransfer.getFileIfModified(
+                    srcRemotePath,
+                    download.toString(),
+                    cached == null ? null : cached.getETag()
+                );
+            } catch (final GenieException ge) {
+                FileUtils.deleteQuietly(download.toFile());
+                throw ge;
+            }
+
+            final Path file;
+            if (metadata == null) {
+                log.debug("Using cached copy of unchanged file {}", srcRemotePath);
+                file = cached.getPath();
+            } else {
+                if (!download.toFile().setWritable(false, false)) {
+                    log.debug("Unable to make {} read only", download);
+                }
+                this.cachedFiles.put(srcRemotePath, new CachedFile(download, metadata.getETag()));
+                file = download;
+            }
+
+            try {
+                this.link(file, dstLocalPath);
+            } catch (final IOException ioe) {
+                // Most likely the copy was evicted in the meantime so fall back to downloading the file directly
+                log.warn("Unable to use cached copy of {}. Downloading it instead.", srcRemotePath, ioe);
+                fileTransfer.getFile(srcRemotePath, dstLocalPath.toString());
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void link(final Path file, final Path link) throws IOException {
+        if (this.linksSupported) {
+            try {
+                Files.deleteIfExists(link);
+                Files.createLink(link, file);
                 return;
+            } catch (final NoSuchFileException nsfe) {
+                throw nsfe;
+            } catch (final UnsupportedOperationException | FileSystemException e) {
+                // Usually the destinations and the cache are on different devices. Not going to change until restart.
+                log.warn("Unable to hard link {} to {}. Copying files from now on.", link, file, e);
+                this.linksSupported = false;
             }
         }
+        Files.copy(file, link, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * A call to a file transfer implementation.
+     *
+     * @param <T> The type of the result of the call
+     * @author agent
+     * @since 3.0.0
+     */
+    @FunctionalInterface
+    private interface Transfer<T> {
+
+        /**
+         * Make the call.
+         *
+         * @return The result of the call or null if there is none
+         * @throws GenieException If there is any problem
+         */
+        T call() throws GenieException;
+    }
 
-        throw new GenieNotFoundException("Could not find the appropriate FileTransfer implementation to get file"
-            + dstRemotePath);
+    /**
+     * A copy of a remote file in the cache.
+     *
+     * @author agent
+     * @since 3.0.0
+     */
+    @Getter
+    @AllArgsConstructor
+    private static class CachedFile {
+        private final Path path;
+        private final String eTag;
     }
 }
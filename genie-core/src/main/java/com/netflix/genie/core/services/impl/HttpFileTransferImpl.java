@@ -0,0 +1,373 @@
+/*
+ *
+ *  Copyright 2016 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.core.services.impl;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.io.ByteStreams;
+import com.netflix.genie.common.exceptions.GenieException;
+import com.netflix.genie.common.exceptions.GenieNotFoundException;
+import com.netflix.genie.common.exceptions.GenieServerException;
+import com.netflix.genie.core.services.FileMetadata;
+import com.netflix.genie.core.services.FileTransfer;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.validator.constraints.NotBlank;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * An implementation of the FileTransfer interface in which the remote locations are http or https URLs. Files are
+ * uploaded with PUT requests.
+ *
+ * @author agent
+ * @since 3.0.0
+ */
+@Slf4j
+public class HttpFileTransferImpl implements FileTransfer {
+
+    /**
+     * The default connect and read timeout in milliseconds.
+     */
+    public static final int DEFAULT_TIMEOUT = 30000;
+
+    private static final Set<String> SCHEMES = ImmutableSet.of("http", "https");
+    private static final String GET = "GET";
+    private static final String HEAD = "HEAD";
+    private static final String PUT = "PUT";
+    // Send files being put in chunks of this size when their size isn't known up front
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    private final int connectTimeout;
+    private final int readTimeout;
+
+    /**
+     * Constructor.
+     */
+    public HttpFileTransferImpl() {
+        this(DEFAULT_TIMEOUT, DEFAULT_TIMEOUT);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param connectTimeout How long to wait for a connection in milliseconds
+     * @param readTimeout    How long to wait for data from a connection in milliseconds
+     */
+    public HttpFileTransferImpl(final int connectTimeout, final int readTimeout) {
+        this.connectTimeout = connectTimeout;
+        this.readTimeout = readTimeout;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Set<String> getSchemes() {
+        return SCHEMES;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isValid(
+        @NotBlank(message = "Filename cannot be blank")
+        final String fileName
+    ) throws GenieException {
+        log.debug("Called with file name {}", fileName);
+        final String lowerCaseFileName = fileName.toLowerCase(Locale.ENGLISH);
+        return lowerCaseFileName.startsWith("http://") || lowerCaseFileName.startsWith("https://");
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void getFile(
+        @NotBlank (message = "Source file path cannot be empty.")
+        final String srcRemotePath,
+        @NotBlank (message = "Destination local path cannot be empty")
+        final String dstLocalPath
+    ) throws GenieException {
+        log.debug("Called with src path {} and destination path {}", srcRemotePath, dstLocalPath);
+        this.getFileIfModified(srcRemotePath, dstLocalPath, null);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The ETag is sent in an If-None-Match header so the server decides whether the file changed.
+     */
+    @Override
+    public FileMetadata getFileIfModified(
+        @NotBlank (message = "Source file path cannot be empty.")
+        final String srcRemotePath,
+        @NotBlank (message = "Destination local path cannot be empty")
+        final String dstLocalPath,
+        final String eTag
+    ) throws GenieException {
+        log.debug("Called with src path {} destination path {} and ETag {}", srcRemotePath, dstLocalPath, eTag);
+        final Path destination = Paths.get(dstLocalPath);
+        try {
+            final HttpURLConnection connection = this.open(srcRemotePath, GET);
+            try {
+                if (eTag != null) {
+                    connection.setRequestProperty("If-None-Match", eTag);
+                }
+                if (connection.getResponseCode() == HttpURLConnection.HTTP_NOT_MODIFIED) {
+                    return null;
+                }
+                this.checkResponse(connection, srcRemotePath);
+                // Download next to the destination so a failed download never replaces an existing copy
+                final Path download = Files.createTempFile(
+                    destination.toAbsolutePath().getParent(),
+                    destination.getFileName().toString(),
+                    ".download"
+                );
+                try {
+                    final long size;
+                    try (final InputStream in = connection.getInputStream()) {
+                        size = Files.copy(in, download, StandardCopyOption.REPLACE_EXISTING);
+                    }
+                    final long expectedSize = connection.getContentLengthLong();
+                    if (expectedSize >= 0L && size != expectedSize) {
+                        throw new IOException("Got " + size + " bytes but expected " + expectedSize);
+                    }
+                    Files.move(download, destination, StandardCopyOption.REPLACE_EXISTING);
+                    return new FileMetadata(size, connection.getHeaderField("ETag"), connection.getLastModified());
+                } finally {
+                    Files.deleteIfExists(download);
+                }
+            } finally {
+                connection.disconnect();
+            }
+        } catch (IOException ioe) {
+            log.error("Got error while downloading {} to local path {}", srcRemotePath, dstLocalPath);
+            throw new GenieServerException(
+                "Got error while downloading "
+                    + srcRemotePath
+                    + " to local path "
+                    + dstLocalPath, ioe);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void putFile(
+        @NotBlank (message = "Source local path cannot be empty.")
+        final String srcLocalPath,
+        @NotBlank (message = "Destination remote path cannot be empty")
+        final String dstRemotePath
+    ) throws GenieException {
+        log.debug("Called with src path {} and destination path {}", srcLocalPath, dstRemotePath);
+        try {
+            final Path source = Paths.get(srcLocalPath);
+            final HttpURLConnection connection = this.open(dstRemotePath, PUT);
+            try {
+                connection.setDoOutput(true);
+                connection.setFixedLengthStreamingMode(Files.size(source));
+                try (final OutputStream out = connection.getOutputStream()) {
+                    Files.copy(source, out);
+                }
+                this.checkResponse(connection, dstRemotePath);
+            } finally {
+                connection.disconnect();
+            }
+        } catch (IOException ioe) {
+            log.error("Got error while uploading local file {} to {}", srcLocalPath, dstRemotePath);
+            throw new GenieServerException(
+                "Got error while uploading local file "
+                    + srcLocalPath
+                    + " to "
+                    + dstRemotePath, ioe);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getFileSize(
+        @NotBlank (message = "Remote file path cannot be empty.")
+        final String remotePath
+    ) throws GenieException {
+        log.debug("Called with path {}", remotePath);
+        final long size = this.getFileMetadata(remotePath).getSize();
+        if (size < 0L) {
+            throw new GenieServerException("Server didn't send the size of file " + remotePath);
+        }
+        return size;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Servers which ignore the Range header still send everything before the range as well.
+     */
+    @Override
+    public boolean isRangeSupported() {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public InputStream getFileRange(
+        @NotBlank (message = "Source file path cannot be empty.")
+        final String srcRemotePath,
+        final long offset,
+        final long length
+    ) throws GenieException {
+        log.debug("Called with src path {} offset {} and length {}", srcRemotePath, offset, length);
+        if (length == 0L) {
+            return new ByteArrayInputStream(new byte[0]);
+        }
+        try {
+            final HttpURLConnection connection = this.open(srcRemotePath, GET);
+            connection.setRequestProperty("Range", "bytes=" + offset + "-" + (offset + length - 1L));
+            this.checkResponse(connection, srcRemotePath);
+            final InputStream in = connection.getInputStream();
+            if (connection.getResponseCode() != HttpURLConnection.HTTP_PARTIAL) {
+                // The server ignored the range and is sending the whole file
+                try {
+                    ByteStreams.skipFully(in, offset);
+                } catch (IOException ioe) {
+                    in.close();
+                    throw ioe;
+                }
+            }
+            return ByteStreams.limit(in, length);
+        } catch (IOException ioe) {
+            log.error("Got error while reading range of {}", srcRemotePath);
+            throw new GenieServerException("Got error while reading range of " + srcRemotePath, ioe);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The size is -1 if the server doesn't send a Content-Length header.
+     */
+    @Override
+    public FileMetadata getFileMetadata(
+        @NotBlank (message = "Remote file path cannot be empty.")
+        final String remotePath
+    ) throws GenieException {
+        log.debug("Called with path {}", remotePath);
+        try {
+            final HttpURLConnection connection = this.open(remotePath, HEAD);
+            try {
+                if (connection.getResponseCode() == HttpURLConnection.HTTP_NOT_FOUND) {
+                    throw new GenieNotFoundException("No file at " + remotePath);
+                }
+                this.checkResponse(connection, remotePath);
+                return new FileMetadata(
+                    connection.getContentLengthLong(),
+                    connection.getHeaderField("ETag"),
+                    connection.getLastModified()
+                );
+            } finally {
+                connection.disconnect();
+            }
+        } catch (IOException ioe) {
+            log.error("Got error while getting the metadata of {}", remotePath);
+            throw new GenieServerException("Got error while getting the metadata of " + remotePath, ioe);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public InputStream getFileStream(
+        @NotBlank (message = "Source file path cannot be empty.")
+        final String srcRemotePath
+    ) throws GenieException {
+        log.debug("Called with src path {}", srcRemotePath);
+        try {
+            final HttpURLConnection connection = this.open(srcRemotePath, GET);
+            this.checkResponse(connection, srcRemotePath);
+            return connection.getInputStream();
+        } catch (IOException ioe) {
+            log.error("Got error while opening {}", srcRemotePath);
+            throw new GenieServerException("Got error while opening " + srcRemotePath, ioe);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void putFile(
+        final ReadableByteChannel source,
+        @NotBlank (message = "Destination remote path cannot be empty")
+        final String dstRemotePath
+    ) throws GenieException {
+        log.debug("Called with destination path {}", dstRemotePath);
+        try {
+            final HttpURLConnection connection = this.open(dstRemotePath, PUT);
+            try {
+                connection.setDoOutput(true);
+                connection.setChunkedStreamingMode(CHUNK_SIZE);
+                try (final OutputStream out = connection.getOutputStream()) {
+                    // Don't close the channel as the caller owns it
+                    ByteStreams.copy(Channels.newInputStream(source), out);
+                }
+                this.checkResponse(connection, dstRemotePath);
+            } finally {
+                connection.disconnect();
+            }
+        } catch (IOException ioe) {
+            log.error("Got error while writing stream to {}", dstRemotePath);
+            throw new GenieServerException("Got error while writing stream to " + dstRemotePath, ioe);
+        }
+    }
+
+    private HttpURLConnection open(final String url, final String method) throws IOException {
+        final HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        connection.setRequestMethod(method);
+        connection.setConnectTimeout(this.connectTimeout);
+        connection.setReadTimeout(this.readTimeout);
+        return connection;
+    }
+
+    private void checkResponse(final HttpURLConnection connection, final String url) throws IOException {
+        final int status = connection.getResponseCode();
+        if (status < HttpURLConnection.HTTP_OK || status >= HttpURLConnection.HTTP_MULT_CHOICE) {
+            throw new IOException(
+                connection.getRequestMethod() + " " + url + " failed with " + status + " "
+                    + connection.getResponseMessage()
+            );
+        }
+    }
+}
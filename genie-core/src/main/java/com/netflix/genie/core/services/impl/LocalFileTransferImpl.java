@@ -17,15 +17,37 @@
  */
 package com.netflix.genie.core.services.impl;
 
+import com.google.common.collect.ImmutableSet;
+import com.google.common.io.ByteStreams;
 import com.netflix.genie.common.exceptions.GenieException;
+import com.netflix.genie.common.exceptions.GenieNotFoundException;
 import com.netflix.genie.common.exceptions.GenieServerException;
+import com.netflix.genie.core.services.FileMetadata;
 import com.netflix.genie.core.services.FileTransfer;
+import com.netflix.genie.core.util.LocalFileCopier;
+import com.netflix.spectator.api.DefaultRegistry;
+import com.netflix.spectator.api.Registry;
 import lombok.extern.slf4j.Slf4j;
 import org.hibernate.validator.constraints.NotBlank;
 
-import java.io.File;
+import javax.validation.constraints.NotNull;
 import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * An implementation of the FileTransferService interface in which the remote locations are on local unix filesystem.
@@ -36,6 +58,52 @@ import java.nio.file.Files;
 @Slf4j
 public class LocalFileTransferImpl implements FileTransfer {
 
+    private static final String FILE_SCHEME = "file";
+    private static final Set<String> SCHEMES = ImmutableSet.of(FILE_SCHEME);
+
+    private final LocalFileCopier copier;
+    private final List<Path> linkPrefixes;
+
+    /**
+     * Constructor. Files are always copied.
+     */
+    public LocalFileTransferImpl() {
+        this(new DefaultRegistry(), Collections.emptyList());
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param registry     The metrics registry to use
+     * @param linkPrefixes Remote paths under these directories are hard linked instead of copied when they're on the
+     *                     same file system as the local path. Only list directories whose files are never modified in
+     *                     place as a link shares its contents with the file it links to. Must be empty when jobs
+     *                     run as the user who submitted them as the job directory is chowned to that user and a link
+     *                     shares its owner too, which would hand the source files over to the user.
+     */
+    public LocalFileTransferImpl(
+        @NotNull
+        final Registry registry,
+        @NotNull
+        final List<String> linkPrefixes
+    ) {
+        this.copier = new LocalFileCopier(registry);
+        this.linkPrefixes = linkPrefixes
+            .stream()
+            .map(prefix -> toPath(prefix).toAbsolutePath().normalize())
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Paths without a scheme are local paths too.
+     */
+    @Override
+    public Set<String> getSchemes() {
+        return SCHEMES;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -60,9 +128,18 @@ public class LocalFileTransferImpl implements FileTransfer {
     ) throws GenieException {
         log.debug("Called with src path {} and destination path {}", srcRemotePath, dstLocalPath);
         try {
-            final File src = new File(srcRemotePath);
-            final File dest = new File(dstLocalPath);
-            Files.copy(src.toPath(), dest.toPath());
+            final Path src = toPath(srcRemotePath);
+            final Path dest = Paths.get(dstLocalPath);
+            final BasicFileAttributes srcAttributes = Files.readAttributes(src, BasicFileAttributes.class);
+            if (Files.exists(dest)) {
+                final BasicFileAttributes destAttributes = Files.readAttributes(dest, BasicFileAttributes.class);
+                if (srcAttributes.size() == destAttributes.size()
+                    && srcAttributes.lastModifiedTime().equals(destAttributes.lastModifiedTime())) {
+                    log.debug("Local path {} is already a copy of {}", dstLocalPath, srcRemotePath);
+                    return;
+                }
+            }
+            this.transfer(src, dest, srcAttributes.size(), this.isLinked(src));
         } catch (IOException ioe) {
             log.error("Got error while copying remote file {} to local path {}", srcRemotePath, dstLocalPath);
             throw new GenieServerException(
@@ -73,6 +150,38 @@ public class LocalFileTransferImpl implements FileTransfer {
         }
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Local files are considered unchanged while their size and modification time are.
+     */
+    @Override
+    public FileMetadata getFileIfModified(
+        @NotBlank (message = "Source file path cannot be empty.")
+        final String srcRemotePath,
+        @NotBlank (message = "Destination local path cannot be empty")
+        final String dstLocalPath,
+        final String eTag
+    ) throws GenieException {
+        log.debug("Called with src path {} destination path {} and ETag {}", srcRemotePath, dstLocalPath, eTag);
+        final FileMetadata metadata = this.getFileMetadata(srcRemotePath);
+        if (eTag != null && eTag.equals(metadata.getETag())) {
+            return null;
+        }
+        try {
+            final Path src = toPath(srcRemotePath);
+            this.transfer(src, Paths.get(dstLocalPath), metadata.getSize(), this.isLinked(src));
+            return metadata;
+        } catch (IOException ioe) {
+            log.error("Got error while copying remote file {} to local path {}", srcRemotePath, dstLocalPath);
+            throw new GenieServerException(
+                "Got error while copying remote file "
+                    + srcRemotePath
+                    + " to local path "
+                    + dstLocalPath, ioe);
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -85,9 +194,13 @@ public class LocalFileTransferImpl implements FileTransfer {
     ) throws GenieException {
         log.debug("Called with src path {} and destination path {}", srcLocalPath, dstRemotePath);
         try {
-            final File src = new File(srcLocalPath);
-            final File dest = new File(dstRemotePath);
-            Files.copy(src.toPath(), dest.toPath());
+            final Path src = Paths.get(srcLocalPath);
+            final Path dest = toPath(dstRemotePath);
+            // Never replace an existing remote file
+            if (Files.exists(dest)) {
+                throw new FileAlreadyExistsException(dstRemotePath);
+            }
+            this.transfer(src, dest, Files.size(src), this.isLinked(dest));
         } catch (IOException ioe) {
             log.error("Got error while copying local file {} to remote path {}", srcLocalPath, dstRemotePath);
             throw new GenieServerException(
@@ -97,4 +210,169 @@ public class LocalFileTransferImpl implements FileTransfer {
                     + dstRemotePath, ioe);
         }
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getFileSize(
+        @NotBlank (message = "Remote file path cannot be empty.")
+        final String remotePath
+    ) throws GenieException {
+        log.debug("Called with path {}", remotePath);
+        try {
+            return Files.size(toPath(remotePath));
+        } catch (IOException ioe) {
+            log.error("Got error while getting the size of file {}", remotePath);
+            throw new GenieServerException("Got error while getting the size of file " + remotePath, ioe);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isRangeSupported() {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public InputStream getFileRange(
+        @NotBlank (message = "Source file path cannot be empty.")
+        final String srcRemotePath,
+        final long offset,
+        final long length
+    ) throws GenieException {
+        log.debug("Called with src path {} offset {} and length {}", srcRemotePath, offset, length);
+        try {
+            final FileChannel channel = FileChannel.open(toPath(srcRemotePath), StandardOpenOption.READ);
+            try {
+                channel.position(offset);
+            } catch (IOException ioe) {
+                channel.close();
+                throw ioe;
+            }
+            // Closing the limited stream closes the channel
+            return ByteStreams.limit(Channels.newInputStream(channel), length);
+        } catch (IOException ioe) {
+            log.error("Got error while reading range of file {}", srcRemotePath);
+            throw new GenieServerException("Got error while reading range of file " + srcRemotePath, ioe);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The ETag is derived from the size and modification time of the file so it's cheap to compute.
+     */
+    @Override
+    public FileMetadata getFileMetadata(
+        @NotBlank (message = "Remote file path cannot be empty.")
+        final String remotePath
+    ) throws GenieException {
+        log.debug("Called with path {}", remotePath);
+        try {
+            final BasicFileAttributes attributes
+                = Files.readAttributes(toPath(remotePath), BasicFileAttributes.class);
+            final long lastModified = attributes.lastModifiedTime().toMillis();
+            return new FileMetadata(
+                attributes.size(),
+                Long.toHexString(attributes.size()) + "-" + Long.toHexString(lastModified),
+                lastModified
+            );
+        } catch (NoSuchFileException nsfe) {
+            throw new GenieNotFoundException("No file at " + remotePath);
+        } catch (IOException ioe) {
+            log.error("Got error while getting the metadata of file {}", remotePath);
+            throw new GenieServerException("Got error while getting the metadata of file " + remotePath, ioe);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public InputStream getFileStream(
+        @NotBlank (message = "Source file path cannot be empty.")
+        final String srcRemotePath
+    ) throws GenieException {
+        log.debug("Called with src path {}", srcRemotePath);
+        try {
+            return Files.newInputStream(toPath(srcRemotePath));
+        } catch (IOException ioe) {
+            log.error("Got error while opening file {}", srcRemotePath);
+            throw new GenieServerException("Got error while opening file " + srcRemotePath, ioe);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void putFile(
+        final ReadableByteChannel source,
+        @NotBlank (message = "Destination remote path cannot be empty")
+        final String dstRemotePath
+    ) throws GenieException {
+        log.debug("Called with destination path {}", dstRemotePath);
+        final Path destination = toPath(dstRemotePath);
+        try {
+            // Remote stores like S3 have no directories so callers don't create them
+            if (destination.getParent() != null) {
+                Files.createDirectories(destination.getParent());
+            }
+        } catch (IOException ioe) {
+            throw new GenieServerException("Unable to create the parent directory of " + dstRemotePath, ioe);
+        }
+        // Like copying a local file this fails if the destination already exists
+        try (final FileChannel channel = FileChannel.open(
+            destination,
+            StandardOpenOption.CREATE_NEW,
+            StandardOpenOption.WRITE
+        )) {
+            long position = 0L;
+            long transferred;
+            while ((transferred = channel.transferFrom(source, position, LocalFileCopier.TRANSFER_CHUNK_SIZE)) > 0) {
+                position += transferred;
+            }
+        } catch (IOException ioe) {
+            log.error("Got error while writing stream to remote path {}", dstRemotePath);
+            throw new GenieServerException("Got error while writing stream to remote path " + dstRemotePath, ioe);
+        }
+    }
+
+    private static Path toPath(final String path) {
+        // Plain paths are used as is, file URIs are resolved
+        if (path.regionMatches(true, 0, FILE_SCHEME + ":", 0, FILE_SCHEME.length() + 1)) {
+            return Paths.get(URI.create(path));
+        } else {
+            return Paths.get(path);
+        }
+    }
+
+    private boolean isLinked(final Path remotePath) {
+        final Path path = remotePath.toAbsolutePath().normalize();
+        return this.linkPrefixes.stream().anyMatch(path::startsWith);
+    }
+
+    private void transfer(
+        final Path src,
+        final Path dest,
+        final long expectedSize,
+        final boolean link
+    ) throws IOException {
+        // Both keep the modification time so an unchanged copy can be recognized later
+        if (link) {
+            this.copier.link(src, dest);
+        } else {
+            this.copier.copy(src, dest);
+        }
+        final long size = Files.size(dest);
+        if (size != expectedSize) {
+            throw new IOException("Copied " + size + " bytes of " + src + " but expected " + expectedSize);
+        }
+    }
 }
@@ -0,0 +1,434 @@
+/*
+ *
+ *  Copyright 2016 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.core.services.impl;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.google.common.io.BaseEncoding;
+import com.netflix.genie.common.exceptions.GenieBadRequestException;
+import com.netflix.genie.common.exceptions.GenieException;
+import com.netflix.genie.common.exceptions.GenieNotFoundException;
+import com.netflix.genie.common.exceptions.GenieServerException;
+import com.netflix.genie.common.util.JsonUtils;
+import com.netflix.genie.core.jobs.JobConstants;
+import com.netflix.genie.core.jobs.JobDirectoryManifest;
+import com.netflix.genie.core.services.JobDirectoryManifestService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.Resource;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+
+/**
+ * Implementation of the JobDirectoryManifestService which walks job directories on the local disk.
+ * <p>
+ * The directory tree is walked once on the calling thread for the metadata while reading the contents of files for
+ * their checksums, which is where the time goes for large job directories, is spread over a pool of threads. Entries
+ * are written out in the order they're walked as soon as their checksums are done so neither writing a manifest to a
+ * response nor saving it holds the whole manifest in memory.
+ * <p>
+ * Manifests are saved without checksums by default so finishing a job doesn't read its whole directory. Requests for
+ * checksums then walk the directory again.
+ *
+ * @author agent
+ * @since 3.0.0
+ */
+@Slf4j
+public class LocalJobDirectoryManifestServiceImpl implements JobDirectoryManifestService {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final String JOB_ID_FIELD = "jobId";
+    private static final String CHECKSUMS_FIELD = "checksums";
+    private static final String NUM_FILES_FIELD = "numFiles";
+    private static final String NUM_DIRECTORIES_FIELD = "numDirectories";
+    private static final String TOTAL_SIZE_FIELD = "totalSize";
+    private static final String ENTRIES_FIELD = "entries";
+    // Entries waiting on the checksums of files walked before them. Bounds the memory used by a streamed manifest.
+    private static final int MAX_PENDING_ENTRIES = 1024;
+    private static final ObjectReader MANIFEST_READER = JsonUtils.getMapper().readerFor(JobDirectoryManifest.class);
+    private static final Comparator<Path> NAME_COMPARATOR = Comparator.comparing(path -> path.getFileName().toString());
+
+    private final Resource baseWorkingDir;
+    private final ForkJoinPool checksumPool;
+    private final long maxChecksumFileSize;
+    private final boolean checksumOnSave;
+
+    /**
+     * Constructor.
+     *
+     * @param genieWorkingDir     Working directory for genie where it creates jobs directories
+     * @param parallelism         The number of threads to use to calculate checksums of files
+     * @param maxChecksumFileSize Files larger than this many bytes are listed without checksums
+     * @param checksumOnSave      Whether to calculate checksums of the files when the manifest is saved
+     */
+    public LocalJobDirectoryManifestServiceImpl(
+        final Resource genieWorkingDir,
+        final int parallelism,
+        final long maxChecksumFileSize,
+        final boolean checksumOnSave
+    ) {
+        this.baseWorkingDir = genieWorkingDir;
+        this.checksumPool = new ForkJoinPool(parallelism);
+        this.maxChecksumFileSize = maxChecksumFileSize;
+        this.checksumOnSave = checksumOnSave;
+    }
+
+    /**
+     * Stop the threads calculating checksums.
+     */
+    @PreDestroy
+    public void shutdown() {
+        this.checksumPool.shutdownNow();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public JobDirectoryManifest getManifest(final String jobId, final boolean includeChecksums) throws GenieException {
+        final Path jobDir = this.getJobDirectory(jobId);
+        final Path savedManifest = jobDir.resolve(JobConstants.GENIE_MANIFEST_FILE_NAME);
+        if (Files.isRegularFile(savedManifest)) {
+            try {
+                final JobDirectoryManifest manifest = MANIFEST_READER.readValue(savedManifest.toFile());
+                if (manifest.isChecksums() || !includeChecksums) {
+                    return manifest;
+                }
+            } catch (final IOException ioe) {
+                log.warn("Unable to read saved manifest {}. Walking job directory instead.", savedManifest, ioe);
+            }
+        }
+
+        final JobDirectoryManifest manifest = new JobDirectoryManifest();
+        manifest.setJobId(jobId);
+        manifest.setChecksums(includeChecksums);
+        this.walk(
+            jobId,
+            jobDir,
+            includeChecksums,
+            entry -> {
+                addToTotals(manifest, entry);
+                manifest.getEntries().add(entry);
+            }
+        );
+        return manifest;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void writeManifest(
+        final String jobId,
+        final boolean includeChecksums,
+        final OutputStream outputStream
+    ) throws GenieException {
+        final Path jobDir = this.getJobDirectory(jobId);
+        final Path savedManifest = jobDir.resolve(JobConstants.GENIE_MANIFEST_FILE_NAME);
+        try {
+            if (Files.isRegularFile(savedManifest) && (!includeChecksums || this.hasChecksums(savedManifest))) {
+                Files.copy(savedManifest, outputStream);
+            } else {
+                this.streamManifest(jobId, jobDir, includeChecksums, outputStream);
+            }
+            outputStream.flush();
+        } catch (final IOException ioe) {
+            throw new GenieServerException("Unable to write manifest for job " + jobId, ioe);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void saveManifest(final String jobId) throws GenieException {
+        final Path jobDir = this.getJobDirectory(jobId);
+        final Path savedManifest = jobDir.resolve(JobConstants.GENIE_MANIFEST_FILE_NAME);
+        try {
+            final Path genieDir = jobDir.resolve(JobConstants.GENIE_PATH_VAR);
+            Files.createDirectories(genieDir);
+            // Write to a temporary file first so readers never see a partial manifest
+            final Path tmp = Files.createTempFile(genieDir, ".manifest", ".tmp");
+            try {
+                try (final OutputStream outputStream = Files.newOutputStream(tmp)) {
+                    this.streamManifest(jobId, jobDir, this.checksumOnSave, outputStream);
+                }
+                Files.move(tmp, savedManifest, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+        } catch (final IOException ioe) {
+            throw new GenieServerException("Unable to save manifest for job " + jobId, ioe);
+        }
+    }
+
+    private Path getJobDirectory(final String jobId) throws GenieException {
+        final Path baseDir;
+        try {
+            baseDir = this.baseWorkingDir.getFile().toPath().toAbsolutePath().normalize();
+        } catch (final IOException ioe) {
+            throw new GenieServerException("Could not load the base path from resource", ioe);
+        }
+        final Path jobDir = baseDir.resolve(jobId).normalize();
+        // The id comes from the request so make sure it can't point anywhere but a directory of a job
+        if (!baseDir.equals(jobDir.getParent())) {
+            throw new GenieBadRequestException("Invalid job id " + jobId);
+        }
+        if (!Files.isDirectory(jobDir)) {
+            throw new GenieNotFoundException("No job directory found for job " + jobId);
+        }
+        return jobDir;
+    }
+
+    /**
+     * Whether the saved manifest was written with checksums. Only reads as far as the flag rather than the whole file.
+     */
+    private boolean hasChecksums(final Path savedManifest) {
+        try (final JsonParser parser = JsonUtils.getMapper().getFactory().createParser(savedManifest.toFile())) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return false;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                final String field = parser.getCurrentName();
+                parser.nextToken();
+                if (CHECKSUMS_FIELD.equals(field)) {
+                    return parser.getValueAsBoolean();
+                }
+                parser.skipChildren();
+            }
+        } catch (final IOException ioe) {
+            log.warn("Unable to read saved manifest {}. Walking job directory instead.", savedManifest, ioe);
+        }
+        return false;
+    }
+
+    /**
+     * Write the manifest as JSON while the directory is walked. The totals come after the entries as they aren't
+     * known until the walk is done.
+     */
+    private void streamManifest(
+        final String jobId,
+        final Path jobDir,
+        final boolean includeChecksums,
+        final OutputStream outputStream
+    ) throws GenieException, IOException {
+        final JobDirectoryManifest totals = new JobDirectoryManifest();
+        try (
+            final JsonGenerator generator = JsonUtils
+                .getMapper()
+                .getFactory()
+                .createGenerator(outputStream)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+        ) {
+            generator.writeStartObject();
+            generator.writeStringField(JOB_ID_FIELD, jobId);
+            generator.writeBooleanField(CHECKSUMS_FIELD, includeChecksums);
+            generator.writeArrayFieldStart(ENTRIES_FIELD);
+            this.walk(
+                jobId,
+                jobDir,
+                includeChecksums,
+                entry -> {
+                    addToTotals(totals, entry);
+                    generator.writeObject(entry);
+                }
+            );
+            generator.writeEndArray();
+            generator.writeNumberField(NUM_FILES_FIELD, totals.getNumFiles());
+            generator.writeNumberField(NUM_DIRECTORIES_FIELD, totals.getNumDirectories());
+            generator.writeNumberField(TOTAL_SIZE_FIELD, totals.getTotalSize());
+            generator.writeEndObject();
+        }
+    }
+
+    /**
+     * Walk the job directory depth first with the contents of each directory sorted by name and hand every entry to
+     * the consumer in that order once its checksums, if any, are calculated.
+     */
+    private void walk(
+        final String jobId,
+        final Path jobDir,
+        final boolean includeChecksums,
+        final EntryConsumer consumer
+    ) throws GenieException {
+        final Walker walker = new Walker(jobId, jobDir, includeChecksums, consumer);
+        try {
+            walker.walkDirectory(jobDir);
+            walker.drain(0);
+        } catch (final IOException ioe) {
+            throw new GenieServerException("Unable to walk directory of job " + jobId, ioe);
+        } catch (final InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new GenieServerException("Interrupted while building manifest for job " + jobId, ie);
+        } catch (final ExecutionException ee) {
+            throw new GenieServerException("Unable to calculate checksums for job " + jobId, ee.getCause());
+        } finally {
+            walker.pending.forEach(entry -> entry.cancel(true));
+        }
+    }
+
+    private static void addToTotals(final JobDirectoryManifest manifest, final JobDirectoryManifest.Entry entry) {
+        if (entry.isDirectory()) {
+            manifest.setNumDirectories(manifest.getNumDirectories() + 1);
+        } else {
+            manifest.setNumFiles(manifest.getNumFiles() + 1);
+            manifest.setTotalSize(manifest.getTotalSize() + entry.getSize());
+        }
+    }
+
+    private static JobDirectoryManifest.Entry createEntry(
+        final Path jobDir,
+        final Path path,
+        final BasicFileAttributes attrs
+    ) {
+        final JobDirectoryManifest.Entry entry = new JobDirectoryManifest.Entry();
+        // Always use forward slashes so the paths can be appended to the output API URL
+        entry.setPath(jobDir.relativize(path).toString().replace(path.getFileSystem().getSeparator(), "/"));
+        entry.setDirectory(attrs.isDirectory());
+        entry.setSize(attrs.isDirectory() ? 0L : attrs.size());
+        entry.setLastModified(attrs.lastModifiedTime().toMillis());
+        return entry;
+    }
+
+    private static JobDirectoryManifest.Entry setChecksums(
+        final Path file,
+        final JobDirectoryManifest.Entry entry
+    ) throws IOException {
+        final MessageDigest md5;
+        try {
+            md5 = MessageDigest.getInstance("MD5");
+        } catch (final NoSuchAlgorithmException nsae) {
+            throw new IllegalStateException(nsae);
+        }
+        final CRC32 crc32 = new CRC32();
+        final byte[] buffer = new byte[BUFFER_SIZE];
+        try (final InputStream inputStream = Files.newInputStream(file)) {
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                md5.update(buffer, 0, read);
+                crc32.update(buffer, 0, read);
+            }
+        }
+        entry.setMd5(BaseEncoding.base16().lowerCase().encode(md5.digest()));
+        entry.setCrc32(String.format("%08x", crc32.getValue()));
+        return entry;
+    }
+
+    /**
+     * Something to hand the entries of a manifest to as the job directory is walked.
+     */
+    @FunctionalInterface
+    private interface EntryConsumer {
+        void accept(final JobDirectoryManifest.Entry entry) throws IOException;
+    }
+
+    /**
+     * The state of a single walk of a job directory.
+     */
+    private final class Walker {
+        private final String jobId;
+        private final Path jobDir;
+        private final Path savedManifest;
+        private final boolean includeChecksums;
+        private final EntryConsumer consumer;
+        private final Deque<Future<JobDirectoryManifest.Entry>> pending = new ArrayDeque<>();
+
+        private Walker(
+            final String jobId,
+            final Path jobDir,
+            final boolean includeChecksums,
+            final EntryConsumer consumer
+        ) {
+            this.jobId = jobId;
+            this.jobDir = jobDir;
+            this.savedManifest = jobDir.resolve(JobConstants.GENIE_MANIFEST_FILE_NAME);
+            this.includeChecksums = includeChecksums;
+            this.consumer = consumer;
+        }
+
+        private void walkDirectory(final Path dir) throws IOException, InterruptedException, ExecutionException {
+            final List<Path> children = new ArrayList<>();
+            try (final DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+                stream.forEach(children::add);
+            } catch (final IOException ioe) {
+                if (dir.equals(this.jobDir)) {
+                    throw ioe;
+                }
+                // Files can come and go while a job is running. Skip them rather than failing the manifest.
+                log.debug("Unable to list {} while building manifest for job {}", dir, this.jobId, ioe);
+                return;
+            }
+            children.sort(NAME_COMPARATOR);
+
+            for (final Path child : children) {
+                if (child.equals(this.savedManifest)) {
+                    continue;
+                }
+                final BasicFileAttributes attrs;
+                try {
+                    attrs = Files.readAttributes(child, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                } catch (final IOException ioe) {
+                    log.debug("Unable to visit {} while building manifest for job {}", child, this.jobId, ioe);
+                    continue;
+                }
+                final JobDirectoryManifest.Entry entry = createEntry(this.jobDir, child, attrs);
+                if (this.includeChecksums && attrs.isRegularFile() && attrs.size() <= maxChecksumFileSize) {
+                    this.pending.add(checksumPool.submit(() -> setChecksums(child, entry)));
+                } else {
+                    this.pending.add(CompletableFuture.completedFuture(entry));
+                }
+                this.drain(MAX_PENDING_ENTRIES);
+                if (attrs.isDirectory()) {
+                    this.walkDirectory(child);
+                }
+            }
+        }
+
+        /**
+         * Hand entries to the consumer in the order they were walked until no more than the given number are left.
+         */
+        private void drain(final int maxPending) throws IOException, InterruptedException, ExecutionException {
+            while (this.pending.size() > maxPending) {
+                this.consumer.accept(this.pending.peek().get());
+                this.pending.poll();
+            }
+        }
+    }
+}
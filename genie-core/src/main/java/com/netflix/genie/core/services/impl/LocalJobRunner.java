@@ -28,9 +28,13 @@ import com.netflix.genie.common.exceptions.GenieException;
 import com.netflix.genie.common.exceptions.GeniePreconditionException;
 import com.netflix.genie.common.exceptions.GenieServerException;
 import com.netflix.genie.common.exceptions.GenieServerUnavailableException;
+import com.netflix.genie.common.util.JsonUtils;
 import com.netflix.genie.core.events.JobStartedEvent;
 import com.netflix.genie.core.jobs.JobConstants;
+import com.netflix.genie.core.jobs.JobDirectoryLayout;
 import com.netflix.genie.core.jobs.JobExecutionEnvironment;
+import com.netflix.genie.core.jobs.JobSetupTimeline;
+import com.netflix.genie.core.jobs.RunScript;
 import com.netflix.genie.core.jobs.workflow.WorkflowTask;
 import com.netflix.genie.core.services.ApplicationService;
 import com.netflix.genie.core.services.ClusterLoadBalancer;
@@ -39,6 +43,8 @@ import com.netflix.genie.core.services.CommandService;
 import com.netflix.genie.core.services.JobPersistenceService;
 import com.netflix.genie.core.services.JobSearchService;
 import com.netflix.genie.core.services.JobSubmitterService;
+import com.netflix.spectator.api.Id;
+import com.netflix.spectator.api.Registry;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.ApplicationEventPublisher;
@@ -47,16 +53,16 @@ import org.springframework.core.io.Resource;
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.OutputStreamWriter;
-import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 /**
@@ -69,6 +75,11 @@ import java.util.stream.Collectors;
 @Slf4j
 public class LocalJobRunner implements JobSubmitterService {
 
+    private static final String STEP_TAG = "step";
+    private static final String CLUSTER_TAG = "cluster";
+    private static final String COMMAND_TAG = "command";
+    private static final String UNKNOWN = "unknown";
+
     private final JobSearchService jobSearchService;
     private final JobPersistenceService jobPersistenceService;
     private final ApplicationService applicationService;
@@ -81,6 +92,9 @@ public class LocalJobRunner implements JobSubmitterService {
     private final GenieFileTransferService fileTransferService;
     private final String hostname;
     private final int maxRunningJobs;
+    private final Registry registry;
+    private final Id setupTimerId;
+    private final Id setupStepTimerId;
 
     /**
      * Constructor create the object.
@@ -97,6 +111,7 @@ public class LocalJobRunner implements JobSubmitterService {
      * @param genieWorkingDir           Working directory for genie where it creates jobs directories
      * @param hostname                  Hostname of this host
      * @param maxRunningJobs            Maximum number of jobs allowed to run on this host
+     * @param registry                  The metrics registry to use
      */
     public LocalJobRunner(
         final JobSearchService jobSearchService,
@@ -110,7 +125,8 @@ public class LocalJobRunner implements JobSubmitterService {
         final List<WorkflowTask> workflowTasks,
         final Resource genieWorkingDir,
         final String hostname,
-        final int maxRunningJobs
+        final int maxRunningJobs,
+        final Registry registry
     ) {
         this.jobSearchService = jobSearchService;
         this.jobPersistenceService = jobPersistenceService;
@@ -124,6 +140,9 @@ public class LocalJobRunner implements JobSubmitterService {
         this.applicationEventPublisher = applicationEventPublisher;
         this.hostname = hostname;
         this.maxRunningJobs = maxRunningJobs;
+        this.registry = registry;
+        this.setupTimerId = registry.createId("genie.jobs.setup.timer");
+        this.setupStepTimerId = registry.createId("genie.jobs.setup.step.timer");
     }
 
     /**
@@ -144,6 +163,11 @@ public class LocalJobRunner implements JobSubmitterService {
     ) throws GenieException {
         log.debug("called with job request {}", jobRequest);
         final String id = jobRequest.getId();
+        final long start = System.nanoTime();
+        final JobSetupTimeline timeline = new JobSetupTimeline();
+        Cluster cluster = null;
+        Command command = null;
+        JobDirectoryLayout layout = null;
 
         try {
             if (this.jobSearchService.getAllRunningJobExecutionsOnHost(this.hostname).size() > this.maxRunningJobs) {
@@ -160,7 +184,7 @@ public class LocalJobRunner implements JobSubmitterService {
 
             // Resolve the cluster for the job request based on the tags specified
             //TODO: Combine the cluster and command selection into a single method/database query for efficiency
-            final Cluster cluster;
+            long stepStart = System.nanoTime();
             try {
                 cluster =
                     this.clusterLoadBalancer.selectCluster(this.clusterService.chooseClusterForJobRequest(jobRequest));
@@ -172,12 +196,11 @@ public class LocalJobRunner implements JobSubmitterService {
                     "No cluster found for tags specified.");
                 throw gpe;
             }
-
+            stepStart = this.addStep(timeline, "clusterSelection", stepStart);
 
             // Resolve the command for the job request based on command tags and cluster chosen
             final Set<CommandStatus> enumStatuses = EnumSet.noneOf(CommandStatus.class);
             enumStatuses.add(CommandStatus.ACTIVE);
-            Command command = null;
 
             // TODO: what happens if the get method throws an error we don't mark the job failed here
             for (final Command cmd : this.clusterService.getCommandsForCluster(cluster.getId(), enumStatuses)) {
@@ -196,6 +219,7 @@ public class LocalJobRunner implements JobSubmitterService {
                     "No command found matching all command criteria on cluster. Unable to continue."
                 );
             }
+            stepStart = this.addStep(timeline, "commandSelection", stepStart);
 
             // TODO: What do we do about application status? Should probably check here
             final List<Application> applications = new ArrayList<>();
@@ -206,6 +230,7 @@ public class LocalJobRunner implements JobSubmitterService {
                     applications.add(this.applicationService.getApplication(applicationId));
                 }
             }
+            stepStart = this.addStep(timeline, "applicationResolution", stepStart);
 
             // Job can be run as there is a valid set of cluster, command and applications
             // Save all the runtime environment information for the job
@@ -215,6 +240,7 @@ public class LocalJobRunner implements JobSubmitterService {
                 command.getId(),
                 applications.stream().map(Application::getId).collect(Collectors.toList())
             );
+            stepStart = this.addStep(timeline, "runtimeEnvironmentPersistence", stepStart);
 
             // construct the job execution environment object for this job request
             final JobExecutionEnvironment jee = new JobExecutionEnvironment.Builder(
@@ -232,29 +258,28 @@ public class LocalJobRunner implements JobSubmitterService {
             context.put(JobConstants.JOB_EXECUTION_ENV_KEY, jee);
             context.put(JobConstants.FILE_TRANSFER_SERVICE_KEY, this.fileTransferService);
 
-            final String runScript;
             try {
-                // Create the job working directory
-                final File dir = new File(jobWorkingDir.getCanonicalPath());
+                // Plan the job directory once for all the tasks and create the job working directory
+                final JobDirectoryLayout plannedLayout = JobDirectoryLayout.plan(jee);
+                final File dir = plannedLayout.getJobDirectory().toFile();
                 if (!dir.mkdirs()) {
-                    throw new GenieServerException("Could not create job working directory directory: "
-                        + jobWorkingDir.getCanonicalPath());
+                    throw new GenieServerException("Could not create job working directory directory: " + dir);
                 }
-
-                // Run script path for this job like basedir/jobId/run.sh
-                runScript = jobWorkingDir.getCanonicalPath()
-                    + JobConstants.FILE_PATH_DELIMITER
-                    + JobConstants.GENIE_JOB_LAUNCHER_SCRIPT;
-
+                layout = plannedLayout;
+                context.put(JobConstants.JOB_DIRECTORY_LAYOUT_KEY, layout);
             } catch (final IOException e) {
                 throw new GenieServerException("Job submission failed.", e);
             }
+            stepStart = this.addStep(timeline, "jobDirectoryCreation", stepStart);
 
-            try (final Writer writer = new OutputStreamWriter(new FileOutputStream(runScript), "UTF-8")) {
-                context.put(JobConstants.WRITER_KEY, writer);
+            // The tasks contribute to the model and the run script is generated from it in a single write
+            context.put(JobConstants.RUN_SCRIPT_KEY, new RunScript());
 
+            try {
                 for (WorkflowTask workflowTask : this.jobWorkflowTasks) {
                     workflowTask.executeTask(context);
+                    // Each task is a step of its own so the slow ones, e.g. launching the process, stand out
+                    stepStart = this.addStep(timeline, workflowTask.getClass().getSimpleName(), stepStart);
                 }
             } catch (final IOException ioe) {
                 throw new GenieServerException("Failed to execute job", ioe);
@@ -266,6 +291,7 @@ public class LocalJobRunner implements JobSubmitterService {
             if (jobExecution != null) {
                 // Persist the jobExecution information. This also updates jobStatus to Running
                 this.jobPersistenceService.createJobExecution(jobExecution);
+                this.addStep(timeline, "jobExecutionPersistence", stepStart);
 
                 // Publish a job start Event
                 this.applicationEventPublisher.publishEvent(new JobStartedEvent(jobExecution, this));
@@ -274,6 +300,56 @@ public class LocalJobRunner implements JobSubmitterService {
             log.error(e.getLocalizedMessage(), e);
             this.jobPersistenceService.updateJobStatus(id, JobStatus.FAILED, e.getLocalizedMessage());
             throw e;
+        } finally {
+            this.recordSetup(timeline, start, cluster, command, layout);
+        }
+    }
+
+    private long addStep(final JobSetupTimeline timeline, final String name, final long stepStart) {
+        final long stepEnd = System.nanoTime();
+        timeline.addStep(name, stepStart, stepEnd);
+        return stepEnd;
+    }
+
+    private void recordSetup(
+        final JobSetupTimeline timeline,
+        final long start,
+        final Cluster cluster,
+        final Command command,
+        final JobDirectoryLayout layout
+    ) {
+        // Only known once the steps finished so the metrics are recorded at the end
+        final String clusterName = cluster == null ? UNKNOWN : cluster.getName();
+        final String commandName = command == null ? UNKNOWN : command.getName();
+        for (final JobSetupTimeline.Step step : timeline.getSteps()) {
+            this.registry
+                .timer(
+                    this.setupStepTimerId
+                        .withTag(STEP_TAG, step.getName())
+                        .withTag(CLUSTER_TAG, clusterName)
+                        .withTag(COMMAND_TAG, commandName)
+                )
+                .record(step.getDurationNanos(), TimeUnit.NANOSECONDS);
+        }
+        this.registry
+            .timer(this.setupTimerId.withTag(CLUSTER_TAG, clusterName).withTag(COMMAND_TAG, commandName))
+            .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+        // Nowhere to save the timeline if the job directory was never created
+        if (layout != null) {
+            this.saveTimeline(timeline, layout);
+        }
+    }
+
+    private void saveTimeline(final JobSetupTimeline timeline, final JobDirectoryLayout layout) {
+        // In the logs directory, which Genie can still write to once the job directory is given to the user running
+        // the job, so the launch and everything after it is in the timeline too
+        final Path timelineFile = layout.getSetupTimelineFile();
+        try {
+            Files.createDirectories(timelineFile.getParent());
+            JsonUtils.getMapper().writeValue(timelineFile.toFile(), timeline);
+        } catch (final IOException ioe) {
+            log.warn("Unable to save the setup timeline of the job to {}", timelineFile, ioe);
         }
     }
 }
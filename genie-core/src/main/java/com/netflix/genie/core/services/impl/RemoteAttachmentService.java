@@ -0,0 +1,237 @@
+/*
+ *
+ *  Copyright 2016 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.core.services.impl;
+
+import com.google.common.io.ByteStreams;
+import com.google.common.util.concurrent.Striped;
+import com.netflix.genie.common.exceptions.GenieConflictException;
+import com.netflix.genie.common.exceptions.GenieException;
+import com.netflix.genie.common.exceptions.GenieNotFoundException;
+import com.netflix.genie.common.exceptions.GeniePreconditionException;
+import com.netflix.genie.common.exceptions.GenieServerException;
+import com.netflix.genie.core.services.AttachmentService;
+import com.netflix.spectator.api.Counter;
+import com.netflix.spectator.api.Registry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Implementation of the AttachmentService interface which stores attachments in a remote location, e.g. S3, through
+ * the file transfer service so a job can run on any node no matter which node received it.
+ * <p>
+ * Attachments are streamed to {@literal <location>/<jobId>/files/<filename>} as they're read. As there's no way to list
+ * remote locations the name of the n-th attachment of a job is also written to {@literal <location>/<jobId>/index/<n>}
+ * and the attachments of a job are found by reading the index until an entry is missing. New entries are numbered
+ * from the remote index as well and an attachment whose name the job already has remotely is rejected, so nothing is
+ * ever overwritten and any file transfer will do.
+ * Attachments smaller than the inline threshold are kept by a local attachment service instead to save the round
+ * trips, which ties the job to the node which received it. Remote attachments are never deleted by Genie. Expire them
+ * with the lifecycle rules of the remote store instead.
+ *
+ * @author agent
+ * @since 3.0.0
+ */
+@Slf4j
+public class RemoteAttachmentService implements AttachmentService {
+
+    private static final String FILES = "files";
+    private static final String INDEX = "index";
+
+    private final GenieFileTransferService fileTransferService;
+    private final String location;
+    private final AttachmentService localAttachmentService;
+    private final int inlineThreshold;
+    private final Striped<Lock> locks = Striped.lock(64);
+    private final Counter inlineRate;
+    private final Counter inlineBytes;
+    private final Counter remoteRate;
+
+    /**
+     * Constructor.
+     *
+     * @param fileTransferService    The file transfer service to store the attachments with
+     * @param location               The remote location to store the attachments under
+     * @param localAttachmentService The attachment service to keep attachments no larger than the threshold with
+     * @param inlineThreshold        Attachments smaller than this many bytes are kept locally. Zero to store all
+     *                               attachments remotely.
+     * @param registry               The metrics registry to use
+     */
+    public RemoteAttachmentService(
+        final GenieFileTransferService fileTransferService,
+        final String location,
+        final AttachmentService localAttachmentService,
+        final int inlineThreshold,
+        final Registry registry
+    ) {
+        this.fileTransferService = fileTransferService;
+        this.location = StringUtils.removeEnd(location, "/");
+        this.localAttachmentService = localAttachmentService;
+        this.inlineThreshold = Math.max(inlineThreshold, 0);
+        this.inlineRate = registry.counter("genie.jobs.attachments.inline.rate");
+        this.inlineBytes = registry.counter("genie.jobs.attachments.inline.bytes");
+        this.remoteRate = registry.counter("genie.jobs.attachments.remote.rate");
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Only as much of the content as the inline threshold is buffered to decide where to keep it. The rest is
+     * streamed to the remote location, in parallel parts if the file transfer supports it.
+     */
+    @Override
+    public void save(
+        final String jobId,
+        final String filename,
+        final InputStream content
+    ) throws GenieException {
+        if (StringUtils.isBlank(filename) || !new File(filename).getName().equals(filename)) {
+            throw new GeniePreconditionException("Invalid attachment file name " + filename);
+        }
+
+        final int read;
+        final byte[] head = new byte[this.inlineThreshold];
+        try {
+            read = ByteStreams.read(content, head, 0, head.length);
+        } catch (final IOException ioe) {
+            throw new GenieServerException(ioe);
+        }
+        final InputStream buffered = new ByteArrayInputStream(head, 0, read);
+        if (read < this.inlineThreshold) {
+            this.localAttachmentService.save(jobId, filename, buffered);
+            this.inlineRate.increment();
+            this.inlineBytes.increment(read);
+            return;
+        }
+
+        final String remotePath = this.getJobLocation(jobId) + "/" + FILES + "/" + filename;
+        final Lock lock = this.locks.get(jobId);
+        lock.lock();
+        try {
+            if (this.exists(remotePath)) {
+                throw new GenieConflictException("Job " + jobId + " already has an attachment named " + filename);
+            }
+            try (
+                final ReadableByteChannel channel = Channels.newChannel(new SequenceInputStream(buffered, content))
+            ) {
+                this.fileTransferService.putFile(channel, remotePath);
+            } catch (final IOException ioe) {
+                throw new GenieServerException(ioe);
+            }
+            this.remoteRate.increment();
+            this.addToIndex(jobId, filename);
+        } finally {
+            lock.unlock();
+        }
+        log.info("Saved {} for job {} to {}", filename, jobId, remotePath);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Only the local attachment service can have the content already.
+     */
+    @Override
+    public boolean saveExisting(
+        final String jobId,
+        final String filename,
+        final String sha256
+    ) throws GenieException {
+        return this.localAttachmentService.saveExisting(jobId, filename, sha256);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Remote attachments are fetched straight into the destination.
+     */
+    @Override
+    public void copy(final String jobId, final File destination) throws GenieException {
+        this.localAttachmentService.copy(jobId, destination);
+
+        final String jobLocation = this.getJobLocation(jobId);
+        for (int i = 0; ; i++) {
+            final String entry = jobLocation + "/" + INDEX + "/" + i;
+            if (!this.exists(entry)) {
+                log.debug("Job {} has {} remote attachments", jobId, i);
+                return;
+            }
+
+            final String filename;
+            try (final InputStream in = this.fileTransferService.getFileStream(entry)) {
+                filename = new String(ByteStreams.toByteArray(in), StandardCharsets.UTF_8);
+            } catch (final IOException ioe) {
+                throw new GenieServerException("Unable to read the attachments of job " + jobId, ioe);
+            }
+            if (!destination.exists() && !destination.mkdirs()) {
+                throw new GenieServerException("Unable to create " + destination);
+            }
+            this.fileTransferService.getFile(
+                jobLocation + "/" + FILES + "/" + filename,
+                new File(destination, filename).getAbsolutePath()
+            );
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Only local attachments are deleted.
+     */
+    @Override
+    public void delete(final String jobId) throws GenieException {
+        this.localAttachmentService.delete(jobId);
+    }
+
+    // Callers hold the lock of the job so no other save on this node can claim the same entry
+    private void addToIndex(final String jobId, final String filename) throws GenieException {
+        final String index = this.getJobLocation(jobId) + "/" + INDEX + "/";
+        int entry = 0;
+        while (this.exists(index + entry)) {
+            entry++;
+        }
+        final byte[] name = filename.getBytes(StandardCharsets.UTF_8);
+        try (final ReadableByteChannel channel = Channels.newChannel(new ByteArrayInputStream(name))) {
+            this.fileTransferService.putFile(channel, index + entry);
+        } catch (final IOException ioe) {
+            throw new GenieServerException(ioe);
+        }
+    }
+
+    private boolean exists(final String remotePath) throws GenieException {
+        try {
+            this.fileTransferService.getFileMetadata(remotePath);
+            return true;
+        } catch (final GenieNotFoundException gnfe) {
+            return false;
+        }
+    }
+
+    private String getJobLocation(final String jobId) {
+        return this.location + "/" + jobId;
+    }
+}
@@ -17,22 +17,67 @@
  */
 package com.netflix.genie.core.services.impl;
 
+import com.amazonaws.AmazonClientException;
 import com.amazonaws.services.s3.AmazonS3Client;
+import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
 import com.amazonaws.services.s3.model.AmazonS3Exception;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
 import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PartETag;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.services.s3.model.S3Object;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.netflix.genie.common.exceptions.GenieException;
+import com.netflix.genie.common.exceptions.GenieNotFoundException;
 import com.netflix.genie.common.exceptions.GenieServerException;
+import com.netflix.genie.core.services.FileMetadata;
 import com.netflix.genie.core.services.FileTransfer;
+import com.netflix.spectator.api.Counter;
+import com.netflix.spectator.api.DefaultRegistry;
+import com.netflix.spectator.api.DistributionSummary;
+import com.netflix.spectator.api.Registry;
+import com.netflix.spectator.api.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.hibernate.validator.constraints.NotBlank;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
  * An implementation of the FileTransferService interface in which the remote locations are on Amazon S3.
+ * <p>
+ * Files larger than the part size are transferred in parts by a pool of threads shared by all transfers. Uploads use
+ * a multipart upload, which also lifts the single PUT size limit, and downloads use ranged GETs of the same version
+ * of the object written straight to their place in the local file. The duration, bytes and throughput of every
+ * transfer are recorded.
  *
  * @author amsharma
  * @since 3.0.0
@@ -40,7 +85,46 @@ import java.util.regex.Pattern;
 @Slf4j
 public class S3FileTransferImpl implements FileTransfer {
 
+    /**
+     * The default size of the parts of multipart transfers.
+     */
+    public static final long DEFAULT_PART_SIZE = 16L * 1024L * 1024L;
+
+    /**
+     * The smallest size S3 accepts for the parts of a multipart upload other than the last.
+     */
+    public static final long MIN_PART_SIZE = 5L * 1024L * 1024L;
+
+    /**
+     * The default number of parts transferred at once.
+     */
+    public static final int DEFAULT_CONCURRENCY = 8;
+
+    // S3 allows at most this many parts in a multipart upload
+    private static final int MAX_PARTS = 10000;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_PART_BUFFER_SIZE = Integer.MAX_VALUE - 8;
+    private static final int MAX_DOWNLOAD_ATTEMPTS = 3;
+    private static final Pattern MD5_PATTERN = Pattern.compile("^[0-9a-fA-F]{32}$");
+    private static final String KMS_ALGORITHM = "aws:kms";
+    private static final Set<String> SCHEMES = ImmutableSet.of("s3", "s3n");
+
     private AmazonS3Client s3Client;
+    private final Registry registry;
+    private final long partSize;
+    private final ExecutorService transferExecutor;
+    // Limits how many parts of streams are held in memory at once across all uploads
+    private final Semaphore partBuffers;
+    private final Timer downloadTimer;
+    private final Counter downloadBytes;
+    private final DistributionSummary downloadThroughput;
+    private final Counter downloadFailureRate;
+    private final Counter downloadNotModifiedRate;
+    private final Counter downloadCorruptedRate;
+    private final Timer uploadTimer;
+    private final Counter uploadBytes;
+    private final DistributionSummary uploadThroughput;
+    private final Counter uploadFailureRate;
 
     private final Pattern s3FilePattern =
         Pattern.compile("^(s3[n]?://)(.*?)/(.*/.*)");
@@ -49,16 +133,64 @@ public class S3FileTransferImpl implements FileTransfer {
         Pattern.compile("^s3[n]?://.*$");
 
     /**
-     * Constructor.
+     * Constructor using the default part size and concurrency without publishing metrics.
      *
      * @param amazonS3Client An amazon s3 client object
      * @throws GenieException If there is a problem
      */
-    @Autowired
     public S3FileTransferImpl(
         final AmazonS3Client amazonS3Client
         ) throws GenieException {
+        this(amazonS3Client, new DefaultRegistry(), DEFAULT_PART_SIZE, DEFAULT_CONCURRENCY);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param amazonS3Client An amazon s3 client object
+     * @param registry       The metrics registry to use
+     * @param partSize       The size in bytes of the parts of multipart transfers. Files no larger than this are
+     *                       transferred with a single request. S3 requires parts other than the last of an upload to
+     *                       be at least 5 MiB.
+     * @param concurrency    The maximum number of parts transferred at once across all transfers
+     * @throws GenieException If there is a problem
+     */
+    @Autowired
+    public S3FileTransferImpl(
+        final AmazonS3Client amazonS3Client,
+        final Registry registry,
+        final long partSize,
+        final int concurrency
+    ) throws GenieException {
+        if (partSize <= 0 || concurrency <= 0) {
+            throw new GenieServerException("Part size and concurrency of S3 transfers must be positive");
+        }
         this.s3Client = amazonS3Client;
+        this.registry = registry;
+        this.partSize = partSize;
+        this.partBuffers = new Semaphore(concurrency);
+        this.transferExecutor = Executors.newFixedThreadPool(
+            concurrency,
+            new ThreadFactoryBuilder().setDaemon(true).setNameFormat("genie-s3-transfer-%d").build()
+        );
+        this.downloadTimer = registry.timer("genie.files.s3.download.timer");
+        this.downloadBytes = registry.counter("genie.files.s3.download.bytes");
+        this.downloadThroughput = registry.distributionSummary("genie.files.s3.download.throughput");
+        this.downloadFailureRate = registry.counter("genie.files.s3.download.failure.rate");
+        this.downloadNotModifiedRate = registry.counter("genie.files.s3.download.notModified.rate");
+        this.downloadCorruptedRate = registry.counter("genie.files.s3.download.corrupted.rate");
+        this.uploadTimer = registry.timer("genie.files.s3.upload.timer");
+        this.uploadBytes = registry.counter("genie.files.s3.upload.bytes");
+        this.uploadThroughput = registry.distributionSummary("genie.files.s3.upload.throughput");
+        this.uploadFailureRate = registry.counter("genie.files.s3.upload.failure.rate");
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Set<String> getSchemes() {
+        return SCHEMES;
     }
 
     /**
@@ -89,12 +221,66 @@ public class S3FileTransferImpl implements FileTransfer {
             final String bucket = matcher.group(2);
             final String key = matcher.group(3);
 
+            final long start = this.registry.clock().monotonicTime();
             try {
-                s3Client.getObject(
-                    new GetObjectRequest(bucket, key),
-                    new File(dstLocalPath));
-            } catch (AmazonS3Exception ase) {
-                log.error("Error fetching file {} from s3 due to exception {}", srcRemotePath, ase);
+                final ObjectMetadata metadata = s3Client.getObjectMetadata(bucket, key);
+                this.download(bucket, key, metadata, Paths.get(dstLocalPath));
+                this.recordTransfer(
+                    this.downloadTimer,
+                    this.downloadBytes,
+                    this.downloadThroughput,
+                    start,
+                    metadata.getContentLength()
+                );
+            } catch (AmazonClientException | IOException e) {
+                this.downloadFailureRate.increment();
+                log.error("Error fetching file {} from s3 due to exception {}", srcRemotePath, e);
+                throw new GenieServerException("Error downloading file from s3. Filename: " + srcRemotePath);
+            }
+        } else {
+            throw new GenieServerException("Invalid path for s3 file" + srcRemotePath);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The ETag of the object is read with a HEAD request first so nothing is downloaded if it matches.
+     */
+    @Override
+    public FileMetadata getFileIfModified(
+        @NotBlank (message = "Source file path cannot be empty.")
+        final String srcRemotePath,
+        @NotBlank (message = "Destination local path cannot be empty")
+        final String dstLocalPath,
+        final String eTag
+    ) throws GenieException {
+        log.debug("Called with src path {} destination path {} and ETag {}", srcRemotePath, dstLocalPath, eTag);
+
+        final Matcher matcher = s3FilePattern.matcher(srcRemotePath);
+        if (matcher.matches()) {
+            final String bucket = matcher.group(2);
+            final String key = matcher.group(3);
+
+            final long start = this.registry.clock().monotonicTime();
+            try {
+                final ObjectMetadata metadata = s3Client.getObjectMetadata(bucket, key);
+                if (eTag != null && eTag.equals(metadata.getETag())) {
+                    this.downloadNotModifiedRate.increment();
+                    return null;
+                }
+                this.download(bucket, key, metadata, Paths.get(dstLocalPath));
+                this.recordTransfer(
+                    this.downloadTimer,
+                    this.downloadBytes,
+                    this.downloadThroughput,
+                    start,
+                    metadata.getContentLength()
+                );
+                return this.toFileMetadata(metadata);
+            } catch (AmazonClientException | IOException e) {
+                this.downloadFailureRate.increment();
+                log.error("Error fetching file {} from s3 due to exception {}", srcRemotePath, e);
                 throw new GenieServerException("Error downloading file from s3. Filename: " + srcRemotePath);
             }
         } else {
@@ -119,14 +305,506 @@ public class S3FileTransferImpl implements FileTransfer {
             final String bucket = matcher.group(2);
             final String key = matcher.group(3);
 
+            final long start = this.registry.clock().monotonicTime();
             try {
-                s3Client.putObject(bucket, key, new File(srcLocalPath));
-            } catch (AmazonS3Exception ase) {
-                log.error("Error posting file {} to s3 due to exception {}", dstRemotePath, ase);
+                final File file = new File(srcLocalPath);
+                final long size = file.length();
+                if (size <= this.partSize) {
+                    s3Client.putObject(bucket, key, file);
+                } else {
+                    this.putFileInParts(bucket, key, file, size);
+                }
+                this.recordTransfer(this.uploadTimer, this.uploadBytes, this.uploadThroughput, start, size);
+            } catch (AmazonClientException | IOException e) {
+                this.uploadFailureRate.increment();
+                log.error("Error posting file {} to s3 due to exception {}", dstRemotePath, e);
                 throw new GenieServerException("Error uploading file to s3. Filename: " + dstRemotePath);
             }
         } else {
             throw new GenieServerException("Invalid path for s3 file" + dstRemotePath);
         }
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getFileSize(
+        @NotBlank (message = "Remote file path cannot be empty.")
+        final String remotePath
+    ) throws GenieException {
+        log.debug("Called with path {}", remotePath);
+
+        final Matcher matcher = s3FilePattern.matcher(remotePath);
+        if (matcher.matches()) {
+            final String bucket = matcher.group(2);
+            final String key = matcher.group(3);
+
+            try {
+                return s3Client.getObjectMetadata(bucket, key).getContentLength();
+            } catch (AmazonS3Exception ase) {
+                log.error("Error getting metadata of file {} from s3 due to exception {}", remotePath, ase);
+                throw new GenieServerException("Error getting metadata of file from s3. Filename: " + remotePath);
+            }
+        } else {
+            throw new GenieServerException("Invalid path for s3 file" + remotePath);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isRangeSupported() {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Issues a single ranged GET for the bytes requested.
+     */
+    @Override
+    public InputStream getFileRange(
+        @NotBlank (message = "Source file path cannot be empty.")
+        final String srcRemotePath,
+        final long offset,
+        final long length
+    ) throws GenieException {
+        log.debug("Called with src path {} offset {} and length {}", srcRemotePath, offset, length);
+
+        final Matcher matcher = s3FilePattern.matcher(srcRemotePath);
+        if (matcher.matches()) {
+            final String bucket = matcher.group(2);
+            final String key = matcher.group(3);
+
+            if (length <= 0) {
+                // S3 can't express an empty range
+                return new ByteArrayInputStream(new byte[0]);
+            }
+
+            try {
+                // The end of the range is inclusive
+                return s3Client
+                    .getObject(new GetObjectRequest(bucket, key).withRange(offset, offset + length - 1))
+                    .getObjectContent();
+            } catch (AmazonS3Exception ase) {
+                log.error("Error fetching range of file {} from s3 due to exception {}", srcRemotePath, ase);
+                throw new GenieServerException("Error downloading range of file from s3. Filename: " + srcRemotePath);
+            }
+        } else {
+            throw new GenieServerException("Invalid path for s3 file" + srcRemotePath);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public FileMetadata getFileMetadata(
+        @NotBlank (message = "Remote file path cannot be empty.")
+        final String remotePath
+    ) throws GenieException {
+        log.debug("Called with path {}", remotePath);
+
+        final Matcher matcher = s3FilePattern.matcher(remotePath);
+        if (matcher.matches()) {
+            final String bucket = matcher.group(2);
+            final String key = matcher.group(3);
+
+            try {
+                return this.toFileMetadata(s3Client.getObjectMetadata(bucket, key));
+            } catch (AmazonS3Exception ase) {
+                if (ase.getStatusCode() == HttpURLConnection.HTTP_NOT_FOUND) {
+                    throw new GenieNotFoundException("No file in s3. Filename: " + remotePath);
+                }
+                log.error("Error getting metadata of file {} from s3 due to exception {}", remotePath, ase);
+                throw new GenieServerException("Error getting metadata of file from s3. Filename: " + remotePath);
+            }
+        } else {
+            throw new GenieServerException("Invalid path for s3 file" + remotePath);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public InputStream getFileStream(
+        @NotBlank (message = "Source file path cannot be empty.")
+        final String srcRemotePath
+    ) throws GenieException {
+        log.debug("Called with src path {}", srcRemotePath);
+
+        final Matcher matcher = s3FilePattern.matcher(srcRemotePath);
+        if (matcher.matches()) {
+            final String bucket = matcher.group(2);
+            final String key = matcher.group(3);
+
+            try {
+                return s3Client.getObject(new GetObjectRequest(bucket, key)).getObjectContent();
+            } catch (AmazonS3Exception ase) {
+                log.error("Error fetching file {} from s3 due to exception {}", srcRemotePath, ase);
+                throw new GenieServerException("Error downloading file from s3. Filename: " + srcRemotePath);
+            }
+        } else {
+            throw new GenieServerException("Invalid path for s3 file" + srcRemotePath);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Streams longer than the part size are uploaded with a multipart upload while the rest of the stream is read.
+     * Across all uploads at most as many parts are held in memory as parts are transferred at once. Buffers start
+     * small and only grow up to the part size as the stream is read.
+     */
+    @Override
+    public void putFile(
+        final ReadableByteChannel source,
+        @NotBlank (message = "Destination remote path cannot be empty")
+        final String dstRemotePath
+    ) throws GenieException {
+        log.debug("Called with destination path {}", dstRemotePath);
+
+        final Matcher matcher = s3FilePattern.matcher(dstRemotePath);
+        if (matcher.matches()) {
+            final String bucket = matcher.group(2);
+            final String key = matcher.group(3);
+
+            final long start = this.registry.clock().monotonicTime();
+            try {
+                final long size = this.putChannelInParts(bucket, key, source);
+                this.recordTransfer(this.uploadTimer, this.uploadBytes, this.uploadThroughput, start, size);
+            } catch (AmazonClientException | IOException e) {
+                this.uploadFailureRate.increment();
+                log.error("Error posting stream to s3 file {} due to exception {}", dstRemotePath, e);
+                throw new GenieServerException("Error uploading stream to s3. Filename: " + dstRemotePath);
+            }
+        } else {
+            throw new GenieServerException("Invalid path for s3 file" + dstRemotePath);
+        }
+    }
+
+    private void download(
+        final String bucket,
+        final String key,
+        final ObjectMetadata metadata,
+        final Path destination
+    ) throws IOException {
+        for (int attempt = 1; attempt <= MAX_DOWNLOAD_ATTEMPTS; attempt++) {
+            if (metadata.getContentLength() <= this.partSize) {
+                final GetObjectRequest request = new GetObjectRequest(bucket, key);
+                if (metadata.getETag() != null) {
+                    request.withMatchingETagConstraint(metadata.getETag());
+                }
+                if (this.s3Client.getObject(request, destination.toFile()) == null) {
+                    throw new IOException("s3://" + bucket + "/" + key + " changed while it was being downloaded");
+                }
+            } else {
+                this.getFileInParts(bucket, key, metadata.getETag(), metadata.getContentLength(), destination);
+            }
+
+            if (this.isIntact(destination, metadata)) {
+                return;
+            }
+            this.downloadCorruptedRate.increment();
+            log.warn("Download {} of s3://{}/{} was corrupted", attempt, bucket, key);
+        }
+        throw new IOException(
+            "Download of s3://" + bucket + "/" + key + " was corrupted " + MAX_DOWNLOAD_ATTEMPTS + " times in a row"
+        );
+    }
+
+    private boolean isIntact(final Path file, final ObjectMetadata metadata) throws IOException {
+        if (Files.size(file) != metadata.getContentLength()) {
+            return false;
+        }
+        // Only objects uploaded in a single part without KMS or customer provided keys have the MD5 of their content
+        // as their ETag
+        final String eTag = metadata.getETag();
+        if (eTag == null
+            || !MD5_PATTERN.matcher(eTag).matches()
+            || KMS_ALGORITHM.equals(metadata.getSSEAlgorithm())
+            || metadata.getSSECustomerAlgorithm() != null) {
+            return true;
+        }
+        return com.google.common.io.Files
+            .asByteSource(file.toFile())
+            .hash(Hashing.md5())
+            .toString()
+            .equalsIgnoreCase(eTag);
+    }
+
+    private FileMetadata toFileMetadata(final ObjectMetadata metadata) {
+        return new FileMetadata(
+            metadata.getContentLength(),
+            metadata.getETag(),
+            metadata.getLastModified() == null ? 0L : metadata.getLastModified().getTime()
+        );
+    }
+
+    private void getFileInParts(
+        final String bucket,
+        final String key,
+        final String eTag,
+        final long size,
+        final Path destination
+    ) throws IOException {
+        boolean succeeded = false;
+        try (final FileChannel channel = FileChannel.open(
+            destination,
+            StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING,
+            StandardOpenOption.WRITE
+        )) {
+            final List<Future<Void>> parts = new ArrayList<>();
+            for (long offset = 0; offset < size; offset += this.partSize) {
+                final long partStart = offset;
+                final long partEnd = Math.min(offset + this.partSize, size) - 1;
+                parts.add(
+                    this.transferExecutor.submit(
+                        () -> {
+                            this.getPart(bucket, key, eTag, partStart, partEnd, channel);
+                            return null;
+                        }
+                    )
+                );
+            }
+            this.waitFor(parts);
+            succeeded = true;
+        } finally {
+            if (!succeeded) {
+                Files.deleteIfExists(destination);
+            }
+        }
+    }
+
+    private void getPart(
+        final String bucket,
+        final String key,
+        final String eTag,
+        final long start,
+        final long end,
+        final FileChannel channel
+    ) throws IOException {
+        // Pin every range to the version of the object whose size was used to plan the parts
+        final GetObjectRequest request = new GetObjectRequest(bucket, key).withRange(start, end);
+        if (eTag != null) {
+            request.withMatchingETagConstraint(eTag);
+        }
+        final S3Object part = this.s3Client.getObject(request);
+        if (part == null) {
+            throw new IOException("s3://" + bucket + "/" + key + " changed while it was being downloaded");
+        }
+
+        long position = start;
+        try (final InputStream content = part.getObjectContent()) {
+            final byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = content.read(buffer)) != -1) {
+                final ByteBuffer bytes = ByteBuffer.wrap(buffer, 0, read);
+                while (bytes.hasRemaining()) {
+                    position += channel.write(bytes, position);
+                }
+            }
+        }
+        if (position != end + 1) {
+            throw new IOException("Expected " + (end - start + 1) + " bytes but received " + (position - start));
+        }
+    }
+
+    private void putFileInParts(
+        final String bucket,
+        final String key,
+        final File file,
+        final long size
+    ) throws IOException {
+        // Grow the parts if needed to stay within the maximum number of parts of an upload
+        final long uploadPartSize = Math.max(this.partSize, (size + MAX_PARTS - 1) / MAX_PARTS);
+        final String uploadId = this.s3Client
+            .initiateMultipartUpload(new InitiateMultipartUploadRequest(bucket, key))
+            .getUploadId();
+
+        boolean succeeded = false;
+        try {
+            final List<Future<PartETag>> parts = new ArrayList<>();
+            int partNumber = 1;
+            for (long offset = 0; offset < size; offset += uploadPartSize, partNumber++) {
+                final UploadPartRequest request = new UploadPartRequest()
+                    .withBucketName(bucket)
+                    .withKey(key)
+                    .withUploadId(uploadId)
+                    .withPartNumber(partNumber)
+                    .withFile(file)
+                    .withFileOffset(offset)
+                    .withPartSize(Math.min(uploadPartSize, size - offset))
+                    .withLastPart(offset + uploadPartSize >= size);
+                parts.add(this.transferExecutor.submit(() -> this.s3Client.uploadPart(request).getPartETag()));
+            }
+            final List<PartETag> partETags = this.waitFor(parts);
+            this.s3Client.completeMultipartUpload(new CompleteMultipartUploadRequest(bucket, key, uploadId, partETags));
+            succeeded = true;
+        } finally {
+            if (!succeeded) {
+                this.abortMultipartUpload(bucket, key, uploadId);
+            }
+        }
+    }
+
+    private long putChannelInParts(
+        final String bucket,
+        final String key,
+        final ReadableByteChannel source
+    ) throws IOException {
+        final int bufferSize = (int) Math.min(this.partSize, MAX_PART_BUFFER_SIZE);
+        // One buffer is held by the part being read and one by every part which wasn't uploaded yet
+        this.acquirePartBuffer();
+        final AtomicBoolean readBuffer = new AtomicBoolean(true);
+        final List<AtomicBoolean> uploadBuffers = new ArrayList<>();
+        String uploadId = null;
+        boolean succeeded = false;
+        try {
+            ByteBuffer part = this.readPart(source, bufferSize);
+            if (part.limit() < bufferSize) {
+                // The whole stream fit in one part so there's no need for a multipart upload
+                final ObjectMetadata metadata = new ObjectMetadata();
+                metadata.setContentLength(part.limit());
+                this.s3Client.putObject(
+                    new PutObjectRequest(bucket, key, new ByteArrayInputStream(part.array(), 0, part.limit()), metadata)
+                );
+                succeeded = true;
+                return part.limit();
+            }
+
+            uploadId = this.s3Client
+                .initiateMultipartUpload(new InitiateMultipartUploadRequest(bucket, key))
+                .getUploadId();
+            final List<Future<PartETag>> parts = new ArrayList<>();
+            long size = 0L;
+            for (int partNumber = 1; part.limit() > 0; partNumber++) {
+                if (partNumber > MAX_PARTS) {
+                    throw new IOException("Stream is larger than " + MAX_PARTS + " parts of " + bufferSize + " bytes");
+                }
+                final UploadPartRequest request = new UploadPartRequest()
+                    .withBucketName(bucket)
+                    .withKey(key)
+                    .withUploadId(uploadId)
+                    .withPartNumber(partNumber)
+                    .withInputStream(new ByteArrayInputStream(part.array(), 0, part.limit()))
+                    .withPartSize(part.limit());
+                size += part.limit();
+                final AtomicBoolean uploadBuffer = new AtomicBoolean(true);
+                uploadBuffers.add(uploadBuffer);
+                readBuffer.set(false);
+                parts.add(
+                    this.transferExecutor.submit(
+                        () -> {
+                            try {
+                                return this.s3Client.uploadPart(request).getPartETag();
+                            } finally {
+                                this.releasePartBuffer(uploadBuffer);
+                            }
+                        }
+                    )
+                );
+                if (part.limit() < bufferSize) {
+                    break;
+                }
+                this.acquirePartBuffer();
+                readBuffer.set(true);
+                part = this.readPart(source, bufferSize);
+            }
+            final List<PartETag> partETags = this.waitFor(parts);
+            this.s3Client.completeMultipartUpload(new CompleteMultipartUploadRequest(bucket, key, uploadId, partETags));
+            succeeded = true;
+            return size;
+        } finally {
+            this.releasePartBuffer(readBuffer);
+            // Parts cancelled before they started never release their buffers themselves
+            uploadBuffers.forEach(this::releasePartBuffer);
+            if (!succeeded && uploadId != null) {
+                this.abortMultipartUpload(bucket, key, uploadId);
+            }
+        }
+    }
+
+    private ByteBuffer readPart(final ReadableByteChannel source, final int size) throws IOException {
+        // Start small and grow as needed so short streams don't take a whole part of memory
+        ByteBuffer buffer = ByteBuffer.allocate(Math.min(BUFFER_SIZE, size));
+        while (true) {
+            if (!buffer.hasRemaining()) {
+                if (buffer.capacity() == size) {
+                    break;
+                }
+                final ByteBuffer larger = ByteBuffer.allocate((int) Math.min(buffer.capacity() * 2L, size));
+                buffer.flip();
+                buffer = larger.put(buffer);
+            }
+            if (source.read(buffer) < 0) {
+                break;
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private void acquirePartBuffer() throws IOException {
+        try {
+            this.partBuffers.acquire();
+        } catch (final InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for a buffer to read the stream into", ie);
+        }
+    }
+
+    private void releasePartBuffer(final AtomicBoolean held) {
+        // Each buffer is released exactly once whoever gets to it first
+        if (held.compareAndSet(true, false)) {
+            this.partBuffers.release();
+        }
+    }
+
+    private void abortMultipartUpload(final String bucket, final String key, final String uploadId) {
+        // Don't leave the parts already uploaded behind to be stored and billed
+        try {
+            this.s3Client.abortMultipartUpload(new AbortMultipartUploadRequest(bucket, key, uploadId));
+        } catch (final AmazonClientException ace) {
+            log.error("Unable to abort multipart upload {} of s3://{}/{}", uploadId, bucket, key, ace);
+        }
+    }
+
+    private <T> List<T> waitFor(final List<Future<T>> futures) throws IOException {
+        final List<T> results = new ArrayList<>(futures.size());
+        try {
+            for (final Future<T> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (final InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while transferring parts", ie);
+        } catch (final ExecutionException ee) {
+            if (ee.getCause() instanceof AmazonClientException) {
+                throw (AmazonClientException) ee.getCause();
+            }
+            throw new IOException("Unable to transfer part", ee.getCause());
+        } finally {
+            futures.forEach(future -> future.cancel(true));
+        }
+    }
+
+    private void recordTransfer(
+        final Timer timer,
+        final Counter bytes,
+        final DistributionSummary throughput,
+        final long start,
+        final long size
+    ) {
+        final long duration = Math.max(this.registry.clock().monotonicTime() - start, 1L);
+        timer.record(duration, TimeUnit.NANOSECONDS);
+        bytes.increment(size);
+        // Bytes per second
+        throughput.record((long) (size * (double) TimeUnit.SECONDS.toNanos(1L) / duration));
+    }
 }
@@ -0,0 +1,162 @@
+/*
+ *
+ *  Copyright 2016 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.core.util;
+
+import com.netflix.spectator.api.Counter;
+import com.netflix.spectator.api.Registry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileSystemException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.PosixFileAttributeView;
+
+/**
+ * Puts copies of local files in place without moving their contents through the JVM. Files are hard linked when
+ * source and destination are on the same file system, otherwise the kernel copies them with FileChannel.transferTo.
+ * <p>
+ * A hard link shares its contents with the source so writing to either changes both. Only link files which are
+ * never modified in place.
+ *
+ * @author agent
+ * @since 3.0.0
+ */
+@Slf4j
+public class LocalFileCopier {
+
+    /**
+     * How many bytes to ask a channel to transfer at once when copying to or from it.
+     */
+    public static final long TRANSFER_CHUNK_SIZE = 8L * 1024L * 1024L;
+
+    private final Counter linkedBytes;
+    private final Counter copiedBytes;
+    private final Counter linkFailureRate;
+
+    /**
+     * Constructor.
+     *
+     * @param registry The metrics registry to use
+     */
+    public LocalFileCopier(final Registry registry) {
+        this.linkedBytes = registry.counter("genie.files.local.linked.bytes");
+        this.copiedBytes = registry.counter("genie.files.local.copied.bytes");
+        this.linkFailureRate = registry.counter("genie.files.local.link.failure.rate");
+    }
+
+    /**
+     * Hard link the source file to the destination, replacing it if it exists. Falls back to copying the file if it
+     * can't be linked.
+     *
+     * @param source      The file to link
+     * @param destination Where to link it
+     * @throws IOException on any error which copying the file didn't work around
+     */
+    public void link(final Path source, final Path destination) throws IOException {
+        final long size = Files.size(source);
+        try {
+            Files.deleteIfExists(destination);
+            Files.createLink(destination, source);
+            this.linkedBytes.increment(size);
+            return;
+        } catch (final NoSuchFileException nsfe) {
+            throw nsfe;
+        } catch (final UnsupportedOperationException | FileSystemException e) {
+            // Usually source and destination are on different devices
+            this.linkFailureRate.increment();
+            log.debug("Unable to hard link {} to {}. Copying it instead.", destination, source, e);
+        }
+        this.copy(source, destination);
+    }
+
+    /**
+     * Link every file under the source directory into the same place under the destination directory, creating
+     * directories as needed.
+     *
+     * @param source      The directory to link the files of
+     * @param destination The directory to link them into
+     * @throws IOException on any error which copying the files didn't work around
+     */
+    public void linkDirectory(final Path source, final Path destination) throws IOException {
+        Files.walkFileTree(
+            source,
+            new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult preVisitDirectory(
+                    final Path dir,
+                    final BasicFileAttributes attrs
+                ) throws IOException {
+                    Files.createDirectories(destination.resolve(source.relativize(dir)));
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(
+                    final Path file,
+                    final BasicFileAttributes attrs
+                ) throws IOException {
+                    link(file, destination.resolve(source.relativize(file)));
+                    return FileVisitResult.CONTINUE;
+                }
+            }
+        );
+    }
+
+    /**
+     * Copy the source file to the destination, replacing it if it exists. The contents are moved by the kernel and
+     * the modification time and permissions of the source are kept.
+     *
+     * @param source      The file to copy
+     * @param destination Where to copy it to
+     * @throws IOException on any error
+     */
+    public void copy(final Path source, final Path destination) throws IOException {
+        long position = 0L;
+        try (
+            final FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+            final FileChannel out = FileChannel.open(
+                destination,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE
+            )
+        ) {
+            final long size = in.size();
+            long transferred = 1L;
+            // Stop early if the source got shorter while it was copied rather than spinning forever
+            while (position < size && transferred > 0L) {
+                transferred = in.transferTo(position, Math.min(TRANSFER_CHUNK_SIZE, size - position), out);
+                position += transferred;
+            }
+        }
+        this.copiedBytes.increment(position);
+
+        final PosixFileAttributeView view = Files.getFileAttributeView(destination, PosixFileAttributeView.class);
+        if (view != null) {
+            view.setPermissions(Files.getPosixFilePermissions(source));
+        }
+        Files.setLastModifiedTime(destination, Files.getLastModifiedTime(source));
+    }
+}
@@ -0,0 +1,404 @@
+/*
+ *
+ *  Copyright 2016 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.core.util;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.io.ByteStreams;
+import lombok.Getter;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+
+/**
+ * The central directory of a zip archive read with ranged reads so that single members can later be fetched without
+ * the rest of the archive. Meant for archives in remote locations where only the end of the archive and the members
+ * actually needed should be transferred, e.g. with {@link com.netflix.genie.core.services.FileTransfer#getFileRange}.
+ * <p>
+ * Supports zip64 archives and members which are stored or deflated.
+ *
+ * @author agent
+ * @since 3.0.0
+ */
+public final class ZipIndex {
+
+    private static final String SLASH = "/";
+    private static final long MASK_32 = 0xFFFFFFFFL;
+    private static final int MASK_16 = 0xFFFF;
+
+    private static final int LOC_SIG = 0x04034b50;
+    private static final int LOC_LENGTH = 30;
+    private static final int CEN_SIG = 0x02014b50;
+    private static final int CEN_LENGTH = 46;
+    private static final int EOCD_SIG = 0x06054b50;
+    private static final int EOCD_LENGTH = 22;
+    private static final int ZIP64_LOCATOR_SIG = 0x07064b50;
+    private static final int ZIP64_LOCATOR_LENGTH = 20;
+    private static final int ZIP64_EOCD_SIG = 0x06064b50;
+    private static final int ZIP64_EOCD_LENGTH = 56;
+    private static final int ZIP64_EXTRA_ID = 0x0001;
+    private static final int MAX_TAIL_LENGTH = EOCD_LENGTH + MASK_16 + ZIP64_LOCATOR_LENGTH + ZIP64_EOCD_LENGTH;
+
+    private final List<Entry> entries;
+    private final Map<String, Entry> entriesByName;
+    private final long trailerOffset;
+    private final byte[] trailer;
+
+    private ZipIndex(final List<Entry> entries, final long trailerOffset, final byte[] trailer) {
+        this.entries = Collections.unmodifiableList(entries);
+        this.entriesByName = Maps.newHashMapWithExpectedSize(entries.size());
+        for (final Entry entry : entries) {
+            this.entriesByName.put(StringUtils.removeEnd(entry.getName(), SLASH), entry);
+        }
+        this.trailerOffset = trailerOffset;
+        this.trailer = trailer;
+    }
+
+    /**
+     * Read the index of a zip archive. At most two reads are issued: one for the end of the archive and, if the
+     * central directory doesn't fit in that, one for the central directory.
+     *
+     * @param size   The size of the archive in bytes
+     * @param reader How to read ranges of the archive
+     * @return The index of the archive
+     * @throws IOException If the archive can't be read or isn't a valid zip archive
+     */
+    public static ZipIndex read(final long size, final RangeReader reader) throws IOException {
+        final int tailLength = (int) Math.min(size, MAX_TAIL_LENGTH);
+        final long tailOffset = size - tailLength;
+        final ByteBuffer tail = order(ByteBuffer.wrap(readFully(reader, tailOffset, tailLength)));
+
+        int eocd = -1;
+        for (int i = tailLength - EOCD_LENGTH; i >= 0; i--) {
+            if (tail.getInt(i) == EOCD_SIG) {
+                eocd = i;
+                break;
+            }
+        }
+        if (eocd < 0) {
+            throw new ZipException("No end of central directory record found. Not a zip archive.");
+        }
+
+        long entryCount = tail.getShort(eocd + 10) & MASK_16;
+        long centralDirectoryOffset = tail.getInt(eocd + 16) & MASK_32;
+        if (centralDirectoryOffset == MASK_32 || entryCount == MASK_16) {
+            // The real values are in the zip64 end of central directory record
+            final int locator = eocd - ZIP64_LOCATOR_LENGTH;
+            if (locator < 0 || tail.getInt(locator) != ZIP64_LOCATOR_SIG) {
+                throw new ZipException("No zip64 end of central directory locator found.");
+            }
+            final long zip64Offset = tail.getLong(locator + 8);
+            final ByteBuffer zip64 = zip64Offset >= tailOffset
+                ? order(slice(tail, (int) (zip64Offset - tailOffset), ZIP64_EOCD_LENGTH))
+                : order(ByteBuffer.wrap(readFully(reader, zip64Offset, ZIP64_EOCD_LENGTH)));
+            if (zip64.getInt(0) != ZIP64_EOCD_SIG) {
+                throw new ZipException("Invalid zip64 end of central directory record.");
+            }
+            entryCount = zip64.getLong(32);
+            centralDirectoryOffset = zip64.getLong(48);
+        }
+
+        if (centralDirectoryOffset < 0 || centralDirectoryOffset > size) {
+            throw new ZipException("Invalid central directory offset " + centralDirectoryOffset);
+        }
+        if (size - centralDirectoryOffset > Integer.MAX_VALUE) {
+            throw new ZipException("Central directory is too large to index.");
+        }
+
+        final byte[] trailer;
+        if (centralDirectoryOffset >= tailOffset) {
+            final int start = (int) (centralDirectoryOffset - tailOffset);
+            trailer = new byte[tailLength - start];
+            System.arraycopy(tail.array(), start, trailer, 0, trailer.length);
+        } else {
+            trailer = readFully(reader, centralDirectoryOffset, (int) (size - centralDirectoryOffset));
+        }
+
+        return new ZipIndex(
+            parseCentralDirectory(order(ByteBuffer.wrap(trailer)), entryCount, centralDirectoryOffset),
+            centralDirectoryOffset,
+            trailer
+        );
+    }
+
+    /**
+     * Get all the entries of the archive in the order they appear in the central directory.
+     *
+     * @return The entries. Not modifiable.
+     */
+    public List<Entry> getEntries() {
+        return this.entries;
+    }
+
+    /**
+     * Get an entry by its name. Directories can be found with or without their trailing slash.
+     *
+     * @param name The name of the entry relative to the root of the archive
+     * @return The entry or null if there is none by that name
+     */
+    public Entry getEntry(final String name) {
+        return this.entriesByName.get(StringUtils.removeEnd(StringUtils.removeStart(name, SLASH), SLASH));
+    }
+
+    /**
+     * Get the offset within the archive where the central directory starts. Everything from there to the end of the
+     * archive is available from {@link #getTrailer()}.
+     *
+     * @return The offset of the central directory
+     */
+    public long getTrailerOffset() {
+        return this.trailerOffset;
+    }
+
+    /**
+     * Get the bytes of the archive from the start of the central directory to the end of the archive.
+     *
+     * @return A read only buffer of the trailer of the archive
+     */
+    public ByteBuffer getTrailer() {
+        return ByteBuffer.wrap(this.trailer).asReadOnlyBuffer();
+    }
+
+    /**
+     * Open a stream of the uncompressed contents of an entry. Only the bytes of the entry are read from the archive.
+     *
+     * @param entry  The entry to read
+     * @param reader How to read ranges of the archive
+     * @return The uncompressed contents of the entry. The caller must close it.
+     * @throws IOException If the entry can't be read
+     */
+    public static InputStream getInputStream(final Entry entry, final RangeReader reader) throws IOException {
+        final InputStream member = reader.read(entry.getLocalHeaderOffset(), entry.getMemberLength());
+        try {
+            final byte[] header = new byte[LOC_LENGTH];
+            ByteStreams.readFully(member, header);
+            final ByteBuffer localHeader = order(ByteBuffer.wrap(header));
+            if (localHeader.getInt(0) != LOC_SIG) {
+                throw new ZipException("Invalid local header for entry " + entry.getName());
+            }
+            ByteStreams.skipFully(member, (localHeader.getShort(26) & MASK_16) + (localHeader.getShort(28) & MASK_16));
+            final InputStream data = ByteStreams.limit(member, entry.getCompressedSize());
+
+            switch (entry.getMethod()) {
+                case ZipEntry.STORED:
+                    return data;
+                case ZipEntry.DEFLATED:
+                    final Inflater inflater = new Inflater(true);
+                    // The inflater needs an extra byte past the end of the raw deflate data when nowrap is used
+                    return new InflaterInputStream(
+                        new SequenceInputStream(data, new ByteArrayInputStream(new byte[1])),
+                        inflater
+                    ) {
+                        @Override
+                        public void close() throws IOException {
+                            try {
+                                super.close();
+                            } finally {
+                                inflater.end();
+                            }
+                        }
+                    };
+                default:
+                    throw new ZipException(
+                        "Unsupported compression method " + entry.getMethod() + " for entry " + entry.getName()
+                    );
+            }
+        } catch (final IOException | RuntimeException e) {
+            member.close();
+            throw e;
+        }
+    }
+
+    private static List<Entry> parseCentralDirectory(
+        final ByteBuffer centralDirectory,
+        final long entryCount,
+        final long centralDirectoryOffset
+    ) throws ZipException {
+        final List<Entry> entries = Lists.newArrayListWithCapacity((int) Math.min(entryCount, MASK_16));
+        int position = 0;
+        for (long i = 0; i < entryCount; i++) {
+            if (position + CEN_LENGTH > centralDirectory.limit() || centralDirectory.getInt(position) != CEN_SIG) {
+                throw new ZipException("Invalid central directory header for entry " + i);
+            }
+            final int method = centralDirectory.getShort(position + 10) & MASK_16;
+            final int time = centralDirectory.getShort(position + 12) & MASK_16;
+            final int date = centralDirectory.getShort(position + 14) & MASK_16;
+            long compressedSize = centralDirectory.getInt(position + 20) & MASK_32;
+            long size = centralDirectory.getInt(position + 24) & MASK_32;
+            final int nameLength = centralDirectory.getShort(position + 28) & MASK_16;
+            final int extraLength = centralDirectory.getShort(position + 30) & MASK_16;
+            final int commentLength = centralDirectory.getShort(position + 32) & MASK_16;
+            long localHeaderOffset = centralDirectory.getInt(position + 42) & MASK_32;
+
+            final byte[] name = new byte[nameLength];
+            ((ByteBuffer) centralDirectory.duplicate().position(position + CEN_LENGTH)).get(name);
+
+            // Values which don't fit in 32 bits are in the zip64 extra field in this order
+            int extra = position + CEN_LENGTH + nameLength;
+            final int extraEnd = extra + extraLength;
+            while (extra + 4 <= extraEnd) {
+                final int id = centralDirectory.getShort(extra) & MASK_16;
+                final int length = centralDirectory.getShort(extra + 2) & MASK_16;
+                if (id == ZIP64_EXTRA_ID) {
+                    int field = extra + 4;
+                    if (size == MASK_32) {
+                        size = centralDirectory.getLong(field);
+                        field += 8;
+                    }
+                    if (compressedSize == MASK_32) {
+                        compressedSize = centralDirectory.getLong(field);
+                        field += 8;
+                    }
+                    if (localHeaderOffset == MASK_32) {
+                        localHeaderOffset = centralDirectory.getLong(field);
+                    }
+                    break;
+                }
+                extra += 4 + length;
+            }
+
+            entries.add(
+                new Entry(
+                    new String(name, StandardCharsets.UTF_8),
+                    method,
+                    compressedSize,
+                    size,
+                    toMillis(date, time),
+                    localHeaderOffset
+                )
+            );
+            position = extraEnd + commentLength;
+        }
+
+        // A member spans from its local header to the start of the next member or the central directory
+        final List<Entry> byOffset = Lists.newArrayList(entries);
+        byOffset.sort(Comparator.comparingLong(Entry::getLocalHeaderOffset));
+        for (int i = 0; i < byOffset.size(); i++) {
+            final Entry entry = byOffset.get(i);
+            final long end = i + 1 < byOffset.size()
+                ? byOffset.get(i + 1).getLocalHeaderOffset()
+                : centralDirectoryOffset;
+            entry.memberLength = end - entry.getLocalHeaderOffset();
+        }
+        return entries;
+    }
+
+    private static long toMillis(final int date, final int time) {
+        try {
+            return LocalDateTime
+                .of(
+                    ((date >> 9) & 0x7f) + 1980,
+                    (date >> 5) & 0x0f,
+                    date & 0x1f,
+                    (time >> 11) & 0x1f,
+                    (time >> 5) & 0x3f,
+                    (time << 1) & 0x3e
+                )
+                .atZone(ZoneId.systemDefault())
+                .toInstant()
+                .toEpochMilli();
+        } catch (final DateTimeException dte) {
+            return -1L;
+        }
+    }
+
+    private static byte[] readFully(final RangeReader reader, final long offset, final int length) throws IOException {
+        final byte[] bytes = new byte[length];
+        try (final InputStream inputStream = reader.read(offset, length)) {
+            ByteStreams.readFully(inputStream, bytes);
+        }
+        return bytes;
+    }
+
+    private static ByteBuffer slice(final ByteBuffer buffer, final int offset, final int length) {
+        final ByteBuffer duplicate = buffer.duplicate();
+        duplicate.position(offset);
+        duplicate.limit(offset + length);
+        return duplicate.slice();
+    }
+
+    private static ByteBuffer order(final ByteBuffer buffer) {
+        return buffer.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Reads a range of bytes of an archive from wherever it's stored.
+     */
+    @FunctionalInterface
+    public interface RangeReader {
+
+        /**
+         * Read a range of the archive.
+         *
+         * @param offset The offset of the first byte to read
+         * @param length How many bytes to read
+         * @return A stream of exactly the bytes requested. Closed by the caller.
+         * @throws IOException If the range can't be read
+         */
+        InputStream read(long offset, long length) throws IOException;
+    }
+
+    /**
+     * A file or directory within the archive as described by the central directory.
+     */
+    @Getter
+    public static final class Entry {
+        private final String name;
+        private final boolean directory;
+        private final int method;
+        private final long compressedSize;
+        private final long size;
+        private final long lastModified;
+        private final long localHeaderOffset;
+        private long memberLength;
+
+        private Entry(
+            final String name,
+            final int method,
+            final long compressedSize,
+            final long size,
+            final long lastModified,
+            final long localHeaderOffset
+        ) {
+            this.name = name;
+            this.directory = name.endsWith(SLASH);
+            this.method = method;
+            this.compressedSize = compressedSize;
+            this.size = size;
+            this.lastModified = lastModified;
+            this.localHeaderOffset = localHeaderOffset;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ *
+ *  Copyright 2016 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.core.util;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Utility class to create zip archives.
+ *
+ * @author agent
+ * @since 3.0.0
+ */
+@Slf4j
+public final class ZipUtil {
+
+    private static final String SLASH = "/";
+
+    /**
+     * Should never be called.
+     */
+    protected ZipUtil() {
+    }
+
+    /**
+     * Write every file and directory under the source directory into a zip file at the target. Each file is
+     * compressed on its own and listed in the central directory so it can later be read without the rest of the
+     * archive. Symbolic links and anything else which isn't a regular file or directory are left out and logged.
+     *
+     * @param source The directory to archive
+     * @param target The zip file to create. If it's within the source directory it's left out of the archive.
+     * @throws IOException on any error reading the source or writing the target
+     */
+    public static void zipDirectory(final Path source, final Path target) throws IOException {
+        final Path absoluteTarget = target.toAbsolutePath();
+        try (
+            final OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(target));
+            final ZipOutputStream zipOutputStream = new ZipOutputStream(outputStream)
+        ) {
+            Files.walkFileTree(
+                source,
+                new SimpleFileVisitor<Path>() {
+                    @Override
+                    public FileVisitResult preVisitDirectory(
+                        final Path dir,
+                        final BasicFileAttributes attrs
+                    ) throws IOException {
+                        if (!dir.equals(source)) {
+                            final ZipEntry entry = new ZipEntry(getEntryName(source, dir) + SLASH);
+                            entry.setTime(attrs.lastModifiedTime().toMillis());
+                            zipOutputStream.putNextEntry(entry);
+                            zipOutputStream.closeEntry();
+                        }
+                        return FileVisitResult.CONTINUE;
+                    }
+
+                    @Override
+                    public FileVisitResult visitFile(
+                        final Path file,
+                        final BasicFileAttributes attrs
+                    ) throws IOException {
+                        if (!attrs.isRegularFile()) {
+                            // Links may point outside the directory so what they point to isn't archived
+                            log.warn(
+                                "Leaving {} out of archive {} as it's a {} rather than a regular file",
+                                file,
+                                target,
+                                attrs.isSymbolicLink() ? "symbolic link" : "special file"
+                            );
+                        } else if (!file.toAbsolutePath().equals(absoluteTarget)) {
+                            final ZipEntry entry = new ZipEntry(getEntryName(source, file));
+                            entry.setTime(attrs.lastModifiedTime().toMillis());
+                            zipOutputStream.putNextEntry(entry);
+                            Files.copy(file, zipOutputStream);
+                            zipOutputStream.closeEntry();
+                        }
+                        return FileVisitResult.CONTINUE;
+                    }
+                }
+            );
+        }
+    }
+
+    private static String getEntryName(final Path source, final Path path) {
+        return source.relativize(path).toString().replace(path.getFileSystem().getSeparator(), SLASH);
+    }
+}
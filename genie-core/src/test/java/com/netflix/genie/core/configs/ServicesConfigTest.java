@@ -18,6 +18,7 @@
 package com.netflix.genie.core.configs;
 
 import com.netflix.genie.common.exceptions.GenieException;
+import com.netflix.genie.core.jobs.JobArchiveFormat;
 import com.netflix.genie.core.jobs.workflow.WorkflowTask;
 import com.netflix.genie.core.jpa.repositories.JpaApplicationRepository;
 import com.netflix.genie.core.jpa.repositories.JpaClusterRepository;
@@ -44,6 +45,7 @@ import com.netflix.genie.core.services.impl.GenieFileTransferService;
 import com.netflix.genie.core.services.impl.LocalJobKillServiceImpl;
 import com.netflix.genie.core.services.impl.LocalJobRunner;
 import com.netflix.genie.core.services.impl.RandomizedClusterLoadBalancerImpl;
+import com.netflix.spectator.api.DefaultRegistry;
 import org.apache.commons.exec.Executor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationEventPublisher;
@@ -196,7 +198,7 @@ public class ServicesConfigTest {
     public GenieFileTransferService genieFileTransferService(
         final List<FileTransfer> fileTransferImpls
     ) throws GenieException {
-        return new GenieFileTransferService(fileTransferImpls);
+        return new GenieFileTransferService(fileTransferImpls, new DefaultRegistry());
     }
 
     /**
@@ -244,7 +246,8 @@ public class ServicesConfigTest {
             workflowTasks,
             genieWorkingDir,
             hostname,
-            maxRunningJobs
+            maxRunningJobs,
+            new DefaultRegistry()
         );
     }
 
@@ -271,6 +274,8 @@ public class ServicesConfigTest {
             jobPersistenceService,
             jobSubmitterService,
             jobKillService,
-            baseArchiveLocation);
+            baseArchiveLocation,
+            JobArchiveFormat.TAR_GZ
+        );
     }
 }
@@ -0,0 +1,74 @@
+/*
+ *
+ *  Copyright 2016 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.core.jobs;
+
+import com.netflix.genie.common.exceptions.GeniePreconditionException;
+import com.netflix.genie.test.categories.UnitTest;
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+/**
+ * Tests for the JobArchiveFormat enum.
+ *
+ * @author agent
+ * @since 3.0.0
+ */
+@Category(UnitTest.class)
+public class JobArchiveFormatUnitTests {
+
+    /**
+     * Make sure the formats can be parsed from either their names or their extensions.
+     *
+     * @throws GeniePreconditionException on error
+     */
+    @Test
+    public void canParse() throws GeniePreconditionException {
+        Assert.assertThat(JobArchiveFormat.parse("zip"), Matchers.is(JobArchiveFormat.ZIP));
+        Assert.assertThat(JobArchiveFormat.parse("ZIP"), Matchers.is(JobArchiveFormat.ZIP));
+        Assert.assertThat(JobArchiveFormat.parse("tar.gz"), Matchers.is(JobArchiveFormat.TAR_GZ));
+        Assert.assertThat(JobArchiveFormat.parse("tar_gz"), Matchers.is(JobArchiveFormat.TAR_GZ));
+    }
+
+    /**
+     * Make sure an unknown format can't be parsed.
+     *
+     * @throws GeniePreconditionException on error
+     */
+    @Test(expected = GeniePreconditionException.class)
+    public void cantParseUnknownFormat() throws GeniePreconditionException {
+        JobArchiveFormat.parse("rar");
+    }
+
+    /**
+     * Make sure the format is picked from the extension of the archive location.
+     */
+    @Test
+    public void canGetFormatFromLocation() {
+        Assert.assertThat(
+            JobArchiveFormat.fromLocation("s3://bucket/genie/1234.zip"),
+            Matchers.is(JobArchiveFormat.ZIP)
+        );
+        Assert.assertThat(
+            JobArchiveFormat.fromLocation("s3://bucket/genie/1234.tar.gz"),
+            Matchers.is(JobArchiveFormat.TAR_GZ)
+        );
+        Assert.assertThat(JobArchiveFormat.fromLocation(null), Matchers.is(JobArchiveFormat.TAR_GZ));
+    }
+}
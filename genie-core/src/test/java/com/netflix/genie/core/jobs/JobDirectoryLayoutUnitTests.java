@@ -0,0 +1,139 @@
+/*
+ *
+ *  Copyright 2016 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.core.jobs;
+
+import com.google.common.collect.Lists;
+import com.netflix.genie.common.dto.Application;
+import com.netflix.genie.common.dto.Cluster;
+import com.netflix.genie.common.dto.Command;
+import com.netflix.genie.common.dto.JobRequest;
+import com.netflix.genie.test.categories.UnitTest;
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Tests for the JobDirectoryLayout class.
+ *
+ * @author agent
+ * @since 3.0.0
+ */
+@Category(UnitTest.class)
+public class JobDirectoryLayoutUnitTests {
+
+    /**
+     * Temporary folder for the job directories.
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Make sure the paths of the files Genie writes to the job directory match the constants.
+     */
+    @Test
+    public void canGetPaths() {
+        final Path jobDir = Paths.get("/tmp/genie/jobs/job1");
+        final JobDirectoryLayout layout = new JobDirectoryLayout(jobDir);
+
+        Assert.assertThat(layout.getJobDirectory(), Matchers.is(jobDir));
+        Assert.assertThat(layout.getGenieDirectory(), Matchers.is(jobDir.resolve("genie")));
+        Assert.assertThat(layout.getLogsDirectory(), Matchers.is(jobDir.resolve("genie/logs")));
+        Assert.assertThat(layout.getApplicationsDirectory(), Matchers.is(jobDir.resolve("genie/applications")));
+        Assert.assertThat(layout.getCommandDirectory(), Matchers.is(jobDir.resolve("genie/command")));
+        Assert.assertThat(layout.getClusterDirectory(), Matchers.is(jobDir.resolve("genie/cluster")));
+        Assert.assertThat(layout.getRunScript(), Matchers.is(jobDir.resolve("run.sh")));
+        Assert.assertThat(layout.getDoneFile(), Matchers.is(jobDir.resolve("genie/genie.done")));
+        Assert.assertThat(layout.getArchivedFile(), Matchers.is(jobDir.resolve("genie/genie.archived")));
+        Assert.assertThat(layout.getManifestFile(), Matchers.is(jobDir.resolve("genie/genie.manifest.json")));
+        Assert.assertThat(layout.getSetupTimelineFile(), Matchers.is(jobDir.resolve("genie/logs/genie.setup.json")));
+        Assert.assertThat(
+            layout.getArchiveFile("job1", JobArchiveFormat.ZIP),
+            Matchers.is(jobDir.resolve("genie/logs/job1.zip"))
+        );
+        Assert.assertThat(
+            layout.getEntityConfigDirectory(AdminResources.APPLICATION, "app1"),
+            Matchers.is(jobDir.resolve("genie/applications/app1/config"))
+        );
+        Assert.assertThat(
+            layout.getEntityDependenciesDirectory(AdminResources.CLUSTER, "cluster1"),
+            Matchers.is(jobDir.resolve("genie/cluster/cluster1/dependencies"))
+        );
+        Assert.assertThat(
+            layout.getEntityDirectory(AdminResources.COMMAND, "command1"),
+            Matchers.is(jobDir.resolve("genie/command/command1"))
+        );
+    }
+
+    /**
+     * Make sure the whole tree for a job is planned and created with parents ahead of their children.
+     *
+     * @throws IOException on error
+     */
+    @Test
+    public void canPlanAndCreate() throws IOException {
+        final File jobDir = this.folder.newFolder("job1");
+        final Cluster cluster = Mockito.mock(Cluster.class);
+        Mockito.when(cluster.getId()).thenReturn("cluster1");
+        final Command command = Mockito.mock(Command.class);
+        Mockito.when(command.getId()).thenReturn("command1");
+        final Application app1 = Mockito.mock(Application.class);
+        Mockito.when(app1.getId()).thenReturn("app1");
+        final Application app2 = Mockito.mock(Application.class);
+        Mockito.when(app2.getId()).thenReturn("app2");
+        final JobExecutionEnvironment jee = new JobExecutionEnvironment.Builder(
+            Mockito.mock(JobRequest.class),
+            cluster,
+            command,
+            jobDir
+        )
+            .withApplications(Lists.newArrayList(app1, app2))
+            .build();
+
+        final JobDirectoryLayout layout = JobDirectoryLayout.plan(jee);
+        Assert.assertThat(layout.getJobDirectory(), Matchers.is(jobDir.getCanonicalFile().toPath()));
+        // 5 top level directories and 3 for each of the 4 entities
+        Assert.assertThat(layout.getDirectories().size(), Matchers.is(17));
+
+        Path previous = null;
+        for (final Path directory : layout.getDirectories()) {
+            if (previous != null) {
+                Assert.assertFalse(previous.startsWith(directory));
+            }
+            previous = directory;
+        }
+
+        layout.create();
+        for (final Path directory : layout.getDirectories()) {
+            Assert.assertTrue(Files.isDirectory(directory));
+        }
+
+        // Creating the tree again is harmless
+        layout.create();
+        Assert.assertTrue(Files.isDirectory(layout.getEntityConfigDirectory(AdminResources.APPLICATION, "app2")));
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ *
+ *  Copyright 2016 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.core.jobs;
+
+import com.netflix.genie.common.exceptions.GenieException;
+import com.netflix.genie.common.exceptions.GenieServerException;
+import com.netflix.genie.test.categories.UnitTest;
+import com.netflix.spectator.api.Counter;
+import com.netflix.spectator.api.Registry;
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests for the KnownUserCache class.
+ *
+ * @author agent
+ * @since 3.0.0
+ */
+@Category(UnitTest.class)
+public class KnownUserCacheUnitTests {
+
+    private static final String USER = "genie";
+
+    private Counter hitRate;
+    private Counter missRate;
+    private Counter createdRate;
+    private KnownUserCache cache;
+
+    /**
+     * Setup for the tests.
+     */
+    @Before
+    public void setup() {
+        final Registry registry = Mockito.mock(Registry.class);
+        this.hitRate = Mockito.mock(Counter.class);
+        this.missRate = Mockito.mock(Counter.class);
+        this.createdRate = Mockito.mock(Counter.class);
+        Mockito.when(registry.counter("genie.jobs.users.cache.hit.rate")).thenReturn(this.hitRate);
+        Mockito.when(registry.counter("genie.jobs.users.cache.miss.rate")).thenReturn(this.missRate);
+        Mockito.when(registry.counter("genie.jobs.users.created.rate")).thenReturn(this.createdRate);
+        this.cache = new KnownUserCache(registry, 10L, 3600L);
+    }
+
+    /**
+     * Make sure a user is only verified once.
+     *
+     * @throws GenieException on error
+     */
+    @Test
+    public void canRememberUser() throws GenieException {
+        final AtomicInteger verifications = new AtomicInteger();
+        final KnownUserCache.Verifier verifier = () -> verifications.incrementAndGet() == 1;
+
+        this.cache.ensureUser(USER, verifier);
+        this.cache.ensureUser(USER, verifier);
+        this.cache.ensureUser(USER, verifier);
+
+        Assert.assertThat(verifications.get(), Matchers.is(1));
+        Mockito.verify(this.missRate, Mockito.times(1)).increment();
+        Mockito.verify(this.hitRate, Mockito.times(2)).increment();
+        Mockito.verify(this.createdRate, Mockito.times(1)).increment();
+    }
+
+    /**
+     * Make sure a user which already existed isn't counted as created.
+     *
+     * @throws GenieException on error
+     */
+    @Test
+    public void canVerifyExistingUser() throws GenieException {
+        this.cache.ensureUser(USER, () -> false);
+        Mockito.verify(this.createdRate, Mockito.never()).increment();
+    }
+
+    /**
+     * Make sure users which couldn't be verified are tried again.
+     *
+     * @throws GenieException on error
+     */
+    @Test
+    public void wontRememberFailures() throws GenieException {
+        try {
+            this.cache.ensureUser(USER, () -> {
+                throw new GenieServerException("useradd failed");
+            });
+            Assert.fail();
+        } catch (final GenieServerException gse) {
+            Assert.assertThat(gse.getMessage(), Matchers.is("useradd failed"));
+        }
+
+        final AtomicInteger verifications = new AtomicInteger();
+        this.cache.ensureUser(USER, () -> verifications.incrementAndGet() > 0);
+        Assert.assertThat(verifications.get(), Matchers.is(1));
+    }
+
+    /**
+     * Make sure concurrent jobs for a new user only verify it once.
+     *
+     * @throws Exception on error
+     */
+    @Test
+    public void canVerifyOnceConcurrently() throws Exception {
+        final int threads = 8;
+        final AtomicInteger verifications = new AtomicInteger();
+        final CountDownLatch start = new CountDownLatch(1);
+        final ExecutorService executorService = Executors.newFixedThreadPool(threads);
+        try {
+            final List<Future<Void>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(
+                    executorService.submit(
+                        () -> {
+                            start.await();
+                            this.cache.ensureUser(
+                                USER,
+                                () -> {
+                                    verifications.incrementAndGet();
+                                    try {
+                                        Thread.sleep(100L);
+                                    } catch (final InterruptedException ie) {
+                                        Thread.currentThread().interrupt();
+                                    }
+                                    return true;
+                                }
+                            );
+                            return null;
+                        }
+                    )
+                );
+            }
+            start.countDown();
+            for (final Future<Void> future : futures) {
+                future.get(10L, TimeUnit.SECONDS);
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+
+        Assert.assertThat(verifications.get(), Matchers.is(1));
+        Mockito.verify(this.createdRate, Mockito.times(1)).increment();
+    }
+}
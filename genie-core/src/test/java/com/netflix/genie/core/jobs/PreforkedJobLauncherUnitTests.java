@@ -0,0 +1,234 @@
+/*
+ *
+ *  Copyright 2016 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.core.jobs;
+
+import com.netflix.genie.common.exceptions.GenieException;
+import com.netflix.genie.common.exceptions.GenieServerException;
+import com.netflix.genie.test.categories.UnitTest;
+import org.hamcrest.Matchers;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Tests for the PreforkedJobLauncher class. Jobs are run as the current user as sudo may not be available.
+ *
+ * @author agent
+ * @since 3.0.0
+ */
+@Category(UnitTest.class)
+public class PreforkedJobLauncherUnitTests {
+
+    private static final long WAIT_MILLIS = 10000L;
+
+    /**
+     * Temporary folder for the job directory.
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private JobDirectoryLayout layout;
+    private PreforkedJobLauncher launcher;
+
+    /**
+     * Setup for the tests.
+     *
+     * @throws IOException on error
+     */
+    @Before
+    public void setup() throws IOException {
+        this.layout = new JobDirectoryLayout(this.folder.newFolder("job").toPath());
+        Files.createDirectories(this.layout.getLogsDirectory());
+        Files.write(
+            this.layout.getRunScript(),
+            "echo $$ > pid.txt\necho launched\n".getBytes(StandardCharsets.UTF_8)
+        );
+        this.launcher = new PreforkedJobLauncher(false, WAIT_MILLIS);
+    }
+
+    /**
+     * Stop the launcher.
+     */
+    @After
+    public void cleanup() {
+        this.launcher.close();
+    }
+
+    /**
+     * Make sure jobs are started in their directory with output going to the Genie log and the process id of the run
+     * script is returned.
+     *
+     * @throws Exception on error
+     */
+    @Test
+    public void canLaunch() throws Exception {
+        final int pid = this.launcher.launch(null, this.layout);
+
+        final Path pidFile = this.layout.getJobDirectory().resolve("pid.txt");
+        this.waitFor(pidFile);
+        Assert.assertThat(this.read(pidFile), Matchers.is(Integer.toString(pid)));
+
+        final Path genieLog = Paths.get(this.layout.getJobDirectory() + JobConstants.GENIE_LOG_PATH);
+        this.waitFor(genieLog);
+        Assert.assertThat(this.read(genieLog), Matchers.is("launched"));
+    }
+
+    /**
+     * Make sure the helper is reused between jobs and restarted after being stopped.
+     *
+     * @throws Exception on error
+     */
+    @Test
+    public void canLaunchAfterClose() throws Exception {
+        final int first = this.launcher.launch(null, this.layout);
+        final int second = this.launcher.launch(null, this.layout);
+        this.launcher.close();
+        final int third = this.launcher.launch(null, this.layout);
+
+        Assert.assertThat(first, Matchers.greaterThan(0));
+        Assert.assertThat(second, Matchers.not(first));
+        Assert.assertThat(third, Matchers.not(second));
+    }
+
+    /**
+     * Make sure jobs launched at the same time each get the process id of their own run script.
+     *
+     * @throws Exception on error
+     */
+    @Test
+    public void canLaunchConcurrently() throws Exception {
+        final List<JobDirectoryLayout> layouts = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            final JobDirectoryLayout jobLayout = new JobDirectoryLayout(this.folder.newFolder().toPath());
+            Files.createDirectories(jobLayout.getLogsDirectory());
+            Files.copy(this.layout.getRunScript(), jobLayout.getRunScript());
+            layouts.add(jobLayout);
+        }
+
+        final ExecutorService executor = Executors.newFixedThreadPool(layouts.size());
+        try {
+            final List<Future<Integer>> pids = new ArrayList<>();
+            for (final JobDirectoryLayout jobLayout : layouts) {
+                pids.add(executor.submit(() -> this.launcher.launch(null, jobLayout)));
+            }
+            for (int i = 0; i < layouts.size(); i++) {
+                final Path pidFile = layouts.get(i).getJobDirectory().resolve("pid.txt");
+                this.waitFor(pidFile);
+                Assert.assertThat(this.read(pidFile), Matchers.is(Integer.toString(pids.get(i).get())));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Make sure a failed launch is reported and doesn't break later launches.
+     *
+     * @throws GenieException on error
+     */
+    @Test
+    public void canReportFailedLaunch() throws GenieException {
+        try {
+            this.launcher.launch(null, new JobDirectoryLayout(this.layout.getJobDirectory().resolve("missing")));
+            Assert.fail();
+        } catch (final GenieServerException gse) {
+            Assert.assertThat(gse.getMessage(), Matchers.containsString("missing"));
+        }
+        Assert.assertThat(this.launcher.launch(null, this.layout), Matchers.greaterThan(0));
+    }
+
+    /**
+     * Make sure a launch which times out doesn't disturb other launches and that its job is killed if the helper
+     * launches it after all.
+     *
+     * @throws Exception on error
+     */
+    @Test
+    public void canKillJobLaunchedAfterTimeout() throws Exception {
+        // Entering the directory of the slow job takes longer than the launcher waits
+        final PreforkedJobLauncher slowLauncher = new PreforkedJobLauncher(
+            Arrays.asList(
+                "bash",
+                "-c",
+                "cd() { case \"$1\" in *slow*) sleep 2 ;; esac; builtin cd \"$@\"; }\n"
+                    + PreforkedJobLauncher.HELPER_SCRIPT
+            ),
+            500L
+        );
+        try {
+            final JobDirectoryLayout slowLayout = new JobDirectoryLayout(this.folder.newFolder("slow").toPath());
+            Files.createDirectories(slowLayout.getLogsDirectory());
+            Files.write(
+                slowLayout.getRunScript(),
+                "sleep 1\ntouch finished.txt\n".getBytes(StandardCharsets.UTF_8)
+            );
+            try {
+                slowLauncher.launch(null, slowLayout);
+                Assert.fail();
+            } catch (final GenieServerException gse) {
+                Assert.assertThat(gse.getMessage(), Matchers.containsString("Timed out"));
+            }
+
+            // The helper is still the same one so this doesn't fail the slow launch it's still handling
+            Assert.assertThat(slowLauncher.launch(null, this.layout), Matchers.greaterThan(0));
+
+            // Long enough for the slow job to be launched and finish unless it's killed
+            Thread.sleep(4000L);
+            Assert.assertFalse(Files.exists(slowLayout.getJobDirectory().resolve("finished.txt")));
+        } finally {
+            slowLauncher.close();
+        }
+    }
+
+    /**
+     * Make sure values which would break the request protocol are rejected.
+     *
+     * @throws GenieException on error
+     */
+    @Test(expected = GenieServerException.class)
+    public void cantLaunchWithInvalidUser() throws GenieException {
+        this.launcher.launch("bad\tuser", this.layout);
+    }
+
+    private void waitFor(final Path file) throws InterruptedException, IOException {
+        final long deadline = System.currentTimeMillis() + WAIT_MILLIS;
+        while (!(Files.exists(file) && Files.size(file) > 0) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10L);
+        }
+    }
+
+    private String read(final Path file) throws IOException {
+        return new String(Files.readAllBytes(file), StandardCharsets.UTF_8).trim();
+    }
+}
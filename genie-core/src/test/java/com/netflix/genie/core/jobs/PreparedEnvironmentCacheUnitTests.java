@@ -0,0 +1,212 @@
+/*
+ *
+ *  Copyright 2016 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.core.jobs;
+
+import com.netflix.genie.common.exceptions.GenieException;
+import com.netflix.genie.common.exceptions.GenieServerException;
+import com.netflix.genie.test.categories.UnitTest;
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Tests for the PreparedEnvironmentCache class.
+ *
+ * @author agent
+ * @since 3.0.0
+ */
+@Category(UnitTest.class)
+public class PreparedEnvironmentCacheUnitTests {
+
+    private static final String CLUSTER_ID = "cluster1";
+
+    /**
+     * Temporary folder for the cache and job directories.
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path cacheDir;
+    private PreparedEnvironmentCache cache;
+    private AtomicInteger preparations;
+    private PreparedEnvironmentCache.Preparer preparer;
+
+    /**
+     * Setup for the tests.
+     *
+     * @throws IOException on error
+     */
+    @Before
+    public void setup() throws IOException {
+        this.cacheDir = this.folder.newFolder("environments").toPath();
+        this.cache = new PreparedEnvironmentCache(this.cacheDir, 10L, true);
+        this.preparations = new AtomicInteger();
+        this.preparer = root -> {
+            this.preparations.incrementAndGet();
+            final JobDirectoryLayout layout = new JobDirectoryLayout(Paths.get(root));
+            try {
+                Files.write(
+                    layout.getEntityDirectory(AdminResources.CLUSTER, CLUSTER_ID).resolve("setup.sh"),
+                    "export A=1".getBytes(StandardCharsets.UTF_8)
+                );
+                Files.write(
+                    layout.getEntityConfigDirectory(AdminResources.CLUSTER, CLUSTER_ID).resolve("core-site.xml"),
+                    "<configuration/>".getBytes(StandardCharsets.UTF_8)
+                );
+            } catch (final IOException ioe) {
+                throw new GenieServerException(ioe.getMessage());
+            }
+        };
+    }
+
+    /**
+     * Make sure the files are only downloaded once and later jobs link to the same files.
+     *
+     * @throws GenieException on error
+     * @throws IOException    on error
+     */
+    @Test
+    public void canCloneSnapshot() throws GenieException, IOException {
+        final Date updated = new Date();
+        final JobDirectoryLayout job1 = this.createJob("job1");
+        final JobDirectoryLayout job2 = this.createJob("job2");
+
+        this.cache.cloneInto(AdminResources.CLUSTER, CLUSTER_ID, updated, job1, this.preparer);
+        this.cache.cloneInto(AdminResources.CLUSTER, CLUSTER_ID, updated, job2, this.preparer);
+        Assert.assertThat(this.preparations.get(), Matchers.is(1));
+
+        final Path config1 = job1.getEntityConfigDirectory(AdminResources.CLUSTER, CLUSTER_ID).resolve("core-site.xml");
+        final Path config2 = job2.getEntityConfigDirectory(AdminResources.CLUSTER, CLUSTER_ID).resolve("core-site.xml");
+        Assert.assertThat(
+            new String(Files.readAllBytes(config2), StandardCharsets.UTF_8),
+            Matchers.is("<configuration/>")
+        );
+        Assert.assertTrue(Files.isSameFile(config1, config2));
+        Assert.assertThat(
+            Files.getPosixFilePermissions(config2),
+            Matchers.not(Matchers.hasItem(PosixFilePermission.OWNER_WRITE))
+        );
+        Assert.assertTrue(
+            Files.exists(job2.getEntityDirectory(AdminResources.CLUSTER, CLUSTER_ID).resolve("setup.sh"))
+        );
+    }
+
+    /**
+     * Make sure jobs get their own copies of the files when linking is disabled.
+     *
+     * @throws GenieException on error
+     * @throws IOException    on error
+     */
+    @Test
+    public void canCloneSnapshotWithoutLinks() throws GenieException, IOException {
+        final PreparedEnvironmentCache copyingCache = new PreparedEnvironmentCache(this.cacheDir, 10L, false);
+        final Date updated = new Date();
+        final JobDirectoryLayout job1 = this.createJob("job1");
+        final JobDirectoryLayout job2 = this.createJob("job2");
+
+        copyingCache.cloneInto(AdminResources.CLUSTER, CLUSTER_ID, updated, job1, this.preparer);
+        copyingCache.cloneInto(AdminResources.CLUSTER, CLUSTER_ID, updated, job2, this.preparer);
+        Assert.assertThat(this.preparations.get(), Matchers.is(1));
+
+        final Path config1 = job1.getEntityConfigDirectory(AdminResources.CLUSTER, CLUSTER_ID).resolve("core-site.xml");
+        final Path config2 = job2.getEntityConfigDirectory(AdminResources.CLUSTER, CLUSTER_ID).resolve("core-site.xml");
+        Assert.assertThat(
+            new String(Files.readAllBytes(config2), StandardCharsets.UTF_8),
+            Matchers.is("<configuration/>")
+        );
+        Assert.assertFalse(Files.isSameFile(config1, config2));
+    }
+
+    /**
+     * Make sure a new snapshot is prepared once the entity is updated.
+     *
+     * @throws GenieException on error
+     * @throws IOException    on error
+     */
+    @Test
+    public void canRefreshUpdatedEntity() throws GenieException, IOException {
+        this.cache.cloneInto(AdminResources.CLUSTER, CLUSTER_ID, new Date(1L), this.createJob("job1"), this.preparer);
+        this.cache.cloneInto(AdminResources.CLUSTER, CLUSTER_ID, new Date(2L), this.createJob("job2"), this.preparer);
+        Assert.assertThat(this.preparations.get(), Matchers.is(2));
+    }
+
+    /**
+     * Make sure a failure to prepare the files is reported and the next job tries again.
+     *
+     * @throws GenieException on error
+     * @throws IOException    on error
+     */
+    @Test
+    public void canRetryFailedPreparation() throws GenieException, IOException {
+        final Date updated = new Date();
+        try {
+            this.cache.cloneInto(
+                AdminResources.CLUSTER,
+                CLUSTER_ID,
+                updated,
+                this.createJob("job1"),
+                root -> {
+                    throw new GenieServerException("download failed");
+                }
+            );
+            Assert.fail("Expected the failed download to be reported");
+        } catch (final GenieServerException gse) {
+            Assert.assertThat(gse.getMessage(), Matchers.is("download failed"));
+        }
+        // Nothing half downloaded is left behind
+        try (final Stream<Path> leftovers = Files.list(this.cacheDir)) {
+            Assert.assertThat(leftovers.count(), Matchers.is(0L));
+        }
+
+        this.cache.cloneInto(AdminResources.CLUSTER, CLUSTER_ID, updated, this.createJob("job2"), this.preparer);
+        Assert.assertThat(this.preparations.get(), Matchers.is(1));
+    }
+
+    /**
+     * Make sure snapshots left over from a previous run are removed.
+     *
+     * @throws IOException on error
+     */
+    @Test
+    public void canCleanUpLeftovers() throws IOException {
+        Files.createDirectories(this.cacheDir.resolve("leftover/genie"));
+        new PreparedEnvironmentCache(this.cacheDir, 10L, true);
+        Assert.assertFalse(Files.exists(this.cacheDir.resolve("leftover")));
+    }
+
+    private JobDirectoryLayout createJob(final String id) throws IOException {
+        final JobDirectoryLayout layout
+            = new JobDirectoryLayout(this.folder.newFolder(id).toPath()).addEntity(AdminResources.CLUSTER, CLUSTER_ID);
+        layout.create();
+        return layout;
+    }
+}
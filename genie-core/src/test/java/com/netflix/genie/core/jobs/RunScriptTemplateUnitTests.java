@@ -0,0 +1,176 @@
+/*
+ *
+ *  Copyright 2016 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.core.jobs;
+
+import com.netflix.genie.test.categories.UnitTest;
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Tests for the RunScriptTemplate class.
+ *
+ * @author agent
+ * @since 3.0.0
+ */
+@Category(UnitTest.class)
+public class RunScriptTemplateUnitTests {
+
+    private static final String NEW_LINE = System.lineSeparator();
+
+    /**
+     * Temporary folder for the generated scripts.
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Make sure every slot of a template is filled from the model in order.
+     */
+    @Test
+    public void canRender() {
+        final RunScriptTemplate template
+            = new RunScriptTemplate("#!/bin/bash\n{{environment}}{{setupFiles}}{{command}}\n");
+        final RunScript runScript = new RunScript();
+        runScript.addEnvironmentVariable("A", "1");
+        runScript.addEnvironmentVariable("B", "${A}/b");
+        runScript.addSetupFile("Cluster setup", "/tmp/setup.sh");
+        runScript.setCommandLine("hive -f query.q");
+
+        Assert.assertThat(
+            new String(template.render(runScript), StandardCharsets.UTF_8),
+            Matchers.is(
+                "#!/bin/bash\n"
+                    + "export A=1" + NEW_LINE + NEW_LINE
+                    + "export B=${A}/b" + NEW_LINE + NEW_LINE
+                    + "# Cluster setup" + NEW_LINE
+                    + "source /tmp/setup.sh" + NEW_LINE + NEW_LINE
+                    + "hive -f query.q\n"
+            )
+        );
+    }
+
+    /**
+     * Make sure the kill handler is only rendered when a task asked for it.
+     */
+    @Test
+    public void canRenderKillHandler() {
+        final RunScript runScript = new RunScript();
+        final String withoutHandler = new String(RunScriptTemplate.DEFAULT.render(runScript), StandardCharsets.UTF_8);
+        Assert.assertThat(withoutHandler, Matchers.not(Matchers.containsString(JobConstants.JOB_KILL_HANDLER_LOGIC)));
+
+        runScript.setKillHandlerEnabled(true);
+        final String withHandler = new String(RunScriptTemplate.DEFAULT.render(runScript), StandardCharsets.UTF_8);
+        Assert.assertThat(withHandler, Matchers.startsWith(JobConstants.JOB_KILL_HANDLER_LOGIC + NEW_LINE));
+    }
+
+    /**
+     * Make sure the default template runs the command in the background and records its exit code.
+     */
+    @Test
+    public void canRenderDefaultTemplate() {
+        final RunScript runScript = new RunScript();
+        runScript.addSetupFile("Sourcing setup file specified in job request", "${GENIE_JOB_DIR}/setup.sh");
+        runScript.setCommandLine("hive -f query.q");
+        final String script = new String(RunScriptTemplate.DEFAULT.render(runScript), StandardCharsets.UTF_8);
+
+        Assert.assertThat(
+            script,
+            Matchers.containsString(
+                "source ${GENIE_JOB_DIR}/setup.sh" + NEW_LINE
+                    + NEW_LINE
+                    + "# Dump the environment to a env.log file" + NEW_LINE
+            )
+        );
+        Assert.assertThat(script, Matchers.containsString("hive -f query.q > stdout 2> stderr &" + NEW_LINE));
+        Assert.assertThat(
+            script,
+            Matchers.endsWith(
+                JobConstants.GENIE_DONE_FILE_CONTENT_PREFIX + JobConstants.GENIE_DONE_FILE_NAME + NEW_LINE
+            )
+        );
+    }
+
+    /**
+     * Make sure the script is written to a file replacing anything already there.
+     *
+     * @throws IOException on error
+     */
+    @Test
+    public void canWriteFile() throws IOException {
+        final Path file = this.folder.newFile(JobConstants.GENIE_JOB_LAUNCHER_SCRIPT).toPath();
+        Files.write(file, "some old contents which are longer than the new script".getBytes(StandardCharsets.UTF_8));
+        final RunScript runScript = new RunScript();
+        runScript.setCommandLine("ls");
+
+        new RunScriptTemplate("{{command}}").write(runScript, file);
+        Assert.assertThat(new String(Files.readAllBytes(file), StandardCharsets.UTF_8), Matchers.is("ls"));
+    }
+
+    /**
+     * Make sure the whole script is handed to the channel in a single write.
+     *
+     * @throws IOException on error
+     */
+    @Test
+    public void canWriteChannelOnce() throws IOException {
+        final WritableByteChannel channel = Mockito.mock(WritableByteChannel.class);
+        Mockito.when(channel.write(Mockito.any(ByteBuffer.class))).thenAnswer(
+            invocation -> {
+                final ByteBuffer buffer = (ByteBuffer) invocation.getArguments()[0];
+                final int remaining = buffer.remaining();
+                buffer.position(buffer.limit());
+                return remaining;
+            }
+        );
+        final RunScript runScript = new RunScript();
+        runScript.setKillHandlerEnabled(true);
+        runScript.setCommandLine("ls");
+
+        RunScriptTemplate.DEFAULT.write(runScript, channel);
+        Mockito.verify(channel, Mockito.times(1)).write(Mockito.any(ByteBuffer.class));
+        Mockito.verify(channel, Mockito.never()).close();
+    }
+
+    /**
+     * Make sure a template with an unknown slot is rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void cantCompileUnknownSlot() {
+        new RunScriptTemplate("{{killHandler}}{{unknown}}");
+    }
+
+    /**
+     * Make sure a template with an unterminated slot is rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void cantCompileUnterminatedSlot() {
+        new RunScriptTemplate("echo {{command");
+    }
+}
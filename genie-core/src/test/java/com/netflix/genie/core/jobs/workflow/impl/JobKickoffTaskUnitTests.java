@@ -19,7 +19,10 @@ package com.netflix.genie.core.jobs.workflow.impl;
 
 import com.netflix.genie.common.exceptions.GenieException;
 import com.netflix.genie.common.exceptions.GenieServerException;
+import com.netflix.genie.core.jobs.KnownUserCache;
 import com.netflix.genie.test.categories.UnitTest;
+import com.netflix.spectator.api.Counter;
+import com.netflix.spectator.api.Registry;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.exec.CommandLine;
 import org.apache.commons.exec.Executor;
@@ -177,4 +180,29 @@ public class JobKickoffTaskUnitTests {
             group
         );
     }
+
+    /**
+     * Test the create user method only checks for a user once when a cache of known users is set.
+     *
+     * @throws IOException If there is any problem.
+     * @throws GenieException If there is any problem.
+     */
+    @Test
+    public void testCreateUserMethodUsesKnownUserCache() throws IOException, GenieException {
+        final Registry registry = Mockito.mock(Registry.class);
+        Mockito.when(registry.counter(Mockito.anyString())).thenReturn(Mockito.mock(Counter.class));
+        final JobKickoffTask task = new JobKickoffTask(
+            false,
+            true,
+            this.executor,
+            "localhost",
+            null,
+            new KnownUserCache(registry, 10L, 3600L)
+        );
+
+        task.createUser("user", "group");
+        task.createUser("user", "group");
+
+        Mockito.verify(this.executor, Mockito.times(1)).execute(Mockito.any());
+    }
 }
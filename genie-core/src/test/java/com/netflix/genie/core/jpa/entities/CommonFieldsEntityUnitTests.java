@@ -170,6 +170,27 @@ public class CommonFieldsEntityUnitTests extends EntityTestsBase {
         Assert.assertThat(this.c.getTags(), Matchers.empty());
     }
 
+    /**
+     * Make sure the parsed tags are cached, sorted and can't be modified.
+     */
+    @Test
+    public void tagsAreCachedUntilChanged() {
+        this.c.setTags(Sets.newHashSet("second", "Third", "first"));
+        final Set<String> tags = this.c.getTags();
+        Assert.assertThat(tags, Matchers.contains("first", "second", "Third"));
+        Assert.assertSame(tags, this.c.getTags());
+        try {
+            tags.add("fourth");
+            Assert.fail();
+        } catch (final UnsupportedOperationException uoe) {
+            Assert.assertThat(this.c.getTags().size(), Matchers.is(3));
+        }
+
+        this.c.setTags(Sets.newHashSet("fourth"));
+        Assert.assertThat(this.c.getTags(), Matchers.contains("fourth"));
+        Assert.assertNotSame(tags, this.c.getTags());
+    }
+
     /**
      * Make sure we generate the proper final tags.
      *
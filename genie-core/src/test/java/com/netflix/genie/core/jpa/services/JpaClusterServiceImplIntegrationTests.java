@@ -30,6 +30,8 @@ import com.netflix.genie.core.services.ClusterService;
 import com.netflix.genie.core.services.CommandService;
 import com.netflix.genie.test.categories.IntegrationTest;
 import org.hamcrest.Matchers;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.Assert;
 import org.junit.Ignore;
 import org.junit.Test;
@@ -41,6 +43,7 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.mapping.PropertyReferenceException;
 
+import javax.persistence.EntityManagerFactory;
 import javax.validation.ConstraintViolationException;
 import java.io.IOException;
 import java.net.HttpURLConnection;
@@ -88,6 +91,9 @@ public class JpaClusterServiceImplIntegrationTests extends DBUnitTestBase {
     @Autowired
     private CommandService commandService;
 
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
     /**
      * Test the get cluster method.
      *
@@ -1016,4 +1022,42 @@ public class JpaClusterServiceImplIntegrationTests extends DBUnitTestBase {
     public void testRemoveTagForClusterNoId() throws GenieException {
         this.service.removeTagForCluster(null, "something");
     }
+
+    /**
+     * Make sure the number of statements executed to list clusters doesn't grow with the size of the page since the
+     * collections of all clusters in the page are batch fetched.
+     *
+     * @throws GenieException For any problem
+     */
+    @Test
+    public void testGetClustersQueryCountIsIndependentOfPageSize() throws GenieException {
+        for (int i = 0; i < 10; i++) {
+            final Set<String> configs = new HashSet<>();
+            configs.add(UUID.randomUUID().toString());
+            configs.add(UUID.randomUUID().toString());
+            this.service.createCluster(
+                new Cluster.Builder(CLUSTER_1_NAME, CLUSTER_1_USER, CLUSTER_1_VERSION, ClusterStatus.UP)
+                    .withConfigs(configs)
+                    .build()
+            );
+        }
+
+        final Statistics statistics = this.entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+
+        statistics.clear();
+        final Page<Cluster> small = this.service
+            .getClusters(null, null, null, null, null, new PageRequest(0, 1, Sort.Direction.DESC, "updated"));
+        final long smallPageStatements = statistics.getPrepareStatementCount();
+        Assert.assertThat(small.getNumberOfElements(), Matchers.is(1));
+
+        statistics.clear();
+        final Page<Cluster> large = this.service
+            .getClusters(null, null, null, null, null, new PageRequest(0, 10, Sort.Direction.DESC, "updated"));
+        final long largePageStatements = statistics.getPrepareStatementCount();
+        Assert.assertThat(large.getNumberOfElements(), Matchers.is(10));
+        large.getContent().forEach(cluster -> Assert.assertFalse(cluster.getConfigs().isEmpty()));
+
+        Assert.assertThat(largePageStatements, Matchers.is(smallPageStatements));
+    }
 }
@@ -18,11 +18,21 @@
 package com.netflix.genie.core.jpa.services;
 
 import com.google.common.collect.Lists;
+import com.netflix.genie.common.dto.Application;
+import com.netflix.genie.common.dto.ApplicationStatus;
+import com.netflix.genie.common.dto.Cluster;
+import com.netflix.genie.common.dto.ClusterStatus;
+import com.netflix.genie.common.dto.Command;
+import com.netflix.genie.common.dto.CommandStatus;
 import com.netflix.genie.common.dto.Job;
 import com.netflix.genie.common.exceptions.GenieException;
 import com.netflix.genie.common.exceptions.GenieNotFoundException;
 import com.netflix.genie.core.jpa.entities.JobEntity;
 import com.netflix.genie.core.jpa.entities.JobExecutionEntity;
+import com.netflix.genie.core.jpa.projections.ApplicationProjection;
+import com.netflix.genie.core.jpa.projections.ClusterProjection;
+import com.netflix.genie.core.jpa.projections.CommandProjection;
+import com.netflix.genie.core.jpa.projections.DependencyProjection;
 import com.netflix.genie.core.jpa.repositories.JpaJobExecutionRepository;
 import com.netflix.genie.core.jpa.repositories.JpaJobRepository;
 import com.netflix.genie.core.jpa.repositories.JpaJobRequestRepository;
@@ -34,6 +44,8 @@ import org.junit.Test;
 import org.junit.experimental.categories.Category;
 import org.mockito.Mockito;
 
+import java.util.Date;
+import java.util.List;
 import java.util.UUID;
 
 /**
@@ -123,7 +135,8 @@ public class JpaJobSearchServiceImplUnitTests {
     @Test(expected = GenieNotFoundException.class)
     public void cantGetJobClusterIfJobDoesNotExist() throws GenieException {
         final String id = UUID.randomUUID().toString();
-        Mockito.when(this.jobRepository.findOne(id)).thenReturn(null);
+        Mockito.when(this.jobRepository.findClusterByJobId(id)).thenReturn(Lists.newArrayList());
+        Mockito.when(this.jobRepository.exists(id)).thenReturn(false);
         this.service.getJobCluster(id);
     }
 
@@ -135,12 +148,45 @@ public class JpaJobSearchServiceImplUnitTests {
     @Test(expected = GenieNotFoundException.class)
     public void cantGetJobClusterIfClusterDoesNotExist() throws GenieException {
         final String id = UUID.randomUUID().toString();
-        final JobEntity entity = Mockito.mock(JobEntity.class);
-        Mockito.when(entity.getCluster()).thenReturn(null);
-        Mockito.when(this.jobRepository.findOne(id)).thenReturn(entity);
+        Mockito.when(this.jobRepository.findClusterByJobId(id)).thenReturn(Lists.newArrayList());
+        Mockito.when(this.jobRepository.exists(id)).thenReturn(true);
         this.service.getJobCluster(id);
     }
 
+    /**
+     * Make sure the cluster rows are collapsed into a single cluster with all the configs.
+     *
+     * @throws GenieException For any problem
+     */
+    @Test
+    public void canGetJobCluster() throws GenieException {
+        final String id = UUID.randomUUID().toString();
+        final String clusterId = UUID.randomUUID().toString();
+        final Date date = new Date();
+        Mockito.when(this.jobRepository.findClusterByJobId(id)).thenReturn(
+            Lists.newArrayList(
+                new ClusterProjection(
+                    clusterId, "h2prod", "tgianos", "2.7.1", null, "adhoc|prod", date, date, null, ClusterStatus.UP,
+                    "s3://configs/core-site.xml"
+                ),
+                new ClusterProjection(
+                    clusterId, "h2prod", "tgianos", "2.7.1", null, "adhoc|prod", date, date, null, ClusterStatus.UP,
+                    "s3://configs/yarn-site.xml"
+                )
+            )
+        );
+
+        final Cluster cluster = this.service.getJobCluster(id);
+        Assert.assertThat(cluster.getId(), Matchers.is(clusterId));
+        Assert.assertThat(cluster.getStatus(), Matchers.is(ClusterStatus.UP));
+        Assert.assertThat(cluster.getTags(), Matchers.containsInAnyOrder("adhoc", "prod"));
+        Assert.assertThat(
+            cluster.getConfigs(),
+            Matchers.containsInAnyOrder("s3://configs/core-site.xml", "s3://configs/yarn-site.xml")
+        );
+        Mockito.verify(this.jobRepository, Mockito.never()).findOne(id);
+    }
+
     /**
      * Test the getJobCommand method.
      *
@@ -149,7 +195,8 @@ public class JpaJobSearchServiceImplUnitTests {
     @Test(expected = GenieNotFoundException.class)
     public void cantGetJobCommandIfJobDoesNotExist() throws GenieException {
         final String id = UUID.randomUUID().toString();
-        Mockito.when(this.jobRepository.findOne(id)).thenReturn(null);
+        Mockito.when(this.jobRepository.findCommandByJobId(id)).thenReturn(Lists.newArrayList());
+        Mockito.when(this.jobRepository.exists(id)).thenReturn(false);
         this.service.getJobCommand(id);
     }
 
@@ -161,12 +208,38 @@ public class JpaJobSearchServiceImplUnitTests {
     @Test(expected = GenieNotFoundException.class)
     public void cantGetJobCommandIfCommandDoesNotExist() throws GenieException {
         final String id = UUID.randomUUID().toString();
-        final JobEntity entity = Mockito.mock(JobEntity.class);
-        Mockito.when(entity.getCommand()).thenReturn(null);
-        Mockito.when(this.jobRepository.findOne(id)).thenReturn(entity);
+        Mockito.when(this.jobRepository.findCommandByJobId(id)).thenReturn(Lists.newArrayList());
+        Mockito.when(this.jobRepository.exists(id)).thenReturn(true);
         this.service.getJobCommand(id);
     }
 
+    /**
+     * Make sure a command without configs is returned with an empty set of configs.
+     *
+     * @throws GenieException For any problem
+     */
+    @Test
+    public void canGetJobCommandWithoutConfigs() throws GenieException {
+        final String id = UUID.randomUUID().toString();
+        final String commandId = UUID.randomUUID().toString();
+        final Date date = new Date();
+        Mockito.when(this.jobRepository.findCommandByJobId(id)).thenReturn(
+            Lists.newArrayList(
+                new CommandProjection(
+                    commandId, "hive", "tgianos", "1.2.1", null, null, date, date, null, CommandStatus.ACTIVE,
+                    "/apps/hive/bin/hive", 5000L, null
+                )
+            )
+        );
+
+        final Command command = this.service.getJobCommand(id);
+        Assert.assertThat(command.getId(), Matchers.is(commandId));
+        Assert.assertThat(command.getExecutable(), Matchers.is("/apps/hive/bin/hive"));
+        Assert.assertThat(command.getCheckDelay(), Matchers.is(5000L));
+        Assert.assertTrue(command.getConfigs().isEmpty());
+        Assert.assertTrue(command.getTags().isEmpty());
+    }
+
     /**
      * Test the getJobApplications method.
      *
@@ -175,7 +248,8 @@ public class JpaJobSearchServiceImplUnitTests {
     @Test(expected = GenieNotFoundException.class)
     public void cantGetJobApplicationsIfJobDoesNotExist() throws GenieException {
         final String id = UUID.randomUUID().toString();
-        Mockito.when(this.jobRepository.findOne(id)).thenReturn(null);
+        Mockito.when(this.jobRepository.findApplicationsByJobId(id)).thenReturn(Lists.newArrayList());
+        Mockito.when(this.jobRepository.exists(id)).thenReturn(false);
         this.service.getJobApplications(id);
     }
 
@@ -187,24 +261,57 @@ public class JpaJobSearchServiceImplUnitTests {
     @Test(expected = GenieNotFoundException.class)
     public void cantGetJobApplicationsIfApplicationsDoNotExist() throws GenieException {
         final String id = UUID.randomUUID().toString();
-        final JobEntity entity = Mockito.mock(JobEntity.class);
-        Mockito.when(entity.getApplications()).thenReturn(null);
-        Mockito.when(this.jobRepository.findOne(id)).thenReturn(entity);
+        Mockito.when(this.jobRepository.findApplicationsByJobId(id)).thenReturn(Lists.newArrayList());
+        Mockito.when(this.jobRepository.exists(id)).thenReturn(true);
         this.service.getJobApplications(id);
     }
 
     /**
-     * Test the getJobApplications method.
+     * Make sure the application rows are grouped per application in order with their configs and dependencies.
      *
      * @throws GenieException For any problem
      */
-    @Test(expected = GenieNotFoundException.class)
-    public void cantGetJobApplicationsIfApplicationsAreEmpty() throws GenieException {
+    @Test
+    public void canGetJobApplications() throws GenieException {
         final String id = UUID.randomUUID().toString();
-        final JobEntity entity = Mockito.mock(JobEntity.class);
-        Mockito.when(entity.getApplications()).thenReturn(Lists.newArrayList());
-        Mockito.when(this.jobRepository.findOne(id)).thenReturn(entity);
-        this.service.getJobApplications(id);
+        final Date date = new Date();
+        Mockito.when(this.jobRepository.findApplicationsByJobId(id)).thenReturn(
+            Lists.newArrayList(
+                new ApplicationProjection(
+                    "app2", "spark", "tgianos", "1.6.1", null, null, date, date, null, ApplicationStatus.ACTIVE,
+                    "spark", "s3://spark/spark-env.sh"
+                ),
+                new ApplicationProjection(
+                    "app2", "spark", "tgianos", "1.6.1", null, null, date, date, null, ApplicationStatus.ACTIVE,
+                    "spark", "s3://spark/spark-defaults.conf"
+                ),
+                new ApplicationProjection(
+                    "app1", "hadoop", "tgianos", "2.7.1", null, null, date, date, null, ApplicationStatus.ACTIVE,
+                    "hadoop", null
+                )
+            )
+        );
+        Mockito.when(this.jobRepository.findApplicationDependenciesByJobId(id)).thenReturn(
+            Lists.newArrayList(
+                new DependencyProjection("app2", "s3://spark/spark.tar.gz"),
+                new DependencyProjection("app2", "s3://spark/spark-extras.jar")
+            )
+        );
+
+        final List<Application> applications = this.service.getJobApplications(id);
+        Assert.assertThat(applications.size(), Matchers.is(2));
+        Assert.assertThat(applications.get(0).getId(), Matchers.is("app2"));
+        Assert.assertThat(
+            applications.get(0).getConfigs(),
+            Matchers.containsInAnyOrder("s3://spark/spark-env.sh", "s3://spark/spark-defaults.conf")
+        );
+        Assert.assertThat(
+            applications.get(0).getDependencies(),
+            Matchers.containsInAnyOrder("s3://spark/spark.tar.gz", "s3://spark/spark-extras.jar")
+        );
+        Assert.assertThat(applications.get(1).getId(), Matchers.is("app1"));
+        Assert.assertTrue(applications.get(1).getConfigs().isEmpty());
+        Assert.assertTrue(applications.get(1).getDependencies().isEmpty());
     }
 
     /**
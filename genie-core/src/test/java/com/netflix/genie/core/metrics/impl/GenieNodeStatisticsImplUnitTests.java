@@ -194,6 +194,21 @@ public class GenieNodeStatisticsImplUnitTests {
         Assert.assertEquals(count, this.stats.getGenieForwardedJobs().get());
     }
 
+    /**
+     * Test the counter for forwarded kill requests.
+     */
+    @Test
+    public void testGenieForwardedKillsCounter() {
+        Assert.assertEquals(0L, this.stats.getGenieForwardedKills().get());
+        this.stats.incrGenieForwardedKills();
+        Assert.assertEquals(1L, this.stats.getGenieForwardedKills().get());
+        Assert.assertEquals(0L, this.stats.getGenieForwardedJobs().get());
+
+        final long count = 385L;
+        this.stats.setGenieForwardedKills(new AtomicLong(count));
+        Assert.assertEquals(count, this.stats.getGenieForwardedKills().get());
+    }
+
     /**
      * Test the counter for Genie running jobs 0 to 15 minutes.
      */
@@ -0,0 +1,113 @@
+/*
+ *
+ *  Copyright 2016 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.core.metrics.impl;
+
+import com.netflix.genie.common.dto.JobExecution;
+import com.netflix.genie.core.events.JobFinishedEvent;
+import com.netflix.genie.core.events.JobStartedEvent;
+import com.netflix.genie.test.categories.UnitTest;
+import com.netflix.spectator.api.DefaultRegistry;
+import com.netflix.spectator.api.ManualClock;
+import com.netflix.spectator.api.Registry;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit tests for the SpectatorGenieNodeStatisticsImpl class.
+ *
+ * @author agent
+ * @since 3.0.0
+ */
+@Category(UnitTest.class)
+public class SpectatorGenieNodeStatisticsImplUnitTests {
+
+    private ManualClock clock;
+    private Registry registry;
+    private SpectatorGenieNodeStatisticsImpl stats;
+
+    /**
+     * Setup the tests.
+     */
+    @Before
+    public void setup() {
+        this.clock = new ManualClock();
+        this.registry = new DefaultRegistry(this.clock);
+        this.stats = new SpectatorGenieNodeStatisticsImpl(this.registry);
+    }
+
+    /**
+     * Make sure the counters are published through the registry.
+     */
+    @Test
+    public void canCountThroughRegistry() {
+        this.stats.incrGenie2xxCount();
+        this.stats.incrGenie2xxCount();
+        this.stats.incrGenie5xxCount();
+        this.stats.incrGenieJobSubmissions();
+        this.stats.incrFailedEmailCount();
+        this.stats.incrGenieForwardedKills();
+
+        Assert.assertEquals(2L, this.stats.getGenie2xxCount().longValue());
+        Assert.assertEquals(0L, this.stats.getGenie4xxCount().longValue());
+        Assert.assertEquals(1L, this.stats.getGenie5xxCount().longValue());
+        Assert.assertEquals(
+            2L,
+            this.registry.counter(this.registry.createId("genie.requests.rate").withTag("status", "2xx")).count()
+        );
+        Assert.assertEquals(1L, this.registry.counter("genie.jobs.submit.rate").count());
+        Assert.assertEquals(1L, this.registry.counter("genie.notifications.email.failure.rate").count());
+        Assert.assertEquals(0L, this.stats.getSuccessfulEmailSentCount().longValue());
+        Assert.assertEquals(1L, this.registry.counter("genie.jobs.kill.forwarded.rate").count());
+        Assert.assertEquals(0L, this.stats.getGenieForwardedJobs().longValue());
+    }
+
+    /**
+     * Make sure the running jobs are bucketed by how long they've been running.
+     */
+    @Test
+    public void canTrackRunningJobs() {
+        this.stats.onJobStarted(new JobStartedEvent(this.getJobExecution("job1"), this));
+        this.clock.setWallTime(TimeUnit.HOURS.toMillis(1L));
+        this.stats.onJobStarted(new JobStartedEvent(this.getJobExecution("job2"), this));
+        this.stats.onJobStarted(new JobStartedEvent(this.getJobExecution("job3"), this));
+        this.clock.setWallTime(TimeUnit.HOURS.toMillis(3L));
+        this.stats.onJobStarted(new JobStartedEvent(this.getJobExecution("job4"), this));
+
+        Assert.assertEquals(4, this.stats.getGenieRunningJobs().intValue());
+        Assert.assertEquals(1, this.stats.getGenieRunningJobs0To15m().intValue());
+        Assert.assertEquals(0, this.stats.getGenieRunningJobs15mTo2h().intValue());
+        Assert.assertEquals(3, this.stats.getGenieRunningJobs2hTo8h().intValue());
+        Assert.assertEquals(0, this.stats.getGenieRunningJobs8hPlus().intValue());
+
+        this.stats.onJobFinished(new JobFinishedEvent(this.getJobExecution("job1"), this));
+        this.clock.setWallTime(TimeUnit.HOURS.toMillis(9L));
+
+        Assert.assertEquals(3, this.stats.getGenieRunningJobs().intValue());
+        Assert.assertEquals(1, this.stats.getGenieRunningJobs2hTo8h().intValue());
+        Assert.assertEquals(2, this.stats.getGenieRunningJobs8hPlus().intValue());
+    }
+
+    private JobExecution getJobExecution(final String id) {
+        return new JobExecution.Builder("localhost", 1, 5000L, new Date()).withId(id).build();
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ *
+ *  Copyright 2016 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.core.services;
+
+import com.google.common.io.ByteStreams;
+import com.netflix.genie.common.exceptions.GenieException;
+import com.netflix.genie.common.exceptions.GenieServerException;
+import com.netflix.genie.test.categories.UnitTest;
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Unit tests for the default methods of the FileTransfer interface.
+ *
+ * @author agent
+ * @since 3.0.0
+ */
+@Category(UnitTest.class)
+public class FileTransferUnitTests {
+
+    private static final byte[] CONTENT = "0123456789".getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * Temporary folder to hold the remote and local files.
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path remote;
+    private FileTransfer fileTransfer;
+
+    /**
+     * Setup for the tests.
+     *
+     * @throws IOException on error
+     */
+    @Before
+    public void setup() throws IOException {
+        this.remote = this.folder.newFile("remote").toPath();
+        Files.write(this.remote, CONTENT);
+        // Only implements the methods every implementation has to
+        this.fileTransfer = new FileTransfer() {
+            @Override
+            public boolean isValid(final String fileName) {
+                return true;
+            }
+
+            @Override
+            public void getFile(final String srcRemotePath, final String dstLocalPath) throws GenieException {
+                this.copy(srcRemotePath, dstLocalPath);
+            }
+
+            @Override
+            public void putFile(final String srcLocalPath, final String dstRemotePath) throws GenieException {
+                this.copy(srcLocalPath, dstRemotePath);
+            }
+
+            private void copy(final String source, final String destination) throws GenieException {
+                try {
+                    Files.copy(Paths.get(source), Paths.get(destination), StandardCopyOption.REPLACE_EXISTING);
+                } catch (final IOException ioe) {
+                    throw new GenieServerException(ioe);
+                }
+            }
+        };
+    }
+
+    /**
+     * Make sure implementations are only routed to by isValid unless they say otherwise.
+     */
+    @Test
+    public void hasNoSchemesByDefault() {
+        Assert.assertThat(this.fileTransfer.getSchemes(), Matchers.empty());
+    }
+
+    /**
+     * Make sure the file is always copied by default as versions can't be told apart.
+     *
+     * @throws GenieException on error
+     * @throws IOException    on error
+     */
+    @Test
+    public void canGetFileIfModified() throws GenieException, IOException {
+        final Path local = this.folder.getRoot().toPath().resolve("local");
+        final FileMetadata metadata
+            = this.fileTransfer.getFileIfModified(this.remote.toString(), local.toString(), "etag");
+        Assert.assertThat(Files.readAllBytes(local), Matchers.is(CONTENT));
+        Assert.assertThat(metadata.getSize(), Matchers.is((long) CONTENT.length));
+        Assert.assertNull(metadata.getETag());
+    }
+
+    /**
+     * Make sure the size and metadata come from a download which is deleted afterwards.
+     *
+     * @throws GenieException on error
+     */
+    @Test
+    public void canGetFileMetadata() throws GenieException {
+        Assert.assertThat(this.fileTransfer.getFileSize(this.remote.toString()), Matchers.is((long) CONTENT.length));
+        Assert.assertThat(
+            this.fileTransfer.getFileMetadata(this.remote.toString()).getSize(),
+            Matchers.is((long) CONTENT.length)
+        );
+    }
+
+    /**
+     * Make sure files can be read as streams.
+     *
+     * @throws GenieException on error
+     * @throws IOException    on error
+     */
+    @Test
+    public void canGetFileStream() throws GenieException, IOException {
+        try (final InputStream stream = this.fileTransfer.getFileStream(this.remote.toString())) {
+            Assert.assertThat(ByteStreams.toByteArray(stream), Matchers.is(CONTENT));
+        }
+    }
+
+    /**
+     * Make sure ranged reads aren't emulated by downloading the whole file for each range.
+     *
+     * @throws GenieException on error
+     */
+    @Test(expected = UnsupportedOperationException.class)
+    public void cantGetFileRangeByDefault() throws GenieException {
+        Assert.assertFalse(this.fileTransfer.isRangeSupported());
+        this.fileTransfer.getFileRange(this.remote.toString(), 2L, 3L);
+    }
+
+    /**
+     * Make sure a channel is put through a temporary file.
+     *
+     * @throws GenieException on error
+     * @throws IOException    on error
+     */
+    @Test
+    public void canPutFileFromChannel() throws GenieException, IOException {
+        final Path destination = this.folder.getRoot().toPath().resolve("uploaded");
+        this.fileTransfer.putFile(Channels.newChannel(new ByteArrayInputStream(CONTENT)), destination.toString());
+        Assert.assertThat(Files.readAllBytes(destination), Matchers.is(CONTENT));
+    }
+}
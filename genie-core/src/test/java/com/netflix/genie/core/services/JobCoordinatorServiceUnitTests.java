@@ -21,6 +21,7 @@ import com.netflix.genie.common.dto.Job;
 import com.netflix.genie.common.dto.JobRequest;
 import com.netflix.genie.common.dto.JobStatus;
 import com.netflix.genie.common.exceptions.GenieException;
+import com.netflix.genie.core.jobs.JobArchiveFormat;
 import com.netflix.genie.core.jobs.JobConstants;
 import com.netflix.genie.test.categories.UnitTest;
 import org.junit.Assert;
@@ -67,7 +68,8 @@ public class JobCoordinatorServiceUnitTests {
             this.jobPersistenceService,
             this.jobSubmitterService,
             this.jobKillService,
-            BASE_ARCHIVE_LOCATION
+            BASE_ARCHIVE_LOCATION,
+            JobArchiveFormat.TAR_GZ
         );
     }
 
@@ -159,6 +161,41 @@ public class JobCoordinatorServiceUnitTests {
 
     }
 
+    /**
+     * Test the coordinate job method uses the extension of the configured archive format.
+     *
+     * @throws GenieException If there is any problem
+     */
+    @Test
+    public void testCoordinateJobArchiveFormat() throws GenieException {
+        final JobCoordinatorService zipCoordinatorService = new JobCoordinatorService(
+            this.jobPersistenceService,
+            this.jobSubmitterService,
+            this.jobKillService,
+            BASE_ARCHIVE_LOCATION,
+            JobArchiveFormat.ZIP
+        );
+        final JobRequest jobRequest = new JobRequest.Builder(
+            JOB_1_NAME,
+            JOB_1_USER,
+            JOB_1_VERSION,
+            null,
+            null,
+            null
+        ).withDisableLogArchival(false)
+            .withId(JOB_1_ID)
+            .build();
+
+        Mockito.when(this.jobPersistenceService.createJobRequest(Mockito.eq(jobRequest))).thenReturn(jobRequest);
+        final ArgumentCaptor<Job> argument = ArgumentCaptor.forClass(Job.class);
+        zipCoordinatorService.coordinateJob(jobRequest, "localhost");
+        Mockito.verify(this.jobPersistenceService).createJob(argument.capture());
+        Assert.assertEquals(
+            BASE_ARCHIVE_LOCATION + JobConstants.FILE_PATH_DELIMITER + JOB_1_ID + ".zip",
+            argument.getValue().getArchiveLocation()
+        );
+    }
+
     /**
      * Test the coordinate job method with archive location disabled.
      *
@@ -0,0 +1,229 @@
+/*
+ *
+ *  Copyright 2016 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.core.services.impl;
+
+import com.google.common.hash.Hashing;
+import com.netflix.genie.common.exceptions.GenieConflictException;
+import com.netflix.genie.common.exceptions.GenieException;
+import com.netflix.genie.common.exceptions.GeniePreconditionException;
+import com.netflix.genie.test.categories.UnitTest;
+import com.netflix.spectator.api.DefaultRegistry;
+import com.netflix.spectator.api.Registry;
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+
+/**
+ * Tests for the content addressed implementation of the attachment service.
+ *
+ * @author agent
+ * @since 3.0.0
+ */
+@Category(UnitTest.class)
+public class ContentAddressedAttachmentServiceUnitTests {
+
+    private static final byte[] CONTENT = "select * from table;".getBytes(StandardCharsets.UTF_8);
+    private static final String SHA256 = Hashing.sha256().hashBytes(CONTENT).toString();
+
+    /**
+     * Creates a temporary folder to use for these tests that is cleaned up after tests are run.
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path store;
+    private Registry registry;
+    private ContentAddressedAttachmentService service;
+
+    /**
+     * Setup for tests.
+     *
+     * @throws IOException when the store can't be created
+     */
+    @Before
+    public void setup() throws IOException {
+        this.store = this.folder.getRoot().toPath().resolve("store");
+        this.registry = new DefaultRegistry();
+        this.service = new ContentAddressedAttachmentService(this.store, true, this.registry);
+    }
+
+    /**
+     * Make sure the same content sent with several jobs is only stored once.
+     *
+     * @throws GenieException on error
+     * @throws IOException    on error
+     */
+    @Test
+    public void canDeduplicateAttachments() throws GenieException, IOException {
+        final String jobId1 = UUID.randomUUID().toString();
+        final String jobId2 = UUID.randomUUID().toString();
+        this.service.save(jobId1, "query.sql", new ByteArrayInputStream(CONTENT));
+        this.service.save(jobId2, "other.sql", new ByteArrayInputStream(CONTENT));
+
+        Assert.assertTrue(Files.exists(this.getBlob()));
+        Assert.assertThat(this.getBlob().getParent().toFile().list().length, Matchers.is(1));
+        Assert.assertThat(
+            this.registry.counter("genie.jobs.attachments.deduplicated.bytes").count(),
+            Matchers.is((long) CONTENT.length)
+        );
+
+        final File destination1 = this.folder.newFolder();
+        final File destination2 = this.folder.newFolder();
+        this.service.copy(jobId1, destination1);
+        this.service.copy(jobId2, destination2);
+        Assert.assertThat(Files.readAllBytes(destination1.toPath().resolve("query.sql")), Matchers.is(CONTENT));
+        Assert.assertThat(Files.readAllBytes(destination2.toPath().resolve("other.sql")), Matchers.is(CONTENT));
+        Assert.assertTrue(Files.isSameFile(this.getBlob(), destination1.toPath().resolve("query.sql")));
+    }
+
+    /**
+     * Make sure jobs get their own copies of the attachments when linking into jobs is disabled.
+     *
+     * @throws GenieException on error
+     * @throws IOException    on error
+     */
+    @Test
+    public void canCopyAttachmentsWithoutLinks() throws GenieException, IOException {
+        final ContentAddressedAttachmentService copyingService = new ContentAddressedAttachmentService(
+            this.store,
+            false,
+            this.registry
+        );
+        final String jobId = UUID.randomUUID().toString();
+        copyingService.save(jobId, "query.sql", new ByteArrayInputStream(CONTENT));
+
+        final File destination = this.folder.newFolder();
+        copyingService.copy(jobId, destination);
+        final Path copied = destination.toPath().resolve("query.sql");
+        Assert.assertThat(Files.readAllBytes(copied), Matchers.is(CONTENT));
+        Assert.assertFalse(Files.isSameFile(this.getBlob(), copied));
+    }
+
+    /**
+     * Make sure content which is already stored can be attached to a job by its digest.
+     *
+     * @throws GenieException on error
+     * @throws IOException    on error
+     */
+    @Test
+    public void canSaveExistingAttachment() throws GenieException, IOException {
+        final String jobId = UUID.randomUUID().toString();
+        Assert.assertFalse(this.service.saveExisting(jobId, "query.sql", SHA256));
+
+        this.service.save(UUID.randomUUID().toString(), "query.sql", new ByteArrayInputStream(CONTENT));
+        Assert.assertTrue(this.service.saveExisting(jobId, "query.sql", SHA256.toUpperCase()));
+
+        final File destination = this.folder.newFolder();
+        this.service.copy(jobId, destination);
+        Assert.assertThat(Files.readAllBytes(destination.toPath().resolve("query.sql")), Matchers.is(CONTENT));
+    }
+
+    /**
+     * Make sure a stored attachment is only deleted once no job references it anymore.
+     *
+     * @throws GenieException on error
+     */
+    @Test
+    public void canDeleteUnreferencedAttachments() throws GenieException {
+        final String jobId1 = UUID.randomUUID().toString();
+        final String jobId2 = UUID.randomUUID().toString();
+        this.service.save(jobId1, "query.sql", new ByteArrayInputStream(CONTENT));
+        this.service.save(jobId2, "query.sql", new ByteArrayInputStream(CONTENT));
+
+        this.service.delete(jobId1);
+        Assert.assertTrue(Files.exists(this.getBlob()));
+        this.service.delete(jobId2);
+        Assert.assertFalse(Files.exists(this.getBlob()));
+        Assert.assertThat(this.registry.counter("genie.jobs.attachments.collected.rate").count(), Matchers.is(1L));
+
+        // Deleting a job without attachments is a no-op
+        this.service.delete(UUID.randomUUID().toString());
+    }
+
+    /**
+     * Make sure invalid file names and digests are rejected.
+     *
+     * @throws GenieException on error
+     */
+    @Test
+    public void cantSaveInvalidAttachments() throws GenieException {
+        final String jobId = UUID.randomUUID().toString();
+        try {
+            this.service.save(jobId, "../query.sql", new ByteArrayInputStream(CONTENT));
+            Assert.fail();
+        } catch (final GeniePreconditionException gpe) {
+            Assert.assertFalse(Files.exists(this.getBlob()));
+        }
+        try {
+            this.service.saveExisting(jobId, "query.sql", "not a digest");
+            Assert.fail();
+        } catch (final GeniePreconditionException gpe) {
+            Assert.assertThat(gpe.getErrorCode(), Matchers.is(412));
+        }
+    }
+
+    /**
+     * Make sure a job can't get two different attachments with the same name as one would overwrite the other in the
+     * job directory.
+     *
+     * @throws GenieException on error
+     * @throws IOException    on error
+     */
+    @Test
+    public void cantSaveDifferentAttachmentsWithSameName() throws GenieException, IOException {
+        final String jobId = UUID.randomUUID().toString();
+        final byte[] other = "select * from other;".getBytes(StandardCharsets.UTF_8);
+        this.service.save(UUID.randomUUID().toString(), "other.sql", new ByteArrayInputStream(other));
+        this.service.save(jobId, "query.sql", new ByteArrayInputStream(CONTENT));
+        try {
+            this.service.save(jobId, "query.sql", new ByteArrayInputStream(other));
+            Assert.fail();
+        } catch (final GenieConflictException gce) {
+            Assert.assertThat(gce.getErrorCode(), Matchers.is(409));
+        }
+        try {
+            this.service.saveExisting(jobId, "query.sql", Hashing.sha256().hashBytes(other).toString());
+            Assert.fail();
+        } catch (final GenieConflictException gce) {
+            Assert.assertThat(gce.getErrorCode(), Matchers.is(409));
+        }
+
+        // Saving the same contents again under the same name is fine
+        this.service.save(jobId, "query.sql", new ByteArrayInputStream(CONTENT));
+        final File destination = this.folder.newFolder();
+        this.service.copy(jobId, destination);
+        Assert.assertThat(destination.list().length, Matchers.is(1));
+        Assert.assertThat(Files.readAllBytes(destination.toPath().resolve("query.sql")), Matchers.is(CONTENT));
+    }
+
+    private Path getBlob() {
+        return this.store.resolve("blobs").resolve(SHA256.substring(0, 2)).resolve(SHA256);
+    }
+}
@@ -136,6 +136,18 @@ public class FileSystemAttachmentServiceUnitTests {
         attachments.forEach(file -> Assert.assertFalse(file.exists()));
     }
 
+    /**
+     * Make sure attachments always have to be uploaded as they aren't stored by their contents.
+     *
+     * @throws GenieException on error
+     */
+    @Test
+    public void cantSaveExistingAttachment() throws GenieException {
+        final String jobId = UUID.randomUUID().toString();
+        Assert.assertFalse(this.service.saveExisting(jobId, "query.sql", UUID.randomUUID().toString()));
+        Assert.assertFalse(new File(this.folder.getRoot(), jobId).exists());
+    }
+
     private File saveAttachment(final String jobId) throws GenieException, IOException {
         FileInputStream fis = null;
         try {
@@ -17,15 +17,31 @@
  */
 package com.netflix.genie.core.services.impl;
 
+import com.google.common.collect.Sets;
 import com.netflix.genie.common.exceptions.GenieException;
 import com.netflix.genie.common.exceptions.GenieNotFoundException;
+import com.netflix.genie.common.exceptions.GenieServerException;
+import com.netflix.genie.core.services.FileMetadata;
 import com.netflix.genie.core.services.FileTransfer;
 import com.netflix.genie.test.categories.UnitTest;
+import com.netflix.spectator.api.DefaultRegistry;
+import com.netflix.spectator.api.Id;
+import com.netflix.spectator.api.Registry;
+import org.hamcrest.Matchers;
+import org.junit.Assert;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
+import org.junit.rules.TemporaryFolder;
 import org.mockito.Mockito;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -40,10 +56,18 @@ public class GenieFileTransferServiceUnitTests {
 
     private static final String S3_FILE_PATH = "s3://s3file";
     private static final String LOCAL_FILE_PATH = "file://localfile";
+    private static final String E_TAG = "etag";
+
+    /**
+     * Temporary folder for cached files.
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
 
     private LocalFileTransferImpl localFileTransfer;
     private S3FileTransferImpl s3FileTransfer;
     private final List<FileTransfer> fileTransfers = new ArrayList<>();
+    private Registry registry;
 
     private GenieFileTransferService genieFileTransferService;
 
@@ -60,7 +84,8 @@ public class GenieFileTransferServiceUnitTests {
         fileTransfers.add(localFileTransfer);
         fileTransfers.add(s3FileTransfer);
 
-        genieFileTransferService = new GenieFileTransferService(fileTransfers);
+        registry = new DefaultRegistry();
+        genieFileTransferService = new GenieFileTransferService(fileTransfers, registry);
 
     }
 
@@ -144,5 +169,291 @@ public class GenieFileTransferServiceUnitTests {
         Mockito.verify(this.localFileTransfer, Mockito.times(0)).putFile(LOCAL_FILE_PATH, S3_FILE_PATH);
     }
 
+    /**
+     * Test the getFileSize method uses the implementation which can handle the file.
+     *
+     * @throws GenieException If there is any problem
+     */
+    @Test
+    public void testGetFileSize() throws GenieException {
+        Mockito.when(this.localFileTransfer.isValid(Mockito.eq(S3_FILE_PATH))).thenReturn(false);
+        Mockito.when(this.s3FileTransfer.isValid(Mockito.eq(S3_FILE_PATH))).thenReturn(true);
+        Mockito.when(this.s3FileTransfer.getFileSize(S3_FILE_PATH)).thenReturn(1234L);
+
+        Assert.assertThat(this.genieFileTransferService.getFileSize(S3_FILE_PATH), Matchers.is(1234L));
+        Mockito.verify(this.localFileTransfer, Mockito.never()).getFileSize(Mockito.anyString());
+    }
+
+    /**
+     * Test the getFileSize method in case none of the File transfer impls can handle the file.
+     *
+     * @throws GenieException If there is any problem
+     */
+    @Test(expected = GenieNotFoundException.class)
+    public void testGetFileSizeNoValidImplFound() throws GenieException {
+        this.genieFileTransferService.getFileSize("foo");
+    }
+
+    /**
+     * Test the isRangeSupported method asks the implementation which can handle the file.
+     *
+     * @throws GenieException If there is any problem
+     */
+    @Test
+    public void testIsRangeSupported() throws GenieException {
+        Mockito.when(this.localFileTransfer.isValid(Mockito.eq(S3_FILE_PATH))).thenReturn(false);
+        Mockito.when(this.s3FileTransfer.isValid(Mockito.eq(S3_FILE_PATH))).thenReturn(true);
+        Mockito.when(this.localFileTransfer.isRangeSupported()).thenReturn(false);
+        Mockito.when(this.s3FileTransfer.isRangeSupported()).thenReturn(true);
+
+        Assert.assertTrue(this.genieFileTransferService.isRangeSupported(S3_FILE_PATH));
+        Mockito.verify(this.localFileTransfer, Mockito.never()).isRangeSupported();
+    }
+
+    /**
+     * Test the getFileRange method uses the implementation which can handle the file.
+     *
+     * @throws GenieException If there is any problem
+     */
+    @Test
+    public void testGetFileRange() throws GenieException {
+        Mockito.when(this.localFileTransfer.isValid(Mockito.eq(S3_FILE_PATH))).thenReturn(true);
+        Mockito.when(this.s3FileTransfer.isValid(Mockito.eq(S3_FILE_PATH))).thenReturn(false);
+        final InputStream range = Mockito.mock(InputStream.class);
+        Mockito.when(this.localFileTransfer.getFileRange(S3_FILE_PATH, 10L, 20L)).thenReturn(range);
+
+        Assert.assertThat(this.genieFileTransferService.getFileRange(S3_FILE_PATH, 10L, 20L), Matchers.is(range));
+        Mockito.verify(this.s3FileTransfer, Mockito.never())
+            .getFileRange(Mockito.anyString(), Mockito.anyLong(), Mockito.anyLong());
+    }
+
+    /**
+     * Test the getFileRange method in case none of the File transfer impls can handle the file.
+     *
+     * @throws GenieException If there is any problem
+     */
+    @Test(expected = GenieNotFoundException.class)
+    public void testGetFileRangeNoValidImplFound() throws GenieException {
+        this.genieFileTransferService.getFileRange("foo", 0L, 1L);
+    }
+
+    /**
+     * Test the getFileMetadata method uses the implementation which can handle the file.
+     *
+     * @throws GenieException If there is any problem
+     */
+    @Test
+    public void testGetFileMetadata() throws GenieException {
+        Mockito.when(this.localFileTransfer.isValid(Mockito.eq(S3_FILE_PATH))).thenReturn(false);
+        Mockito.when(this.s3FileTransfer.isValid(Mockito.eq(S3_FILE_PATH))).thenReturn(true);
+        final FileMetadata metadata = new FileMetadata(10L, "etag", 1000L);
+        Mockito.when(this.s3FileTransfer.getFileMetadata(S3_FILE_PATH)).thenReturn(metadata);
+
+        Assert.assertThat(this.genieFileTransferService.getFileMetadata(S3_FILE_PATH), Matchers.is(metadata));
+        Mockito.verify(this.localFileTransfer, Mockito.never()).getFileMetadata(Mockito.anyString());
+    }
+
+    /**
+     * Test the getFileMetadata method in case none of the File transfer impls can handle the file.
+     *
+     * @throws GenieException If there is any problem
+     */
+    @Test(expected = GenieNotFoundException.class)
+    public void testGetFileMetadataNoValidImplFound() throws GenieException {
+        this.genieFileTransferService.getFileMetadata("foo");
+    }
+
+    /**
+     * Test the getFileStream method uses the implementation which can handle the file.
+     *
+     * @throws GenieException If there is any problem
+     */
+    @Test
+    public void testGetFileStream() throws GenieException {
+        Mockito.when(this.localFileTransfer.isValid(Mockito.eq(S3_FILE_PATH))).thenReturn(false);
+        Mockito.when(this.s3FileTransfer.isValid(Mockito.eq(S3_FILE_PATH))).thenReturn(true);
+        final InputStream stream = Mockito.mock(InputStream.class);
+        Mockito.when(this.s3FileTransfer.getFileStream(S3_FILE_PATH)).thenReturn(stream);
+
+        Assert.assertThat(this.genieFileTransferService.getFileStream(S3_FILE_PATH), Matchers.is(stream));
+        Mockito.verify(this.localFileTransfer, Mockito.never()).getFileStream(Mockito.anyString());
+    }
+
+    /**
+     * Test the putFile method for channels uses the implementation which can handle the file.
+     *
+     * @throws GenieException If there is any problem
+     */
+    @Test
+    public void testPutFileFromChannel() throws GenieException {
+        Mockito.when(this.localFileTransfer.isValid(Mockito.eq(S3_FILE_PATH))).thenReturn(false);
+        Mockito.when(this.s3FileTransfer.isValid(Mockito.eq(S3_FILE_PATH))).thenReturn(true);
+        final ReadableByteChannel source = Mockito.mock(ReadableByteChannel.class);
+
+        this.genieFileTransferService.putFile(source, S3_FILE_PATH);
+        Mockito.verify(this.s3FileTransfer).putFile(source, S3_FILE_PATH);
+        Mockito.verify(this.localFileTransfer, Mockito.never())
+            .putFile(Mockito.any(ReadableByteChannel.class), Mockito.anyString());
+    }
+
+    /**
+     * Test the putFile method for channels in case none of the File transfer impls can handle the file.
+     *
+     * @throws GenieException If there is any problem
+     */
+    @Test(expected = GenieNotFoundException.class)
+    public void testPutFileFromChannelNoValidImplFound() throws GenieException {
+        this.genieFileTransferService.putFile(Mockito.mock(ReadableByteChannel.class), "foo");
+    }
+
+    /**
+     * Test the getFile method downloads a file once and links the cached copy while it's unchanged.
+     *
+     * @throws GenieException If there is any problem
+     * @throws IOException    If there is any problem
+     */
+    @Test
+    public void testGetFileFromCache() throws GenieException, IOException {
+        final File cacheDir = this.folder.newFolder();
+        final GenieFileTransferService cachingService
+            = new GenieFileTransferService(this.fileTransfers, cacheDir.toPath(), 10L, true, this.registry);
+        Mockito.when(this.s3FileTransfer.isValid(Mockito.eq(S3_FILE_PATH))).thenReturn(true);
+        Mockito
+            .when(this.s3FileTransfer.getFileIfModified(Mockito.eq(S3_FILE_PATH), Mockito.anyString(), Mockito.any()))
+            .thenAnswer(
+                invocation -> {
+                    if (E_TAG.equals(invocation.getArguments()[2])) {
+                        return null;
+                    }
+                    Files.write(Paths.get((String) invocation.getArguments()[1]), new byte[]{1, 2, 3});
+                    return new FileMetadata(3L, E_TAG, 0L);
+                }
+            );
+
+        final File first = new File(this.folder.getRoot(), "first");
+        final File second = new File(this.folder.getRoot(), "second");
+        cachingService.getFile(S3_FILE_PATH, first.getAbsolutePath());
+        cachingService.getFile(S3_FILE_PATH, second.getAbsolutePath());
 
+        Assert.assertArrayEquals(new byte[]{1, 2, 3}, Files.readAllBytes(first.toPath()));
+        Assert.assertArrayEquals(new byte[]{1, 2, 3}, Files.readAllBytes(second.toPath()));
+        Assert.assertThat(cacheDir.list().length, Matchers.is(1));
+        Mockito
+            .verify(this.s3FileTransfer, Mockito.times(2))
+            .getFileIfModified(Mockito.eq(S3_FILE_PATH), Mockito.anyString(), Mockito.any());
+        Mockito
+            .verify(this.s3FileTransfer, Mockito.times(1))
+            .getFileIfModified(Mockito.eq(S3_FILE_PATH), Mockito.anyString(), Mockito.eq(E_TAG));
+        Mockito.verify(this.s3FileTransfer, Mockito.never()).getFile(Mockito.anyString(), Mockito.anyString());
+    }
+
+    /**
+     * Test cached files are copied instead of linked when linking is disabled so destinations never share the cached
+     * copy.
+     *
+     * @throws GenieException If there is any problem
+     * @throws IOException    If there is any problem
+     */
+    @Test
+    public void testGetFileFromCacheWithoutLinks() throws GenieException, IOException {
+        final File cacheDir = this.folder.newFolder();
+        final GenieFileTransferService cachingService
+            = new GenieFileTransferService(this.fileTransfers, cacheDir.toPath(), 10L, false, this.registry);
+        Mockito.when(this.s3FileTransfer.isValid(Mockito.eq(S3_FILE_PATH))).thenReturn(true);
+        Mockito
+            .when(this.s3FileTransfer.getFileIfModified(Mockito.eq(S3_FILE_PATH), Mockito.anyString(), Mockito.any()))
+            .thenAnswer(
+                invocation -> {
+                    Files.write(Paths.get((String) invocation.getArguments()[1]), new byte[]{1, 2, 3});
+                    return new FileMetadata(3L, E_TAG, 0L);
+                }
+            );
+
+        final File destination = new File(this.folder.getRoot(), "destination");
+        cachingService.getFile(S3_FILE_PATH, destination.getAbsolutePath());
+
+        Assert.assertArrayEquals(new byte[]{1, 2, 3}, Files.readAllBytes(destination.toPath()));
+        final File[] cached = cacheDir.listFiles();
+        Assert.assertNotNull(cached);
+        Assert.assertThat(cached.length, Matchers.is(1));
+        Assert.assertFalse(Files.isSameFile(cached[0].toPath(), destination.toPath()));
+    }
+
+    /**
+     * Test files are routed by their scheme without asking the implementations whether they're valid.
+     *
+     * @throws GenieException If there is any problem
+     */
+    @Test
+    public void testRoutesByScheme() throws GenieException {
+        Mockito.when(this.localFileTransfer.getSchemes()).thenReturn(Sets.newHashSet("file"));
+        Mockito.when(this.s3FileTransfer.getSchemes()).thenReturn(Sets.newHashSet("s3", "s3n"));
+        final GenieFileTransferService service = new GenieFileTransferService(this.fileTransfers, this.registry);
+
+        service.getFile("S3://bucket/key", LOCAL_FILE_PATH);
+        service.putFile(LOCAL_FILE_PATH, "s3n://bucket/key");
+        service.getFile("/some/local/file", LOCAL_FILE_PATH);
+
+        Mockito.verify(this.s3FileTransfer, Mockito.times(1)).getFile("S3://bucket/key", LOCAL_FILE_PATH);
+        Mockito.verify(this.s3FileTransfer, Mockito.times(1)).putFile(LOCAL_FILE_PATH, "s3n://bucket/key");
+        Mockito.verify(this.localFileTransfer, Mockito.times(1)).getFile("/some/local/file", LOCAL_FILE_PATH);
+        Mockito.verify(this.localFileTransfer, Mockito.never()).isValid(Mockito.anyString());
+        Mockito.verify(this.s3FileTransfer, Mockito.never()).isValid(Mockito.anyString());
+    }
+
+    /**
+     * Test the latency, size and failures of transfers are recorded per implementation.
+     *
+     * @throws GenieException If there is any problem
+     * @throws IOException    If there is any problem
+     */
+    @Test
+    public void testRecordsTransferMetrics() throws GenieException, IOException {
+        Mockito.when(this.s3FileTransfer.isValid(Mockito.eq(S3_FILE_PATH))).thenReturn(true);
+        Mockito
+            .doAnswer(
+                invocation -> Files.write(Paths.get((String) invocation.getArguments()[1]), new byte[]{1, 2, 3})
+            )
+            .when(this.s3FileTransfer)
+            .getFile(Mockito.eq(S3_FILE_PATH), Mockito.anyString());
+        Mockito
+            .doThrow(new GenieServerException("upload failed"))
+            .when(this.s3FileTransfer)
+            .putFile(Mockito.anyString(), Mockito.eq(S3_FILE_PATH));
+
+        final File file = new File(this.folder.getRoot(), "file");
+        this.genieFileTransferService.getFile(S3_FILE_PATH, file.getAbsolutePath());
+        try {
+            this.genieFileTransferService.putFile(file.getAbsolutePath(), S3_FILE_PATH);
+            Assert.fail();
+        } catch (final GenieServerException gse) {
+            Assert.assertThat(gse.getMessage(), Matchers.is("upload failed"));
+        }
+
+        final String name = this.s3FileTransfer.getClass().getSimpleName();
+        Assert.assertThat(
+            this.registry.timer(this.getId("genie.files.transfer.timer", name, "getFile")).count(),
+            Matchers.is(1L)
+        );
+        Assert.assertThat(
+            this.registry.distributionSummary(this.getId("genie.files.transfer.bytes", name, "getFile")).totalAmount(),
+            Matchers.is(3L)
+        );
+        Assert.assertThat(
+            this.registry.timer(this.getId("genie.files.transfer.timer", name, "putFile")).count(),
+            Matchers.is(1L)
+        );
+        Assert.assertThat(
+            this.registry.counter(this.getId("genie.files.transfer.failure.rate", name, "putFile")).count(),
+            Matchers.is(1L)
+        );
+        Assert.assertThat(
+            this.registry.counter(this.getId("genie.files.transfer.failure.rate", name, "getFile")).count(),
+            Matchers.is(0L)
+        );
+    }
+
+    private Id getId(final String name, final String fileTransfer, final String operation) {
+        return this.registry.createId(name).withTag("fileTransfer", fileTransfer).withTag("operation", operation);
+    }
 }
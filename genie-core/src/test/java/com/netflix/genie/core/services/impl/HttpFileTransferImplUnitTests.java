@@ -0,0 +1,157 @@
+/*
+ *
+ *  Copyright 2016 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.core.services.impl;
+
+import com.google.common.io.ByteStreams;
+import com.netflix.genie.common.exceptions.GenieException;
+import com.netflix.genie.common.exceptions.GenieServerException;
+import com.netflix.genie.core.services.FileMetadata;
+import com.netflix.genie.test.categories.UnitTest;
+import com.sun.net.httpserver.HttpServer;
+import org.hamcrest.Matchers;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+/**
+ * Unit tests for the HttpFileTransferImpl class. Requests go to a server on the loopback interface.
+ *
+ * @author agent
+ * @since 3.0.0
+ */
+@Category(UnitTest.class)
+public class HttpFileTransferImplUnitTests {
+
+    private static final byte[] CONTENT = "0123456789".getBytes(StandardCharsets.UTF_8);
+    private static final String E_TAG = "\"etag\"";
+
+    /**
+     * Temporary folder for downloaded files.
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private HttpServer server;
+    private String url;
+    private HttpFileTransferImpl httpFileTransfer;
+
+    /**
+     * Setup the tests.
+     *
+     * @throws IOException If the server can't be started
+     */
+    @Before
+    public void setup() throws IOException {
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        this.server.createContext(
+            "/file",
+            exchange -> {
+                exchange.getResponseHeaders().add("ETag", E_TAG);
+                if (E_TAG.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                    exchange.sendResponseHeaders(304, -1L);
+                } else {
+                    exchange.sendResponseHeaders(200, CONTENT.length);
+                    exchange.getResponseBody().write(CONTENT);
+                }
+                exchange.close();
+            }
+        );
+        this.server.start();
+        this.url = "http://127.0.0.1:" + this.server.getAddress().getPort();
+        this.httpFileTransfer = new HttpFileTransferImpl();
+    }
+
+    /**
+     * Stop the server.
+     */
+    @After
+    public void cleanup() {
+        this.server.stop(0);
+    }
+
+    /**
+     * Test http and https URLs are handled.
+     *
+     * @throws GenieException If there is any problem
+     */
+    @Test
+    public void testSchemes() throws GenieException {
+        Assert.assertThat(this.httpFileTransfer.getSchemes(), Matchers.containsInAnyOrder("http", "https"));
+        Assert.assertTrue(this.httpFileTransfer.isValid("HTTPS://host/file"));
+        Assert.assertFalse(this.httpFileTransfer.isValid("s3://bucket/key"));
+    }
+
+    /**
+     * Test a file is only downloaded when the server says it changed.
+     *
+     * @throws GenieException If there is any problem
+     * @throws IOException    If there is any problem
+     */
+    @Test
+    public void testGetFileIfModified() throws GenieException, IOException {
+        final File destination = new File(this.folder.getRoot(), "file");
+
+        final FileMetadata metadata
+            = this.httpFileTransfer.getFileIfModified(this.url + "/file", destination.getAbsolutePath(), null);
+        Assert.assertThat(metadata.getETag(), Matchers.is(E_TAG));
+        Assert.assertThat(metadata.getSize(), Matchers.is((long) CONTENT.length));
+        Assert.assertArrayEquals(CONTENT, Files.readAllBytes(destination.toPath()));
+
+        Assert.assertNull(
+            this.httpFileTransfer.getFileIfModified(this.url + "/file", destination.getAbsolutePath(), E_TAG)
+        );
+    }
+
+    /**
+     * Test a file can be read as a stream.
+     *
+     * @throws GenieException If there is any problem
+     * @throws IOException    If there is any problem
+     */
+    @Test
+    public void testGetFileStream() throws GenieException, IOException {
+        try (final InputStream stream = this.httpFileTransfer.getFileStream(this.url + "/file")) {
+            Assert.assertArrayEquals(CONTENT, ByteStreams.toByteArray(stream));
+        }
+    }
+
+    /**
+     * Test a missing file fails without leaving anything behind.
+     *
+     * @throws GenieException If there is any problem
+     */
+    @Test(expected = GenieServerException.class)
+    public void testGetMissingFile() throws GenieException {
+        try {
+            this.httpFileTransfer.getFile(this.url + "/missing", new File(this.folder.getRoot(), "file").getPath());
+        } finally {
+            Assert.assertThat(this.folder.getRoot().list().length, Matchers.is(0));
+        }
+    }
+}
@@ -17,19 +17,34 @@
  */
 package com.netflix.genie.core.services.impl;
 
+import com.google.common.collect.Lists;
+import com.google.common.io.ByteStreams;
 import com.netflix.genie.common.exceptions.GenieException;
+import com.netflix.genie.common.exceptions.GenieNotFoundException;
 import com.netflix.genie.common.exceptions.GenieServerException;
+import com.netflix.genie.core.services.FileMetadata;
 import com.netflix.genie.test.categories.UnitTest;
+import com.netflix.spectator.api.DefaultRegistry;
+import com.netflix.spectator.api.Registry;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.exec.Executor;
+import org.hamcrest.Matchers;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Ignore;
+import org.junit.Rule;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
+import org.junit.rules.TemporaryFolder;
 import org.mockito.Mockito;
 
+import java.io.ByteArrayInputStream;
+import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
 
 /**
  * This class contains unit tests for the class LocalFileTransferImpl.
@@ -41,6 +56,12 @@ import java.io.IOException;
 @Category(UnitTest.class)
 public class LocalFileTransferImplUnitTests {
 
+    /**
+     * Temporary folder for files to transfer.
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
     private static final String COPY_COMMAND = "cp";
     private static final String SOURCE_FILE = "source";
     private static final String DESTINATION_FILE = "dest";
@@ -91,4 +112,234 @@ public class LocalFileTransferImplUnitTests {
     public void testPutFileMethod() throws GenieException, IOException {
 
     }
+
+    /**
+     * Test the size of a local file can be read.
+     *
+     * @throws GenieException If there is any problem
+     * @throws IOException If there is any problem
+     */
+    @Test
+    public void testGetFileSize() throws GenieException, IOException {
+        final File file = this.folder.newFile();
+        Files.write(file.toPath(), new byte[]{1, 2, 3, 4, 5});
+        Assert.assertThat(this.localFileTransfer.getFileSize(file.getAbsolutePath()), Matchers.is(5L));
+    }
+
+    /**
+     * Test the size of a missing file can't be read.
+     *
+     * @throws GenieException If there is any problem
+     */
+    @Test(expected = GenieServerException.class)
+    public void testGetFileSizeMissingFile() throws GenieException {
+        this.localFileTransfer.getFileSize(new File(this.folder.getRoot(), SOURCE_FILE).getAbsolutePath());
+    }
+
+    /**
+     * Test only the requested range of a local file is read.
+     *
+     * @throws GenieException If there is any problem
+     * @throws IOException If there is any problem
+     */
+    @Test
+    public void testGetFileRange() throws GenieException, IOException {
+        final File file = this.folder.newFile();
+        Files.write(file.toPath(), new byte[]{1, 2, 3, 4, 5});
+        Assert.assertTrue(this.localFileTransfer.isRangeSupported());
+        try (final InputStream range = this.localFileTransfer.getFileRange(file.getAbsolutePath(), 1L, 3L)) {
+            Assert.assertArrayEquals(new byte[]{2, 3, 4}, ByteStreams.toByteArray(range));
+        }
+    }
+
+    /**
+     * Test a range of a missing file can't be read.
+     *
+     * @throws GenieException If there is any problem
+     */
+    @Test(expected = GenieServerException.class)
+    public void testGetFileRangeMissingFile() throws GenieException {
+        this.localFileTransfer.getFileRange(new File(this.folder.getRoot(), SOURCE_FILE).getAbsolutePath(), 0L, 1L);
+    }
+
+    /**
+     * Test the metadata of a local file.
+     *
+     * @throws GenieException If there is any problem
+     * @throws IOException If there is any problem
+     */
+    @Test
+    public void testGetFileMetadata() throws GenieException, IOException {
+        final File file = this.folder.newFile();
+        Files.write(file.toPath(), new byte[]{1, 2, 3, 4, 5});
+        final FileMetadata metadata = this.localFileTransfer.getFileMetadata(file.getAbsolutePath());
+        Assert.assertThat(metadata.getSize(), Matchers.is(5L));
+        Assert.assertThat(metadata.getLastModified(), Matchers.is(file.lastModified()));
+        Assert.assertNotNull(metadata.getETag());
+
+        Files.write(file.toPath(), new byte[]{1, 2, 3, 4, 5, 6});
+        Assert.assertThat(
+            this.localFileTransfer.getFileMetadata(file.getAbsolutePath()).getETag(),
+            Matchers.not(metadata.getETag())
+        );
+    }
+
+    /**
+     * Test the metadata of a missing file can't be found.
+     *
+     * @throws GenieException If there is any problem
+     */
+    @Test(expected = GenieNotFoundException.class)
+    public void cantGetMetadataOfMissingFile() throws GenieException {
+        this.localFileTransfer.getFileMetadata(new File(this.folder.getRoot(), SOURCE_FILE).getAbsolutePath());
+    }
+
+    /**
+     * Test a local file can be read as a stream.
+     *
+     * @throws GenieException If there is any problem
+     * @throws IOException If there is any problem
+     */
+    @Test
+    public void testGetFileStream() throws GenieException, IOException {
+        final File file = this.folder.newFile();
+        Files.write(file.toPath(), new byte[]{1, 2, 3, 4, 5});
+        try (final InputStream stream = this.localFileTransfer.getFileStream(file.getAbsolutePath())) {
+            Assert.assertArrayEquals(new byte[]{1, 2, 3, 4, 5}, ByteStreams.toByteArray(stream));
+        }
+    }
+
+    /**
+     * Test the contents of a channel can be put to a local file.
+     *
+     * @throws GenieException If there is any problem
+     * @throws IOException If there is any problem
+     */
+    @Test
+    public void testPutFileFromChannel() throws GenieException, IOException {
+        final File destination = new File(this.folder.getRoot(), DESTINATION_FILE);
+        try (final ReadableByteChannel source = Channels.newChannel(new ByteArrayInputStream(new byte[]{1, 2, 3}))) {
+            this.localFileTransfer.putFile(source, destination.getAbsolutePath());
+        }
+        Assert.assertArrayEquals(new byte[]{1, 2, 3}, Files.readAllBytes(destination.toPath()));
+
+        // Missing parent directories are created
+        final File nested = new File(new File(this.folder.getRoot(), SOURCE_FILE), DESTINATION_FILE);
+        try (final ReadableByteChannel source = Channels.newChannel(new ByteArrayInputStream(new byte[]{4, 5}))) {
+            this.localFileTransfer.putFile(source, nested.getAbsolutePath());
+        }
+        Assert.assertArrayEquals(new byte[]{4, 5}, Files.readAllBytes(nested.toPath()));
+    }
+
+    /**
+     * Test the contents of a channel don't replace an existing file.
+     *
+     * @throws GenieException If there is any problem
+     * @throws IOException If there is any problem
+     */
+    @Test(expected = GenieServerException.class)
+    public void testPutFileFromChannelExistingFile() throws GenieException, IOException {
+        final File destination = this.folder.newFile(DESTINATION_FILE);
+        try (final ReadableByteChannel source = Channels.newChannel(new ByteArrayInputStream(new byte[]{1, 2, 3}))) {
+            this.localFileTransfer.putFile(source, destination.getAbsolutePath());
+        }
+    }
+
+    /**
+     * Test getFile replaces a stale copy and leaves an identical copy alone.
+     *
+     * @throws GenieException If there is any problem
+     * @throws IOException If there is any problem
+     */
+    @Test
+    public void testGetFileReplacesChangedCopyOnly() throws GenieException, IOException {
+        final File source = this.folder.newFile(SOURCE_FILE);
+        Files.write(source.toPath(), new byte[]{1, 2, 3});
+        final File destination = this.folder.newFile(DESTINATION_FILE);
+        Files.write(destination.toPath(), new byte[]{4, 5});
+
+        this.localFileTransfer.getFile(source.getAbsolutePath(), destination.getAbsolutePath());
+        Assert.assertArrayEquals(new byte[]{1, 2, 3}, Files.readAllBytes(destination.toPath()));
+        Assert.assertThat(destination.lastModified(), Matchers.is(source.lastModified()));
+
+        // Same size and modification time so it's taken to be the same file
+        Files.write(destination.toPath(), new byte[]{7, 8, 9});
+        Assert.assertTrue(destination.setLastModified(source.lastModified()));
+        this.localFileTransfer.getFile(source.getAbsolutePath(), destination.getAbsolutePath());
+        Assert.assertArrayEquals(new byte[]{7, 8, 9}, Files.readAllBytes(destination.toPath()));
+    }
+
+    /**
+     * Test getFileIfModified only copies the file when the ETag doesn't match.
+     *
+     * @throws GenieException If there is any problem
+     * @throws IOException If there is any problem
+     */
+    @Test
+    public void testGetFileIfModified() throws GenieException, IOException {
+        final File source = this.folder.newFile(SOURCE_FILE);
+        Files.write(source.toPath(), new byte[]{1, 2, 3});
+        final File destination = new File(this.folder.getRoot(), DESTINATION_FILE);
+        final String eTag = this.localFileTransfer.getFileMetadata(source.getAbsolutePath()).getETag();
+
+        Assert.assertNull(
+            this.localFileTransfer.getFileIfModified(source.getAbsolutePath(), destination.getAbsolutePath(), eTag)
+        );
+        Assert.assertFalse(destination.exists());
+
+        final FileMetadata metadata = this.localFileTransfer.getFileIfModified(
+            source.getAbsolutePath(),
+            destination.getAbsolutePath(),
+            "stale"
+        );
+        Assert.assertThat(metadata.getETag(), Matchers.is(eTag));
+        Assert.assertArrayEquals(new byte[]{1, 2, 3}, Files.readAllBytes(destination.toPath()));
+    }
+
+    /**
+     * Test files under a link prefix are hard linked and other files are copied.
+     *
+     * @throws GenieException If there is any problem
+     * @throws IOException If there is any problem
+     */
+    @Test
+    public void testGetFileLinksFilesUnderPrefix() throws GenieException, IOException {
+        final File shared = this.folder.newFolder("shared");
+        final File linked = new File(shared, SOURCE_FILE);
+        Files.write(linked.toPath(), new byte[]{1, 2, 3});
+        final File copied = this.folder.newFile(SOURCE_FILE);
+        Files.write(copied.toPath(), new byte[]{4, 5, 6});
+        final Registry registry = new DefaultRegistry();
+        final LocalFileTransferImpl transfer
+            = new LocalFileTransferImpl(registry, Lists.newArrayList(shared.getAbsolutePath()));
+
+        final File linkDestination = new File(this.folder.getRoot(), "linked");
+        transfer.getFile(linked.getAbsolutePath(), linkDestination.getAbsolutePath());
+        final File copyDestination = new File(this.folder.getRoot(), "copied");
+        transfer.getFile(copied.getAbsolutePath(), copyDestination.getAbsolutePath());
+
+        Assert.assertTrue(Files.isSameFile(linked.toPath(), linkDestination.toPath()));
+        Assert.assertFalse(Files.isSameFile(copied.toPath(), copyDestination.toPath()));
+        Assert.assertArrayEquals(new byte[]{4, 5, 6}, Files.readAllBytes(copyDestination.toPath()));
+        Assert.assertEquals(3L, registry.counter("genie.files.local.linked.bytes").count());
+        Assert.assertEquals(3L, registry.counter("genie.files.local.copied.bytes").count());
+    }
+
+    /**
+     * Test file URIs are handled like plain paths.
+     *
+     * @throws GenieException If there is any problem
+     * @throws IOException If there is any problem
+     */
+    @Test
+    public void testGetFileFromFileUri() throws GenieException, IOException {
+        Assert.assertThat(this.localFileTransfer.getSchemes(), Matchers.contains("file"));
+        final File source = this.folder.newFile(SOURCE_FILE);
+        Files.write(source.toPath(), new byte[]{1, 2, 3});
+        final File destination = new File(this.folder.getRoot(), DESTINATION_FILE);
+
+        this.localFileTransfer.getFile(source.toURI().toString(), destination.getAbsolutePath());
+
+        Assert.assertArrayEquals(new byte[]{1, 2, 3}, Files.readAllBytes(destination.toPath()));
+    }
 }
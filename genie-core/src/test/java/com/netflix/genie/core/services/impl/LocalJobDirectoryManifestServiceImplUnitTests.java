@@ -0,0 +1,325 @@
+/*
+ *
+ *  Copyright 2016 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.core.services.impl;
+
+import com.netflix.genie.common.exceptions.GenieBadRequestException;
+import com.netflix.genie.common.exceptions.GenieException;
+import com.netflix.genie.common.exceptions.GenieNotFoundException;
+import com.netflix.genie.common.util.JsonUtils;
+import com.netflix.genie.core.jobs.JobConstants;
+import com.netflix.genie.core.jobs.JobDirectoryManifest;
+import com.netflix.genie.test.categories.UnitTest;
+import org.hamcrest.Matchers;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.core.io.FileSystemResource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.UUID;
+
+/**
+ * Tests for the local implementation of the job directory manifest service.
+ *
+ * @author agent
+ * @since 3.0.0
+ */
+@Category(UnitTest.class)
+public class LocalJobDirectoryManifestServiceImplUnitTests {
+
+    private static final String HELLO_MD5 = "5d41402abc4b2a76b9719d911017c592";
+    private static final String HELLO_CRC32 = "3610a686";
+
+    /**
+     * Creates a temporary folder to use for these tests that is cleaned up after tests are run.
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private LocalJobDirectoryManifestServiceImpl service;
+    private String jobId;
+    private File jobDir;
+
+    /**
+     * Setup for tests.
+     *
+     * @throws IOException when can't create the job directory
+     */
+    @Before
+    public void setup() throws IOException {
+        this.service = new LocalJobDirectoryManifestServiceImpl(
+            new FileSystemResource(this.folder.getRoot()),
+            2,
+            3L,
+            false
+        );
+        this.jobId = UUID.randomUUID().toString();
+        this.jobDir = this.folder.newFolder(this.jobId);
+        final File logs = new File(this.jobDir, "genie/logs");
+        Assert.assertTrue(logs.mkdirs());
+        Files.write(new File(logs, "genie.log").toPath(), "hello".getBytes(StandardCharsets.UTF_8));
+        Files.write(new File(this.jobDir, "stdout").toPath(), "abc".getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Stop the service.
+     */
+    @After
+    public void cleanup() {
+        this.service.shutdown();
+    }
+
+    /**
+     * Make sure a job without a directory isn't found.
+     *
+     * @throws GenieException on error
+     */
+    @Test(expected = GenieNotFoundException.class)
+    public void cantGetManifestForMissingJob() throws GenieException {
+        this.service.getManifest(UUID.randomUUID().toString(), false);
+    }
+
+    /**
+     * Make sure a job id can't be used to get the manifest of a directory outside of the job directories.
+     *
+     * @throws GenieException on error
+     * @throws IOException    on error
+     */
+    @Test(expected = GenieBadRequestException.class)
+    public void cantGetManifestOutsideJobDirectories() throws GenieException, IOException {
+        final File root = this.folder.newFolder("root");
+        final LocalJobDirectoryManifestServiceImpl nested = new LocalJobDirectoryManifestServiceImpl(
+            new FileSystemResource(root),
+            1,
+            3L,
+            false
+        );
+        try {
+            nested.getManifest("../" + this.jobId, false);
+        } finally {
+            nested.shutdown();
+        }
+    }
+
+    /**
+     * Make sure the whole tree is walked with each directory followed by its contents sorted by name.
+     *
+     * @throws GenieException on error
+     */
+    @Test
+    public void canGetManifestWithoutChecksums() throws GenieException {
+        final JobDirectoryManifest manifest = this.service.getManifest(this.jobId, false);
+
+        Assert.assertThat(manifest.getJobId(), Matchers.is(this.jobId));
+        Assert.assertFalse(manifest.isChecksums());
+        Assert.assertThat(manifest.getNumDirectories(), Matchers.is(2));
+        Assert.assertThat(manifest.getNumFiles(), Matchers.is(2));
+        Assert.assertThat(manifest.getTotalSize(), Matchers.is(8L));
+        Assert.assertThat(manifest.getEntries().size(), Matchers.is(4));
+        Assert.assertThat(manifest.getEntries().get(0).getPath(), Matchers.is("genie"));
+        Assert.assertTrue(manifest.getEntries().get(0).isDirectory());
+        Assert.assertThat(manifest.getEntries().get(1).getPath(), Matchers.is("genie/logs"));
+        Assert.assertThat(manifest.getEntries().get(2).getPath(), Matchers.is("genie/logs/genie.log"));
+        Assert.assertThat(manifest.getEntries().get(2).getSize(), Matchers.is(5L));
+        Assert.assertNull(manifest.getEntries().get(2).getMd5());
+        Assert.assertThat(manifest.getEntries().get(3).getPath(), Matchers.is("stdout"));
+    }
+
+    /**
+     * Make sure checksums are calculated for files up to the maximum size.
+     *
+     * @throws GenieException on error
+     */
+    @Test
+    public void canGetManifestWithChecksums() throws GenieException {
+        final JobDirectoryManifest manifest = this.service.getManifest(this.jobId, true);
+
+        Assert.assertTrue(manifest.isChecksums());
+        // Larger than the maximum size so no checksums
+        Assert.assertNull(manifest.getEntries().get(2).getMd5());
+        Assert.assertNull(manifest.getEntries().get(2).getCrc32());
+        Assert.assertThat(manifest.getEntries().get(3).getMd5(), Matchers.is("900150983cd24fb0d6963f7d28e17f72"));
+        Assert.assertThat(manifest.getEntries().get(3).getCrc32(), Matchers.is("352441c2"));
+
+        final LocalJobDirectoryManifestServiceImpl unlimited = new LocalJobDirectoryManifestServiceImpl(
+            new FileSystemResource(this.folder.getRoot()),
+            1,
+            Long.MAX_VALUE,
+            false
+        );
+        try {
+            final JobDirectoryManifest all = unlimited.getManifest(this.jobId, true);
+            Assert.assertThat(all.getEntries().get(2).getMd5(), Matchers.is(HELLO_MD5));
+            Assert.assertThat(all.getEntries().get(2).getCrc32(), Matchers.is(HELLO_CRC32));
+        } finally {
+            unlimited.shutdown();
+        }
+    }
+
+    /**
+     * Make sure a saved manifest is used for later requests and isn't part of itself.
+     *
+     * @throws GenieException on error
+     * @throws IOException    on error
+     */
+    @Test
+    public void canSaveManifest() throws GenieException, IOException {
+        this.service.saveManifest(this.jobId);
+        final File saved = new File(this.jobDir, JobConstants.GENIE_MANIFEST_FILE_NAME);
+        Assert.assertTrue(saved.exists());
+
+        // Changes after the manifest is saved aren't seen
+        Files.write(new File(this.jobDir, "stderr").toPath(), new byte[0]);
+
+        final JobDirectoryManifest manifest = this.service.getManifest(this.jobId, false);
+        Assert.assertFalse(manifest.isChecksums());
+        Assert.assertThat(manifest.getNumFiles(), Matchers.is(2));
+
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        this.service.writeManifest(this.jobId, false, outputStream);
+        Assert.assertThat(outputStream.toByteArray(), Matchers.is(Files.readAllBytes(saved.toPath())));
+
+        // Saved without checksums so asking for them walks the directory
+        final JobDirectoryManifest withChecksums = this.service.getManifest(this.jobId, true);
+        Assert.assertTrue(withChecksums.isChecksums());
+        Assert.assertThat(withChecksums.getNumFiles(), Matchers.is(3));
+
+        final ByteArrayOutputStream checksumStream = new ByteArrayOutputStream();
+        this.service.writeManifest(this.jobId, true, checksumStream);
+        Assert.assertThat(checksumStream.toByteArray(), Matchers.not(Files.readAllBytes(saved.toPath())));
+    }
+
+    /**
+     * Make sure checksums are calculated when saving the manifest if enabled and the saved manifest is used for
+     * requests for checksums.
+     *
+     * @throws GenieException on error
+     * @throws IOException    on error
+     */
+    @Test
+    public void canSaveManifestWithChecksums() throws GenieException, IOException {
+        final LocalJobDirectoryManifestServiceImpl checksummed = new LocalJobDirectoryManifestServiceImpl(
+            new FileSystemResource(this.folder.getRoot()),
+            1,
+            3L,
+            true
+        );
+        try {
+            checksummed.saveManifest(this.jobId);
+            Files.write(new File(this.jobDir, "stderr").toPath(), new byte[0]);
+
+            final JobDirectoryManifest manifest = checksummed.getManifest(this.jobId, true);
+            Assert.assertTrue(manifest.isChecksums());
+            Assert.assertThat(manifest.getNumFiles(), Matchers.is(2));
+            Assert.assertThat(manifest.getEntries().get(3).getMd5(), Matchers.is("900150983cd24fb0d6963f7d28e17f72"));
+        } finally {
+            checksummed.shutdown();
+        }
+    }
+
+    /**
+     * Make sure whether a saved manifest is copied depends on how it was saved rather than how the service is
+     * configured now.
+     *
+     * @throws GenieException on error
+     * @throws IOException    on error
+     */
+    @Test
+    public void canWriteManifestBasedOnSavedChecksums() throws GenieException, IOException {
+        final File saved = new File(this.jobDir, JobConstants.GENIE_MANIFEST_FILE_NAME);
+        final LocalJobDirectoryManifestServiceImpl checksummed = new LocalJobDirectoryManifestServiceImpl(
+            new FileSystemResource(this.folder.getRoot()),
+            1,
+            3L,
+            true
+        );
+        try {
+            // Saved without checksums before checksums on save were turned on
+            this.service.saveManifest(this.jobId);
+            final ByteArrayOutputStream walkedStream = new ByteArrayOutputStream();
+            checksummed.writeManifest(this.jobId, true, walkedStream);
+            Assert.assertThat(walkedStream.toByteArray(), Matchers.not(Files.readAllBytes(saved.toPath())));
+            final JobDirectoryManifest walked = JsonUtils
+                .getMapper()
+                .readerFor(JobDirectoryManifest.class)
+                .readValue(walkedStream.toByteArray());
+            Assert.assertTrue(walked.isChecksums());
+            Assert.assertThat(walked.getEntries().get(3).getMd5(), Matchers.is("900150983cd24fb0d6963f7d28e17f72"));
+
+            // Saved with checksums before they were turned off
+            checksummed.saveManifest(this.jobId);
+            final ByteArrayOutputStream copiedStream = new ByteArrayOutputStream();
+            this.service.writeManifest(this.jobId, true, copiedStream);
+            Assert.assertThat(copiedStream.toByteArray(), Matchers.is(Files.readAllBytes(saved.toPath())));
+        } finally {
+            checksummed.shutdown();
+        }
+    }
+
+    /**
+     * Make sure the manifest written as the directory is walked matches the one built in memory.
+     *
+     * @throws GenieException on error
+     * @throws IOException    on error
+     */
+    @Test
+    public void canStreamManifest() throws GenieException, IOException {
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        this.service.writeManifest(this.jobId, true, outputStream);
+
+        final JobDirectoryManifest streamed = JsonUtils
+            .getMapper()
+            .readerFor(JobDirectoryManifest.class)
+            .readValue(outputStream.toByteArray());
+        final JobDirectoryManifest built = this.service.getManifest(this.jobId, true);
+        Assert.assertThat(
+            JsonUtils.getMapper().writeValueAsString(streamed),
+            Matchers.is(JsonUtils.getMapper().writeValueAsString(built))
+        );
+        Assert.assertThat(streamed.getNumFiles(), Matchers.is(2));
+        Assert.assertThat(streamed.getNumDirectories(), Matchers.is(2));
+        Assert.assertThat(streamed.getTotalSize(), Matchers.is(8L));
+    }
+
+    /**
+     * Make sure a manifest is written as JSON when one hasn't been saved.
+     *
+     * @throws GenieException on error
+     * @throws IOException    on error
+     */
+    @Test
+    public void canWriteManifest() throws GenieException, IOException {
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        this.service.writeManifest(this.jobId, false, outputStream);
+
+        final JobDirectoryManifest manifest = JsonUtils
+            .getMapper()
+            .readerFor(JobDirectoryManifest.class)
+            .readValue(outputStream.toByteArray());
+        Assert.assertThat(manifest.getJobId(), Matchers.is(this.jobId));
+        Assert.assertThat(manifest.getEntries().size(), Matchers.is(4));
+    }
+}
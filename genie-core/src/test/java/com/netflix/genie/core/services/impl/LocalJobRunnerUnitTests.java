@@ -17,6 +17,7 @@
  */
 package com.netflix.genie.core.services.impl;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.google.common.collect.Lists;
 import com.netflix.genie.common.dto.Application;
 import com.netflix.genie.common.dto.ApplicationStatus;
@@ -24,11 +25,16 @@ import com.netflix.genie.common.dto.Cluster;
 import com.netflix.genie.common.dto.ClusterStatus;
 import com.netflix.genie.common.dto.Command;
 import com.netflix.genie.common.dto.CommandStatus;
+import com.netflix.genie.common.dto.JobExecution;
 import com.netflix.genie.common.dto.JobRequest;
 import com.netflix.genie.common.exceptions.GenieException;
 import com.netflix.genie.common.exceptions.GeniePreconditionException;
 import com.netflix.genie.common.exceptions.GenieServerException;
+import com.netflix.genie.common.util.JsonUtils;
+import com.netflix.genie.core.jobs.JobConstants;
+import com.netflix.genie.core.jobs.JobDirectoryLayout;
 import com.netflix.genie.core.jobs.workflow.WorkflowTask;
+import com.netflix.genie.core.jobs.workflow.impl.JobKickoffTask;
 import com.netflix.genie.core.services.ApplicationService;
 import com.netflix.genie.core.services.ClusterLoadBalancer;
 import com.netflix.genie.core.services.ClusterService;
@@ -37,20 +43,30 @@ import com.netflix.genie.core.services.JobPersistenceService;
 import com.netflix.genie.core.services.JobSearchService;
 import com.netflix.genie.core.services.JobSubmitterService;
 import com.netflix.genie.test.categories.UnitTest;
+import com.netflix.spectator.api.DefaultRegistry;
+import com.netflix.spectator.api.Id;
+import com.netflix.spectator.api.Registry;
 import org.hamcrest.Matchers;
 import org.junit.Assert;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
+import org.junit.rules.TemporaryFolder;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.io.Resource;
 
+import java.io.IOException;
+import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 
@@ -75,6 +91,12 @@ public class LocalJobRunnerUnitTests {
     private static final String COMMAND_ID = "commandid";
     private static final String COMMAND_NAME = "commandname";
 
+    /**
+     * Temporary folder for job directories.
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
     private JobPersistenceService jobPersistenceService;
     private ClusterService clusterService;
     private ClusterLoadBalancer clusterLoadBalancer;
@@ -115,7 +137,8 @@ public class LocalJobRunnerUnitTests {
             jobWorkflowTasks,
             baseWorkingDirResource,
             null,
-            0
+            0,
+            new DefaultRegistry()
         );
     }
 
@@ -303,4 +326,153 @@ public class LocalJobRunnerUnitTests {
         Assert.assertThat(applicationIds.getValue().get(1), Matchers.is(app1));
         Assert.assertThat(applicationIds.getValue().get(2), Matchers.is(app2));
     }
+
+    /**
+     * Test the time each step of the setup takes is recorded and saved in the job directory.
+     *
+     * @throws GenieException If there is any problem.
+     * @throws IOException    If the timeline can't be read.
+     */
+    @Test
+    public void testSubmitJobRecordsSetupTimeline() throws GenieException, IOException {
+        final Registry registry = new DefaultRegistry();
+        final WorkflowTask task = Mockito.mock(WorkflowTask.class);
+        final JobSubmitterService runner = new LocalJobRunner(
+            Mockito.mock(JobSearchService.class),
+            this.jobPersistenceService,
+            this.applicationService,
+            this.clusterService,
+            Mockito.mock(CommandService.class),
+            this.clusterLoadBalancer,
+            Mockito.mock(GenieFileTransferService.class),
+            Mockito.mock(ApplicationEventPublisher.class),
+            Lists.newArrayList(task),
+            new FileSystemResource(this.folder.getRoot()),
+            null,
+            0,
+            registry
+        );
+
+        final JobRequest jobRequest = new JobRequest.Builder(JOB_1_NAME, USER, VERSION, null, null, null)
+            .withId(JOB_1_ID)
+            .build();
+        final Cluster cluster = new Cluster.Builder(CLUSTER_NAME, USER, VERSION, ClusterStatus.UP)
+            .withId(CLUSTER_ID)
+            .build();
+        final Command command = new Command.Builder(COMMAND_NAME, USER, VERSION, CommandStatus.ACTIVE, "foo", 5000L)
+            .withId(COMMAND_ID)
+            .build();
+        final List<Cluster> clusterList = Lists.newArrayList(cluster);
+        Mockito.when(this.clusterService.chooseClusterForJobRequest(jobRequest)).thenReturn(clusterList);
+        Mockito.when(this.clusterLoadBalancer.selectCluster(clusterList)).thenReturn(cluster);
+        Mockito
+            .when(this.clusterService.getCommandsForCluster(Mockito.eq(CLUSTER_ID), Mockito.any()))
+            .thenReturn(Lists.newArrayList(command));
+
+        runner.submitJob(jobRequest);
+
+        final Id stepId = registry
+            .createId("genie.jobs.setup.step.timer")
+            .withTag("cluster", CLUSTER_NAME)
+            .withTag("command", COMMAND_NAME);
+        Assert.assertThat(registry.timer(stepId.withTag("step", "clusterSelection")).count(), Matchers.is(1L));
+        Assert.assertThat(registry.timer(stepId.withTag("step", "commandSelection")).count(), Matchers.is(1L));
+        Assert.assertThat(
+            registry.timer(stepId.withTag("step", task.getClass().getSimpleName())).count(),
+            Matchers.is(1L)
+        );
+        Assert.assertThat(
+            registry
+                .timer(
+                    registry
+                        .createId("genie.jobs.setup.timer")
+                        .withTag("cluster", CLUSTER_NAME)
+                        .withTag("command", COMMAND_NAME)
+                )
+                .count(),
+            Matchers.is(1L)
+        );
+
+        final JobDirectoryLayout layout = new JobDirectoryLayout(this.folder.getRoot().toPath().resolve(JOB_1_ID));
+        final JsonNode timeline = JsonUtils.getMapper().readTree(layout.getSetupTimelineFile().toFile());
+        Assert.assertTrue(timeline.has("started"));
+        Assert.assertThat(timeline.get("steps").get(0).get("name").asText(), Matchers.is("clusterSelection"));
+        Assert.assertThat(
+            timeline.get("steps").get(5).get("name").asText(),
+            Matchers.is(task.getClass().getSimpleName())
+        );
+        Assert.assertTrue(timeline.get("steps").get(0).has("duration"));
+        Assert.assertFalse(timeline.get("steps").get(0).has("durationNanos"));
+    }
+
+    /**
+     * Test the timeline is only saved once the job is launched and its execution persisted so those steps are part of
+     * it.
+     *
+     * @throws GenieException If there is any problem.
+     * @throws IOException    If the timeline can't be read.
+     */
+    @Test
+    public void testSubmitJobSavesSetupTimelineAfterLaunch() throws GenieException, IOException {
+        final JobDirectoryLayout layout = new JobDirectoryLayout(this.folder.getRoot().toPath().resolve(JOB_1_ID));
+        final JobKickoffTask kickoffTask = Mockito.mock(JobKickoffTask.class);
+        Mockito
+            .doAnswer(
+                invocation -> {
+                    Assert.assertFalse(Files.exists(layout.getSetupTimelineFile()));
+                    @SuppressWarnings("unchecked")
+                    final Map<String, Object> context = (Map<String, Object>) invocation.getArguments()[0];
+                    context.put(
+                        JobConstants.JOB_EXECUTION_DTO_KEY,
+                        new JobExecution.Builder("localhost", 1, 5000L, new Date()).withId(JOB_1_ID).build()
+                    );
+                    return null;
+                }
+            )
+            .when(kickoffTask)
+            .executeTask(Mockito.anyMapOf(String.class, Object.class));
+        final JobSubmitterService runner = new LocalJobRunner(
+            Mockito.mock(JobSearchService.class),
+            this.jobPersistenceService,
+            this.applicationService,
+            this.clusterService,
+            Mockito.mock(CommandService.class),
+            this.clusterLoadBalancer,
+            Mockito.mock(GenieFileTransferService.class),
+            Mockito.mock(ApplicationEventPublisher.class),
+            Lists.newArrayList(kickoffTask),
+            new FileSystemResource(this.folder.getRoot()),
+            null,
+            0,
+            new DefaultRegistry()
+        );
+
+        final JobRequest jobRequest = new JobRequest.Builder(JOB_1_NAME, USER, VERSION, null, null, null)
+            .withId(JOB_1_ID)
+            .build();
+        final Cluster cluster = new Cluster.Builder(CLUSTER_NAME, USER, VERSION, ClusterStatus.UP)
+            .withId(CLUSTER_ID)
+            .build();
+        final Command command = new Command.Builder(COMMAND_NAME, USER, VERSION, CommandStatus.ACTIVE, "foo", 5000L)
+            .withId(COMMAND_ID)
+            .build();
+        final List<Cluster> clusterList = Lists.newArrayList(cluster);
+        Mockito.when(this.clusterService.chooseClusterForJobRequest(jobRequest)).thenReturn(clusterList);
+        Mockito.when(this.clusterLoadBalancer.selectCluster(clusterList)).thenReturn(cluster);
+        Mockito
+            .when(this.clusterService.getCommandsForCluster(Mockito.eq(CLUSTER_ID), Mockito.any()))
+            .thenReturn(Lists.newArrayList(command));
+
+        runner.submitJob(jobRequest);
+
+        Mockito.verify(kickoffTask, Mockito.times(1)).executeTask(Mockito.anyMapOf(String.class, Object.class));
+        Assert.assertThat(layout.getSetupTimelineFile().getParent(), Matchers.is(layout.getLogsDirectory()));
+        final JsonNode timeline = JsonUtils.getMapper().readTree(layout.getSetupTimelineFile().toFile());
+        Assert.assertThat(timeline.get("steps").size(), Matchers.is(7));
+        Assert.assertThat(
+            timeline.get("steps").get(5).get("name").asText(),
+            Matchers.is(kickoffTask.getClass().getSimpleName())
+        );
+        Assert.assertThat(timeline.get("steps").get(6).get("name").asText(), Matchers.is("jobExecutionPersistence"));
+    }
 }
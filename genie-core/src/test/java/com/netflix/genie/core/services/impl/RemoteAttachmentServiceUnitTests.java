@@ -0,0 +1,202 @@
+/*
+ *
+ *  Copyright 2016 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.core.services.impl;
+
+import com.google.common.collect.Lists;
+import com.netflix.genie.common.exceptions.GenieConflictException;
+import com.netflix.genie.common.exceptions.GenieException;
+import com.netflix.genie.test.categories.UnitTest;
+import com.netflix.spectator.api.DefaultRegistry;
+import com.netflix.spectator.api.Registry;
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.UUID;
+
+/**
+ * Tests for the remote implementation of the attachment service. A local directory stands in for the remote
+ * location.
+ *
+ * @author agent
+ * @since 3.0.0
+ */
+@Category(UnitTest.class)
+public class RemoteAttachmentServiceUnitTests {
+
+    private static final byte[] SMALL = "select 1;".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] LARGE = "select * from table where id > 100;".getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * Creates a temporary folder to use for these tests that is cleaned up after tests are run.
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File remote;
+    private File local;
+    private GenieFileTransferService fileTransferService;
+    private Registry registry;
+
+    /**
+     * Setup for tests.
+     *
+     * @throws GenieException on error
+     * @throws IOException    on error
+     */
+    @Before
+    public void setup() throws GenieException, IOException {
+        this.remote = this.folder.newFolder();
+        this.local = this.folder.newFolder();
+        this.fileTransferService = new GenieFileTransferService(
+            Lists.newArrayList(new LocalFileTransferImpl()),
+            new DefaultRegistry()
+        );
+        this.registry = new DefaultRegistry();
+    }
+
+    /**
+     * Make sure attachments are stored remotely and fetched into the destination.
+     *
+     * @throws GenieException on error
+     * @throws IOException    on error
+     */
+    @Test
+    public void canStoreAttachmentsRemotely() throws GenieException, IOException {
+        final RemoteAttachmentService service = this.getService(0);
+        final String jobId = UUID.randomUUID().toString();
+        service.save(jobId, "small.sql", new ByteArrayInputStream(SMALL));
+        service.save(jobId, "large.sql", new ByteArrayInputStream(LARGE));
+
+        Assert.assertArrayEquals(SMALL, Files.readAllBytes(this.remote.toPath().resolve(jobId + "/files/small.sql")));
+        Assert.assertArrayEquals(LARGE, Files.readAllBytes(this.remote.toPath().resolve(jobId + "/files/large.sql")));
+        Assert.assertFalse(new File(this.local, jobId).exists());
+
+        final File destination = new File(this.folder.getRoot(), UUID.randomUUID().toString());
+        service.copy(jobId, destination);
+        Assert.assertArrayEquals(SMALL, Files.readAllBytes(destination.toPath().resolve("small.sql")));
+        Assert.assertArrayEquals(LARGE, Files.readAllBytes(destination.toPath().resolve("large.sql")));
+        Assert.assertThat(this.registry.counter("genie.jobs.attachments.remote.rate").count(), Matchers.is(2L));
+    }
+
+    /**
+     * Make sure attachments smaller than the inline threshold are kept locally.
+     *
+     * @throws GenieException on error
+     * @throws IOException    on error
+     */
+    @Test
+    public void canKeepSmallAttachmentsLocally() throws GenieException, IOException {
+        final RemoteAttachmentService service = this.getService(LARGE.length);
+        final String jobId = UUID.randomUUID().toString();
+        service.save(jobId, "small.sql", new ByteArrayInputStream(SMALL));
+        service.save(jobId, "large.sql", new ByteArrayInputStream(LARGE));
+
+        Assert.assertTrue(new File(this.local, jobId + "/small.sql").exists());
+        Assert.assertFalse(new File(this.remote, jobId + "/files/small.sql").exists());
+        Assert.assertTrue(new File(this.remote, jobId + "/files/large.sql").exists());
+
+        final File destination = this.folder.newFolder();
+        service.copy(jobId, destination);
+        Assert.assertArrayEquals(SMALL, Files.readAllBytes(destination.toPath().resolve("small.sql")));
+        Assert.assertArrayEquals(LARGE, Files.readAllBytes(destination.toPath().resolve("large.sql")));
+
+        service.delete(jobId);
+        Assert.assertFalse(new File(this.local, jobId).exists());
+        Assert.assertThat(
+            this.registry.counter("genie.jobs.attachments.inline.bytes").count(),
+            Matchers.is((long) SMALL.length)
+        );
+    }
+
+    /**
+     * Make sure attachments saved for a job by another node, or after the job was cleaned up locally, are added to the
+     * existing remote index rather than replacing it.
+     *
+     * @throws GenieException on error
+     * @throws IOException    on error
+     */
+    @Test
+    public void canAddToExistingRemoteIndex() throws GenieException, IOException {
+        final String jobId = UUID.randomUUID().toString();
+        final RemoteAttachmentService service = this.getService(0);
+        service.save(jobId, "small.sql", new ByteArrayInputStream(SMALL));
+        service.delete(jobId);
+        this.getService(0).save(jobId, "large.sql", new ByteArrayInputStream(LARGE));
+
+        final File destination = this.folder.newFolder();
+        service.copy(jobId, destination);
+        Assert.assertArrayEquals(SMALL, Files.readAllBytes(destination.toPath().resolve("small.sql")));
+        Assert.assertArrayEquals(LARGE, Files.readAllBytes(destination.toPath().resolve("large.sql")));
+    }
+
+    /**
+     * Make sure a second remote attachment with the same name is rejected rather than overwriting the first.
+     *
+     * @throws GenieException on error
+     * @throws IOException    on error
+     */
+    @Test
+    public void cantOverwriteRemoteAttachment() throws GenieException, IOException {
+        final RemoteAttachmentService service = this.getService(0);
+        final String jobId = UUID.randomUUID().toString();
+        service.save(jobId, "query.sql", new ByteArrayInputStream(SMALL));
+        try {
+            service.save(jobId, "query.sql", new ByteArrayInputStream(LARGE));
+            Assert.fail();
+        } catch (final GenieConflictException gce) {
+            Assert.assertArrayEquals(
+                SMALL,
+                Files.readAllBytes(this.remote.toPath().resolve(jobId + "/files/query.sql"))
+            );
+        }
+        Assert.assertFalse(new File(this.remote, jobId + "/index/1").exists());
+    }
+
+    /**
+     * Make sure copying the attachments of a job without any does nothing.
+     *
+     * @throws GenieException on error
+     * @throws IOException    on error
+     */
+    @Test
+    public void canCopyWithoutAttachments() throws GenieException, IOException {
+        final File destination = this.folder.newFolder();
+        this.getService(0).copy(UUID.randomUUID().toString(), destination);
+        Assert.assertThat(destination.list().length, Matchers.is(0));
+    }
+
+    private RemoteAttachmentService getService(final int inlineThreshold) {
+        return new RemoteAttachmentService(
+            this.fileTransferService,
+            this.remote.getAbsolutePath() + "/",
+            new FileSystemAttachmentService(this.local.getAbsolutePath()),
+            inlineThreshold,
+            this.registry
+        );
+    }
+}
@@ -18,21 +18,48 @@
 package com.netflix.genie.core.services.impl;
 
 import com.amazonaws.services.s3.AmazonS3Client;
+import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
 import com.amazonaws.services.s3.model.AmazonS3Exception;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
 import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadResult;
 import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PartETag;
+import com.amazonaws.services.s3.model.PutObjectRequest;
 import com.amazonaws.services.s3.model.PutObjectResult;
+import com.amazonaws.services.s3.model.S3Object;
+import com.amazonaws.services.s3.model.S3ObjectInputStream;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+import com.amazonaws.services.s3.model.UploadPartResult;
+import com.google.common.hash.Hashing;
 import com.netflix.genie.common.exceptions.GenieException;
 import com.netflix.genie.common.exceptions.GenieServerException;
+import com.netflix.genie.core.services.FileMetadata;
 import com.netflix.genie.test.categories.UnitTest;
+import com.netflix.spectator.api.DefaultRegistry;
+import com.netflix.spectator.api.Registry;
+import org.hamcrest.Matchers;
 import org.junit.Assert;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
+import org.junit.rules.TemporaryFolder;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
 /**
  * Class to test the S3FileTransferImpl class.
@@ -51,6 +78,16 @@ public class S3FileTransferImplUnitTests {
         + "/"
         + S3_KEY;
     private static final String LOCAL_PATH = "local";
+    private static final String S3_NESTED_KEY = "dir/key";
+    private static final String S3_NESTED_PATH = S3_PREFIX + S3_BUCKET + "/" + S3_NESTED_KEY;
+    private static final byte[] CONTENT = "0123456789".getBytes(StandardCharsets.UTF_8);
+    private static final String E_TAG = "etag";
+
+    /**
+     * Temporary folder for files transferred in parts.
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
 
     private S3FileTransferImpl s3FileTransfer;
     private AmazonS3Client s3Client;
@@ -183,4 +220,365 @@ public class S3FileTransferImplUnitTests {
             .thenThrow(AmazonS3Exception.class);
         s3FileTransfer.getFile(LOCAL_PATH, S3_PATH);
     }
+
+    /**
+     * Test the size of an object comes from its metadata.
+     *
+     * @throws GenieException If there is any problem
+     */
+    @Test
+    public void testGetFileSize() throws GenieException {
+        final ObjectMetadata objectMetadata = Mockito.mock(ObjectMetadata.class);
+        Mockito.when(objectMetadata.getContentLength()).thenReturn(1234L);
+        Mockito.when(this.s3Client.getObjectMetadata(S3_BUCKET, S3_NESTED_KEY)).thenReturn(objectMetadata);
+
+        Assert.assertEquals(1234L, s3FileTransfer.getFileSize(S3_NESTED_PATH));
+    }
+
+    /**
+     * Test the getFileSize method for invalid s3 path.
+     *
+     * @throws GenieException If there is any problem
+     */
+    @Test(expected = GenieServerException.class)
+    public void testGetFileSizeInvalidS3Path() throws GenieException {
+        s3FileTransfer.getFileSize("filepath");
+    }
+
+    /**
+     * Test a range of an object is fetched with a single ranged GET.
+     *
+     * @throws GenieException If there is any problem
+     */
+    @Test
+    public void testGetFileRange() throws GenieException {
+        final S3Object s3Object = Mockito.mock(S3Object.class);
+        final S3ObjectInputStream content = Mockito.mock(S3ObjectInputStream.class);
+        Mockito.when(s3Object.getObjectContent()).thenReturn(content);
+        Mockito.when(this.s3Client.getObject(Mockito.any(GetObjectRequest.class))).thenReturn(s3Object);
+        final ArgumentCaptor<GetObjectRequest> argument = ArgumentCaptor.forClass(GetObjectRequest.class);
+
+        Assert.assertTrue(s3FileTransfer.isRangeSupported());
+        Assert.assertEquals(content, s3FileTransfer.getFileRange(S3_NESTED_PATH, 100L, 50L));
+        Mockito.verify(this.s3Client).getObject(argument.capture());
+        Assert.assertEquals(S3_BUCKET, argument.getValue().getBucketName());
+        Assert.assertEquals(S3_NESTED_KEY, argument.getValue().getKey());
+        Assert.assertArrayEquals(new long[]{100L, 149L}, argument.getValue().getRange());
+    }
+
+    /**
+     * Test the getFileRange method when the object can't be fetched.
+     *
+     * @throws GenieException If there is any problem
+     */
+    @Test(expected = GenieServerException.class)
+    public void testGetFileRangeFailureToFetch() throws GenieException {
+        Mockito.when(this.s3Client.getObject(Mockito.any(GetObjectRequest.class)))
+            .thenThrow(AmazonS3Exception.class);
+        s3FileTransfer.getFileRange(S3_NESTED_PATH, 0L, 10L);
+    }
+
+    /**
+     * Test large objects are downloaded with ranged GETs of the same version of the object.
+     *
+     * @throws GenieException If there is any problem
+     * @throws IOException    If there is any problem
+     */
+    @Test
+    public void testGetFileInParts() throws GenieException, IOException {
+        final Registry registry = new DefaultRegistry();
+        final S3FileTransferImpl transfer = new S3FileTransferImpl(this.s3Client, registry, 4L, 2);
+        this.mockObjectMetadata();
+        Mockito.when(this.s3Client.getObject(Mockito.any(GetObjectRequest.class))).thenAnswer(
+            invocation -> {
+                final long[] range = ((GetObjectRequest) invocation.getArguments()[0]).getRange();
+                final S3Object part = new S3Object();
+                part.setObjectContent(
+                    new ByteArrayInputStream(CONTENT, (int) range[0], (int) (range[1] - range[0] + 1))
+                );
+                return part;
+            }
+        );
+        final Path destination = this.folder.getRoot().toPath().resolve("download");
+
+        transfer.getFile(S3_NESTED_PATH, destination.toString());
+
+        Assert.assertArrayEquals(CONTENT, Files.readAllBytes(destination));
+        final ArgumentCaptor<GetObjectRequest> argument = ArgumentCaptor.forClass(GetObjectRequest.class);
+        Mockito.verify(this.s3Client, Mockito.times(3)).getObject(argument.capture());
+        final List<Long> starts = argument
+            .getAllValues()
+            .stream()
+            .map(request -> request.getRange()[0])
+            .sorted()
+            .collect(Collectors.toList());
+        Assert.assertThat(starts, Matchers.contains(0L, 4L, 8L));
+        for (final GetObjectRequest request : argument.getAllValues()) {
+            Assert.assertThat(request.getMatchingETagConstraints(), Matchers.contains(E_TAG));
+        }
+        Assert.assertEquals(CONTENT.length, registry.counter("genie.files.s3.download.bytes").count());
+    }
+
+    /**
+     * Test a partial download is removed if the object changes while it's downloaded.
+     *
+     * @throws GenieException If there is any problem
+     */
+    @Test
+    public void testGetFileInPartsObjectChanged() throws GenieException {
+        final Registry registry = new DefaultRegistry();
+        final S3FileTransferImpl transfer = new S3FileTransferImpl(this.s3Client, registry, 4L, 2);
+        this.mockObjectMetadata();
+        Mockito.when(this.s3Client.getObject(Mockito.any(GetObjectRequest.class))).thenReturn(null);
+        final Path destination = this.folder.getRoot().toPath().resolve("download");
+
+        try {
+            transfer.getFile(S3_NESTED_PATH, destination.toString());
+            Assert.fail();
+        } catch (final GenieServerException gse) {
+            Assert.assertFalse(Files.exists(destination));
+            Assert.assertEquals(1L, registry.counter("genie.files.s3.download.failure.rate").count());
+        }
+    }
+
+    /**
+     * Test large files are uploaded with a multipart upload.
+     *
+     * @throws GenieException If there is any problem
+     * @throws IOException    If there is any problem
+     */
+    @Test
+    public void testPutFileInParts() throws GenieException, IOException {
+        final Registry registry = new DefaultRegistry();
+        final S3FileTransferImpl transfer = new S3FileTransferImpl(this.s3Client, registry, 4L, 2);
+        final File source = this.folder.newFile("upload");
+        Files.write(source.toPath(), CONTENT);
+        this.mockInitiateMultipartUpload();
+        Mockito.when(this.s3Client.uploadPart(Mockito.any(UploadPartRequest.class))).thenAnswer(
+            invocation -> {
+                final UploadPartRequest request = (UploadPartRequest) invocation.getArguments()[0];
+                final UploadPartResult result = new UploadPartResult();
+                result.setPartNumber(request.getPartNumber());
+                result.setETag("etag" + request.getPartNumber());
+                return result;
+            }
+        );
+
+        transfer.putFile(source.getAbsolutePath(), S3_NESTED_PATH);
+
+        final ArgumentCaptor<UploadPartRequest> parts = ArgumentCaptor.forClass(UploadPartRequest.class);
+        Mockito.verify(this.s3Client, Mockito.times(3)).uploadPart(parts.capture());
+        final List<Long> sizes = parts
+            .getAllValues()
+            .stream()
+            .sorted((one, two) -> Integer.compare(one.getPartNumber(), two.getPartNumber()))
+            .map(UploadPartRequest::getPartSize)
+            .collect(Collectors.toList());
+        Assert.assertThat(sizes, Matchers.contains(4L, 4L, 2L));
+
+        final ArgumentCaptor<CompleteMultipartUploadRequest> complete
+            = ArgumentCaptor.forClass(CompleteMultipartUploadRequest.class);
+        Mockito.verify(this.s3Client).completeMultipartUpload(complete.capture());
+        Assert.assertEquals("uploadId", complete.getValue().getUploadId());
+        Assert.assertThat(
+            complete.getValue().getPartETags().stream().map(PartETag::getETag).collect(Collectors.toList()),
+            Matchers.is(Arrays.asList("etag1", "etag2", "etag3"))
+        );
+        Mockito.verify(this.s3Client, Mockito.never()).abortMultipartUpload(Mockito.any());
+        Assert.assertEquals(CONTENT.length, registry.counter("genie.files.s3.upload.bytes").count());
+    }
+
+    /**
+     * Test a multipart upload is aborted if a part can't be uploaded.
+     *
+     * @throws GenieException If there is any problem
+     * @throws IOException    If there is any problem
+     */
+    @Test(expected = GenieServerException.class)
+    public void testPutFileInPartsAbortsOnFailure() throws GenieException, IOException {
+        final S3FileTransferImpl transfer = new S3FileTransferImpl(this.s3Client, new DefaultRegistry(), 4L, 2);
+        final File source = this.folder.newFile("upload");
+        Files.write(source.toPath(), CONTENT);
+        this.mockInitiateMultipartUpload();
+        Mockito.when(this.s3Client.uploadPart(Mockito.any(UploadPartRequest.class)))
+            .thenThrow(AmazonS3Exception.class);
+
+        try {
+            transfer.putFile(source.getAbsolutePath(), S3_NESTED_PATH);
+        } finally {
+            Mockito.verify(this.s3Client).abortMultipartUpload(Mockito.any(AbortMultipartUploadRequest.class));
+            Mockito.verify(this.s3Client, Mockito.never()).completeMultipartUpload(Mockito.any());
+        }
+    }
+
+    private void mockObjectMetadata() {
+        final ObjectMetadata objectMetadata = Mockito.mock(ObjectMetadata.class);
+        Mockito.when(objectMetadata.getContentLength()).thenReturn((long) CONTENT.length);
+        Mockito.when(objectMetadata.getETag()).thenReturn(E_TAG);
+        Mockito.when(this.s3Client.getObjectMetadata(S3_BUCKET, S3_NESTED_KEY)).thenReturn(objectMetadata);
+    }
+
+    private void mockInitiateMultipartUpload() {
+        final InitiateMultipartUploadResult initiated = new InitiateMultipartUploadResult();
+        initiated.setUploadId("uploadId");
+        Mockito.when(this.s3Client.initiateMultipartUpload(Mockito.any(InitiateMultipartUploadRequest.class)))
+            .thenReturn(initiated);
+    }
+
+    /**
+     * Test the metadata of an object comes from S3.
+     *
+     * @throws GenieException If there is any problem
+     */
+    @Test
+    public void testGetFileMetadata() throws GenieException {
+        this.mockObjectMetadata();
+        final FileMetadata metadata = s3FileTransfer.getFileMetadata(S3_NESTED_PATH);
+        Assert.assertEquals(CONTENT.length, metadata.getSize());
+        Assert.assertEquals(E_TAG, metadata.getETag());
+    }
+
+    /**
+     * Test a stream which fits in one part is uploaded with a single request.
+     *
+     * @throws GenieException If there is any problem
+     */
+    @Test
+    public void testPutFileFromChannelSinglePart() throws GenieException {
+        final S3FileTransferImpl transfer = new S3FileTransferImpl(this.s3Client, new DefaultRegistry(), 16L, 2);
+
+        transfer.putFile(Channels.newChannel(new ByteArrayInputStream(CONTENT)), S3_NESTED_PATH);
+
+        final ArgumentCaptor<PutObjectRequest> argument = ArgumentCaptor.forClass(PutObjectRequest.class);
+        Mockito.verify(this.s3Client).putObject(argument.capture());
+        Assert.assertEquals(S3_NESTED_KEY, argument.getValue().getKey());
+        Assert.assertEquals(CONTENT.length, argument.getValue().getMetadata().getContentLength());
+        Mockito.verify(this.s3Client, Mockito.never()).initiateMultipartUpload(Mockito.any());
+    }
+
+    /**
+     * Test a stream larger than a part is uploaded with a multipart upload.
+     *
+     * @throws GenieException If there is any problem
+     */
+    @Test
+    public void testPutFileFromChannelInParts() throws GenieException {
+        final Registry registry = new DefaultRegistry();
+        final S3FileTransferImpl transfer = new S3FileTransferImpl(this.s3Client, registry, 4L, 1);
+        this.mockInitiateMultipartUpload();
+        Mockito.when(this.s3Client.uploadPart(Mockito.any(UploadPartRequest.class))).thenAnswer(
+            invocation -> {
+                final UploadPartRequest request = (UploadPartRequest) invocation.getArguments()[0];
+                final UploadPartResult result = new UploadPartResult();
+                result.setPartNumber(request.getPartNumber());
+                result.setETag("etag" + request.getPartNumber());
+                return result;
+            }
+        );
+
+        transfer.putFile(Channels.newChannel(new ByteArrayInputStream(CONTENT)), S3_NESTED_PATH);
+
+        final ArgumentCaptor<UploadPartRequest> parts = ArgumentCaptor.forClass(UploadPartRequest.class);
+        Mockito.verify(this.s3Client, Mockito.times(3)).uploadPart(parts.capture());
+        Assert.assertThat(
+            parts.getAllValues().stream().map(UploadPartRequest::getPartSize).collect(Collectors.toList()),
+            Matchers.contains(4L, 4L, 2L)
+        );
+        final ArgumentCaptor<CompleteMultipartUploadRequest> complete
+            = ArgumentCaptor.forClass(CompleteMultipartUploadRequest.class);
+        Mockito.verify(this.s3Client).completeMultipartUpload(complete.capture());
+        Assert.assertThat(complete.getValue().getPartETags().size(), Matchers.is(3));
+        Assert.assertEquals(CONTENT.length, registry.counter("genie.files.s3.upload.bytes").count());
+    }
+
+    /**
+     * Test the buffers of a failed upload from a stream are given back so later uploads don't wait forever.
+     *
+     * @throws GenieException If there is any problem
+     */
+    @Test(timeout = 10000L)
+    public void testPutFileFromChannelReleasesBuffersOnFailure() throws GenieException {
+        final S3FileTransferImpl transfer = new S3FileTransferImpl(this.s3Client, new DefaultRegistry(), 4L, 1);
+        this.mockInitiateMultipartUpload();
+        Mockito.when(this.s3Client.uploadPart(Mockito.any(UploadPartRequest.class)))
+            .thenThrow(AmazonS3Exception.class);
+
+        try {
+            transfer.putFile(Channels.newChannel(new ByteArrayInputStream(CONTENT)), S3_NESTED_PATH);
+            Assert.fail("Expected the upload to fail");
+        } catch (final GenieServerException gse) {
+            Mockito.verify(this.s3Client).abortMultipartUpload(Mockito.any(AbortMultipartUploadRequest.class));
+        }
+
+        Mockito.reset(this.s3Client);
+        this.mockInitiateMultipartUpload();
+        Mockito.when(this.s3Client.uploadPart(Mockito.any(UploadPartRequest.class))).thenAnswer(
+            invocation -> {
+                final UploadPartRequest request = (UploadPartRequest) invocation.getArguments()[0];
+                final UploadPartResult result = new UploadPartResult();
+                result.setPartNumber(request.getPartNumber());
+                result.setETag("etag" + request.getPartNumber());
+                return result;
+            }
+        );
+        transfer.putFile(Channels.newChannel(new ByteArrayInputStream(CONTENT)), S3_NESTED_PATH);
+        Mockito.verify(this.s3Client, Mockito.times(3)).uploadPart(Mockito.any(UploadPartRequest.class));
+        Mockito.verify(this.s3Client).completeMultipartUpload(Mockito.any());
+    }
+
+    /**
+     * Test an object with the given ETag isn't downloaded again.
+     *
+     * @throws GenieException If there is any problem
+     */
+    @Test
+    public void testGetFileIfModifiedNotModified() throws GenieException {
+        final Registry registry = new DefaultRegistry();
+        final S3FileTransferImpl transfer = new S3FileTransferImpl(this.s3Client, registry, 16L, 2);
+        this.mockObjectMetadata();
+        final Path destination = this.folder.getRoot().toPath().resolve("download");
+
+        Assert.assertNull(transfer.getFileIfModified(S3_NESTED_PATH, destination.toString(), E_TAG));
+        Assert.assertFalse(Files.exists(destination));
+        Mockito
+            .verify(this.s3Client, Mockito.never())
+            .getObject(Mockito.any(GetObjectRequest.class), Mockito.any(File.class));
+        Assert.assertEquals(1L, registry.counter("genie.files.s3.download.notModified.rate").count());
+    }
+
+    /**
+     * Test a download which doesn't match the MD5 in the ETag is retried.
+     *
+     * @throws GenieException If there is any problem
+     * @throws IOException    If there is any problem
+     */
+    @Test
+    public void testGetFileIfModifiedRetriesCorruptedDownload() throws GenieException, IOException {
+        final Registry registry = new DefaultRegistry();
+        final S3FileTransferImpl transfer = new S3FileTransferImpl(this.s3Client, registry, 16L, 2);
+        final String md5 = Hashing.md5().hashBytes(CONTENT).toString();
+        final ObjectMetadata objectMetadata = Mockito.mock(ObjectMetadata.class);
+        Mockito.when(objectMetadata.getContentLength()).thenReturn((long) CONTENT.length);
+        Mockito.when(objectMetadata.getETag()).thenReturn(md5);
+        Mockito.when(this.s3Client.getObjectMetadata(S3_BUCKET, S3_NESTED_KEY)).thenReturn(objectMetadata);
+        final byte[] corrupted = "0123456780".getBytes(StandardCharsets.UTF_8);
+        final AtomicInteger attempts = new AtomicInteger();
+        Mockito
+            .when(this.s3Client.getObject(Mockito.any(GetObjectRequest.class), Mockito.any(File.class)))
+            .thenAnswer(
+                invocation -> {
+                    final File file = (File) invocation.getArguments()[1];
+                    Files.write(file.toPath(), attempts.getAndIncrement() == 0 ? corrupted : CONTENT);
+                    return objectMetadata;
+                }
+            );
+        final Path destination = this.folder.getRoot().toPath().resolve("download");
+
+        final FileMetadata metadata = transfer.getFileIfModified(S3_NESTED_PATH, destination.toString(), E_TAG);
+
+        Assert.assertEquals(md5, metadata.getETag());
+        Assert.assertArrayEquals(CONTENT, Files.readAllBytes(destination));
+        Assert.assertEquals(2, attempts.get());
+        Assert.assertEquals(1L, registry.counter("genie.files.s3.download.corrupted.rate").count());
+    }
 }
@@ -0,0 +1,125 @@
+/*
+ *
+ *  Copyright 2016 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.core.util;
+
+import com.netflix.genie.test.categories.UnitTest;
+import com.netflix.spectator.api.DefaultRegistry;
+import com.netflix.spectator.api.Registry;
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFilePermissions;
+
+/**
+ * Unit tests for the LocalFileCopier class.
+ *
+ * @author agent
+ * @since 3.0.0
+ */
+@Category(UnitTest.class)
+public class LocalFileCopierUnitTests {
+
+    private static final byte[] CONTENT = {1, 2, 3, 4, 5};
+
+    /**
+     * Temporary folder for the files to link and copy.
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Registry registry;
+    private LocalFileCopier copier;
+
+    /**
+     * Setup for the tests.
+     */
+    @Before
+    public void setup() {
+        this.registry = new DefaultRegistry();
+        this.copier = new LocalFileCopier(this.registry);
+    }
+
+    /**
+     * Make sure a file on the same file system is linked, replacing an existing destination.
+     *
+     * @throws IOException on error
+     */
+    @Test
+    public void canLink() throws IOException {
+        final Path source = this.folder.newFile().toPath();
+        Files.write(source, CONTENT);
+        final Path destination = this.folder.newFile().toPath();
+
+        this.copier.link(source, destination);
+
+        Assert.assertTrue(Files.isSameFile(source, destination));
+        Assert.assertEquals(CONTENT.length, this.registry.counter("genie.files.local.linked.bytes").count());
+        Assert.assertEquals(0L, this.registry.counter("genie.files.local.copied.bytes").count());
+    }
+
+    /**
+     * Make sure a copy has the contents, modification time and permissions of the source.
+     *
+     * @throws IOException on error
+     */
+    @Test
+    public void canCopy() throws IOException {
+        final Path source = this.folder.newFile().toPath();
+        Files.write(source, CONTENT);
+        Files.setPosixFilePermissions(source, PosixFilePermissions.fromString("rwxr-x---"));
+        Files.setLastModifiedTime(source, FileTime.fromMillis(1460000000000L));
+        final Path destination = this.folder.getRoot().toPath().resolve("copy");
+
+        this.copier.copy(source, destination);
+
+        Assert.assertFalse(Files.isSameFile(source, destination));
+        Assert.assertArrayEquals(CONTENT, Files.readAllBytes(destination));
+        Assert.assertThat(Files.getLastModifiedTime(destination), Matchers.is(Files.getLastModifiedTime(source)));
+        Assert.assertThat(
+            Files.getPosixFilePermissions(destination),
+            Matchers.is(Files.getPosixFilePermissions(source))
+        );
+        Assert.assertEquals(CONTENT.length, this.registry.counter("genie.files.local.copied.bytes").count());
+    }
+
+    /**
+     * Make sure every file in a directory tree is linked into the destination.
+     *
+     * @throws IOException on error
+     */
+    @Test
+    public void canLinkDirectory() throws IOException {
+        final Path source = this.folder.newFolder().toPath();
+        final Path file = Files.createDirectories(source.resolve("dir")).resolve("file");
+        Files.write(file, CONTENT);
+        final Path destination = this.folder.getRoot().toPath().resolve("linked");
+
+        this.copier.linkDirectory(source, destination);
+
+        Assert.assertTrue(Files.isSameFile(file, destination.resolve("dir").resolve("file")));
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ *
+ *  Copyright 2016 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.core.util;
+
+import com.google.common.collect.Lists;
+import com.google.common.io.ByteStreams;
+import com.netflix.genie.test.categories.UnitTest;
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Tests for ZipIndex.
+ *
+ * @author agent
+ * @since 3.0.0
+ */
+@Category(UnitTest.class)
+public class ZipIndexUnitTests {
+
+    /**
+     * Temporary folder for the archives.
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private List<long[]> reads;
+
+    /**
+     * Setup for the tests.
+     */
+    @Before
+    public void setup() {
+        this.reads = Lists.newArrayList();
+    }
+
+    /**
+     * Make sure the index of an archive can be read and single members read from it.
+     *
+     * @throws IOException on error
+     */
+    @Test
+    public void canReadIndexAndMembers() throws IOException {
+        final File source = this.folder.newFolder("job");
+        final File logs = new File(source, "genie/logs");
+        Assert.assertTrue(logs.mkdirs());
+        final String log = UUID.randomUUID().toString();
+        Files.write(new File(logs, "genie.log").toPath(), log.getBytes(StandardCharsets.UTF_8));
+        final StringBuilder stdout = new StringBuilder();
+        for (int i = 0; i < 10000; i++) {
+            stdout.append(i).append('\n');
+        }
+        Files.write(new File(source, "stdout").toPath(), stdout.toString().getBytes(StandardCharsets.UTF_8));
+        final Path archive = this.folder.getRoot().toPath().resolve("job.zip");
+        ZipUtil.zipDirectory(source.toPath(), archive);
+
+        final ZipIndex.RangeReader reader = this.getReader(archive);
+        final ZipIndex index = ZipIndex.read(Files.size(archive), reader);
+        Assert.assertThat(this.reads, Matchers.hasSize(1));
+
+        Assert.assertThat(
+            index.getEntries().stream().map(ZipIndex.Entry::getName).sorted().collect(Collectors.toList()),
+            Matchers.contains("genie/", "genie/logs/", "genie/logs/genie.log", "stdout")
+        );
+        Assert.assertTrue(index.getEntry("genie/logs").isDirectory());
+        Assert.assertTrue(index.getEntry("/genie/logs/").isDirectory());
+        Assert.assertNull(index.getEntry("stderr"));
+
+        final ZipIndex.Entry stdoutEntry = index.getEntry("stdout");
+        Assert.assertFalse(stdoutEntry.isDirectory());
+        Assert.assertThat(stdoutEntry.getSize(), Matchers.is((long) stdout.length()));
+        Assert.assertThat(stdoutEntry.getCompressedSize(), Matchers.lessThan(stdoutEntry.getSize()));
+        Assert.assertThat(stdoutEntry.getMethod(), Matchers.is(ZipEntry.DEFLATED));
+        Assert.assertTrue(stdoutEntry.getLastModified() > 0);
+
+        // Trailer is everything from the central directory on
+        Assert.assertThat(
+            index.getTrailerOffset() + index.getTrailer().remaining(),
+            Matchers.is(Files.size(archive))
+        );
+
+        this.reads.clear();
+        try (final InputStream inputStream = ZipIndex.getInputStream(stdoutEntry, reader)) {
+            Assert.assertThat(
+                new String(ByteStreams.toByteArray(inputStream), StandardCharsets.UTF_8),
+                Matchers.is(stdout.toString())
+            );
+        }
+        Assert.assertThat(this.reads, Matchers.hasSize(1));
+        Assert.assertThat(this.reads.get(0)[0], Matchers.is(stdoutEntry.getLocalHeaderOffset()));
+        Assert.assertThat(this.reads.get(0)[1], Matchers.is(stdoutEntry.getMemberLength()));
+
+        try (final InputStream inputStream = ZipIndex.getInputStream(index.getEntry("genie/logs/genie.log"), reader)) {
+            Assert.assertThat(
+                new String(ByteStreams.toByteArray(inputStream), StandardCharsets.UTF_8),
+                Matchers.is(log)
+            );
+        }
+    }
+
+    /**
+     * Make sure stored members can be read.
+     *
+     * @throws IOException on error
+     */
+    @Test
+    public void canReadStoredMember() throws IOException {
+        final byte[] contents = UUID.randomUUID().toString().getBytes(StandardCharsets.UTF_8);
+        final CRC32 crc = new CRC32();
+        crc.update(contents);
+        final Path archive = this.folder.getRoot().toPath().resolve("stored.zip");
+        try (
+            final OutputStream outputStream = Files.newOutputStream(archive);
+            final ZipOutputStream zipOutputStream = new ZipOutputStream(outputStream)
+        ) {
+            final ZipEntry entry = new ZipEntry("stored.txt");
+            entry.setMethod(ZipEntry.STORED);
+            entry.setSize(contents.length);
+            entry.setCompressedSize(contents.length);
+            entry.setCrc(crc.getValue());
+            zipOutputStream.putNextEntry(entry);
+            zipOutputStream.write(contents);
+            zipOutputStream.closeEntry();
+            zipOutputStream.setComment(UUID.randomUUID().toString());
+        }
+
+        final ZipIndex.RangeReader reader = this.getReader(archive);
+        final ZipIndex index = ZipIndex.read(Files.size(archive), reader);
+        final ZipIndex.Entry entry = index.getEntry("stored.txt");
+        Assert.assertThat(entry.getMethod(), Matchers.is(ZipEntry.STORED));
+        try (final InputStream inputStream = ZipIndex.getInputStream(entry, reader)) {
+            Assert.assertArrayEquals(contents, ByteStreams.toByteArray(inputStream));
+        }
+    }
+
+    /**
+     * Make sure something which isn't a zip archive is rejected.
+     *
+     * @throws IOException on error
+     */
+    @Test(expected = ZipException.class)
+    public void cantReadIndexOfNonZip() throws IOException {
+        final byte[] contents = UUID.randomUUID().toString().getBytes(StandardCharsets.UTF_8);
+        ZipIndex.read(
+            contents.length,
+            (offset, length) -> new ByteArrayInputStream(contents, (int) offset, (int) length)
+        );
+    }
+
+    private ZipIndex.RangeReader getReader(final Path archive) {
+        return (offset, length) -> {
+            this.reads.add(new long[]{offset, length});
+            final InputStream inputStream = Files.newInputStream(archive);
+            ByteStreams.skipFully(inputStream, offset);
+            return ByteStreams.limit(inputStream, length);
+        };
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ *
+ *  Copyright 2016 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.core.util;
+
+import com.netflix.genie.test.categories.UnitTest;
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Tests for ZipUtil.
+ *
+ * @author agent
+ * @since 3.0.0
+ */
+@Category(UnitTest.class)
+public class ZipUtilUnitTests {
+
+    /**
+     * Temporary folder for the directory to archive.
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Make sure every file and directory is archived except the archive itself.
+     *
+     * @throws IOException on error
+     */
+    @Test
+    public void canZipDirectory() throws IOException {
+        final File source = this.folder.newFolder("job");
+        final File logs = new File(source, "genie/logs");
+        Assert.assertTrue(logs.mkdirs());
+        Files.write(new File(logs, "genie.log").toPath(), "hello".getBytes(StandardCharsets.UTF_8));
+        Files.write(new File(source, "stdout").toPath(), "abc".getBytes(StandardCharsets.UTF_8));
+        final File target = new File(logs, "job.zip");
+
+        ZipUtil.zipDirectory(source.toPath(), target.toPath());
+
+        try (final ZipFile zipFile = new ZipFile(target)) {
+            final List<String> names = Collections
+                .list(zipFile.entries())
+                .stream()
+                .map(ZipEntry::getName)
+                .sorted()
+                .collect(Collectors.toList());
+            Assert.assertThat(names, Matchers.contains("genie/", "genie/logs/", "genie/logs/genie.log", "stdout"));
+            final ZipEntry log = zipFile.getEntry("genie/logs/genie.log");
+            Assert.assertThat(log.getSize(), Matchers.is(5L));
+            Assert.assertThat(log.getMethod(), Matchers.is(ZipEntry.DEFLATED));
+        }
+    }
+
+    /**
+     * Make sure symbolic links are left out of the archive rather than archiving what they point to.
+     *
+     * @throws IOException on error
+     */
+    @Test
+    public void canLeaveOutSymbolicLinks() throws IOException {
+        final File source = this.folder.newFolder("job");
+        final File outside = this.folder.newFile("outside");
+        Files.write(new File(source, "stdout").toPath(), "abc".getBytes(StandardCharsets.UTF_8));
+        Files.createSymbolicLink(new File(source, "link").toPath(), outside.toPath());
+        final File target = this.folder.newFile("job.zip");
+
+        ZipUtil.zipDirectory(source.toPath(), target.toPath());
+
+        try (final ZipFile zipFile = new ZipFile(target)) {
+            Assert.assertNotNull(zipFile.getEntry("stdout"));
+            Assert.assertNull(zipFile.getEntry("link"));
+        }
+    }
+}
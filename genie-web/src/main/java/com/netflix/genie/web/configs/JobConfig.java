@@ -17,7 +17,12 @@
  */
 package com.netflix.genie.web.configs;
 
+import com.google.common.base.Splitter;
 import com.netflix.genie.common.exceptions.GenieException;
+import com.netflix.genie.common.exceptions.GeniePreconditionException;
+import com.netflix.genie.core.jobs.KnownUserCache;
+import com.netflix.genie.core.jobs.PreforkedJobLauncher;
+import com.netflix.genie.core.jobs.PreparedEnvironmentCache;
 import com.netflix.genie.core.jobs.workflow.WorkflowTask;
 import com.netflix.genie.core.jobs.workflow.impl.ApplicationTask;
 import com.netflix.genie.core.jobs.workflow.impl.ClusterTask;
@@ -28,14 +33,22 @@ import com.netflix.genie.core.jobs.workflow.impl.JobKillLogicTask;
 import com.netflix.genie.core.jobs.workflow.impl.JobTask;
 import com.netflix.genie.core.services.AttachmentService;
 import com.netflix.genie.core.services.FileTransfer;
+import com.netflix.genie.core.services.impl.HttpFileTransferImpl;
 import com.netflix.genie.core.services.impl.LocalFileTransferImpl;
+import com.netflix.spectator.api.Registry;
 import org.apache.commons.exec.Executor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.annotation.Order;
 
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Optional;
+
 /**
  * Configuration for Jobs Setup and Run.
  *
@@ -47,13 +60,112 @@ public class JobConfig {
     /**
      * Bean to create a local file transfer object.
      *
+     * @param registry     The metrics registry to use
+     * @param linkPrefixes Comma separated directories whose files are hard linked instead of copied
+     * @param isRunAsUserEnabled Flag that tells if job should be run as user specified in the request. Can't be
+     *                     combined with link prefixes as the job directories and the linked files would change owner.
      * @return A unix copy implementation of the FileTransferService.
+     * @throws GenieException If link prefixes are configured while jobs run as their users
      */
     @Bean
     @Order(value = 2)
-    public FileTransfer localFileTransfer() {
-        return new LocalFileTransferImpl(); }
+    public FileTransfer localFileTransfer(
+        final Registry registry,
+        @Value("${genie.jobs.files.local.linkPrefixes:}")
+        final String linkPrefixes,
+        @Value("${genie.jobs.runasuser.enabled:false}")
+        final boolean isRunAsUserEnabled
+    ) throws GenieException {
+        final List<String> prefixes = Splitter.on(',').trimResults().omitEmptyStrings().splitToList(linkPrefixes);
+        if (isRunAsUserEnabled && !prefixes.isEmpty()) {
+            throw new GeniePreconditionException(
+                "genie.jobs.files.local.linkPrefixes can't be used together with genie.jobs.runasuser.enabled"
+            );
+        }
+        return new LocalFileTransferImpl(registry, prefixes);
+    }
+
+    /**
+     * Bean to create a file transfer object for http and https URLs.
+     *
+     * @param connectTimeout How long to wait for a connection in milliseconds
+     * @param readTimeout    How long to wait for data from a connection in milliseconds
+     * @return A http implementation of the FileTransferService.
+     */
+    @Bean
+    @Order(value = 3)
+    @ConditionalOnProperty(value = "genie.jobs.files.http.enabled", havingValue = "true")
+    public FileTransfer httpFileTransfer(
+        @Value("${genie.jobs.files.http.connectTimeout:30000}")
+        final int connectTimeout,
+        @Value("${genie.jobs.files.http.readTimeout:30000}")
+        final int readTimeout
+    ) {
+        return new HttpFileTransferImpl(connectTimeout, readTimeout);
+    }
+
+    /**
+     * Create the cache of prepared environments which clones the files of applications, commands and clusters into
+     * job directories instead of downloading them for every job.
+     *
+     * @param cacheDir        The directory to keep the prepared environments in. Should be on the same file system as
+     *                        the job directories so files can be hard linked.
+     * @param maxEnvironments The maximum number of prepared environments to keep
+     * @param isRunAsUserEnabled Flag that tells if job should be run as user specified in the request. Files are
+     *                        copied instead of hard linked then as job directories change owner.
+     * @return The cache
+     * @throws IOException If the cache directory can't be created
+     */
+    @Bean
+    @ConditionalOnProperty(value = "genie.jobs.environments.cache.enabled", havingValue = "true")
+    public PreparedEnvironmentCache preparedEnvironmentCache(
+        @Value("${genie.jobs.environments.cache.dir:/tmp/genie/environments}")
+        final String cacheDir,
+        @Value("${genie.jobs.environments.cache.maxEnvironments:100}")
+        final long maxEnvironments,
+        @Value("${genie.jobs.runasuser.enabled:false}")
+        final boolean isRunAsUserEnabled
+    ) throws IOException {
+        return new PreparedEnvironmentCache(Paths.get(cacheDir), maxEnvironments, !isRunAsUserEnabled);
+    }
+
+    /**
+     * Create the long lived launcher which starts jobs without forking sudo, chown and chmod processes for each one.
+     *
+     * @param isRunAsUserEnabled Flag that tells if job should be run as user specified in the request
+     * @param timeout            How long to wait for a job to be launched in milliseconds
+     * @return The launcher
+     */
+    @Bean
+    @ConditionalOnProperty(value = "genie.jobs.launcher.preforked.enabled", havingValue = "true")
+    public PreforkedJobLauncher preforkedJobLauncher(
+        @Value("${genie.jobs.runasuser.enabled:false}")
+        final boolean isRunAsUserEnabled,
+        @Value("${genie.jobs.launcher.preforked.timeout:600000}")
+        final long timeout
+    ) {
+        return new PreforkedJobLauncher(isRunAsUserEnabled, timeout);
+    }
 
+    /**
+     * Create the cache of operating system users known to exist so they aren't checked for on every job.
+     *
+     * @param registry           The metrics registry to use
+     * @param maxUsers           The maximum number of users to remember
+     * @param expireAfterSeconds How long to trust that a user exists before checking again
+     * @return The cache
+     */
+    @Bean
+    @ConditionalOnProperty(value = "genie.jobs.createuser.enabled", havingValue = "true")
+    public KnownUserCache knownUserCache(
+        final Registry registry,
+        @Value("${genie.jobs.createuser.cache.maxUsers:10000}")
+        final long maxUsers,
+        @Value("${genie.jobs.createuser.cache.expireAfterSeconds:3600}")
+        final long expireAfterSeconds
+    ) {
+        return new KnownUserCache(registry, maxUsers, expireAfterSeconds);
+    }
 
     /**
      * Create a task that adds logic to handle kill requests to a job.
@@ -80,34 +192,37 @@ public class JobConfig {
     /**
      * Create an Cluster Task bean that processes the cluster needed for a job.
      *
+     * @param preparedEnvironmentCache The cache of prepared environments if enabled
      * @return An cluster task object
      */
     @Bean
     @Order(value = 2)
-    public WorkflowTask clusterProcessorTask() {
-        return new ClusterTask();
+    public WorkflowTask clusterProcessorTask(final Optional<PreparedEnvironmentCache> preparedEnvironmentCache) {
+        return new ClusterTask(preparedEnvironmentCache.orElse(null));
     }
 
     /**
      * Create an Application Task bean that processes all Applications needed for a job.
      *
+     * @param preparedEnvironmentCache The cache of prepared environments if enabled
      * @return An application task object
      */
     @Bean
     @Order(value = 3)
-    public WorkflowTask applicationProcessorTask() {
-        return new ApplicationTask();
+    public WorkflowTask applicationProcessorTask(final Optional<PreparedEnvironmentCache> preparedEnvironmentCache) {
+        return new ApplicationTask(preparedEnvironmentCache.orElse(null));
     }
 
     /**
      * Create an Command Task bean that processes the command needed for a job.
      *
+     * @param preparedEnvironmentCache The cache of prepared environments if enabled
      * @return An command task object
      */
     @Bean
     @Order(value = 4)
-    public WorkflowTask commandProcessorTask() {
-        return new CommandTask();
+    public WorkflowTask commandProcessorTask(final Optional<PreparedEnvironmentCache> preparedEnvironmentCache) {
+        return new CommandTask(preparedEnvironmentCache.orElse(null));
     }
 
 
@@ -135,6 +250,8 @@ public class JobConfig {
      * @param isUserCreationEnabled Flag that tells if the user specified should be created
      * @param executor An instance of an executor
      * @param hostName Host on which the job will run
+     * @param preforkedJobLauncher The long lived launcher if enabled
+     * @param knownUserCache The cache of users known to exist if user creation is enabled
      *
      * @return An application task object
      */
@@ -147,8 +264,17 @@ public class JobConfig {
         @Value("${genie.jobs.createuser.enabled:false}")
         final boolean isUserCreationEnabled,
         final Executor executor,
-        final String hostName
+        final String hostName,
+        final Optional<PreforkedJobLauncher> preforkedJobLauncher,
+        final Optional<KnownUserCache> knownUserCache
         ) {
-        return new JobKickoffTask(isRunAsUserEnabled, isUserCreationEnabled, executor, hostName);
+        return new JobKickoffTask(
+            isRunAsUserEnabled,
+            isUserCreationEnabled,
+            executor,
+            hostName,
+            preforkedJobLauncher.orElse(null),
+            knownUserCache.orElse(null)
+        );
     }
 }
@@ -18,16 +18,31 @@
 package com.netflix.genie.web.configs;
 
 import com.google.common.collect.Lists;
+import com.netflix.genie.core.metrics.GenieNodeStatistics;
+import com.netflix.genie.core.services.AttachmentService;
+import com.netflix.genie.core.services.JobSearchService;
+import com.netflix.genie.core.services.impl.GenieFileTransferService;
+import com.netflix.genie.web.filters.RequestMetricsFilter;
+import com.netflix.genie.web.filters.StreamingAttachmentFilter;
+import com.netflix.genie.web.properties.JobOutputListingProperties;
+import com.netflix.genie.web.resources.archives.ArchivedJobOutputResolver;
 import com.netflix.genie.web.resources.handlers.GenieResourceHttpRequestHandler;
-import com.netflix.genie.web.resources.writers.DefaultDirectoryWriter;
+import com.netflix.genie.web.resources.writers.DefaultStreamingDirectoryWriter;
 import com.netflix.genie.web.resources.writers.DirectoryWriter;
+import com.netflix.spectator.api.Registry;
 import org.apache.http.client.HttpClient;
 import org.apache.http.impl.client.HttpClients;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.web.DispatcherServletAutoConfiguration;
+import org.springframework.boot.context.embedded.FilterRegistrationBean;
+import org.springframework.boot.context.embedded.ServletRegistrationBean;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
 import org.springframework.core.io.DefaultResourceLoader;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.ResourceLoader;
@@ -38,6 +53,7 @@ import java.io.File;
 import java.io.IOException;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
+import java.nio.file.Paths;
 
 /**
  * Configuration for Spring MVC.
@@ -99,12 +115,16 @@ public class MvcConfig extends WebMvcConfigurerAdapter {
     /**
      * Get the directory writer to use.
      *
-     * @return A default directory writer
+     * @param listingProperties The properties controlling caching of directory listings
+     * @return A default streaming directory writer
      */
     @Bean
     @ConditionalOnMissingBean
-    public DirectoryWriter directoryWriter() {
-        return new DefaultDirectoryWriter();
+    public DirectoryWriter directoryWriter(final JobOutputListingProperties listingProperties) {
+        return new DefaultStreamingDirectoryWriter(
+            listingProperties.getCacheMaxEntries(),
+            listingProperties.getCacheExpireAfterSeconds()
+        );
     }
 
     /**
@@ -146,12 +166,42 @@ public class MvcConfig extends WebMvcConfigurerAdapter {
         return jobsDirResource;
     }
 
+    /**
+     * Get the resolver used to serve the output of jobs from their archives once their directories are gone.
+     *
+     * @param jobSearchService         The job search service to use to find archive locations
+     * @param fileTransferService      The file transfer service to use to read ranges of archives
+     * @param cacheDirectory           The local directory to keep the fetched parts of archives in
+     * @param maxArchives              The maximum number of archives to keep in the cache directory at once
+     * @param expireAfterAccessSeconds How long an archive is kept after it was last read from
+     * @return The archived job output resolver
+     * @throws IOException if the cache directory can't be created
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public ArchivedJobOutputResolver archivedJobOutputResolver(
+        final JobSearchService jobSearchService,
+        final GenieFileTransferService fileTransferService,
+        @Value("${genie.jobs.archive.cache.dir:/tmp/genie/archives}") final String cacheDirectory,
+        @Value("${genie.jobs.archive.cache.maxArchives:100}") final long maxArchives,
+        @Value("${genie.jobs.archive.cache.expireAfterAccessSeconds:3600}") final long expireAfterAccessSeconds
+    ) throws IOException {
+        return new ArchivedJobOutputResolver(
+            jobSearchService,
+            fileTransferService,
+            Paths.get(cacheDirectory),
+            maxArchives,
+            expireAfterAccessSeconds
+        );
+    }
+
     /**
      * Get a static resource handler for Genie Jobs.
      *
-     * @param directoryWriter The directory writer to use for converting directory resources
-     * @param context         The spring application context
-     * @param jobsDir         The location the user is requesting the jobs be stored
+     * @param directoryWriter           The directory writer to use for converting directory resources
+     * @param context                   The spring application context
+     * @param jobsDir                   The location the user is requesting the jobs be stored
+     * @param archivedJobOutputResolver The resolver to fall back to once a job directory has been cleaned up
      * @return The genie resource http request handler.
      */
     @Bean
@@ -159,12 +209,104 @@ public class MvcConfig extends WebMvcConfigurerAdapter {
     public GenieResourceHttpRequestHandler genieResourceHttpRequestHandler(
         final DirectoryWriter directoryWriter,
         final ApplicationContext context,
-        final Resource jobsDir
+        final Resource jobsDir,
+        final ArchivedJobOutputResolver archivedJobOutputResolver
     ) {
-        final GenieResourceHttpRequestHandler handler = new GenieResourceHttpRequestHandler(directoryWriter);
+        final GenieResourceHttpRequestHandler handler
+            = new GenieResourceHttpRequestHandler(directoryWriter, archivedJobOutputResolver);
         handler.setApplicationContext(context);
         handler.setLocations(Lists.newArrayList(jobsDir));
 
         return handler;
     }
+
+    /**
+     * Get the filter which streams the attachments of multipart job submissions straight to the attachment service
+     * instead of buffering the whole request first.
+     *
+     * @param attachmentService    The attachment service to save the attachments with
+     * @param jobSearchService     The service to check whether a job with the requested id already exists
+     * @param registry             The metrics registry to use
+     * @param maxFileSize          The maximum size of a single attachment in bytes
+     * @param maxRequestSize       The maximum size of a whole job submission in bytes
+     * @param maxConcurrentUploads How many job submissions with attachments can be read at the same time
+     * @return The registration of the filter for the jobs endpoint
+     */
+    @Bean
+    @ConditionalOnProperty(value = "genie.jobs.attachments.streaming.enabled", havingValue = "true")
+    public FilterRegistrationBean streamingAttachmentFilter(
+        final AttachmentService attachmentService,
+        final JobSearchService jobSearchService,
+        final Registry registry,
+        @Value("${genie.jobs.attachments.streaming.maxFileSize:104857600}") final long maxFileSize,
+        @Value("${genie.jobs.attachments.streaming.maxRequestSize:209715200}") final long maxRequestSize,
+        @Value("${genie.jobs.attachments.streaming.maxConcurrentUploads:10}") final int maxConcurrentUploads
+    ) {
+        final FilterRegistrationBean registration = new FilterRegistrationBean(
+            new StreamingAttachmentFilter(
+                attachmentService,
+                jobSearchService,
+                registry,
+                maxFileSize,
+                maxRequestSize,
+                maxConcurrentUploads
+            )
+        );
+        registration.addUrlPatterns(StreamingAttachmentFilter.JOBS_PATH, StreamingAttachmentFilter.JOBS_PATH + "/");
+        // Run after security so unauthenticated requests are never read. The container leaves the body of multipart
+        // requests alone for the filters before this one, see streamingAttachmentMultipartConfigRemover.
+        registration.setOrder(Ordered.LOWEST_PRECEDENCE);
+        return registration;
+    }
+
+    /**
+     * Stop the servlet container from parsing multipart requests itself while job attachments are streamed. Filters
+     * which run before the streaming filter, like the hidden HTTP method filter, read request parameters, which makes
+     * the container buffer the whole multipart body when the servlet has a multipart configuration and leaves nothing
+     * for the streaming filter to read. Job submissions are the only multipart requests Genie accepts and the streaming
+     * filter handles all of them so nothing else needs the container to parse them.
+     *
+     * @return The post processor removing the multipart configuration from the dispatcher servlet
+     */
+    @Bean
+    @ConditionalOnProperty(value = "genie.jobs.attachments.streaming.enabled", havingValue = "true")
+    public static BeanPostProcessor streamingAttachmentMultipartConfigRemover() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(final Object bean, final String beanName) {
+                if (
+                    bean instanceof ServletRegistrationBean
+                        && DispatcherServletAutoConfiguration.DEFAULT_DISPATCHER_SERVLET_REGISTRATION_BEAN_NAME
+                        .equals(beanName)
+                ) {
+                    ((ServletRegistrationBean) bean).setMultipartConfig(null);
+                }
+                return bean;
+            }
+
+            @Override
+            public Object postProcessAfterInitialization(final Object bean, final String beanName) {
+                return bean;
+            }
+        };
+    }
+
+    /**
+     * Get the filter which records the status and latency of every request.
+     *
+     * @param statistics The node statistics to count the response statuses in
+     * @param registry   The metrics registry to record the latency in
+     * @return The registration of the filter for all requests
+     */
+    @Bean
+    public FilterRegistrationBean requestMetricsFilter(
+        final GenieNodeStatistics statistics,
+        final Registry registry
+    ) {
+        final FilterRegistrationBean registration
+            = new FilterRegistrationBean(new RequestMetricsFilter(statistics, registry));
+        // Run first so the time spent in the other filters is included
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
 }
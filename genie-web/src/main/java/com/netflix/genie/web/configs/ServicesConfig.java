@@ -18,6 +18,7 @@
 package com.netflix.genie.web.configs;
 
 import com.netflix.genie.common.exceptions.GenieException;
+import com.netflix.genie.core.jobs.JobArchiveFormat;
 import com.netflix.genie.core.jobs.workflow.WorkflowTask;
 import com.netflix.genie.core.jpa.repositories.JpaApplicationRepository;
 import com.netflix.genie.core.jpa.repositories.JpaClusterRepository;
@@ -31,35 +32,47 @@ import com.netflix.genie.core.jpa.services.JpaCommandServiceImpl;
 import com.netflix.genie.core.jpa.services.JpaJobPersistenceServiceImpl;
 import com.netflix.genie.core.jpa.services.JpaJobSearchServiceImpl;
 import com.netflix.genie.core.metrics.GenieNodeStatistics;
-import com.netflix.genie.core.metrics.impl.GenieNodeStatisticsImpl;
+import com.netflix.genie.core.metrics.impl.SpectatorGenieNodeStatisticsImpl;
 import com.netflix.genie.core.services.ApplicationService;
+import com.netflix.genie.core.services.AttachmentService;
 import com.netflix.genie.core.services.ClusterLoadBalancer;
 import com.netflix.genie.core.services.ClusterService;
 import com.netflix.genie.core.services.CommandService;
 import com.netflix.genie.core.services.FileTransfer;
 import com.netflix.genie.core.services.JobCoordinatorService;
+import com.netflix.genie.core.services.JobDirectoryManifestService;
 import com.netflix.genie.core.services.JobKillService;
 import com.netflix.genie.core.services.JobPersistenceService;
 import com.netflix.genie.core.services.JobSearchService;
 import com.netflix.genie.core.services.JobSubmitterService;
 import com.netflix.genie.core.services.MailService;
+import com.netflix.genie.core.services.impl.ContentAddressedAttachmentService;
 import com.netflix.genie.core.services.impl.DefaultMailServiceImpl;
+import com.netflix.genie.core.services.impl.FileSystemAttachmentService;
 import com.netflix.genie.core.services.impl.GenieFileTransferService;
+import com.netflix.genie.core.services.impl.LocalJobDirectoryManifestServiceImpl;
 import com.netflix.genie.core.services.impl.LocalJobKillServiceImpl;
 import com.netflix.genie.core.services.impl.LocalJobRunner;
 import com.netflix.genie.core.services.impl.MailServiceImpl;
 import com.netflix.genie.core.services.impl.RandomizedClusterLoadBalancerImpl;
+import com.netflix.genie.core.services.impl.RemoteAttachmentService;
+import com.netflix.spectator.api.Registry;
 import org.apache.commons.exec.Executor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 import org.springframework.core.io.Resource;
 import org.springframework.mail.javamail.JavaMailSender;
 
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Configuration for all the services.
@@ -113,11 +126,12 @@ public class ServicesConfig {
     /**
      * Get an implementation of the GenieNodeStatistics interface for metrics collection.
      *
+     * @param registry The metrics registry to publish the statistics through
      * @return A genie node statics instance.
      */
     @Bean
-    public GenieNodeStatistics getGenieNodeStatistics() {
-        return new GenieNodeStatisticsImpl();
+    public GenieNodeStatistics getGenieNodeStatistics(final Registry registry) {
+        return new SpectatorGenieNodeStatisticsImpl(registry);
     }
 
     /**
@@ -231,6 +245,33 @@ public class ServicesConfig {
         return new LocalJobKillServiceImpl(hostName, jobSearchService, executor);
     }
 
+    /**
+     * Get an implementation of the JobDirectoryManifestService which walks job directories on this node.
+     *
+     * @param genieWorkingDir     Working directory for genie where it creates jobs directories.
+     * @param parallelism         The number of threads to use to calculate checksums of files
+     * @param maxChecksumFileSize Files larger than this many bytes are listed without checksums
+     * @param checksumOnSave      Whether checksums are calculated when the manifest of a finished job is saved
+     * @return A job directory manifest service instance.
+     */
+    @Bean
+    public JobDirectoryManifestService jobDirectoryManifestService(
+        final Resource genieWorkingDir,
+        @Value("${genie.jobs.output.manifest.parallelism:4}")
+        final int parallelism,
+        @Value("${genie.jobs.output.manifest.maxChecksumFileSize:1073741824}")
+        final long maxChecksumFileSize,
+        @Value("${genie.jobs.output.manifest.checksumOnSave:false}")
+        final boolean checksumOnSave
+    ) {
+        return new LocalJobDirectoryManifestServiceImpl(
+            genieWorkingDir,
+            parallelism,
+            maxChecksumFileSize,
+            checksumOnSave
+        );
+    }
+
     /**
      * Get a Randomized Cluster load balancer.
      *
@@ -247,14 +288,97 @@ public class ServicesConfig {
      * Get an instance of the Genie File Transfer service.
      *
      * @param fileTransferImpls List of implementations of all fileTransfer interface
+     * @param cacheEnabled      Whether to keep copies of downloaded files to reuse while they're unchanged
+     * @param cacheDir          The directory to keep the copies in
+     * @param maxCachedFiles    The maximum number of copies to keep
+     * @param runAsUserEnabled  Whether jobs run as the user who submitted them. Copies are copied into job
+     *                          directories instead of hard linked then as job directories change owner.
+     * @param registry          The metrics registry to use
      * @return A singleton for GenieFileTransferService
      * @throws GenieException If there is any problem
      */
     @Bean
     public GenieFileTransferService genieFileTransferService(
-        final List<FileTransfer> fileTransferImpls
+        final List<FileTransfer> fileTransferImpls,
+        @Value("${genie.jobs.files.cache.enabled:false}")
+        final boolean cacheEnabled,
+        @Value("${genie.jobs.files.cache.dir:/tmp/genie/files}")
+        final String cacheDir,
+        @Value("${genie.jobs.files.cache.maxFiles:1000}")
+        final long maxCachedFiles,
+        @Value("${genie.jobs.runasuser.enabled:false}")
+        final boolean runAsUserEnabled,
+        final Registry registry
     ) throws GenieException {
-        return new GenieFileTransferService(fileTransferImpls);
+        if (cacheEnabled) {
+            return new GenieFileTransferService(
+                fileTransferImpls,
+                Paths.get(cacheDir),
+                maxCachedFiles,
+                !runAsUserEnabled,
+                registry
+            );
+        } else {
+            return new GenieFileTransferService(fileTransferImpls, registry);
+        }
+    }
+
+    /**
+     * Get an attachment service which stores each distinct attachment once no matter how many jobs send it. Takes
+     * precedence over the default file system attachment service when enabled.
+     *
+     * @param storeDir           The directory to store the attachments in
+     * @param isRunAsUserEnabled Flag that tells if job should be run as user specified in the request. Attachments are
+     *                           copied instead of hard linked then as job directories change owner.
+     * @param registry           The metrics registry to use
+     * @return The content addressed attachment service
+     * @throws IOException if the store directory can't be created
+     */
+    @Bean
+    @Primary
+    @ConditionalOnProperty(value = "genie.jobs.attachments.deduplication.enabled", havingValue = "true")
+    public AttachmentService contentAddressedAttachmentService(
+        @Value("${genie.jobs.attachments.deduplication.dir:/tmp/genie/attachmentStore}")
+        final String storeDir,
+        @Value("${genie.jobs.runasuser.enabled:false}")
+        final boolean isRunAsUserEnabled,
+        final Registry registry
+    ) throws IOException {
+        return new ContentAddressedAttachmentService(Paths.get(storeDir), !isRunAsUserEnabled, registry);
+    }
+
+    /**
+     * Get an attachment service which stores attachments in a remote location so jobs can run on any node. Takes
+     * precedence over the default file system attachment service when enabled. Can't be enabled together with the
+     * content addressed attachment service.
+     *
+     * @param fileTransferService  The file transfer service to store the attachments with
+     * @param location             The remote location to store the attachments under, e.g. an S3 prefix
+     * @param inlineThreshold      Attachments smaller than this many bytes are kept on the node receiving them
+     * @param attachmentsDirectory The directory to keep those attachments in or null for the default
+     * @param registry             The metrics registry to use
+     * @return The remote attachment service
+     */
+    @Bean
+    @Primary
+    @ConditionalOnProperty(value = "genie.jobs.attachments.remote.enabled", havingValue = "true")
+    public AttachmentService remoteAttachmentService(
+        final GenieFileTransferService fileTransferService,
+        @Value("${genie.jobs.attachments.remote.location}")
+        final String location,
+        @Value("${genie.jobs.attachments.remote.inlineThreshold:0}")
+        final int inlineThreshold,
+        @Value("${genie.jobs.attachments.dir:#{null}}")
+        final String attachmentsDirectory,
+        final Registry registry
+    ) {
+        return new RemoteAttachmentService(
+            fileTransferService,
+            location,
+            new FileSystemAttachmentService(attachmentsDirectory, Optional.of(registry)),
+            inlineThreshold,
+            registry
+        );
     }
 
     /**
@@ -272,6 +396,7 @@ public class ServicesConfig {
      * @param genieWorkingDir     Working directory for genie where it creates jobs directories.
      * @param hostName            Hostname of this host.
      * @param maxRunningJobs      Maximum number of jobs allowed to run on this host.
+     * @param registry            The metrics registry to use.
      * @return An instance of the JobSubmitterService.
      */
     @Bean
@@ -288,7 +413,8 @@ public class ServicesConfig {
         final Resource genieWorkingDir,
         final String hostName,
         @Value("${genie.jobs.max.running:2}")
-        final int maxRunningJobs
+        final int maxRunningJobs,
+        final Registry registry
     ) {
         return new LocalJobRunner(
             jss,
@@ -302,7 +428,8 @@ public class ServicesConfig {
             workflowTasks,
             genieWorkingDir,
             hostName,
-            maxRunningJobs
+            maxRunningJobs,
+            registry
         );
     }
 
@@ -314,7 +441,11 @@ public class ServicesConfig {
      * @param jobSubmitterService   implementation of the job submitter service
      * @param jobKillService        The job kill service to use
      * @param baseArchiveLocation   The base directory location of where the job dir should be archived
+     * @param archiveFormat         The format the job dir should be archived in. tar.gz or zip. Defaults to zip as
+     *                              the output of jobs can only be served from zip archives once their directories
+     *                              are gone.
      * @return An instance of the JobCoordinatorService.
+     * @throws GenieException If the archive format is invalid
      */
     @Bean
     public JobCoordinatorService jobCoordinatorService(
@@ -323,12 +454,16 @@ public class ServicesConfig {
         final JobSubmitterService jobSubmitterService,
         final JobKillService jobKillService,
         @Value("${genie.jobs.archive.location}")
-        final String baseArchiveLocation
-    ) {
+        final String baseArchiveLocation,
+        @Value("${genie.jobs.archive.format:zip}")
+        final String archiveFormat
+    ) throws GenieException {
         return new JobCoordinatorService(
             jobPersistenceService,
             jobSubmitterService,
             jobKillService,
-            baseArchiveLocation);
+            baseArchiveLocation,
+            JobArchiveFormat.parse(archiveFormat)
+        );
     }
 }
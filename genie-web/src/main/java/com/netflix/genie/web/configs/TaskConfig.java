@@ -20,6 +20,8 @@ package com.netflix.genie.web.configs;
 import com.netflix.genie.web.tasks.leader.LeadershipTask;
 import com.netflix.genie.web.tasks.leader.LeadershipTasksCoordinator;
 import com.netflix.genie.web.tasks.leader.LocalLeader;
+import com.netflix.genie.web.tasks.node.NodeTask;
+import com.netflix.genie.web.tasks.node.NodeTasksCoordinator;
 import org.apache.commons.exec.DefaultExecutor;
 import org.apache.commons.exec.Executor;
 import org.apache.commons.exec.PumpStreamHandler;
@@ -85,6 +87,22 @@ public class TaskConfig {
         return new LeadershipTasksCoordinator(taskScheduler, tasks);
     }
 
+    /**
+     * Create the NodeTasksCoordinator bean used to start and stop all the tasks which run on every node.
+     *
+     * @param taskScheduler The task scheduler to use for scheduling node tasks
+     * @param tasks         The node tasks to schedule
+     * @return The node task coordinator
+     */
+    @Bean
+    @ConditionalOnBean(NodeTask.class)
+    public NodeTasksCoordinator nodeTasksCoordinator(
+        final TaskScheduler taskScheduler,
+        final Collection<NodeTask> tasks
+    ) {
+        return new NodeTasksCoordinator(taskScheduler, tasks);
+    }
+
     /**
      * If Spring Cloud Leadership is disabled and this node is forced to be the leader create the local leader
      * bean which will fire appropriate events.
@@ -22,8 +22,10 @@ import com.amazonaws.auth.ClasspathPropertiesFileCredentialsProvider;
 import com.amazonaws.auth.STSAssumeRoleSessionCredentialsProvider;
 import com.amazonaws.services.s3.AmazonS3Client;
 import com.netflix.genie.common.exceptions.GenieException;
+import com.netflix.genie.common.exceptions.GeniePreconditionException;
 import com.netflix.genie.core.services.FileTransfer;
 import com.netflix.genie.core.services.impl.S3FileTransferImpl;
+import com.netflix.spectator.api.Registry;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
@@ -94,15 +96,30 @@ public class AwsS3Config {
     /**
      * Returns a bean which has an s3 implementation of the File Transfer interface.
      *
-     * @param s3Client S3 client to initalize the service
+     * @param s3Client    S3 client to initalize the service
+     * @param registry    The metrics registry to use
+     * @param partSize    The size in bytes of the parts of multipart uploads and ranged downloads. Must be at least
+     *                    5 MiB as S3 rejects smaller parts.
+     * @param concurrency The maximum number of parts transferred at once
      * @return An s3 implementation of the FileTransfer interface
-     * @throws GenieException if there is any problem
+     * @throws GenieException if the part size is too small or there is any other problem
      */
     @Bean
     @Order(value = 1)
     @ConditionalOnBean(AmazonS3Client.class)
     public FileTransfer s3FileTransferImpl(
-        final AmazonS3Client s3Client
+        final AmazonS3Client s3Client,
+        final Registry registry,
+        @Value("${genie.aws.s3.transfer.partSize:16777216}")
+        final long partSize,
+        @Value("${genie.aws.s3.transfer.concurrency:8}")
+        final int concurrency
     ) throws GenieException {
-        return new S3FileTransferImpl(s3Client); }
+        if (partSize < S3FileTransferImpl.MIN_PART_SIZE) {
+            throw new GeniePreconditionException(
+                "genie.aws.s3.transfer.partSize must be at least " + S3FileTransferImpl.MIN_PART_SIZE + " bytes"
+            );
+        }
+        return new S3FileTransferImpl(s3Client, registry, partSize, concurrency);
+    }
 }
@@ -23,11 +23,15 @@ import com.google.common.io.ByteStreams;
 import com.netflix.genie.common.dto.JobRequest;
 import com.netflix.genie.common.dto.JobStatus;
 import com.netflix.genie.common.dto.search.JobSearchResult;
+import com.netflix.genie.common.exceptions.GenieConflictException;
 import com.netflix.genie.common.exceptions.GenieException;
+import com.netflix.genie.common.exceptions.GenieNotFoundException;
 import com.netflix.genie.common.exceptions.GenieServerException;
 import com.netflix.genie.core.jobs.JobConstants;
+import com.netflix.genie.core.metrics.GenieNodeStatistics;
 import com.netflix.genie.core.services.AttachmentService;
 import com.netflix.genie.core.services.JobCoordinatorService;
+import com.netflix.genie.core.services.JobDirectoryManifestService;
 import com.netflix.genie.core.services.JobSearchService;
 import com.netflix.genie.web.hateoas.assemblers.ApplicationResourceAssembler;
 import com.netflix.genie.web.hateoas.assemblers.ClusterResourceAssembler;
@@ -86,6 +90,7 @@ import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.HttpURLConnection;
+import java.nio.charset.StandardCharsets;
 import java.util.Date;
 import java.util.EnumSet;
 import java.util.Enumeration;
@@ -122,6 +127,8 @@ public class JobRestController {
     private final HttpClient httpClient;
     private final GenieResourceHttpRequestHandler resourceHttpRequestHandler;
     private final JobForwardingProperties jobForwardingProperties;
+    private final JobDirectoryManifestService jobDirectoryManifestService;
+    private final GenieNodeStatistics statistics;
 
     /**
      * Constructor.
@@ -141,6 +148,8 @@ public class JobRestController {
      * @param resourceHttpRequestHandler       The handler to return requests for static resources on the
      *                                         Genie File System.
      * @param jobForwardingProperties          All the properties associated with job forwarding
+     * @param jobDirectoryManifestService      The service to use to get manifests of job directories
+     * @param statistics                       The statistics of this node to count submitted and forwarded jobs in
      */
     @Autowired
     public JobRestController(
@@ -157,7 +166,9 @@ public class JobRestController {
         final String hostName,
         final HttpClient httpClient,
         final GenieResourceHttpRequestHandler resourceHttpRequestHandler,
-        final JobForwardingProperties jobForwardingProperties
+        final JobForwardingProperties jobForwardingProperties,
+        final JobDirectoryManifestService jobDirectoryManifestService,
+        final GenieNodeStatistics statistics
     ) {
         this.jobCoordinatorService = jobCoordinatorService;
         this.jobSearchService = jobSearchService;
@@ -173,6 +184,8 @@ public class JobRestController {
         this.httpClient = httpClient;
         this.resourceHttpRequestHandler = resourceHttpRequestHandler;
         this.jobForwardingProperties = jobForwardingProperties;
+        this.jobDirectoryManifestService = jobDirectoryManifestService;
+        this.statistics = statistics;
     }
 
     /**
@@ -201,6 +214,7 @@ public class JobRestController {
         return this.submitJob(
             jobRequest,
             null,
+            null,
             clientHost,
             httpServletRequest
         );
@@ -211,6 +225,8 @@ public class JobRestController {
      *
      * @param jobRequest         The job request information
      * @param attachments        The attachments for the job
+     * @param attachmentHashes   Attachments which were sent before. Each part is named after the attachment and its
+     *                           content is the hex encoded SHA-256 digest of the attachment.
      * @param clientHost         client host sending the request
      * @param httpServletRequest The http servlet request
      * @return The submitted job
@@ -221,8 +237,10 @@ public class JobRestController {
     public ResponseEntity<Void> submitJob(
         @RequestPart("request")
         final JobRequest jobRequest,
-        @RequestPart("attachment")
+        @RequestPart(value = "attachment", required = false)
         final MultipartFile[] attachments,
+        @RequestPart(value = "attachmentHash", required = false)
+        final MultipartFile[] attachmentHashes,
         @RequestHeader(value = FORWARDED_FOR_HEADER, required = false)
         final String clientHost,
         final HttpServletRequest httpServletRequest
@@ -245,6 +263,10 @@ public class JobRestController {
         final String jobId;
         if (StringUtils.isNotBlank(jobRequest.getId())) {
             jobId = jobRequest.getId();
+            // The attachments are stored under the id so make sure they can't touch those of another job
+            if (this.jobExists(jobId)) {
+                throw new GenieConflictException("A job with id " + jobId + " already exists");
+            }
             jobRequestWithId = jobRequest;
         } else {
             jobId = UUID.randomUUID().toString();
@@ -269,6 +291,26 @@ public class JobRestController {
                 .build();
         }
 
+        // Attach content sent with earlier jobs without uploading it again
+        if (attachmentHashes != null) {
+            for (final MultipartFile attachmentHash : attachmentHashes) {
+                final String filename = attachmentHash.getOriginalFilename();
+                final String sha256;
+                try {
+                    sha256 = new String(attachmentHash.getBytes(), StandardCharsets.UTF_8).trim();
+                } catch (final IOException ioe) {
+                    throw new GenieServerException(ioe);
+                }
+                if (!this.attachmentService.saveExisting(jobId, filename, sha256)) {
+                    this.attachmentService.delete(jobId);
+                    throw new GenieException(
+                        HttpURLConnection.HTTP_PRECON_FAILED,
+                        "Attachment " + filename + " with SHA-256 " + sha256 + " isn't present. Upload it instead."
+                    );
+                }
+            }
+        }
+
         // Download attachments
         if (attachments != null) {
             for (final MultipartFile attachment : attachments) {
@@ -282,6 +324,7 @@ public class JobRestController {
         }
 
         this.jobCoordinatorService.coordinateJob(jobRequestWithId, localClientHost);
+        this.statistics.incrGenieJobSubmissions();
 
         final HttpHeaders httpHeaders = new HttpHeaders();
         httpHeaders.setLocation(
@@ -470,6 +513,7 @@ public class JobRestController {
                 final HttpDelete deleteRequest = new HttpDelete(this.buildForwardURL(request, jobHostname));
                 this.copyRequestHeaders(request, deleteRequest);
                 final HttpResponse deleteResponse = this.httpClient.execute(deleteRequest);
+                this.statistics.incrGenieForwardedKills();
 
                 if (this.forwardResponseHasError(response, deleteResponse)) {
                     // Method already sent error through servlet response
@@ -591,6 +635,68 @@ public class JobRestController {
         final HttpServletRequest request,
         final HttpServletResponse response
     ) throws IOException, ServletException, GenieException {
+        if (this.forwardGetRequestIfNecessary(id, forwardedFrom, request, response)) {
+            //No need to search on this node
+            return;
+        }
+
+        String path = (String) request.getAttribute(HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE);
+        if (path != null) {
+            final String bestMatchPattern
+                = (String) request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            log.debug("bestMatchPattern = {}", bestMatchPattern);
+            path = new AntPathMatcher().extractPathWithinPattern(bestMatchPattern, path);
+            if (StringUtils.isNotBlank(path)) {
+                request.setAttribute(GenieResourceHttpRequestHandler.GENIE_JOB_IS_ROOT_DIRECTORY, false);
+            } else {
+                request.setAttribute(GenieResourceHttpRequestHandler.GENIE_JOB_IS_ROOT_DIRECTORY, true);
+            }
+        }
+        log.debug("PATH = {}", path);
+        request.setAttribute(HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE, id + "/" + path);
+
+        this.resourceHttpRequestHandler.handleRequest(request, response);
+    }
+
+    /**
+     * Get a manifest of every file and directory in the job directory in a single response.
+     *
+     * @param id            The id of the job to get the manifest for
+     * @param checksums     Whether to calculate the MD5 and CRC32 of each file if the manifest isn't saved already
+     * @param forwardedFrom The host this request was forwarded from if present
+     * @param request       the servlet request
+     * @param response      the servlet response
+     * @throws IOException    on error writing the response
+     * @throws GenieException on any Genie internal error
+     */
+    @RequestMapping(value = "/{id}/manifest", method = RequestMethod.GET, produces = MediaType.APPLICATION_JSON_VALUE)
+    public void getJobManifest(
+        @PathVariable("id") final String id,
+        @RequestParam(value = "checksums", defaultValue = "false") final boolean checksums,
+        @RequestHeader(name = JobConstants.GENIE_FORWARDED_FROM_HEADER, required = false) final String forwardedFrom,
+        final HttpServletRequest request,
+        final HttpServletResponse response
+    ) throws IOException, GenieException {
+        if (this.forwardGetRequestIfNecessary(id, forwardedFrom, request, response)) {
+            return;
+        }
+
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        this.jobDirectoryManifestService.writeManifest(id, checksums, response.getOutputStream());
+    }
+
+    /**
+     * Forward a GET request for the contents of a job directory to the node the job ran on if it isn't this one.
+     *
+     * @return true if the request was forwarded and the response already written
+     */
+    private boolean forwardGetRequestIfNecessary(
+        final String id,
+        final String forwardedFrom,
+        final HttpServletRequest request,
+        final HttpServletResponse response
+    ) throws IOException, GenieException {
         // if forwarded from isn't null it's already been forwarded to this node. Assume data is on this node.
         if (this.jobForwardingProperties.isEnabled() && forwardedFrom == null) {
             // TODO: It's possible that could use the JobMonitorCoordinator to check this in memory
@@ -607,7 +713,7 @@ public class JobRestController {
 
                 if (this.forwardResponseHasError(response, getResponse)) {
                     // Method already sent error through servlet response
-                    return;
+                    return true;
                 }
 
                 response.setStatus(HttpStatus.OK.value());
@@ -619,27 +725,10 @@ public class JobRestController {
                     ByteStreams.copy(inputStream, response.getOutputStream());
                 }
 
-                //No need to search on this node
-                return;
-            }
-        }
-
-        String path = (String) request.getAttribute(HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE);
-        if (path != null) {
-            final String bestMatchPattern
-                = (String) request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
-            log.debug("bestMatchPattern = {}", bestMatchPattern);
-            path = new AntPathMatcher().extractPathWithinPattern(bestMatchPattern, path);
-            if (StringUtils.isNotBlank(path)) {
-                request.setAttribute(GenieResourceHttpRequestHandler.GENIE_JOB_IS_ROOT_DIRECTORY, false);
-            } else {
-                request.setAttribute(GenieResourceHttpRequestHandler.GENIE_JOB_IS_ROOT_DIRECTORY, true);
+                return true;
             }
         }
-        log.debug("PATH = {}", path);
-        request.setAttribute(HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE, id + "/" + path);
-
-        this.resourceHttpRequestHandler.handleRequest(request, response);
+        return false;
     }
 
     private String buildForwardURL(final HttpServletRequest request, final String jobHostname) {
@@ -648,7 +737,8 @@ public class JobRestController {
             + jobHostname
             + ":"
             + this.jobForwardingProperties.getPort()
-            + request.getRequestURI();
+            + request.getRequestURI()
+            + (request.getQueryString() == null ? "" : "?" + request.getQueryString());
     }
 
     private void copyRequestHeaders(final HttpServletRequest request, final HttpRequestBase forwardRequest) {
@@ -685,4 +775,12 @@ public class JobRestController {
             response.setHeader(header.getName(), header.getValue());
         }
     }
+
+    private boolean jobExists(final String jobId) throws GenieException {
+        try {
+            return this.jobSearchService.getJobRequest(jobId) != null;
+        } catch (final GenieNotFoundException gnfe) {
+            return false;
+        }
+    }
 }
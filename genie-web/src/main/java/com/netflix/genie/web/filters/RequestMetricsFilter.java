@@ -0,0 +1,139 @@
+/*
+ *
+ *  Copyright 2016 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.filters;
+
+import com.google.common.collect.ImmutableSet;
+import com.netflix.genie.core.metrics.GenieNodeStatistics;
+import com.netflix.spectator.api.Id;
+import com.netflix.spectator.api.Registry;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records the status and latency of every request. Statuses are counted in the node statistics. Latency is timed per
+ * endpoint and also counted in fixed latency buckets so percentiles can be estimated across nodes. Requests whose
+ * handling throws are recorded as internal server errors as that's what the container responds with.
+ *
+ * @author agent
+ * @since 3.0.0
+ */
+public class RequestMetricsFilter extends OncePerRequestFilter {
+
+    private static final String METHOD_TAG = "method";
+    private static final String ENDPOINT_TAG = "endpoint";
+    private static final String STATUS_TAG = "status";
+    private static final String BUCKET_TAG = "bucket";
+    private static final String UNKNOWN_ENDPOINT = "unknown";
+    private static final String OTHER_METHOD = "other";
+    // The method comes straight from the client so only known ones become tag values
+    private static final Set<String> METHODS = ImmutableSet.of(
+        "GET", "HEAD", "POST", "PUT", "PATCH", "DELETE", "OPTIONS", "TRACE"
+    );
+    private static final long[] BUCKETS = {5L, 10L, 25L, 50L, 100L, 250L, 500L, 1000L, 2500L, 5000L, 10000L};
+    private static final String[] BUCKET_NAMES = new String[BUCKETS.length + 1];
+
+    static {
+        for (int i = 0; i < BUCKETS.length; i++) {
+            BUCKET_NAMES[i] = "le" + BUCKETS[i] + "ms";
+        }
+        BUCKET_NAMES[BUCKETS.length] = "gt" + BUCKETS[BUCKETS.length - 1] + "ms";
+    }
+
+    private final GenieNodeStatistics statistics;
+    private final Registry registry;
+    private final Id requestTimerId;
+    private final Id requestBucketId;
+
+    /**
+     * Constructor.
+     *
+     * @param statistics The node statistics to count the response statuses in
+     * @param registry   The metrics registry to record the latency in
+     */
+    public RequestMetricsFilter(final GenieNodeStatistics statistics, final Registry registry) {
+        this.statistics = statistics;
+        this.registry = registry;
+        this.requestTimerId = registry.createId("genie.requests.timer");
+        this.requestBucketId = registry.createId("genie.requests.latency.rate");
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void doFilterInternal(
+        final HttpServletRequest request,
+        final HttpServletResponse response,
+        final FilterChain filterChain
+    ) throws ServletException, IOException {
+        final long start = System.nanoTime();
+        try {
+            filterChain.doFilter(request, response);
+        } catch (final IOException | ServletException | RuntimeException e) {
+            // The status of the response is only what will be sent if it was sent already
+            final int status = response.isCommitted()
+                ? response.getStatus()
+                : HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
+            this.record(request, status, System.nanoTime() - start);
+            throw e;
+        }
+        this.record(request, response.getStatus(), System.nanoTime() - start);
+    }
+
+    private void record(final HttpServletRequest request, final int status, final long latencyNanos) {
+        if (status >= HttpServletResponse.SC_INTERNAL_SERVER_ERROR) {
+            this.statistics.incrGenie5xxCount();
+        } else if (status >= HttpServletResponse.SC_BAD_REQUEST) {
+            this.statistics.incrGenie4xxCount();
+        } else if (status >= HttpServletResponse.SC_OK && status < HttpServletResponse.SC_MULTIPLE_CHOICES) {
+            this.statistics.incrGenie2xxCount();
+        }
+
+        // The matched pattern rather than the path so ids don't create a time series per job
+        final Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        final String endpoint = pattern == null ? UNKNOWN_ENDPOINT : pattern.toString();
+        final String method = METHODS.contains(request.getMethod()) ? request.getMethod() : OTHER_METHOD;
+        final Id id = this.requestTimerId
+            .withTag(METHOD_TAG, method)
+            .withTag(ENDPOINT_TAG, endpoint)
+            .withTag(STATUS_TAG, Integer.toString(status));
+        this.registry.timer(id).record(latencyNanos, TimeUnit.NANOSECONDS);
+
+        final long latencyMillis = TimeUnit.NANOSECONDS.toMillis(latencyNanos);
+        int bucket = 0;
+        while (bucket < BUCKETS.length && latencyMillis > BUCKETS[bucket]) {
+            bucket++;
+        }
+        this.registry
+            .counter(
+                this.requestBucketId
+                    .withTag(METHOD_TAG, method)
+                    .withTag(ENDPOINT_TAG, endpoint)
+                    .withTag(BUCKET_TAG, BUCKET_NAMES[bucket])
+            )
+            .increment();
+    }
+}
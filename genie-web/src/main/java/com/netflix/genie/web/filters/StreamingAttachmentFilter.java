@@ -0,0 +1,423 @@
+/*
+ *
+ *  Copyright 2016 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.filters;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.base.Throwables;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.CountingInputStream;
+import com.netflix.genie.common.exceptions.GenieConflictException;
+import com.netflix.genie.common.exceptions.GenieException;
+import com.netflix.genie.common.exceptions.GenieNotFoundException;
+import com.netflix.genie.common.util.JsonUtils;
+import com.netflix.genie.core.services.AttachmentService;
+import com.netflix.genie.core.services.JobSearchService;
+import com.netflix.spectator.api.Counter;
+import com.netflix.spectator.api.DistributionSummary;
+import com.netflix.spectator.api.Registry;
+import com.netflix.spectator.api.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.fileupload.FileItemIterator;
+import org.apache.commons.fileupload.FileItemStream;
+import org.apache.commons.fileupload.FileUploadBase;
+import org.apache.commons.fileupload.FileUploadException;
+import org.apache.commons.fileupload.servlet.ServletFileUpload;
+import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.lang.StringUtils;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.UUID;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Handles job submissions with attachments without buffering the multipart request. Each attachment is streamed
+ * straight from the request into the attachment service while the request is parsed instead of being written to a
+ * temporary file by the container first. It's still copied into the job directory when the job is set up. The job
+ * request part is then passed on to the controllers as a plain JSON job submission.
+ * <p>
+ * The servlet container mustn't parse multipart requests itself or the body is gone by the time this filter reads it.
+ * The multipart configuration of the dispatcher servlet is removed whenever this filter is enabled.
+ * <p>
+ * The job request part has to come before the attachments as they're saved under the id of the job. Attachments sent
+ * with earlier jobs can be referenced by their SHA-256 digest instead of being uploaded again. Requests with the id of
+ * an existing job are rejected before anything is saved so they can't change or delete the attachments of that job.
+ *
+ * @author agent
+ * @since 3.0.0
+ */
+@Slf4j
+public class StreamingAttachmentFilter extends OncePerRequestFilter {
+
+    /**
+     * The path of job submissions.
+     */
+    public static final String JOBS_PATH = "/api/v3/jobs";
+
+    private static final String REQUEST_PART = "request";
+    private static final String ATTACHMENT_PART = "attachment";
+    private static final String ATTACHMENT_HASH_PART = "attachmentHash";
+    private static final String ID_FIELD = "id";
+    private static final String CONTENT_TYPE_HEADER = "Content-Type";
+    private static final String CONTENT_LENGTH_HEADER = "Content-Length";
+
+    private final AttachmentService attachmentService;
+    private final JobSearchService jobSearchService;
+    private final long maxFileSize;
+    private final long maxRequestSize;
+    private final Semaphore uploads;
+    private final Registry registry;
+    private final Timer uploadTimer;
+    private final Counter uploadBytes;
+    private final DistributionSummary uploadThroughput;
+    private final Counter uploadRejectedRate;
+    private final Counter uploadFailureRate;
+
+    /**
+     * Constructor.
+     *
+     * @param attachmentService    The service to save attachments with
+     * @param jobSearchService     The service to check whether a job with the requested id already exists
+     * @param registry             The metrics registry to use
+     * @param maxFileSize          The maximum size of a single attachment in bytes
+     * @param maxRequestSize       The maximum size of a whole request in bytes
+     * @param maxConcurrentUploads How many requests with attachments can be read at the same time. Requests over the
+     *                             limit are rejected.
+     */
+    public StreamingAttachmentFilter(
+        final AttachmentService attachmentService,
+        final JobSearchService jobSearchService,
+        final Registry registry,
+        final long maxFileSize,
+        final long maxRequestSize,
+        final int maxConcurrentUploads
+    ) {
+        this.attachmentService = attachmentService;
+        this.jobSearchService = jobSearchService;
+        this.maxFileSize = maxFileSize;
+        this.maxRequestSize = maxRequestSize;
+        this.uploads = new Semaphore(maxConcurrentUploads);
+        this.registry = registry;
+        this.uploadTimer = registry.timer("genie.jobs.attachments.upload.timer");
+        this.uploadBytes = registry.counter("genie.jobs.attachments.upload.bytes");
+        this.uploadThroughput = registry.distributionSummary("genie.jobs.attachments.upload.throughput");
+        this.uploadRejectedRate = registry.counter("genie.jobs.attachments.upload.rejected.rate");
+        this.uploadFailureRate = registry.counter("genie.jobs.attachments.upload.failure.rate");
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Only multipart job submissions are handled.
+     */
+    @Override
+    protected boolean shouldNotFilter(final HttpServletRequest request) throws ServletException {
+        final String path = StringUtils.removeEnd(
+            request.getRequestURI().substring(request.getContextPath().length()),
+            "/"
+        );
+        return !JOBS_PATH.equals(path) || !ServletFileUpload.isMultipartContent(request);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void doFilterInternal(
+        final HttpServletRequest request,
+        final HttpServletResponse response,
+        final FilterChain filterChain
+    ) throws ServletException, IOException {
+        if (!this.uploads.tryAcquire()) {
+            this.uploadRejectedRate.increment();
+            response.sendError(
+                HttpServletResponse.SC_SERVICE_UNAVAILABLE,
+                "Too many concurrent job submissions with attachments. Try again later."
+            );
+            return;
+        }
+
+        final byte[] jobRequest;
+        try {
+            jobRequest = this.readRequest(request, response);
+        } finally {
+            this.uploads.release();
+        }
+        if (jobRequest != null) {
+            filterChain.doFilter(new JsonRequestWrapper(request, jobRequest), response);
+        }
+    }
+
+    /**
+     * Save the attachments of the request and return the job request with its id set. Sends an error response and
+     * returns null if the request can't be read.
+     */
+    private byte[] readRequest(
+        final HttpServletRequest request,
+        final HttpServletResponse response
+    ) throws IOException {
+        final long start = this.registry.clock().monotonicTime();
+        final ServletFileUpload upload = new ServletFileUpload();
+        upload.setFileSizeMax(this.maxFileSize);
+        upload.setSizeMax(this.maxRequestSize);
+
+        ObjectNode jobRequest = null;
+        String jobId = null;
+        long bytes = 0L;
+        try {
+            final FileItemIterator parts = upload.getItemIterator(request);
+            while (parts.hasNext()) {
+                final FileItemStream part = parts.next();
+                if (REQUEST_PART.equals(part.getFieldName())) {
+                    jobRequest = this.readJobRequest(part);
+                    jobId = jobRequest.get(ID_FIELD).asText();
+                } else if (this.isAttachment(part)) {
+                    if (jobId == null) {
+                        response.sendError(
+                            HttpServletResponse.SC_PRECONDITION_FAILED,
+                            "The " + REQUEST_PART + " part must come before the attachments."
+                        );
+                        return null;
+                    }
+                    if (ATTACHMENT_PART.equals(part.getFieldName())) {
+                        bytes += this.saveAttachment(jobId, part);
+                    } else {
+                        this.saveExistingAttachment(jobId, part);
+                    }
+                } else {
+                    log.debug("Ignoring unknown part {}", part.getFieldName());
+                }
+            }
+        } catch (final FileUploadException | IOException | GenieException e) {
+            this.uploadFailureRate.increment();
+            if (jobId != null) {
+                this.deleteAttachments(jobId);
+            }
+            if (this.isSizeLimitExceeded(e)) {
+                response.sendError(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE, e.getMessage());
+            } else if (e instanceof GenieException) {
+                response.sendError(((GenieException) e).getErrorCode(), e.getMessage());
+            } else {
+                log.error("Unable to read job submission with attachments", e);
+                response.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+            }
+            return null;
+        }
+
+        if (jobRequest == null) {
+            response.sendError(HttpServletResponse.SC_PRECONDITION_FAILED, "No job entered. Unable to submit.");
+            return null;
+        }
+
+        final long duration = this.registry.clock().monotonicTime() - start;
+        this.uploadTimer.record(duration, TimeUnit.NANOSECONDS);
+        this.uploadBytes.increment(bytes);
+        if (duration > 0L) {
+            this.uploadThroughput.record((long) (bytes * (double) TimeUnit.SECONDS.toNanos(1L) / duration));
+        }
+        return JsonUtils.getMapper().writeValueAsBytes(jobRequest);
+    }
+
+    private ObjectNode readJobRequest(final FileItemStream part) throws IOException, GenieException {
+        final JsonNode node;
+        try (final InputStream in = part.openStream()) {
+            node = JsonUtils.getMapper().readTree(in);
+        }
+        if (!(node instanceof ObjectNode)) {
+            throw new IOException("The " + REQUEST_PART + " part isn't a JSON object");
+        }
+        final ObjectNode jobRequest = (ObjectNode) node;
+        // The id is needed to save the attachments so assign it here like the controller would
+        final JsonNode id = jobRequest.get(ID_FIELD);
+        if (id == null || StringUtils.isBlank(id.asText(null))) {
+            jobRequest.put(ID_FIELD, UUID.randomUUID().toString());
+        } else if (this.jobExists(id.asText())) {
+            throw new GenieConflictException("A job with id " + id.asText() + " already exists");
+        }
+        return jobRequest;
+    }
+
+    private long saveAttachment(final String jobId, final FileItemStream part) throws IOException, GenieException {
+        // Clients may send the full path of the file on their machine
+        final String filename = FilenameUtils.getName(part.getName());
+        if (StringUtils.isBlank(filename)) {
+            throw new IOException("Attachment without a file name");
+        }
+        try (final CountingInputStream in = new CountingInputStream(part.openStream())) {
+            this.attachmentService.save(jobId, filename, in);
+            // Read whatever the service didn't so the size limits are enforced on the whole part
+            ByteStreams.copy(in, ByteStreams.nullOutputStream());
+            log.debug("Attachment name: {} Size: {}", filename, in.getCount());
+            return in.getCount();
+        }
+    }
+
+    private void saveExistingAttachment(
+        final String jobId,
+        final FileItemStream part
+    ) throws IOException, GenieException {
+        final String filename = FilenameUtils.getName(part.getName());
+        final String sha256;
+        try (final InputStream in = part.openStream()) {
+            sha256 = new String(ByteStreams.toByteArray(in), StandardCharsets.UTF_8).trim();
+        }
+        if (!this.attachmentService.saveExisting(jobId, filename, sha256)) {
+            throw new GenieException(
+                HttpServletResponse.SC_PRECONDITION_FAILED,
+                "Attachment " + filename + " with SHA-256 " + sha256 + " isn't present. Upload it instead."
+            );
+        }
+    }
+
+    private boolean jobExists(final String jobId) throws GenieException {
+        try {
+            return this.jobSearchService.getJobRequest(jobId) != null;
+        } catch (final GenieNotFoundException gnfe) {
+            return false;
+        }
+    }
+
+    private boolean isAttachment(final FileItemStream part) {
+        return !part.isFormField()
+            && (ATTACHMENT_PART.equals(part.getFieldName()) || ATTACHMENT_HASH_PART.equals(part.getFieldName()));
+    }
+
+    private void deleteAttachments(final String jobId) {
+        try {
+            this.attachmentService.delete(jobId);
+        } catch (final GenieException ge) {
+            log.error("Unable to delete attachments of job {}", jobId, ge);
+        }
+    }
+
+    private boolean isSizeLimitExceeded(final Throwable throwable) {
+        return Throwables
+            .getCausalChain(throwable)
+            .stream()
+            .anyMatch(cause -> cause instanceof FileUploadBase.SizeException);
+    }
+
+    /**
+     * Presents the job request part of a multipart job submission as a JSON job submission.
+     *
+     * @author agent
+     * @since 3.0.0
+     */
+    private static class JsonRequestWrapper extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        JsonRequestWrapper(final HttpServletRequest request, final byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public String getContentType() {
+            return MediaType.APPLICATION_JSON_VALUE;
+        }
+
+        @Override
+        public String getCharacterEncoding() {
+            return StandardCharsets.UTF_8.name();
+        }
+
+        @Override
+        public int getContentLength() {
+            return this.body.length;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return this.body.length;
+        }
+
+        @Override
+        public String getHeader(final String name) {
+            if (CONTENT_TYPE_HEADER.equalsIgnoreCase(name)) {
+                return this.getContentType();
+            } else if (CONTENT_LENGTH_HEADER.equalsIgnoreCase(name)) {
+                return Integer.toString(this.body.length);
+            } else {
+                return super.getHeader(name);
+            }
+        }
+
+        @Override
+        public Enumeration<String> getHeaders(final String name) {
+            if (CONTENT_TYPE_HEADER.equalsIgnoreCase(name) || CONTENT_LENGTH_HEADER.equalsIgnoreCase(name)) {
+                return Collections.enumeration(Collections.singletonList(this.getHeader(name)));
+            } else {
+                return super.getHeaders(name);
+            }
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            final ByteArrayInputStream in = new ByteArrayInputStream(this.body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(final ReadListener readListener) {
+                    throw new UnsupportedOperationException("Non blocking reads aren't supported");
+                }
+
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(final byte[] b, final int off, final int len) {
+                    return in.read(b, off, len);
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            return new BufferedReader(new InputStreamReader(this.getInputStream(), StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ *
+ *  Copyright 2016 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.properties;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+
+/**
+ * Properties related to cleaning up the directories of finished jobs on a node.
+ *
+ * @author agent
+ * @since 3.0.0
+ */
+@ConfigurationProperties(prefix = "genie.jobs.cleanup")
+@Component
+@Getter
+@Setter
+public class JobCleanupProperties {
+    private boolean enabled;
+    @Min(0L)
+    private long retention = 3600000L;
+    @Min(1L)
+    private long delay = 300000L;
+    @Min(0L)
+    @Max(100L)
+    private int minFreeSpacePercent = 10;
+    @Min(0L)
+    @Max(100L)
+    private int targetFreeSpacePercent = 20;
+    @Min(1L)
+    private int parallelism = 4;
+}
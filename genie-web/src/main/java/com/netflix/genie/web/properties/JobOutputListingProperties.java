@@ -0,0 +1,42 @@
+/*
+ *
+ *  Copyright 2016 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.properties;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import javax.validation.constraints.Min;
+
+/**
+ * Properties related to listing the contents of job directories.
+ *
+ * @author agent
+ * @since 3.0.0
+ */
+@ConfigurationProperties(prefix = "genie.jobs.output.listing")
+@Component
+@Getter
+@Setter
+public class JobOutputListingProperties {
+    @Min(0L)
+    private long cacheMaxEntries = 1000L;
+    @Min(1L)
+    private long cacheExpireAfterSeconds = 60L;
+}
@@ -0,0 +1,430 @@
+/*
+ *
+ *  Copyright 2016 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.resources.archives;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import com.google.common.collect.Sets;
+import com.netflix.genie.common.dto.Job;
+import com.netflix.genie.common.dto.JobStatus;
+import com.netflix.genie.common.exceptions.GenieException;
+import com.netflix.genie.common.exceptions.GenieNotFoundException;
+import com.netflix.genie.core.jobs.JobArchiveFormat;
+import com.netflix.genie.core.services.JobSearchService;
+import com.netflix.genie.core.services.impl.GenieFileTransferService;
+import com.netflix.genie.core.util.ZipIndex;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Resolves paths within the output of finished jobs from their zip archives.
+ * <p>
+ * The archive is never downloaded in full where the file system supports ranged reads. The first time an archive is
+ * needed only its central directory is fetched with ranged reads and written at the same offset into a sparse local
+ * file of the same size, which is then opened as a zip {@link FileSystem}. That's enough to list directories and read
+ * attributes. The bytes of a member are fetched with a single ranged read into the sparse file the first time the
+ * member itself is requested. Archives on file systems without ranged reads are downloaded in full once instead of
+ * once per range.
+ * <p>
+ * Archives are dropped from the cache once they haven't been used for a while or the cache is full, and closed and
+ * removed from the cache directory once the last path resolved within them is closed as well.
+ *
+ * @author agent
+ * @since 3.0.0
+ */
+@Slf4j
+public class ArchivedJobOutputResolver {
+
+    private static final String SLASH = "/";
+    private static final String CACHE_FILE_SUFFIX = ".cache" + JobArchiveFormat.ZIP.getExtension();
+
+    private final JobSearchService jobSearchService;
+    private final GenieFileTransferService fileTransferService;
+    private final Path cacheDirectory;
+    private final Cache<String, Archive> archives;
+
+    /**
+     * Constructor.
+     *
+     * @param jobSearchService         The service to use to find the archive location of jobs
+     * @param fileTransferService      The service to use to read ranges of archives
+     * @param cacheDirectory           The directory to keep the fetched parts of archives in
+     * @param maxArchives              The maximum number of archives to keep open and on disk at once
+     * @param expireAfterAccessSeconds How long in seconds an archive is kept after it was last used
+     * @throws IOException If the cache directory can't be created or cleaned up
+     */
+    public ArchivedJobOutputResolver(
+        final JobSearchService jobSearchService,
+        final GenieFileTransferService fileTransferService,
+        final Path cacheDirectory,
+        final long maxArchives,
+        final long expireAfterAccessSeconds
+    ) throws IOException {
+        this.jobSearchService = jobSearchService;
+        this.fileTransferService = fileTransferService;
+        this.cacheDirectory = Files.createDirectories(cacheDirectory);
+        this.archives = CacheBuilder
+            .newBuilder()
+            .maximumSize(maxArchives)
+            .expireAfterAccess(expireAfterAccessSeconds, TimeUnit.SECONDS)
+            .removalListener(
+                (RemovalListener<String, Archive>) notification -> this.evict(notification.getValue())
+            )
+            .build();
+
+        // Partially fetched archives left over from a previous run can't be trusted
+        try (
+            final DirectoryStream<Path> leftovers
+                = Files.newDirectoryStream(this.cacheDirectory, "*" + CACHE_FILE_SUFFIX)
+        ) {
+            for (final Path leftover : leftovers) {
+                Files.deleteIfExists(leftover);
+            }
+        }
+    }
+
+    /**
+     * Get the path within the archive of the given job. If the path is a file its contents have been fetched and can
+     * be read once this returns. The archive stays open until the returned path is closed.
+     *
+     * @param jobId The id of the job
+     * @param path  The path relative to the root of the job directory. Blank for the job directory itself.
+     * @return The path within the archive or null if the job has no zip archive or the path isn't in it
+     * @throws IOException If the archive can't be read
+     */
+    public ArchivedPath resolve(final String jobId, final String path) throws IOException {
+        final Archive archive = this.retain(jobId);
+        if (archive == null) {
+            return null;
+        }
+
+        boolean resolved = false;
+        try {
+            final Path root = archive.getFileSystem().getPath(SLASH);
+            final Path member = root.resolve(StringUtils.defaultString(path)).normalize();
+            if (!member.startsWith(root) || !Files.exists(member)) {
+                return null;
+            }
+            if (Files.isRegularFile(member)) {
+                archive.fetch(root.relativize(member).toString());
+            }
+            resolved = true;
+            return new ArchivedPath(member, archive::release);
+        } finally {
+            if (!resolved) {
+                archive.release();
+            }
+        }
+    }
+
+    private Archive retain(final String jobId) throws IOException {
+        while (true) {
+            Archive archive = this.archives.getIfPresent(jobId);
+            if (archive == null) {
+                final String archiveLocation = this.getArchiveLocation(jobId);
+                if (archiveLocation == null) {
+                    return null;
+                }
+                try {
+                    archive = this.archives.get(jobId, () -> this.open(jobId, archiveLocation));
+                } catch (final ExecutionException ee) {
+                    throw new IOException(
+                        "Unable to open archive " + archiveLocation + " of job " + jobId,
+                        ee.getCause()
+                    );
+                }
+            }
+            if (archive.retain()) {
+                return archive;
+            }
+            // Evicted and closed since it was looked up so open it again
+            this.archives.asMap().remove(jobId, archive);
+        }
+    }
+
+    private String getArchiveLocation(final String jobId) throws IOException {
+        final Job job;
+        try {
+            job = this.jobSearchService.getJob(jobId);
+        } catch (final GenieNotFoundException gnfe) {
+            return null;
+        } catch (final GenieException ge) {
+            throw new IOException("Unable to get job " + jobId, ge);
+        }
+        final JobStatus status = job.getStatus();
+        if (status == JobStatus.INIT || status == JobStatus.RUNNING) {
+            // Only finished jobs have been archived
+            return null;
+        }
+        final String archiveLocation = job.getArchiveLocation();
+        if (StringUtils.isBlank(archiveLocation)
+            || JobArchiveFormat.fromLocation(archiveLocation) != JobArchiveFormat.ZIP) {
+            return null;
+        }
+        return archiveLocation;
+    }
+
+    private Archive open(final String jobId, final String archiveLocation) throws IOException, GenieException {
+        // Unique per open so a late eviction of a previous copy can never remove this one
+        final Path local = this.cacheDirectory.resolve(jobId + "." + UUID.randomUUID().toString() + CACHE_FILE_SUFFIX);
+        if (!this.fileTransferService.isRangeSupported(archiveLocation)) {
+            return this.download(jobId, archiveLocation, local);
+        }
+
+        log.info("Reading index of archive {} of job {}", archiveLocation, jobId);
+        final long size = this.fileTransferService.getFileSize(archiveLocation);
+        final ZipIndex.RangeReader reader = (offset, length) -> this.readRange(archiveLocation, offset, length);
+        final ZipIndex index = ZipIndex.read(size, reader);
+
+        final FileChannel channel = FileChannel.open(
+            local,
+            StandardOpenOption.CREATE_NEW,
+            StandardOpenOption.READ,
+            StandardOpenOption.WRITE,
+            StandardOpenOption.SPARSE
+        );
+        try {
+            write(channel, index.getTrailer(), index.getTrailerOffset());
+            return new Archive(index, reader, local, channel, FileSystems.newFileSystem(local, (ClassLoader) null));
+        } catch (final IOException | RuntimeException e) {
+            channel.close();
+            Files.deleteIfExists(local);
+            throw e;
+        }
+    }
+
+    private Archive download(
+        final String jobId,
+        final String archiveLocation,
+        final Path local
+    ) throws IOException, GenieException {
+        log.info("Downloading archive {} of job {} as its file system can't read ranges", archiveLocation, jobId);
+        try {
+            this.fileTransferService.getFile(archiveLocation, local.toString());
+            final FileChannel channel = FileChannel.open(local, StandardOpenOption.READ);
+            try {
+                // Without an index every member is already there
+                return new Archive(null, null, local, channel, FileSystems.newFileSystem(local, (ClassLoader) null));
+            } catch (final IOException | RuntimeException e) {
+                channel.close();
+                throw e;
+            }
+        } catch (final IOException | GenieException | RuntimeException e) {
+            Files.deleteIfExists(local);
+            throw e;
+        }
+    }
+
+    private InputStream readRange(final String location, final long offset, final long length) throws IOException {
+        try {
+            return this.fileTransferService.getFileRange(location, offset, length);
+        } catch (final GenieException ge) {
+            throw new IOException("Unable to read " + length + " bytes at " + offset + " of " + location, ge);
+        }
+    }
+
+    private void evict(final Archive archive) {
+        // Requests still reading from the archive keep it open until they're done
+        archive.release();
+    }
+
+    private static void write(
+        final FileChannel channel,
+        final ByteBuffer buffer,
+        final long offset
+    ) throws IOException {
+        long position = offset;
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    /**
+     * A path within the archive of a job. The archive is kept open until this is closed.
+     *
+     * @author agent
+     * @since 3.0.0
+     */
+    public static final class ArchivedPath implements Closeable {
+        private final Path path;
+        private final Closeable release;
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        /**
+         * Constructor.
+         *
+         * @param path    The path within the archive
+         * @param release Called once when this is closed to release the archive
+         */
+        public ArchivedPath(final Path path, final Closeable release) {
+            this.path = path;
+            this.release = release;
+        }
+
+        /**
+         * Get the path within the archive.
+         *
+         * @return The path
+         */
+        public Path getPath() {
+            return this.path;
+        }
+
+        /**
+         * Release the archive. The path can't be read afterwards.
+         *
+         * @throws IOException If the archive can't be released
+         */
+        @Override
+        public void close() throws IOException {
+            if (this.closed.compareAndSet(false, true)) {
+                this.release.close();
+            }
+        }
+    }
+
+    /**
+     * A sparse local copy of an archive and which of its members have been fetched, or a full copy without an index.
+     * Counts the references to it held by the cache and by resolved paths and is closed when the last of them is
+     * released.
+     */
+    private static final class Archive {
+        private final ZipIndex index;
+        private final ZipIndex.RangeReader reader;
+        private final Path local;
+        private final FileChannel channel;
+        private final FileSystem fileSystem;
+        private final Set<String> fetched;
+        private final AtomicInteger references = new AtomicInteger(1);
+
+        private Archive(
+            final ZipIndex index,
+            final ZipIndex.RangeReader reader,
+            final Path local,
+            final FileChannel channel,
+            final FileSystem fileSystem
+        ) {
+            this.index = index;
+            this.reader = reader;
+            this.local = local;
+            this.channel = channel;
+            this.fileSystem = fileSystem;
+            this.fetched = Sets.newSetFromMap(new ConcurrentHashMap<>());
+        }
+
+        private FileSystem getFileSystem() {
+            return this.fileSystem;
+        }
+
+        /**
+         * Copy the local header and data of the member into the sparse file if that hasn't been done yet.
+         */
+        private void fetch(final String name) throws IOException {
+            if (this.index == null || this.fetched.contains(name)) {
+                return;
+            }
+            final ZipIndex.Entry entry = this.index.getEntry(name);
+            if (entry == null) {
+                return;
+            }
+            synchronized (this) {
+                if (this.fetched.contains(name)) {
+                    return;
+                }
+                final long end = entry.getLocalHeaderOffset() + entry.getMemberLength();
+                try (
+                    final InputStream member = this.reader.read(entry.getLocalHeaderOffset(), entry.getMemberLength());
+                    final ReadableByteChannel source = Channels.newChannel(member)
+                ) {
+                    long position = entry.getLocalHeaderOffset();
+                    while (position < end) {
+                        final long transferred = this.channel.transferFrom(source, position, end - position);
+                        if (transferred <= 0) {
+                            throw new IOException("Archive ended before all of member " + name + " was read");
+                        }
+                        position += transferred;
+                    }
+                }
+                this.fetched.add(name);
+            }
+        }
+
+        /**
+         * Take a reference to the archive.
+         *
+         * @return False if the archive was already closed
+         */
+        private boolean retain() {
+            int current;
+            do {
+                current = this.references.get();
+                if (current == 0) {
+                    return false;
+                }
+            } while (!this.references.compareAndSet(current, current + 1));
+            return true;
+        }
+
+        /**
+         * Drop a reference to the archive and close it if that was the last one.
+         */
+        private void release() {
+            if (this.references.decrementAndGet() == 0) {
+                try {
+                    this.close();
+                } catch (final IOException ioe) {
+                    log.warn("Unable to remove cached archive {}", this.local, ioe);
+                }
+            }
+        }
+
+        private void close() throws IOException {
+            try {
+                this.fileSystem.close();
+            } finally {
+                try {
+                    this.channel.close();
+                } finally {
+                    Files.deleteIfExists(this.local);
+                }
+            }
+        }
+    }
+}
@@ -18,7 +18,11 @@
 package com.netflix.genie.web.resources.handlers;
 
 import com.netflix.genie.core.jobs.JobConstants;
+import com.netflix.genie.web.resources.archives.ArchivedJobOutputResolver;
+import com.netflix.genie.web.resources.writers.DirectoryListingOptions;
 import com.netflix.genie.web.resources.writers.DirectoryWriter;
+import com.netflix.genie.web.resources.writers.StreamingDirectoryWriter;
+import org.apache.commons.lang3.StringUtils;
 import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
@@ -32,7 +36,10 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.File;
 import java.io.IOException;
+import java.net.URLConnection;
 import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
 /**
  * Class extends ResourceHttpRequestHandler to override handling a request to return directory listing if it
@@ -50,9 +57,26 @@ public class GenieResourceHttpRequestHandler extends ResourceHttpRequestHandler
     public static final String GENIE_JOB_IS_ROOT_DIRECTORY
         = GenieResourceHttpRequestHandler.class.getName() + ".isRootDirectory";
 
+    /**
+     * Request parameter for the number of directory entries to skip in a listing.
+     */
+    public static final String OFFSET_PARAM = "offset";
+
+    /**
+     * Request parameter for the maximum number of directory entries to return in a listing.
+     */
+    public static final String LIMIT_PARAM = "limit";
+
+    /**
+     * Request parameter for a glob pattern directory entries must match to be returned in a listing.
+     */
+    public static final String GLOB_PARAM = "glob";
+
     private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final String DONE_FILE = StringUtils.removeStart(JobConstants.GENIE_DONE_FILE_NAME, "./");
 
     private DirectoryWriter directoryWriter;
+    private ArchivedJobOutputResolver archivedJobOutputResolver;
 
     /**
      * Constructor.
@@ -60,8 +84,23 @@ public class GenieResourceHttpRequestHandler extends ResourceHttpRequestHandler
      * @param directoryWriter The class to use to convert directories to representations like HTML
      */
     public GenieResourceHttpRequestHandler(final DirectoryWriter directoryWriter) {
+        this(directoryWriter, null);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param directoryWriter           The class to use to convert directories to representations like HTML
+     * @param archivedJobOutputResolver Used to serve the output of jobs from their archives once their directories are
+     *                                  no longer on this node. Null to disable. Requires a StreamingDirectoryWriter.
+     */
+    public GenieResourceHttpRequestHandler(
+        final DirectoryWriter directoryWriter,
+        final ArchivedJobOutputResolver archivedJobOutputResolver
+    ) {
         super();
         this.directoryWriter = directoryWriter;
+        this.archivedJobOutputResolver = archivedJobOutputResolver;
     }
 
     /**
@@ -81,20 +120,34 @@ public class GenieResourceHttpRequestHandler extends ResourceHttpRequestHandler
         final String path = (String) request.getAttribute(HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE);
         final Resource resource = this.getLocations().get(0).createRelative(path);
         if (!resource.exists()) {
-            response.sendError(HttpStatus.NOT_FOUND.value());
+            // Keeps the archive open until the response has been written
+            try (final ArchivedJobOutputResolver.ArchivedPath archived = this.resolveArchivedPath(path)) {
+                if (archived != null) {
+                    this.handleArchivedRequest(request, response, archived.getPath());
+                } else {
+                    response.sendError(HttpStatus.NOT_FOUND.value());
+                }
+            }
             return;
         }
 
         final File file = resource.getFile();
         if (file.isDirectory()) {
-            final Object rootDirAttribute = request.getAttribute(GENIE_JOB_IS_ROOT_DIRECTORY);
-            final boolean isRootDirectory = rootDirAttribute != null ? (Boolean) rootDirAttribute : true;
+            final boolean isRootDirectory = this.isRootDirectory(request);
             final String accept = request.getHeader(HttpHeaders.ACCEPT);
-            final String requestUrl;
-            if (request.getHeader(JobConstants.GENIE_FORWARDED_FROM_HEADER) != null) {
-                requestUrl = request.getHeader(JobConstants.GENIE_FORWARDED_FROM_HEADER);
-            } else {
-                requestUrl = request.getRequestURL().toString();
+            final String requestUrl = this.getRequestUrl(request);
+
+            if (this.directoryWriter instanceof StreamingDirectoryWriter) {
+                this.handleStreamingRequest(
+                    (StreamingDirectoryWriter) this.directoryWriter,
+                    request,
+                    response,
+                    file.toPath(),
+                    requestUrl,
+                    !isRootDirectory,
+                    this.isJobFinished(path)
+                );
+                return;
             }
 
             try {
@@ -128,4 +181,125 @@ public class GenieResourceHttpRequestHandler extends ResourceHttpRequestHandler
             super.handleRequest(request, response);
         }
     }
+
+    private void handleArchivedRequest(
+        final HttpServletRequest request,
+        final HttpServletResponse response,
+        final Path archived
+    ) throws ServletException, IOException {
+        if (Files.isDirectory(archived)) {
+            if (!(this.directoryWriter instanceof StreamingDirectoryWriter)) {
+                response.sendError(HttpStatus.NOT_FOUND.value());
+                return;
+            }
+            this.handleStreamingRequest(
+                (StreamingDirectoryWriter) this.directoryWriter,
+                request,
+                response,
+                archived,
+                this.getRequestUrl(request),
+                !this.isRootDirectory(request),
+                true
+            );
+        } else {
+            final Path fileName = archived.getFileName();
+            final String contentType
+                = fileName == null ? null : URLConnection.guessContentTypeFromName(fileName.toString());
+            if (contentType != null) {
+                response.setContentType(contentType);
+            }
+            response.setHeader(HttpHeaders.CONTENT_LENGTH, Long.toString(Files.size(archived)));
+            Files.copy(archived, response.getOutputStream());
+        }
+    }
+
+    private void handleStreamingRequest(
+        final StreamingDirectoryWriter writer,
+        final HttpServletRequest request,
+        final HttpServletResponse response,
+        final Path directory,
+        final String requestUrl,
+        final boolean includeParent,
+        final boolean cacheable
+    ) throws ServletException, IOException {
+        final DirectoryListingOptions options;
+        try {
+            options = new DirectoryListingOptions(
+                this.getIntParameter(request, OFFSET_PARAM, 0),
+                this.getIntParameter(request, LIMIT_PARAM, Integer.MAX_VALUE),
+                request.getParameter(GLOB_PARAM),
+                cacheable
+            );
+        } catch (final IllegalArgumentException iae) {
+            response.sendError(HttpStatus.BAD_REQUEST.value(), iae.getMessage());
+            return;
+        }
+
+        final String accept = request.getHeader(HttpHeaders.ACCEPT);
+        try {
+            if (accept != null && accept.contains(MediaType.TEXT_HTML_VALUE)) {
+                response.setContentType(MediaType.TEXT_HTML_VALUE);
+                writer.writeHtml(directory, requestUrl, includeParent, options, response.getOutputStream());
+            } else {
+                response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+                writer.writeJson(directory, requestUrl, includeParent, options, response.getOutputStream());
+            }
+        } catch (final Exception e) {
+            throw new ServletException(e);
+        }
+    }
+
+    private boolean isRootDirectory(final HttpServletRequest request) {
+        final Object rootDirAttribute = request.getAttribute(GENIE_JOB_IS_ROOT_DIRECTORY);
+        return rootDirAttribute != null ? (Boolean) rootDirAttribute : true;
+    }
+
+    private String getRequestUrl(final HttpServletRequest request) {
+        if (request.getHeader(JobConstants.GENIE_FORWARDED_FROM_HEADER) != null) {
+            return request.getHeader(JobConstants.GENIE_FORWARDED_FROM_HEADER);
+        } else {
+            return request.getRequestURL().toString();
+        }
+    }
+
+    /**
+     * The path the handler is given starts with the id of the job. If the job directory is gone the rest of the path
+     * is looked for in the archive of the job.
+     */
+    private ArchivedJobOutputResolver.ArchivedPath resolveArchivedPath(final String path) throws IOException {
+        if (this.archivedJobOutputResolver == null) {
+            return null;
+        }
+        final String jobId = StringUtils.substringBefore(path, "/");
+        if (StringUtils.isBlank(jobId)) {
+            return null;
+        }
+        return this.archivedJobOutputResolver.resolve(jobId, StringUtils.substringAfter(path, "/"));
+    }
+
+    private int getIntParameter(
+        final HttpServletRequest request,
+        final String name,
+        final int defaultValue
+    ) {
+        final String value = request.getParameter(name);
+        if (StringUtils.isBlank(value)) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (final NumberFormatException nfe) {
+            throw new IllegalArgumentException("Parameter " + name + " must be an integer. Was " + value, nfe);
+        }
+    }
+
+    /**
+     * Once the done file is written for a job the contents of its directory no longer change so listings of it are
+     * safe to cache.
+     */
+    private boolean isJobFinished(final String path) throws IOException {
+        final String jobId = StringUtils.substringBefore(path, "/");
+        return StringUtils.isNotBlank(jobId)
+            && this.getLocations().get(0).createRelative(jobId + "/" + DONE_FILE).exists();
+    }
 }
@@ -17,8 +17,9 @@
  */
 package com.netflix.genie.web.resources.writers;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.google.common.collect.Lists;
+import com.netflix.genie.common.util.JsonUtils;
 import lombok.Data;
 import org.apache.catalina.util.ConcurrentDateFormat;
 import org.apache.catalina.util.ServerInfo;
@@ -52,6 +53,8 @@ public class DefaultDirectoryWriter implements DirectoryWriter {
             + "A.name {color : black;}"
             + ".line {height: 1px; background-color: #525D76; border: none;}";
 
+    private static final ObjectWriter DIRECTORY_WRITER = JsonUtils.getMapper().writerFor(Directory.class);
+
     /**
      * {@inheritDoc}
      *
@@ -64,45 +67,56 @@ public class DefaultDirectoryWriter implements DirectoryWriter {
         final boolean includeParent
     ) throws IOException {
         final Directory dir = this.getDirectory(directory, requestURL, includeParent);
-
         final StringBuilder builder = new StringBuilder();
+        this.writeHtml(builder, directory.getName(), dir);
+        return builder.toString();
+    }
 
+    /**
+     * Render the HTML page for a directory to the given output.
+     *
+     * @param out   Where to write the HTML
+     * @param title The title of the page. Usually the name of the directory.
+     * @param dir   The directory contents to render
+     * @throws IOException on error writing to the output
+     */
+    protected void writeHtml(final Appendable out, final String title, final Directory dir) throws IOException {
         // Render the page header
-        builder.append("<!DOCTYPE html>");
-        builder.append("<html>");
-        builder.append("<head>");
-        builder.append("<title>");
-        builder.append(directory.getName());
-        builder.append("</title>");
-        builder.append("<style type=\"text/css\"><!--");
-        builder.append(DEFAULT_CSS);
-        builder.append("--></style> ");
-        builder.append("</head>");
+        out.append("<!DOCTYPE html>");
+        out.append("<html>");
+        out.append("<head>");
+        out.append("<title>");
+        out.append(title);
+        out.append("</title>");
+        out.append("<style type=\"text/css\"><!--");
+        out.append(DEFAULT_CSS);
+        out.append("--></style> ");
+        out.append("</head>");
 
         // Body
-        builder.append("<body>");
-        builder.append("<h1>").append(directory.getName()).append("</h1>");
+        out.append("<body>");
+        out.append("<h1>").append(title).append("</h1>");
 
-        builder.append("<HR size=\"1\" noshade=\"noshade\">");
+        out.append("<HR size=\"1\" noshade=\"noshade\">");
 
-        builder.append("<table width=\"100%\" cellspacing=\"0\"" + " cellpadding=\"5\" align=\"center\">");
+        out.append("<table width=\"100%\" cellspacing=\"0\"" + " cellpadding=\"5\" align=\"center\">");
 
         // Render the column headings
-        builder.append("<tr>");
-        builder.append("<td align=\"left\"><font size=\"+1\"><strong>");
-        builder.append("Filename");
-        builder.append("</strong></font></td>");
-        builder.append("<td align=\"right\"><font size=\"+1\"><strong>");
-        builder.append("Size");
-        builder.append("</strong></font></td>");
-        builder.append("<td align=\"right\"><font size=\"+1\"><strong>");
-        builder.append("Last Modified");
-        builder.append("</strong></font></td>");
-        builder.append("</tr>");
+        out.append("<tr>");
+        out.append("<td align=\"left\"><font size=\"+1\"><strong>");
+        out.append("Filename");
+        out.append("</strong></font></td>");
+        out.append("<td align=\"right\"><font size=\"+1\"><strong>");
+        out.append("Size");
+        out.append("</strong></font></td>");
+        out.append("<td align=\"right\"><font size=\"+1\"><strong>");
+        out.append("Last Modified");
+        out.append("</strong></font></td>");
+        out.append("</tr>");
 
         // Write parent if necessary
         if (dir.getParent() != null) {
-            this.writeFileHtml(builder, false, dir.getParent());
+            this.writeFileHtml(out, false, dir.getParent());
         }
 
         boolean shade = true;
@@ -110,7 +124,7 @@ public class DefaultDirectoryWriter implements DirectoryWriter {
         // Write directories
         if (dir.getDirectories() != null) {
             for (final Entry entry : dir.getDirectories()) {
-                this.writeFileHtml(builder, shade, entry);
+                this.writeFileHtml(out, shade, entry);
                 shade = !shade;
             }
         }
@@ -118,21 +132,19 @@ public class DefaultDirectoryWriter implements DirectoryWriter {
         // Write files
         if (dir.getFiles() != null) {
             for (final Entry entry : dir.getFiles()) {
-                this.writeFileHtml(builder, shade, entry);
+                this.writeFileHtml(out, shade, entry);
                 shade = !shade;
             }
         }
 
         // Render the page footer
-        builder.append("</table>");
+        out.append("</table>");
 
-        builder.append("<HR size=\"1\" noshade=\"noshade\">");
+        out.append("<HR size=\"1\" noshade=\"noshade\">");
         // TODO: replace with something related to Genie
-        builder.append("<h3>").append(ServerInfo.getServerInfo()).append("</h3>");
-        builder.append("</body>");
-        builder.append("</html>");
-
-        return builder.toString();
+        out.append("<h3>").append(ServerInfo.getServerInfo()).append("</h3>");
+        out.append("</body>");
+        out.append("</html>");
     }
 
     /**
@@ -145,8 +157,7 @@ public class DefaultDirectoryWriter implements DirectoryWriter {
         final boolean includeParent
     ) throws Exception {
         final Directory dir = this.getDirectory(directory, requestURL, includeParent);
-        final ObjectMapper mapper = new ObjectMapper();
-        return mapper.writeValueAsString(dir);
+        return DIRECTORY_WRITER.writeValueAsString(dir);
     }
 
     private String renderSize(final long size) {
@@ -161,25 +172,25 @@ public class DefaultDirectoryWriter implements DirectoryWriter {
     }
 
     private void writeFileHtml(
-        final StringBuilder builder,
+        final Appendable out,
         final boolean shade,
         final Entry entry
-    ) {
-        builder.append("<tr");
+    ) throws IOException {
+        out.append("<tr");
         if (shade) {
-            builder.append(" bgcolor=\"#eeeeee\"");
+            out.append(" bgcolor=\"#eeeeee\"");
         }
-        builder.append(">");
+        out.append(">");
 
-        builder.append("<td align=\"left\">&nbsp;&nbsp;");
-        builder.append("<a href=\"").append(entry.getUrl()).append("\">");
-        builder.append("<tt>").append(entry.getName()).append("</tt></a></td>");
-        builder
+        out.append("<td align=\"left\">&nbsp;&nbsp;");
+        out.append("<a href=\"").append(entry.getUrl()).append("\">");
+        out.append("<tt>").append(entry.getName()).append("</tt></a></td>");
+        out
             .append("<td align=\"right\"><tt>")
             .append(this.renderSize(entry.getSize())).append("</tt></td>");
         final String lastModified = ConcurrentDateFormat.formatRfc1123(new Date(entry.getLastModified()));
-        builder.append("<td align=\"right\"><tt>").append(lastModified).append("</tt></td>");
-        builder.append("</tr>");
+        out.append("<td align=\"right\"><tt>").append(lastModified).append("</tt></td>");
+        out.append("</tr>");
     }
 
     protected Directory getDirectory(final File directory, final String requestUrl, final boolean includeParent) {
@@ -193,14 +204,8 @@ public class DefaultDirectoryWriter implements DirectoryWriter {
 
         if (includeParent) {
             final Entry parent = new Entry();
-            String url = requestUrl;
-            if (url.charAt(url.length() - 1) == '/') {
-                url = url.substring(0, url.length() - 2);
-            }
-            // Rip off the last directory
-            url = url.substring(0, url.lastIndexOf('/'));
             parent.setName("../");
-            parent.setUrl(url);
+            parent.setUrl(this.getParentUrl(requestUrl));
             parent.setSize(directory.getParentFile().getAbsoluteFile().length());
             parent.setLastModified(directory.getParentFile().getAbsoluteFile().lastModified());
             dir.setParent(parent);
@@ -238,6 +243,21 @@ public class DefaultDirectoryWriter implements DirectoryWriter {
         return dir;
     }
 
+    /**
+     * Get the URL of the parent directory of the directory the request was made for.
+     *
+     * @param requestUrl The URL of the request for the directory
+     * @return The URL of the parent directory
+     */
+    protected String getParentUrl(final String requestUrl) {
+        String url = requestUrl;
+        if (url.charAt(url.length() - 1) == '/') {
+            url = url.substring(0, url.length() - 2);
+        }
+        // Rip off the last directory
+        return url.substring(0, url.lastIndexOf('/'));
+    }
+
     @Data
     protected static class Directory {
         private Entry parent;
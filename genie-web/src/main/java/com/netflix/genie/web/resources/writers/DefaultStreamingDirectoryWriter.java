@@ -0,0 +1,341 @@
+/*
+ *
+ *  Copyright 2016 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.resources.writers;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Lists;
+import com.netflix.genie.common.util.JsonUtils;
+import lombok.Getter;
+import org.apache.commons.lang3.StringUtils;
+import org.hibernate.validator.constraints.URL;
+
+import javax.validation.constraints.NotNull;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * A directory writer which lists directories using a {@link DirectoryStream} reading the attributes of each entry
+ * with a single call, supports paging and filtering of the entries and writes straight to an output stream.
+ * <p>
+ * Listings of directories the caller marks as cacheable (e.g. belonging to a finished job) are kept for a short time.
+ * The modification time of the directory is part of the cache key so entries added or removed afterwards are still
+ * picked up.
+ *
+ * @author agent
+ * @since 3.0.0
+ */
+public class DefaultStreamingDirectoryWriter extends DefaultDirectoryWriter implements StreamingDirectoryWriter {
+
+    private static final String GLOB_PREFIX = "glob:";
+    private static final String SLASH = "/";
+    private static final Comparator<Item> NAME_COMPARATOR = Comparator.comparing(Item::getName);
+    private static final ObjectWriter DIRECTORY_WRITER = JsonUtils
+        .getMapper()
+        .writerFor(Directory.class)
+        .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+    private final Cache<String, Listing> listingCache;
+
+    /**
+     * Constructor.
+     *
+     * @param cacheMaxEntries         The maximum number of directory listings to cache. 0 disables caching.
+     * @param cacheExpireAfterSeconds How long after being read a directory listing should be evicted from the cache
+     */
+    public DefaultStreamingDirectoryWriter(final long cacheMaxEntries, final long cacheExpireAfterSeconds) {
+        this.listingCache = CacheBuilder
+            .newBuilder()
+            .maximumSize(cacheMaxEntries)
+            .expireAfterWrite(cacheExpireAfterSeconds, TimeUnit.SECONDS)
+            .build();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void writeHtml(
+        @NotNull final File directory,
+        @URL final String requestURL,
+        final boolean includeParent,
+        @NotNull final DirectoryListingOptions options,
+        @NotNull final OutputStream outputStream
+    ) throws IOException {
+        this.writeHtml(directory.toPath(), requestURL, includeParent, options, outputStream);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void writeJson(
+        @NotNull final File directory,
+        @URL final String requestURL,
+        final boolean includeParent,
+        @NotNull final DirectoryListingOptions options,
+        @NotNull final OutputStream outputStream
+    ) throws IOException {
+        this.writeJson(directory.toPath(), requestURL, includeParent, options, outputStream);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void writeHtml(
+        @NotNull final Path directory,
+        @URL final String requestURL,
+        final boolean includeParent,
+        @NotNull final DirectoryListingOptions options,
+        @NotNull final OutputStream outputStream
+    ) throws IOException {
+        final Directory dir = this.getDirectory(directory, requestURL, includeParent, options);
+        final Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        final Path fileName = directory.getFileName();
+        this.writeHtml(writer, fileName == null ? directory.toString() : fileName.toString(), dir);
+        writer.flush();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void writeJson(
+        @NotNull final Path directory,
+        @URL final String requestURL,
+        final boolean includeParent,
+        @NotNull final DirectoryListingOptions options,
+        @NotNull final OutputStream outputStream
+    ) throws IOException {
+        final Directory dir = this.getDirectory(directory, requestURL, includeParent, options);
+        DIRECTORY_WRITER.writeValue(outputStream, dir);
+        outputStream.flush();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected Directory getDirectory(final File directory, final String requestUrl, final boolean includeParent) {
+        try {
+            return this.getDirectory(directory, requestUrl, includeParent, DirectoryListingOptions.DEFAULT);
+        } catch (final IOException ioe) {
+            throw new UncheckedIOException(ioe);
+        }
+    }
+
+    /**
+     * Get the page of the directory described by the options.
+     *
+     * @param directory     The directory to list
+     * @param requestUrl    The URL of the request that kicked off this process
+     * @param includeParent Whether to include an entry for the parent directory
+     * @param options       Which entries of the directory to include
+     * @return The directory representation
+     * @throws IOException on error reading the directory
+     */
+    protected Directory getDirectory(
+        final File directory,
+        final String requestUrl,
+        final boolean includeParent,
+        final DirectoryListingOptions options
+    ) throws IOException {
+        return this.getDirectory(directory.toPath(), requestUrl, includeParent, options);
+    }
+
+    /**
+     * Get the page of the directory described by the options.
+     *
+     * @param path          The directory to list
+     * @param requestUrl    The URL of the request that kicked off this process
+     * @param includeParent Whether to include an entry for the parent directory
+     * @param options       Which entries of the directory to include
+     * @return The directory representation
+     * @throws IOException on error reading the directory
+     */
+    protected Directory getDirectory(
+        final Path path,
+        final String requestUrl,
+        final boolean includeParent,
+        final DirectoryListingOptions options
+    ) throws IOException {
+        if (!Files.isDirectory(path)) {
+            throw new IllegalArgumentException("Input directory is not a valid directory. Unable to continue.");
+        }
+        if (StringUtils.isBlank(requestUrl)) {
+            throw new IllegalArgumentException("No request url entered. Unable to continue.");
+        }
+        final Directory dir = new Directory();
+
+        if (includeParent) {
+            final Path parentPath = path.toAbsolutePath().getParent();
+            final BasicFileAttributes attributes
+                = Files.readAttributes(parentPath == null ? path : parentPath, BasicFileAttributes.class);
+            final Entry parent = new Entry();
+            parent.setName("../");
+            parent.setUrl(this.getParentUrl(requestUrl));
+            parent.setSize(attributes.size());
+            parent.setLastModified(attributes.lastModifiedTime().toMillis());
+            dir.setParent(parent);
+        }
+
+        final Listing listing = this.getListing(path, options);
+
+        // Directories are listed before files so page over them in that order
+        final long start = options.getOffset();
+        final long total = listing.getDirectories().size() + listing.getFiles().size();
+        final long end = Math.min(start + options.getLimit(), total);
+        final String baseURL = requestUrl.endsWith(SLASH) ? requestUrl : requestUrl + SLASH;
+        dir.setDirectories(Lists.newArrayList());
+        dir.setFiles(Lists.newArrayList());
+        for (long i = start; i < end; i++) {
+            if (i < listing.getDirectories().size()) {
+                final Item item = listing.getDirectories().get((int) i);
+                dir.getDirectories().add(this.toEntry(item, baseURL + item.getName()));
+            } else {
+                final Item item = listing.getFiles().get((int) (i - listing.getDirectories().size()));
+                dir.getFiles().add(this.toEntry(item, baseURL + item.getName()));
+            }
+        }
+
+        return dir;
+    }
+
+    private Listing getListing(final Path path, final DirectoryListingOptions options) throws IOException {
+        final String glob = StringUtils.trimToNull(options.getGlob());
+        if (!options.isCacheable()) {
+            return this.list(path, glob);
+        }
+
+        // The URI includes the file system e.g. which archive the path is within
+        final String key = path.toUri().toString() + "@" + Files.getLastModifiedTime(path).toMillis();
+        final Listing listing;
+        try {
+            listing = this.listingCache.get(key, () -> this.list(path, null));
+        } catch (final ExecutionException ee) {
+            throw new IOException("Unable to list directory " + path, ee.getCause());
+        }
+
+        if (glob == null) {
+            return listing;
+        } else {
+            final PathMatcher matcher = path.getFileSystem().getPathMatcher(GLOB_PREFIX + glob);
+            return new Listing(
+                listing
+                    .getDirectories()
+                    .stream()
+                    .filter(item -> matcher.matches(path.getFileSystem().getPath(item.getFileName())))
+                    .collect(Collectors.toList()),
+                listing
+                    .getFiles()
+                    .stream()
+                    .filter(item -> matcher.matches(path.getFileSystem().getPath(item.getFileName())))
+                    .collect(Collectors.toList())
+            );
+        }
+    }
+
+    private Listing list(final Path path, final String glob) throws IOException {
+        final List<Item> directories = Lists.newArrayList();
+        final List<Item> files = Lists.newArrayList();
+        try (
+            final DirectoryStream<Path> stream
+                = glob == null ? Files.newDirectoryStream(path) : Files.newDirectoryStream(path, glob)
+        ) {
+            for (final Path child : stream) {
+                final BasicFileAttributes attributes;
+                try {
+                    attributes = Files.readAttributes(child, BasicFileAttributes.class);
+                } catch (final NoSuchFileException nsfe) {
+                    // Deleted since the directory was read or a dangling link. Either way nothing to show.
+                    continue;
+                }
+                final String fileName = child.getFileName().toString();
+                if (attributes.isDirectory()) {
+                    directories.add(new Item(fileName, true, attributes));
+                } else {
+                    files.add(new Item(fileName, false, attributes));
+                }
+            }
+        }
+        directories.sort(NAME_COMPARATOR);
+        files.sort(NAME_COMPARATOR);
+        return new Listing(directories, files);
+    }
+
+    private Entry toEntry(final Item item, final String url) {
+        final Entry entry = new Entry();
+        entry.setName(item.getName());
+        entry.setUrl(url);
+        entry.setSize(item.getSize());
+        entry.setLastModified(item.getLastModified());
+        return entry;
+    }
+
+    /**
+     * The sorted entries of a directory.
+     */
+    @Getter
+    private static final class Listing {
+        private final List<Item> directories;
+        private final List<Item> files;
+
+        private Listing(final List<Item> directories, final List<Item> files) {
+            this.directories = directories;
+            this.files = files;
+        }
+    }
+
+    /**
+     * The attributes of a single entry in a directory which are rendered.
+     */
+    @Getter
+    private static final class Item {
+        private final String fileName;
+        private final String name;
+        private final long size;
+        private final long lastModified;
+
+        private Item(final String fileName, final boolean directory, final BasicFileAttributes attributes) {
+            this.fileName = fileName;
+            this.name = directory ? fileName + SLASH : fileName;
+            this.size = attributes.size();
+            this.lastModified = attributes.lastModifiedTime().toMillis();
+        }
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ *
+ *  Copyright 2016 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.resources.writers;
+
+import lombok.Getter;
+import org.apache.commons.lang3.StringUtils;
+
+import java.nio.file.FileSystems;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Options controlling which entries of a directory are returned in a listing.
+ *
+ * @author agent
+ * @since 3.0.0
+ */
+@Getter
+public class DirectoryListingOptions {
+
+    /**
+     * List every entry in the directory without caching.
+     */
+    public static final DirectoryListingOptions DEFAULT
+        = new DirectoryListingOptions(0, Integer.MAX_VALUE, null, false);
+
+    private final int offset;
+    private final int limit;
+    private final String glob;
+    private final boolean cacheable;
+
+    /**
+     * Constructor.
+     *
+     * @param offset    The number of entries to skip. Directories are listed before files. Must be 0 or more.
+     * @param limit     The maximum number of entries to return. Must be 0 or more.
+     * @param glob      A glob pattern entry names must match to be returned. Null or empty for all entries.
+     * @param cacheable Whether the contents of the directory can no longer change (e.g. the job is finished) so the
+     *                  listing can be cached
+     * @throws IllegalArgumentException If the offset or limit is negative or the glob isn't a valid pattern
+     */
+    public DirectoryListingOptions(final int offset, final int limit, final String glob, final boolean cacheable) {
+        if (offset < 0) {
+            throw new IllegalArgumentException("Offset must be 0 or more. Was " + offset);
+        }
+        if (limit < 0) {
+            throw new IllegalArgumentException("Limit must be 0 or more. Was " + limit);
+        }
+        if (StringUtils.isNotBlank(glob)) {
+            // Checked up front so a bad pattern is the client's error rather than failing while the listing is written
+            try {
+                FileSystems.getDefault().getPathMatcher("glob:" + glob.trim());
+            } catch (final PatternSyntaxException pse) {
+                throw new IllegalArgumentException("Invalid glob " + glob + ": " + pse.getDescription(), pse);
+            }
+        }
+        this.offset = offset;
+        this.limit = limit;
+        this.glob = glob;
+        this.cacheable = cacheable;
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ *
+ *  Copyright 2016 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.resources.writers;
+
+import org.hibernate.validator.constraints.URL;
+
+import javax.validation.constraints.NotNull;
+import java.io.File;
+import java.io.OutputStream;
+import java.nio.file.Path;
+
+/**
+ * A directory writer which can write a page of a directory listing directly to a stream instead of building the
+ * whole representation in memory first.
+ *
+ * @author agent
+ * @since 3.0.0
+ */
+public interface StreamingDirectoryWriter extends DirectoryWriter {
+
+    /**
+     * Write a full valid HTML page for the given directory to the output stream.
+     *
+     * @param directory     The directory to convert. Not null. Is directory.
+     * @param requestURL    The URL of the request that kicked off this process
+     * @param includeParent Whether the conversion should include reference to the parent directory.
+     * @param options       Which entries of the directory to include
+     * @param outputStream  The stream to write to. Will be flushed but not closed.
+     * @throws Exception for any conversion problem
+     */
+    void writeHtml(
+        @NotNull final File directory,
+        @URL final String requestURL,
+        final boolean includeParent,
+        @NotNull final DirectoryListingOptions options,
+        @NotNull final OutputStream outputStream
+    ) throws Exception;
+
+    /**
+     * Write a JSON representation of the given directory to the output stream.
+     *
+     * @param directory     The directory to convert. Not null. Is directory.
+     * @param requestURL    The URL of the request that kicked off this process
+     * @param includeParent Whether the conversion should include reference to the parent directory.
+     * @param options       Which entries of the directory to include
+     * @param outputStream  The stream to write to. Will be flushed but not closed.
+     * @throws Exception for any conversion problem
+     */
+    void writeJson(
+        @NotNull final File directory,
+        @URL final String requestURL,
+        final boolean includeParent,
+        @NotNull final DirectoryListingOptions options,
+        @NotNull final OutputStream outputStream
+    ) throws Exception;
+
+    /**
+     * Write a full valid HTML page for the given directory to the output stream. The directory can be on any file
+     * system e.g. within an archive.
+     *
+     * @param directory     The directory to convert. Not null. Is directory.
+     * @param requestURL    The URL of the request that kicked off this process
+     * @param includeParent Whether the conversion should include reference to the parent directory.
+     * @param options       Which entries of the directory to include
+     * @param outputStream  The stream to write to. Will be flushed but not closed.
+     * @throws Exception for any conversion problem
+     */
+    void writeHtml(
+        @NotNull final Path directory,
+        @URL final String requestURL,
+        final boolean includeParent,
+        @NotNull final DirectoryListingOptions options,
+        @NotNull final OutputStream outputStream
+    ) throws Exception;
+
+    /**
+     * Write a JSON representation of the given directory to the output stream. The directory can be on any file
+     * system e.g. within an archive.
+     *
+     * @param directory     The directory to convert. Not null. Is directory.
+     * @param requestURL    The URL of the request that kicked off this process
+     * @param includeParent Whether the conversion should include reference to the parent directory.
+     * @param options       Which entries of the directory to include
+     * @param outputStream  The stream to write to. Will be flushed but not closed.
+     * @throws Exception for any conversion problem
+     */
+    void writeJson(
+        @NotNull final Path directory,
+        @URL final String requestURL,
+        final boolean includeParent,
+        @NotNull final DirectoryListingOptions options,
+        @NotNull final OutputStream outputStream
+    ) throws Exception;
+}
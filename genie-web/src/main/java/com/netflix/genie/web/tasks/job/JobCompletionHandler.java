@@ -17,19 +17,25 @@
  */
 package com.netflix.genie.web.tasks.job;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.netflix.genie.common.dto.Job;
 import com.netflix.genie.common.dto.JobRequest;
 import com.netflix.genie.common.dto.JobStatus;
 import com.netflix.genie.common.exceptions.GenieException;
 import com.netflix.genie.common.exceptions.GenieServerException;
+import com.netflix.genie.common.util.JsonUtils;
 import com.netflix.genie.core.events.JobFinishedEvent;
+import com.netflix.genie.core.jobs.JobArchiveFormat;
 import com.netflix.genie.core.jobs.JobConstants;
+import com.netflix.genie.core.jobs.JobDirectoryLayout;
 import com.netflix.genie.core.jobs.JobDoneFile;
+import com.netflix.genie.core.metrics.GenieNodeStatistics;
+import com.netflix.genie.core.services.JobDirectoryManifestService;
 import com.netflix.genie.core.services.JobPersistenceService;
 import com.netflix.genie.core.services.JobSearchService;
 import com.netflix.genie.core.services.MailService;
 import com.netflix.genie.core.services.impl.GenieFileTransferService;
+import com.netflix.genie.core.util.ZipUtil;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.exec.CommandLine;
 import org.apache.commons.exec.DefaultExecutor;
@@ -43,6 +49,9 @@ import org.springframework.stereotype.Component;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 
 /**
  * A class that has the methods to perform various tasks when a job completes.
@@ -54,21 +63,27 @@ import java.io.IOException;
 @Component
 public class JobCompletionHandler {
 
+    private static final ObjectReader JOB_DONE_FILE_READER = JsonUtils.getMapper().readerFor(JobDoneFile.class);
+
     private final JobPersistenceService jobPersistenceService;
     private final JobSearchService jobSearchService;
     private final GenieFileTransferService genieFileTransferService;
     private final String baseWorkingDir;
     private final MailService mailServiceImpl;
+    private final JobDirectoryManifestService jobDirectoryManifestService;
+    private final GenieNodeStatistics statistics;
     private final Executor executor;
 
     /**
      * Constructor.
      *
-     * @param jobSearchService         An implementation of the job search service.
-     * @param jobPersistenceService    An implementation of the job persistence service.
-     * @param genieFileTransferService An implementation of the Genie File Transfer service.
-     * @param genieWorkingDir          The working directory where all job directories are created.
-     * @param mailServiceImpl          An implementation of the mail service.
+     * @param jobSearchService            An implementation of the job search service.
+     * @param jobPersistenceService       An implementation of the job persistence service.
+     * @param genieFileTransferService    An implementation of the Genie File Transfer service.
+     * @param genieWorkingDir             The working directory where all job directories are created.
+     * @param mailServiceImpl             An implementation of the mail service.
+     * @param jobDirectoryManifestService An implementation of the job directory manifest service.
+     * @param statistics                  The statistics of this node to count finished jobs and emails in.
      * @throws GenieException if there is a problem
      */
     @Autowired
@@ -77,12 +92,16 @@ public class JobCompletionHandler {
         final JobSearchService jobSearchService,
         final GenieFileTransferService genieFileTransferService,
         final Resource genieWorkingDir,
-        final MailService mailServiceImpl
+        final MailService mailServiceImpl,
+        final JobDirectoryManifestService jobDirectoryManifestService,
+        final GenieNodeStatistics statistics
     ) throws GenieException {
         this.jobPersistenceService = jobPersistenceService;
         this.jobSearchService = jobSearchService;
         this.genieFileTransferService = genieFileTransferService;
         this.mailServiceImpl = mailServiceImpl;
+        this.jobDirectoryManifestService = jobDirectoryManifestService;
+        this.statistics = statistics;
         this.executor = new DefaultExecutor();
         executor.setStreamHandler(new PumpStreamHandler(null, null));
 
@@ -107,7 +126,9 @@ public class JobCompletionHandler {
         final String jobId = event.getJobExecution().getId();
 
         updateExitCode(jobId);
+        countFinalStatus(jobId);
         cleanupProcesses(event.getJobExecution().getProcessId());
+        saveManifest(jobId);
         archivedJobDir(jobId);
         sendEmail(jobId);
     }
@@ -151,11 +172,9 @@ public class JobCompletionHandler {
             log.debug("Updating the status of the job.");
 
             // read the done file and get exit code to decide status
-            final ObjectMapper objectMapper = new ObjectMapper();
-
             try {
-                final JobDoneFile jobDoneFile = objectMapper
-                    .readValue(new File(baseWorkingDir + "/" + jobId + "/genie/genie.done"), JobDoneFile.class);
+                final JobDoneFile jobDoneFile = JOB_DONE_FILE_READER
+                    .readValue(this.getLayout(jobId).getDoneFile().toFile());
                 final int exitCode = jobDoneFile.getExitCode();
                 this.jobPersistenceService.setExitCode(jobId, exitCode);
             } catch (final IOException ioe) {
@@ -175,6 +194,28 @@ public class JobCompletionHandler {
         }
     }
 
+    /**
+     * Counts the job in the statistics of this node by the status it finished with.
+     *
+     * @param jobId The job id.
+     */
+    private void countFinalStatus(
+        final String jobId
+    ) {
+        try {
+            final JobStatus status = this.jobSearchService.getJobStatus(jobId);
+            if (status == JobStatus.SUCCEEDED) {
+                this.statistics.incrGenieSuccessfulJobs();
+            } else if (status == JobStatus.FAILED) {
+                this.statistics.incrGenieFailedJobs();
+            } else if (status == JobStatus.KILLED) {
+                this.statistics.incrGenieKilledJobs();
+            }
+        } catch (Exception e) {
+            log.debug("Could not get the final status of job: {}", jobId, e);
+        }
+    }
+
     /**
      * Uploads the job directory to the archive location.
      *
@@ -191,26 +232,34 @@ public class JobCompletionHandler {
 
             if (StringUtils.isNotBlank(job.getArchiveLocation())) {
 
-                // Create the tar file exluding the run.sh file and everything under the genie directory
-                final String jobWorkingDir = this.baseWorkingDir + JobConstants.FILE_PATH_DELIMITER + jobId;
-                final String localArchiveFile = jobWorkingDir
-                    + JobConstants.FILE_PATH_DELIMITER
-                    + "genie/logs/"
-                    + jobId
-                    + ".tar.gz";
-
-                final CommandLine commandLine = new CommandLine("tar");
-                commandLine.addArgument("-c");
-                commandLine.addArgument("-z");
-                commandLine.addArgument("-f");
-                commandLine.addArgument(localArchiveFile);
-                commandLine.addArgument("./");
-
-                executor.setWorkingDirectory(new File(jobWorkingDir));
-                executor.execute(commandLine);
-
-                // Upload the tar file to remote location
+                final JobArchiveFormat format = JobArchiveFormat.fromLocation(job.getArchiveLocation());
+                final JobDirectoryLayout layout = this.getLayout(jobId);
+                final String localArchiveFile = layout.getArchiveFile(jobId, format).toString();
+
+                if (format == JobArchiveFormat.ZIP) {
+                    // Members are compressed separately so single files can be served from the archive later
+                    ZipUtil.zipDirectory(layout.getJobDirectory(), layout.getArchiveFile(jobId, format));
+                } else {
+                    // Create the tar file exluding the run.sh file and everything under the genie directory
+                    final CommandLine commandLine = new CommandLine("tar");
+                    commandLine.addArgument("-c");
+                    commandLine.addArgument("-z");
+                    commandLine.addArgument("-f");
+                    commandLine.addArgument(localArchiveFile);
+                    commandLine.addArgument("./");
+
+                    executor.setWorkingDirectory(layout.getJobDirectory().toFile());
+                    executor.execute(commandLine);
+                }
+
+                // Upload the archive to remote location
                 this.genieFileTransferService.putFile(localArchiveFile, job.getArchiveLocation());
+
+                // Let anything cleaning up the job directory know it's safe to do so
+                Files.write(
+                    layout.getArchivedFile(),
+                    job.getArchiveLocation().getBytes(StandardCharsets.UTF_8)
+                );
             }
         } catch (Exception e) {
             // TODO create a metric for this error
@@ -218,6 +267,24 @@ public class JobCompletionHandler {
         }
     }
 
+    /**
+     * Saves the manifest of the job directory so later requests for it don't need to walk the directory.
+     *
+     * @param jobId The job id.
+     * @throws GenieException if there is any problem
+     */
+    public void saveManifest(
+        final String jobId
+    ) throws GenieException {
+        try {
+            log.debug("Got a job finished event. Saving manifest of job directory.");
+            this.jobDirectoryManifestService.saveManifest(jobId);
+        } catch (Exception e) {
+            // TODO create a metric for this error
+            log.debug("Could not save manifest for job: {}", jobId, e);
+        }
+    }
+
     /**
      * Sends an email when the job is completed.
      *
@@ -240,15 +307,25 @@ public class JobCompletionHandler {
                     .append(job.getStatus())
                     .toString();
 
-                this.mailServiceImpl.sendEmail(
-                    jobRequest.getEmail(),
-                    message,
-                    message
-                );
+                try {
+                    this.mailServiceImpl.sendEmail(
+                        jobRequest.getEmail(),
+                        message,
+                        message
+                    );
+                    this.statistics.incrSuccessfulEmailCount();
+                } catch (final GenieException | RuntimeException e) {
+                    this.statistics.incrFailedEmailCount();
+                    throw e;
+                }
             }
         } catch (Exception e) {
             // TODO create a metric for this error
             log.debug("Could not send email for job: {}", jobId, e);
         }
     }
+
+    private JobDirectoryLayout getLayout(final String jobId) {
+        return new JobDirectoryLayout(Paths.get(this.baseWorkingDir, jobId));
+    }
 }
@@ -0,0 +1,311 @@
+/*
+ *
+ *  Copyright 2016 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.tasks.node;
+
+import com.google.common.collect.Lists;
+import com.netflix.genie.common.exceptions.GenieException;
+import com.netflix.genie.core.jobs.JobDirectoryLayout;
+import com.netflix.genie.core.services.AttachmentService;
+import com.netflix.genie.web.properties.JobCleanupProperties;
+import com.netflix.genie.web.tasks.GenieTaskScheduleType;
+import com.netflix.spectator.api.Counter;
+import com.netflix.spectator.api.Registry;
+import com.netflix.spectator.api.Timer;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.Resource;
+import org.springframework.scheduling.Trigger;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileStore;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Task which evicts the directories of finished jobs from this node. Requests for the output of these jobs are served
+ * from their archives after that.
+ * <p>
+ * Only directories of jobs which are done and have been archived are ever evicted. The archived marker is written by
+ * the job completion handler once the archive has been uploaded, after it's done reading the directory, so the output
+ * is never lost and nothing still reading the directory has it deleted from under it. Directories which were never
+ * archived are left alone no matter how long they've been there or how little space is left.
+ * <p>
+ * Archived directories are evicted oldest-first once the retention period has passed, counted from the upload of the
+ * archive. If the free space of the file system holding the jobs directory drops below the minimum, archived
+ * directories still within the retention period are evicted as well, oldest-first, until the target free space is
+ * reached. Directories are deleted in parallel. The attachments of a job are deleted together with its directory as
+ * they've been copied into it long before.
+ *
+ * @author agent
+ * @since 3.0.0
+ */
+@Component
+@ConditionalOnProperty(value = "genie.jobs.cleanup.enabled", havingValue = "true")
+@Slf4j
+public class JobDirectoryReaperTask implements NodeTask {
+
+    private static final Comparator<Candidate> OLDEST_FIRST = Comparator.comparingLong(Candidate::getArchivedTime);
+
+    private final Path jobsDir;
+    private final JobCleanupProperties cleanupProperties;
+    private final AttachmentService attachmentService;
+    private final ForkJoinPool pool;
+    private final Registry registry;
+    private final Timer evictionTimer;
+    private final Counter evictedRate;
+    private final Counter evictionFailureRate;
+    private final Counter freedBytes;
+    private final Counter underPressureRate;
+
+    /**
+     * Constructor.
+     *
+     * @param jobsDir           The directory all jobs are run in on this node
+     * @param cleanupProperties The properties controlling when job directories are evicted
+     * @param attachmentService The service holding the attachments of jobs
+     * @param registry          The metrics registry to use
+     * @throws IOException If the jobs directory can't be resolved
+     */
+    @Autowired
+    public JobDirectoryReaperTask(
+        final Resource jobsDir,
+        final JobCleanupProperties cleanupProperties,
+        final AttachmentService attachmentService,
+        final Registry registry
+    ) throws IOException {
+        this.jobsDir = jobsDir.getFile().toPath();
+        this.cleanupProperties = cleanupProperties;
+        this.attachmentService = attachmentService;
+        this.pool = new ForkJoinPool(cleanupProperties.getParallelism());
+        this.registry = registry;
+        this.evictionTimer = registry.timer("genie.jobs.cleanup.eviction.timer");
+        this.evictedRate = registry.counter("genie.jobs.cleanup.evicted.rate");
+        this.evictionFailureRate = registry.counter("genie.jobs.cleanup.evictionFailure.rate");
+        this.freedBytes = registry.counter("genie.jobs.cleanup.freedBytes");
+        this.underPressureRate = registry.counter("genie.jobs.cleanup.underPressure.rate");
+    }
+
+    /**
+     * Stop the threads deleting directories.
+     */
+    @PreDestroy
+    public void shutdown() {
+        this.pool.shutdownNow();
+    }
+
+    /**
+     * Evict job directories by age and then by free space.
+     */
+    @Override
+    public void run() {
+        try {
+            final List<Candidate> candidates = this.findCandidates();
+            final long cutoff = System.currentTimeMillis() - this.cleanupProperties.getRetention();
+            final int firstRetained = this.countExpired(candidates, cutoff);
+            long freed = this.evict(candidates.subList(0, firstRetained));
+            int evicted = firstRetained;
+
+            final FileStore store = Files.getFileStore(this.jobsDir);
+            if (this.getFreeSpacePercent(store) < this.cleanupProperties.getMinFreeSpacePercent()) {
+                this.underPressureRate.increment();
+                log.warn(
+                    "Free space of {} is below {}%. Evicting job directories within retention.",
+                    this.jobsDir,
+                    this.cleanupProperties.getMinFreeSpacePercent()
+                );
+                // Free space is only known after deleting so evict a batch at a time
+                final int batchSize = this.cleanupProperties.getParallelism();
+                while (
+                    evicted < candidates.size()
+                        && this.getFreeSpacePercent(store) < this.cleanupProperties.getTargetFreeSpacePercent()
+                ) {
+                    final int end = Math.min(evicted + batchSize, candidates.size());
+                    freed += this.evict(candidates.subList(evicted, end));
+                    evicted = end;
+                }
+                if (this.getFreeSpacePercent(store) < this.cleanupProperties.getTargetFreeSpacePercent()) {
+                    log.warn("Evicted every archived job directory in {} without reaching the target", this.jobsDir);
+                }
+            }
+
+            log.info("Evicted {} job directories freeing {} bytes", evicted, freed);
+        } catch (final IOException ioe) {
+            log.error("Unable to clean up jobs directory {}", this.jobsDir, ioe);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public GenieTaskScheduleType getScheduleType() {
+        return GenieTaskScheduleType.FIXED_DELAY;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Trigger getTrigger() {
+        throw new UnsupportedOperationException("This task should only be scheduled with a fixed delay.");
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getFixedRate() {
+        throw new UnsupportedOperationException("This task should only be scheduled with a fixed delay.");
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getFixedDelay() {
+        return this.cleanupProperties.getDelay();
+    }
+
+    /**
+     * Find the directories of all archived jobs, oldest first.
+     */
+    private List<Candidate> findCandidates() throws IOException {
+        final List<Candidate> candidates = Lists.newArrayList();
+        try (final DirectoryStream<Path> jobDirs = Files.newDirectoryStream(this.jobsDir, Files::isDirectory)) {
+            for (final Path jobDir : jobDirs) {
+                final JobDirectoryLayout layout = new JobDirectoryLayout(jobDir);
+                if (!Files.exists(layout.getDoneFile())) {
+                    continue;
+                }
+                final Path archived = layout.getArchivedFile();
+                if (!Files.exists(archived)) {
+                    // Archival was disabled, failed or hasn't finished yet so the directory is the only copy
+                    log.debug("Keeping job directory {} as it hasn't been archived", jobDir);
+                    continue;
+                }
+                candidates.add(new Candidate(jobDir, Files.getLastModifiedTime(archived).toMillis()));
+            }
+        }
+        candidates.sort(OLDEST_FIRST);
+        return candidates;
+    }
+
+    private int countExpired(final List<Candidate> candidates, final long cutoff) {
+        int expired = 0;
+        while (expired < candidates.size() && candidates.get(expired).getArchivedTime() < cutoff) {
+            expired++;
+        }
+        return expired;
+    }
+
+    private long evict(final List<Candidate> candidates) {
+        final List<ForkJoinTask<Long>> deletes = candidates
+            .stream()
+            .map(candidate -> this.pool.submit(() -> this.evict(candidate)))
+            .collect(Collectors.toList());
+        long freed = 0L;
+        for (final ForkJoinTask<Long> delete : deletes) {
+            freed += delete.join();
+        }
+        return freed;
+    }
+
+    private long evict(final Candidate candidate) {
+        final long start = this.registry.clock().monotonicTime();
+        final AtomicLong freed = new AtomicLong();
+        try {
+            Files.walkFileTree(
+                candidate.getJobDir(),
+                new SimpleFileVisitor<Path>() {
+                    @Override
+                    public FileVisitResult visitFile(
+                        final Path file,
+                        final BasicFileAttributes attrs
+                    ) throws IOException {
+                        Files.delete(file);
+                        freed.addAndGet(attrs.size());
+                        return FileVisitResult.CONTINUE;
+                    }
+
+                    @Override
+                    public FileVisitResult postVisitDirectory(
+                        final Path dir,
+                        final IOException exc
+                    ) throws IOException {
+                        if (exc != null) {
+                            throw exc;
+                        }
+                        Files.delete(dir);
+                        return FileVisitResult.CONTINUE;
+                    }
+                }
+            );
+            this.deleteAttachments(candidate.getJobDir().getFileName().toString());
+            this.evictedRate.increment();
+        } catch (final IOException ioe) {
+            this.evictionFailureRate.increment();
+            log.error("Unable to evict job directory {}", candidate.getJobDir(), ioe);
+        } finally {
+            this.evictionTimer.record(this.registry.clock().monotonicTime() - start, TimeUnit.NANOSECONDS);
+            this.freedBytes.increment(freed.get());
+        }
+        return freed.get();
+    }
+
+    private void deleteAttachments(final String jobId) {
+        try {
+            this.attachmentService.delete(jobId);
+        } catch (final GenieException ge) {
+            log.error("Unable to delete attachments of job {}", jobId, ge);
+        }
+    }
+
+    private double getFreeSpacePercent(final FileStore store) throws IOException {
+        final long total = store.getTotalSpace();
+        return total <= 0L ? 100.0 : store.getUsableSpace() * 100.0 / total;
+    }
+
+    /**
+     * An archived job directory which can be evicted.
+     */
+    @Getter
+    private static final class Candidate {
+        private final Path jobDir;
+        private final long archivedTime;
+
+        private Candidate(final Path jobDir, final long archivedTime) {
+            this.jobDir = jobDir;
+            this.archivedTime = archivedTime;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ *
+ *  Copyright 2016 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.tasks.node;
+
+import com.google.common.collect.Sets;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.Trigger;
+
+import javax.annotation.PreDestroy;
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * Class which handles coordinating tasks which should run on every Genie node. Starts the tasks once the application
+ * is ready and stops them when it's shut down.
+ *
+ * @author agent
+ * @since 3.0.0
+ */
+@Slf4j
+public class NodeTasksCoordinator {
+
+    private final Set<NodeTask> tasks;
+    private final Set<ScheduledFuture<?>> futures;
+    private final TaskScheduler taskScheduler;
+    private boolean isRunning;
+
+    /**
+     * Constructor.
+     *
+     * @param taskScheduler The task scheduler to use.
+     * @param tasks         The node tasks to run
+     */
+    public NodeTasksCoordinator(final TaskScheduler taskScheduler, final Collection<NodeTask> tasks) {
+        this.futures = Sets.newHashSet();
+        this.taskScheduler = taskScheduler;
+        this.isRunning = false;
+        this.tasks = Sets.newHashSet();
+        if (tasks != null) {
+            this.tasks.addAll(tasks);
+        }
+    }
+
+    /**
+     * Make sure any threads are taken care of before this object is destroyed.
+     */
+    @PreDestroy
+    public synchronized void preDestroy() {
+        this.isRunning = false;
+        this.cancelTasks();
+    }
+
+    /**
+     * Schedule all the node tasks once the application is ready to serve requests.
+     *
+     * @param event The Spring Boot application ready event
+     */
+    @EventListener
+    public synchronized void startNodeTasks(final ApplicationReadyEvent event) {
+        if (this.isRunning) {
+            return;
+        }
+        this.isRunning = true;
+        this.tasks.stream().forEach(
+            task -> {
+                switch (task.getScheduleType()) {
+                    case TRIGGER:
+                        final Trigger trigger = task.getTrigger();
+                        log.info(
+                            "Scheduling node task {} to run with trigger {}",
+                            task.getClass().getCanonicalName(),
+                            trigger
+                        );
+                        this.futures.add(this.taskScheduler.schedule(task, trigger));
+                        break;
+                    case FIXED_RATE:
+                        final long rate = task.getFixedRate();
+                        log.info(
+                            "Scheduling node task {} to run every {} second(s)",
+                            task.getClass().getCanonicalName(),
+                            rate / 1000.0
+                        );
+                        this.futures.add(this.taskScheduler.scheduleAtFixedRate(task, rate));
+                        break;
+                    case FIXED_DELAY:
+                        final long delay = task.getFixedDelay();
+                        log.info(
+                            "Scheduling node task {} to run at a fixed delay of every {} second(s)",
+                            task.getClass().getCanonicalName(),
+                            delay / 1000.0
+                        );
+                        this.futures.add(this.taskScheduler.scheduleWithFixedDelay(task, delay));
+                        break;
+                    default:
+                        log.error("Unknown Genie task type {}", task.getScheduleType());
+                }
+            }
+        );
+    }
+
+    private void cancelTasks() {
+        for (final ScheduledFuture<?> future : this.futures) {
+            log.info("Attempting to cancel thread {}", future.toString());
+            if (future.cancel(true)) {
+                log.info("Successfully cancelled.");
+            } else {
+                log.info("Failed to cancel.");
+            }
+        }
+
+        // Clear out the tasks
+        this.futures.clear();
+    }
+}
@@ -17,17 +17,31 @@
  */
 package com.netflix.genie.web.configs;
 
+import com.netflix.genie.core.metrics.GenieNodeStatistics;
+import com.netflix.genie.core.services.AttachmentService;
+import com.netflix.genie.core.services.JobSearchService;
+import com.netflix.genie.core.services.impl.GenieFileTransferService;
 import com.netflix.genie.test.categories.UnitTest;
+import com.netflix.genie.web.filters.RequestMetricsFilter;
+import com.netflix.genie.web.filters.StreamingAttachmentFilter;
+import com.netflix.genie.web.properties.JobOutputListingProperties;
+import com.netflix.genie.web.resources.archives.ArchivedJobOutputResolver;
 import com.netflix.genie.web.resources.handlers.GenieResourceHttpRequestHandler;
 import com.netflix.genie.web.resources.writers.DefaultDirectoryWriter;
 import com.netflix.genie.web.resources.writers.DirectoryWriter;
+import com.netflix.genie.web.resources.writers.StreamingDirectoryWriter;
+import com.netflix.spectator.api.DefaultRegistry;
 import org.hamcrest.Matchers;
 import org.junit.Assert;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
+import org.junit.rules.TemporaryFolder;
 import org.mockito.Mockito;
+import org.springframework.boot.context.embedded.FilterRegistrationBean;
 import org.springframework.context.ApplicationContext;
+import org.springframework.core.Ordered;
 import org.springframework.core.io.DefaultResourceLoader;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.ResourceLoader;
@@ -48,6 +62,12 @@ import java.util.UUID;
 @Category(UnitTest.class)
 public class MvcConfigUnitTests {
 
+    /**
+     * Temporary folder for any directories the configuration creates.
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
     private MvcConfig mvcConfig;
 
     /**
@@ -100,7 +120,9 @@ public class MvcConfigUnitTests {
      */
     @Test
     public void canGetDirectoryWriter() {
-        Assert.assertTrue(this.mvcConfig.directoryWriter() instanceof DefaultDirectoryWriter);
+        final DirectoryWriter directoryWriter = this.mvcConfig.directoryWriter(new JobOutputListingProperties());
+        Assert.assertTrue(directoryWriter instanceof DefaultDirectoryWriter);
+        Assert.assertTrue(directoryWriter instanceof StreamingDirectoryWriter);
     }
 
     /**
@@ -183,11 +205,63 @@ public class MvcConfigUnitTests {
         final DirectoryWriter directoryWriter = Mockito.mock(DirectoryWriter.class);
         final ApplicationContext context = Mockito.mock(ApplicationContext.class);
         final Resource jobsDir = Mockito.mock(Resource.class);
+        final ArchivedJobOutputResolver resolver = Mockito.mock(ArchivedJobOutputResolver.class);
 
         final GenieResourceHttpRequestHandler handler
-            = this.mvcConfig.genieResourceHttpRequestHandler(directoryWriter, context, jobsDir);
+            = this.mvcConfig.genieResourceHttpRequestHandler(directoryWriter, context, jobsDir, resolver);
         Assert.assertThat(handler.getApplicationContext(), Matchers.is(context));
         Assert.assertThat(handler.getLocations(), Matchers.hasSize(1));
         Assert.assertThat(handler.getLocations(), Matchers.contains(jobsDir));
     }
+
+    /**
+     * Make sure we can get an archived job output resolver and its cache directory is created.
+     *
+     * @throws IOException on error
+     */
+    @Test
+    public void canGetArchivedJobOutputResolver() throws IOException {
+        final File cacheDir = new File(this.folder.getRoot(), UUID.randomUUID().toString());
+        Assert.assertNotNull(
+            this.mvcConfig.archivedJobOutputResolver(
+                Mockito.mock(JobSearchService.class),
+                Mockito.mock(GenieFileTransferService.class),
+                cacheDir.getAbsolutePath(),
+                10L,
+                60L
+            )
+        );
+        Assert.assertTrue(cacheDir.isDirectory());
+    }
+
+    /**
+     * Make sure the streaming attachment filter is only registered for job submissions.
+     */
+    @Test
+    public void canGetStreamingAttachmentFilter() {
+        final FilterRegistrationBean registration = this.mvcConfig.streamingAttachmentFilter(
+            Mockito.mock(AttachmentService.class),
+            Mockito.mock(JobSearchService.class),
+            new DefaultRegistry(),
+            100L,
+            200L,
+            1
+        );
+        Assert.assertTrue(registration.getFilter() instanceof StreamingAttachmentFilter);
+        Assert.assertThat(registration.getUrlPatterns(), Matchers.contains("/api/v3/jobs", "/api/v3/jobs/"));
+    }
+
+    /**
+     * Make sure the request metrics filter is registered for all requests ahead of the other filters.
+     */
+    @Test
+    public void canGetRequestMetricsFilter() {
+        final FilterRegistrationBean registration = this.mvcConfig.requestMetricsFilter(
+            Mockito.mock(GenieNodeStatistics.class),
+            new DefaultRegistry()
+        );
+        Assert.assertTrue(registration.getFilter() instanceof RequestMetricsFilter);
+        Assert.assertTrue(registration.getUrlPatterns().isEmpty());
+        Assert.assertThat(registration.getOrder(), Matchers.is(Ordered.HIGHEST_PRECEDENCE));
+    }
 }
@@ -25,6 +25,7 @@ import com.netflix.genie.core.jpa.repositories.JpaCommandRepository;
 import com.netflix.genie.core.jpa.repositories.JpaJobExecutionRepository;
 import com.netflix.genie.core.jpa.repositories.JpaJobRepository;
 import com.netflix.genie.core.jpa.repositories.JpaJobRequestRepository;
+import com.netflix.genie.core.metrics.impl.SpectatorGenieNodeStatisticsImpl;
 import com.netflix.genie.core.services.ApplicationService;
 import com.netflix.genie.core.services.ClusterLoadBalancer;
 import com.netflix.genie.core.services.ClusterService;
@@ -34,18 +35,25 @@ import com.netflix.genie.core.services.JobKillService;
 import com.netflix.genie.core.services.JobPersistenceService;
 import com.netflix.genie.core.services.JobSearchService;
 import com.netflix.genie.core.services.JobSubmitterService;
+import com.netflix.genie.core.services.impl.ContentAddressedAttachmentService;
 import com.netflix.genie.core.services.impl.GenieFileTransferService;
+import com.netflix.genie.core.services.impl.RemoteAttachmentService;
 import com.netflix.genie.test.categories.UnitTest;
+import com.netflix.spectator.api.DefaultRegistry;
 import org.apache.commons.exec.Executor;
+import org.hamcrest.Matchers;
 import org.junit.Assert;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
+import org.junit.rules.TemporaryFolder;
 import org.mockito.Mockito;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.core.io.Resource;
 import org.springframework.mail.javamail.JavaMailSender;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -58,6 +66,12 @@ import java.util.List;
 @Category(UnitTest.class)
 public class ServicesConfigUnitTests {
 
+    /**
+     * Temporary directory for the file cache.
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
     private JpaApplicationRepository applicationRepository;
     private JpaClusterRepository clusterRepository;
     private JpaCommandRepository commandRepository;
@@ -99,7 +113,68 @@ public class ServicesConfigUnitTests {
     @Test
     public void canGetGenieFileTransfer() throws GenieException {
         final ArrayList<FileTransfer> fileTransferList = new ArrayList<>();
-        Assert.assertNotNull(this.servicesConfig.genieFileTransferService(fileTransferList));
+        Assert.assertNotNull(
+            this.servicesConfig.genieFileTransferService(
+                fileTransferList,
+                false,
+                "/tmp/genie/files",
+                1L,
+                false,
+                new DefaultRegistry()
+            )
+        );
+    }
+
+    /**
+     * Confirm we can get a GenieFileTransfer instance which caches downloaded files.
+     *
+     * @throws GenieException If there is any problem.
+     * @throws IOException    If the cache directory can't be created
+     */
+    @Test
+    public void canGetCachingGenieFileTransfer() throws GenieException, IOException {
+        final ArrayList<FileTransfer> fileTransferList = new ArrayList<>();
+        final String cacheDir = this.folder.newFolder().getAbsolutePath();
+        Assert.assertNotNull(
+            this.servicesConfig.genieFileTransferService(
+                fileTransferList,
+                true,
+                cacheDir,
+                1L,
+                true,
+                new DefaultRegistry()
+            )
+        );
+    }
+
+    /**
+     * Confirm we can get an attachment service which deduplicates attachments.
+     *
+     * @throws IOException If the store directory can't be created
+     */
+    @Test
+    public void canGetContentAddressedAttachmentService() throws IOException {
+        final String storeDir = this.folder.newFolder().getAbsolutePath();
+        Assert.assertTrue(
+            this.servicesConfig.contentAddressedAttachmentService(storeDir, false, new DefaultRegistry())
+                instanceof ContentAddressedAttachmentService
+        );
+    }
+
+    /**
+     * Confirm we can get an attachment service which stores attachments remotely.
+     */
+    @Test
+    public void canGetRemoteAttachmentService() {
+        Assert.assertTrue(
+            this.servicesConfig.remoteAttachmentService(
+                Mockito.mock(GenieFileTransferService.class),
+                "s3://bucket/genie/attachments",
+                1024,
+                this.folder.getRoot().getAbsolutePath(),
+                new DefaultRegistry()
+            ) instanceof RemoteAttachmentService
+        );
     }
 
     /**
@@ -133,7 +208,20 @@ public class ServicesConfigUnitTests {
      */
     @Test
     public void canGetGenieNodeStatisticsBean() {
-        Assert.assertNotNull(this.servicesConfig.getGenieNodeStatistics());
+        Assert.assertThat(
+            this.servicesConfig.getGenieNodeStatistics(new DefaultRegistry()),
+            Matchers.instanceOf(SpectatorGenieNodeStatisticsImpl.class)
+        );
+    }
+
+    /**
+     * Can get a bean for the Job Directory Manifest Service.
+     */
+    @Test
+    public void canGetJobDirectoryManifestServiceBean() {
+        Assert.assertNotNull(
+            this.servicesConfig.jobDirectoryManifestService(Mockito.mock(Resource.class), 2, 1024L, false)
+        );
     }
 
     /**
@@ -237,16 +325,19 @@ public class ServicesConfigUnitTests {
                 workflowTasks,
                 resource,
                 "localhost",
-                5
+                5,
+                new DefaultRegistry()
             )
         );
     }
 
     /**
      * Can get a bean for Job Coordinator Service.
+     *
+     * @throws GenieException If there is any problem
      */
     @Test
-    public void canGetJobCoordinatorServiceBean() {
+    public void canGetJobCoordinatorServiceBean() throws GenieException {
 
         final JobPersistenceService jobPersistenceService = Mockito.mock(JobPersistenceService.class);
         final JobSubmitterService jobSubmitterService = Mockito.mock(JobSubmitterService.class);
@@ -258,7 +349,8 @@ public class ServicesConfigUnitTests {
                 this.jobSearchService,
                 jobSubmitterService,
                 jobKillService,
-                "file:///tmp"
+                "file:///tmp",
+                "zip"
             )
         );
     }
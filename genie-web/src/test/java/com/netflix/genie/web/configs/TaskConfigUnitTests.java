@@ -20,6 +20,7 @@ package com.netflix.genie.web.configs;
 import com.google.common.collect.Sets;
 import com.netflix.genie.test.categories.UnitTest;
 import com.netflix.genie.web.tasks.leader.LeadershipTask;
+import com.netflix.genie.web.tasks.node.NodeTask;
 import org.junit.Assert;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
@@ -64,6 +65,16 @@ public class TaskConfigUnitTests {
         Assert.assertNotNull(new TaskConfig().leadershipTasksCoordinator(scheduler, tasks));
     }
 
+    /**
+     * Make sure can get a valid node tasks coordinator.
+     */
+    @Test
+    public void canGetNodeTasksCoordinator() {
+        final TaskScheduler scheduler = Mockito.mock(TaskScheduler.class);
+        final Collection<NodeTask> tasks = Sets.newHashSet();
+        Assert.assertNotNull(new TaskConfig().nodeTasksCoordinator(scheduler, tasks));
+    }
+
     /**
      * Make sure we can get a valid LocalLeader if it's needed.
      */
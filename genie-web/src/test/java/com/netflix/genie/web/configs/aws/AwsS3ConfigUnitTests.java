@@ -0,0 +1,84 @@
+/*
+ *
+ *  Copyright 2016 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.configs.aws;
+
+import com.amazonaws.services.s3.AmazonS3Client;
+import com.netflix.genie.common.exceptions.GenieException;
+import com.netflix.genie.common.exceptions.GeniePreconditionException;
+import com.netflix.genie.core.services.impl.S3FileTransferImpl;
+import com.netflix.genie.test.categories.UnitTest;
+import com.netflix.spectator.api.DefaultRegistry;
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.mockito.Mockito;
+
+/**
+ * Unit tests for the AwsS3Config class.
+ *
+ * @author agent
+ * @since 3.0.0
+ */
+@Category(UnitTest.class)
+public class AwsS3ConfigUnitTests {
+
+    private AwsS3Config awsS3Config;
+
+    /**
+     * Setup for the tests.
+     */
+    @Before
+    public void setup() {
+        this.awsS3Config = new AwsS3Config();
+    }
+
+    /**
+     * Make sure the S3 file transfer is created with a valid part size.
+     *
+     * @throws GenieException on error
+     */
+    @Test
+    public void canCreateS3FileTransfer() throws GenieException {
+        Assert.assertThat(
+            this.awsS3Config.s3FileTransferImpl(
+                Mockito.mock(AmazonS3Client.class),
+                new DefaultRegistry(),
+                S3FileTransferImpl.MIN_PART_SIZE,
+                S3FileTransferImpl.DEFAULT_CONCURRENCY
+            ),
+            Matchers.instanceOf(S3FileTransferImpl.class)
+        );
+    }
+
+    /**
+     * Make sure a part size S3 would reject fails at startup rather than on the first multipart upload.
+     *
+     * @throws GenieException on error
+     */
+    @Test(expected = GeniePreconditionException.class)
+    public void cantCreateS3FileTransferWithTooSmallPartSize() throws GenieException {
+        this.awsS3Config.s3FileTransferImpl(
+            Mockito.mock(AmazonS3Client.class),
+            new DefaultRegistry(),
+            S3FileTransferImpl.MIN_PART_SIZE - 1,
+            S3FileTransferImpl.DEFAULT_CONCURRENCY
+        );
+    }
+}
@@ -18,9 +18,13 @@
 package com.netflix.genie.web.controllers;
 
 import com.google.common.collect.Sets;
+import com.netflix.genie.common.dto.JobRequest;
+import com.netflix.genie.common.exceptions.GenieConflictException;
 import com.netflix.genie.common.exceptions.GenieException;
+import com.netflix.genie.core.metrics.GenieNodeStatistics;
 import com.netflix.genie.core.services.AttachmentService;
 import com.netflix.genie.core.services.JobCoordinatorService;
+import com.netflix.genie.core.services.JobDirectoryManifestService;
 import com.netflix.genie.core.services.JobSearchService;
 import com.netflix.genie.test.categories.UnitTest;
 import com.netflix.genie.web.hateoas.assemblers.ApplicationResourceAssembler;
@@ -39,15 +43,18 @@ import org.apache.http.HttpResponse;
 import org.apache.http.StatusLine;
 import org.apache.http.client.HttpClient;
 import org.apache.http.client.methods.HttpDelete;
+import org.apache.http.client.methods.HttpGet;
 import org.hamcrest.Matchers;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.web.multipart.MultipartFile;
 
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
@@ -72,10 +79,13 @@ public class JobRestControllerUnitTests {
 
     //Mocked variables
     private JobSearchService jobSearchService;
+    private AttachmentService attachmentService;
     private String hostname;
     private HttpClient httpClient;
     private GenieResourceHttpRequestHandler genieResourceHttpRequestHandler;
     private JobForwardingProperties jobForwardingProperties;
+    private JobDirectoryManifestService jobDirectoryManifestService;
+    private GenieNodeStatistics statistics;
 
     private JobRestController controller;
 
@@ -85,15 +95,18 @@ public class JobRestControllerUnitTests {
     @Before
     public void setup() {
         this.jobSearchService = Mockito.mock(JobSearchService.class);
+        this.attachmentService = Mockito.mock(AttachmentService.class);
         this.hostname = UUID.randomUUID().toString();
         this.httpClient = Mockito.mock(HttpClient.class);
         this.genieResourceHttpRequestHandler = Mockito.mock(GenieResourceHttpRequestHandler.class);
         this.jobForwardingProperties = Mockito.mock(JobForwardingProperties.class);
+        this.jobDirectoryManifestService = Mockito.mock(JobDirectoryManifestService.class);
+        this.statistics = Mockito.mock(GenieNodeStatistics.class);
 
         this.controller = new JobRestController(
             Mockito.mock(JobCoordinatorService.class),
             this.jobSearchService,
-            Mockito.mock(AttachmentService.class),
+            this.attachmentService,
             Mockito.mock(ApplicationResourceAssembler.class),
             Mockito.mock(ClusterResourceAssembler.class),
             Mockito.mock(CommandResourceAssembler.class),
@@ -104,10 +117,41 @@ public class JobRestControllerUnitTests {
             this.hostname,
             this.httpClient,
             this.genieResourceHttpRequestHandler,
-            this.jobForwardingProperties
+            this.jobForwardingProperties,
+            this.jobDirectoryManifestService,
+            this.statistics
         );
     }
 
+    /**
+     * Make sure a submission with the id of an existing job is rejected before its attachments are touched.
+     *
+     * @throws GenieException On error
+     */
+    @Test
+    public void wontSaveAttachmentsForExistingJobId() throws GenieException {
+        final String jobId = UUID.randomUUID().toString();
+        final JobRequest jobRequest = new JobRequest.Builder(
+            UUID.randomUUID().toString(),
+            UUID.randomUUID().toString(),
+            UUID.randomUUID().toString(),
+            UUID.randomUUID().toString(),
+            Collections.emptyList(),
+            Sets.newHashSet()
+        ).withId(jobId).build();
+        Mockito.when(this.jobSearchService.getJobRequest(jobId)).thenReturn(jobRequest);
+        final MultipartFile attachmentHash = Mockito.mock(MultipartFile.class);
+        final HttpServletRequest request = Mockito.mock(HttpServletRequest.class);
+
+        try {
+            this.controller.submitJob(jobRequest, null, new MultipartFile[]{attachmentHash}, null, request);
+            Assert.fail("Expected a conflict for the existing job id");
+        } catch (final GenieConflictException gce) {
+            Mockito.verifyZeroInteractions(this.attachmentService, attachmentHash);
+            Mockito.verify(this.statistics, Mockito.never()).incrGenieJobSubmissions();
+        }
+    }
+
     /**
      * Make sure if forwarding isn't enabled we don't even try to forward no matter where the job is running.
      *
@@ -170,6 +214,7 @@ public class JobRestControllerUnitTests {
 
         Mockito.verify(this.jobSearchService, Mockito.times(1)).getJobHost(jobId);
         Mockito.verify(this.httpClient, Mockito.never()).execute(Mockito.any());
+        Mockito.verify(this.statistics, Mockito.never()).incrGenieForwardedKills();
     }
 
     /**
@@ -236,6 +281,8 @@ public class JobRestControllerUnitTests {
         Mockito.verify(response, Mockito.times(1)).setStatus(HttpStatus.ACCEPTED.value());
         Mockito.verify(this.jobSearchService, Mockito.times(1)).getJobHost(jobId);
         Mockito.verify(this.httpClient, Mockito.times(1)).execute(Mockito.any(HttpDelete.class));
+        Mockito.verify(this.statistics, Mockito.times(1)).incrGenieForwardedKills();
+        Mockito.verify(this.statistics, Mockito.never()).incrGenieForwardedJobs();
     }
 
     /**
@@ -426,4 +473,75 @@ public class JobRestControllerUnitTests {
         Mockito.verify(response, Mockito.times(1)).setHeader(HttpHeaders.CONTENT_TYPE, MediaType.TEXT_PLAIN_VALUE);
         Mockito.verify(this.genieResourceHttpRequestHandler, Mockito.never()).handleRequest(request, response);
     }
+
+    /**
+     * Make sure the manifest is written from this node when the job ran here.
+     *
+     * @throws IOException    on error
+     * @throws GenieException on error
+     */
+    @Test
+    public void canGetJobManifestFromThisNode() throws IOException, GenieException {
+        Mockito.when(this.jobForwardingProperties.isEnabled()).thenReturn(true);
+        final String jobId = UUID.randomUUID().toString();
+        final HttpServletRequest request = Mockito.mock(HttpServletRequest.class);
+        final HttpServletResponse response = Mockito.mock(HttpServletResponse.class);
+        Mockito.when(this.jobSearchService.getJobHost(jobId)).thenReturn(this.hostname);
+        final ByteArrayServletOutputStream bos = new ByteArrayServletOutputStream();
+        Mockito.when(response.getOutputStream()).thenReturn(bos);
+
+        this.controller.getJobManifest(jobId, true, null, request, response);
+
+        Mockito.verify(this.httpClient, Mockito.never()).execute(Mockito.any());
+        Mockito.verify(response, Mockito.times(1)).setContentType(MediaType.APPLICATION_JSON_VALUE);
+        Mockito.verify(this.jobDirectoryManifestService, Mockito.times(1))
+            .writeManifest(Mockito.eq(jobId), Mockito.eq(true), Mockito.eq(bos));
+    }
+
+    /**
+     * Make sure a manifest request for a job on another node is forwarded with its query string.
+     *
+     * @throws IOException    on error
+     * @throws GenieException on error
+     */
+    @Test
+    public void canForwardJobManifestRequest() throws IOException, GenieException {
+        Mockito.when(this.jobForwardingProperties.isEnabled()).thenReturn(true);
+        Mockito.when(this.jobForwardingProperties.getScheme()).thenReturn("http");
+        Mockito.when(this.jobForwardingProperties.getPort()).thenReturn(8080);
+        final String jobId = UUID.randomUUID().toString();
+        final HttpServletRequest request = Mockito.mock(HttpServletRequest.class);
+        final HttpServletResponse response = Mockito.mock(HttpServletResponse.class);
+        final String jobHostName = UUID.randomUUID().toString();
+        Mockito.when(this.jobSearchService.getJobHost(jobId)).thenReturn(jobHostName);
+        final String requestURI = "/api/v3/jobs/" + jobId + "/manifest";
+        Mockito.when(request.getRequestURI()).thenReturn(requestURI);
+        Mockito.when(request.getQueryString()).thenReturn("checksums=true");
+        Mockito.when(request.getRequestURL()).thenReturn(new StringBuffer(UUID.randomUUID().toString()));
+
+        final HttpResponse forwardResponse = Mockito.mock(HttpResponse.class);
+        final StatusLine statusLine = Mockito.mock(StatusLine.class);
+        Mockito.when(forwardResponse.getStatusLine()).thenReturn(statusLine);
+        Mockito.when(statusLine.getStatusCode()).thenReturn(HttpStatus.OK.value());
+        Mockito.when(forwardResponse.getAllHeaders()).thenReturn(new Header[0]);
+        final String json = "{\"jobId\":\"" + jobId + "\"}";
+        final HttpEntity entity = Mockito.mock(HttpEntity.class);
+        Mockito.when(entity.getContent()).thenReturn(new ByteArrayInputStream(json.getBytes(UTF_8)));
+        Mockito.when(forwardResponse.getEntity()).thenReturn(entity);
+        final ByteArrayServletOutputStream bos = new ByteArrayServletOutputStream();
+        Mockito.when(response.getOutputStream()).thenReturn(bos);
+        Mockito.when(this.httpClient.execute(Mockito.any())).thenReturn(forwardResponse);
+
+        this.controller.getJobManifest(jobId, true, null, request, response);
+
+        final ArgumentCaptor<HttpGet> captor = ArgumentCaptor.forClass(HttpGet.class);
+        Mockito.verify(this.httpClient, Mockito.times(1)).execute(captor.capture());
+        Assert.assertThat(
+            captor.getValue().getURI().toString(),
+            Matchers.is("http://" + jobHostName + ":8080" + requestURI + "?checksums=true")
+        );
+        Assert.assertThat(new String(bos.toByteArray(), UTF_8), Matchers.is(json));
+        Mockito.verify(this.jobDirectoryManifestService, Mockito.never())
+            .writeManifest(Mockito.anyString(), Mockito.anyBoolean(), Mockito.any());
+    }
 }
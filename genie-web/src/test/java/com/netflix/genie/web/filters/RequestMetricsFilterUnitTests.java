@@ -0,0 +1,156 @@
+/*
+ *
+ *  Copyright 2016 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.filters;
+
+import com.netflix.genie.core.metrics.GenieNodeStatistics;
+import com.netflix.genie.test.categories.UnitTest;
+import com.netflix.spectator.api.DefaultRegistry;
+import com.netflix.spectator.api.Registry;
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.mockito.Mockito;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Unit tests for the RequestMetricsFilter class.
+ *
+ * @author agent
+ * @since 3.0.0
+ */
+@Category(UnitTest.class)
+public class RequestMetricsFilterUnitTests {
+
+    private GenieNodeStatistics statistics;
+    private Registry registry;
+    private RequestMetricsFilter filter;
+
+    /**
+     * Setup for the tests.
+     */
+    @Before
+    public void setup() {
+        this.statistics = Mockito.mock(GenieNodeStatistics.class);
+        this.registry = new DefaultRegistry();
+        this.filter = new RequestMetricsFilter(this.statistics, this.registry);
+    }
+
+    /**
+     * Make sure a successful request is counted and timed under the pattern of the endpoint it matched.
+     *
+     * @throws IOException      on error
+     * @throws ServletException on error
+     */
+    @Test
+    public void canRecordSuccessfulRequest() throws IOException, ServletException {
+        final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v3/jobs/job1");
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+        this.filter.doFilter(
+            request,
+            response,
+            (req, res) -> req.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/v3/jobs/{id}")
+        );
+
+        Mockito.verify(this.statistics, Mockito.times(1)).incrGenie2xxCount();
+        Mockito.verify(this.statistics, Mockito.never()).incrGenie4xxCount();
+        Mockito.verify(this.statistics, Mockito.never()).incrGenie5xxCount();
+        Assert.assertThat(
+            this.registry
+                .timer(
+                    this.registry
+                        .createId("genie.requests.timer")
+                        .withTag("method", "GET")
+                        .withTag("endpoint", "/api/v3/jobs/{id}")
+                        .withTag("status", "200")
+                )
+                .count(),
+            Matchers.is(1L)
+        );
+    }
+
+    /**
+     * Make sure methods sent by clients don't create a time series each.
+     *
+     * @throws IOException      on error
+     * @throws ServletException on error
+     */
+    @Test
+    public void canRecordUnknownMethodAsOther() throws IOException, ServletException {
+        final MockHttpServletRequest request = new MockHttpServletRequest("BREW", "/api/v3/jobs");
+        this.filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> { });
+
+        Assert.assertThat(
+            this.registry
+                .timer(
+                    this.registry
+                        .createId("genie.requests.timer")
+                        .withTag("method", "other")
+                        .withTag("endpoint", "unknown")
+                        .withTag("status", "200")
+                )
+                .count(),
+            Matchers.is(1L)
+        );
+    }
+
+    /**
+     * Make sure failed requests are counted and timed as internal server errors when the chain throws.
+     *
+     * @throws IOException      on error
+     * @throws ServletException on error
+     */
+    @Test
+    public void canRecordFailedRequest() throws IOException, ServletException {
+        final MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/v3/jobs");
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+        response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        final FilterChain chain = Mockito.mock(FilterChain.class);
+        Mockito.doThrow(new ServletException("failed")).when(chain).doFilter(request, response);
+
+        try {
+            this.filter.doFilter(request, response, chain);
+            Assert.fail();
+        } catch (final ServletException se) {
+            Assert.assertThat(se.getMessage(), Matchers.is("failed"));
+        }
+
+        Mockito.verify(this.statistics, Mockito.times(1)).incrGenie5xxCount();
+        Mockito.verify(this.statistics, Mockito.never()).incrGenie2xxCount();
+        Assert.assertThat(
+            this.registry
+                .timer(
+                    this.registry
+                        .createId("genie.requests.timer")
+                        .withTag("method", "POST")
+                        .withTag("endpoint", "unknown")
+                        .withTag("status", "500")
+                )
+                .count(),
+            Matchers.is(1L)
+        );
+    }
+}
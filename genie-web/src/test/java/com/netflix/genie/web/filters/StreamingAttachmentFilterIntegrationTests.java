@@ -0,0 +1,129 @@
+/*
+ *
+ *  Copyright 2016 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.filters;
+
+import com.netflix.genie.GenieWeb;
+import com.netflix.genie.test.categories.IntegrationTest;
+import com.netflix.genie.web.controllers.IntegrationTestActiveProfilesResolver;
+import com.netflix.spectator.api.Registry;
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.SpringApplicationConfiguration;
+import org.springframework.boot.test.TestRestTemplate;
+import org.springframework.boot.test.WebIntegrationTest;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Integration tests for the StreamingAttachmentFilter class in the embedded servlet container. Mock requests can't
+ * show whether the container already consumed the multipart body before the filter reads it.
+ *
+ * @author agent
+ * @since 3.0.0
+ */
+@Category(IntegrationTest.class)
+@RunWith(SpringJUnit4ClassRunner.class)
+@SpringApplicationConfiguration(classes = GenieWeb.class)
+@WebIntegrationTest(randomPort = true)
+@ActiveProfiles(resolver = IntegrationTestActiveProfilesResolver.class)
+@DirtiesContext
+@TestPropertySource(properties = "genie.jobs.attachments.streaming.enabled = true")
+public class StreamingAttachmentFilterIntegrationTests {
+
+    private static final String BOUNDARY = "genieBoundary";
+    private static final String JOB_REQUEST = "{\"name\":\"job\",\"user\":\"genie\",\"version\":\"1.0\"}";
+    private static final String ATTACHMENT = "select * from table;";
+
+    @Value("${local.server.port}")
+    private int port;
+
+    @Autowired
+    private Registry registry;
+
+    /**
+     * Make sure the attachments of a multipart job submission reach the filter in full even though filters before it
+     * read the request parameters.
+     *
+     * @throws Exception on error
+     */
+    @Test
+    public void canStreamAttachmentsThroughContainer() throws Exception {
+        final ByteArrayOutputStream body = new ByteArrayOutputStream();
+        this.writePart(body, "request", null, JOB_REQUEST);
+        this.writePart(body, "attachment", "query.sql", ATTACHMENT);
+        body.write(("--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.UTF_8));
+
+        final HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(
+            MediaType.parseMediaType(MediaType.MULTIPART_FORM_DATA_VALUE + "; boundary=" + BOUNDARY)
+        );
+        new TestRestTemplate().exchange(
+            "http://localhost:" + this.port + StreamingAttachmentFilter.JOBS_PATH,
+            HttpMethod.POST,
+            new HttpEntity<>(body.toByteArray(), headers),
+            String.class
+        );
+
+        // Whatever the controllers make of the job the filter must have read the whole attachment
+        Assert.assertThat(
+            this.registry.counter("genie.jobs.attachments.upload.bytes").count(),
+            Matchers.is((long) ATTACHMENT.length())
+        );
+        Assert.assertThat(this.registry.timer("genie.jobs.attachments.upload.timer").count(), Matchers.is(1L));
+        Assert.assertThat(
+            this.registry.counter("genie.jobs.attachments.upload.failure.rate").count(),
+            Matchers.is(0L)
+        );
+    }
+
+    private void writePart(
+        final ByteArrayOutputStream body,
+        final String name,
+        final String filename,
+        final String content
+    ) throws Exception {
+        final StringBuilder part = new StringBuilder()
+            .append("--").append(BOUNDARY).append("\r\n")
+            .append("Content-Disposition: form-data; name=\"").append(name).append('"');
+        if (filename != null) {
+            part.append("; filename=\"").append(filename).append('"');
+        }
+        part
+            .append("\r\n")
+            .append("Content-Type: ")
+            .append(filename == null ? MediaType.APPLICATION_JSON_VALUE : MediaType.APPLICATION_OCTET_STREAM_VALUE)
+            .append("\r\n\r\n")
+            .append(content)
+            .append("\r\n");
+        body.write(part.toString().getBytes(StandardCharsets.UTF_8));
+    }
+}
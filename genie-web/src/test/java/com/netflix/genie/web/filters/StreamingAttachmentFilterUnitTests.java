@@ -0,0 +1,343 @@
+/*
+ *
+ *  Copyright 2016 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.filters;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.google.common.collect.Maps;
+import com.google.common.io.ByteStreams;
+import com.netflix.genie.common.dto.JobRequest;
+import com.netflix.genie.common.util.JsonUtils;
+import com.netflix.genie.core.services.AttachmentService;
+import com.netflix.genie.core.services.JobSearchService;
+import com.netflix.genie.test.categories.UnitTest;
+import com.netflix.spectator.api.DefaultRegistry;
+import com.netflix.spectator.api.Registry;
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.mockito.Mockito;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Unit tests for the StreamingAttachmentFilter class.
+ *
+ * @author agent
+ * @since 3.0.0
+ */
+@Category(UnitTest.class)
+public class StreamingAttachmentFilterUnitTests {
+
+    private static final String BOUNDARY = "genieBoundary";
+    private static final String JOB_REQUEST = "{\"name\":\"job\",\"user\":\"genie\",\"version\":\"1.0\"}";
+
+    private AttachmentService attachmentService;
+    private JobSearchService jobSearchService;
+    private Registry registry;
+    private Map<String, String> saved;
+
+    /**
+     * Setup for the tests.
+     *
+     * @throws Exception on error
+     */
+    @Before
+    public void setup() throws Exception {
+        this.attachmentService = Mockito.mock(AttachmentService.class);
+        this.jobSearchService = Mockito.mock(JobSearchService.class);
+        this.registry = new DefaultRegistry();
+        this.saved = Maps.newHashMap();
+        Mockito.doAnswer(
+            invocation -> {
+                final InputStream content = (InputStream) invocation.getArguments()[2];
+                this.saved.put(
+                    (String) invocation.getArguments()[1],
+                    new String(ByteStreams.toByteArray(content), StandardCharsets.UTF_8)
+                );
+                return null;
+            }
+        ).when(this.attachmentService).save(Mockito.anyString(), Mockito.anyString(), Mockito.any());
+    }
+
+    /**
+     * Make sure only multipart job submissions are handled by the filter.
+     *
+     * @throws ServletException on error
+     */
+    @Test
+    public void onlyFiltersMultipartJobSubmissions() throws ServletException {
+        final StreamingAttachmentFilter filter = this.getFilter(1024L, 1);
+        Assert.assertFalse(filter.shouldNotFilter(this.getRequest("/api/v3/jobs", new byte[0])));
+        Assert.assertFalse(filter.shouldNotFilter(this.getRequest("/api/v3/jobs/", new byte[0])));
+        Assert.assertTrue(filter.shouldNotFilter(this.getRequest("/api/v3/clusters", new byte[0])));
+
+        final MockHttpServletRequest json = this.getRequest("/api/v3/jobs", new byte[0]);
+        json.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        Assert.assertTrue(filter.shouldNotFilter(json));
+
+        final MockHttpServletRequest get = this.getRequest("/api/v3/jobs", new byte[0]);
+        get.setMethod("GET");
+        Assert.assertTrue(filter.shouldNotFilter(get));
+    }
+
+    /**
+     * Make sure attachments are saved under a newly assigned job id and the job request is passed on as JSON.
+     *
+     * @throws Exception on error
+     */
+    @Test
+    public void canStreamAttachments() throws Exception {
+        final StreamingAttachmentFilter filter = this.getFilter(1024L, 1);
+        final byte[] body = new MultipartBuilder()
+            .part("request", null, JOB_REQUEST)
+            .part("attachment", "/home/genie/query.sql", "select * from table;")
+            .part("attachment", "script.sh", "echo hello")
+            .build();
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+        final MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(this.getRequest("/api/v3/jobs", body), response, chain);
+
+        Assert.assertThat(response.getStatus(), Matchers.is(HttpServletResponse.SC_OK));
+        final HttpServletRequest forwarded = (HttpServletRequest) chain.getRequest();
+        Assert.assertThat(forwarded.getContentType(), Matchers.is(MediaType.APPLICATION_JSON_VALUE));
+        Assert.assertThat(forwarded.getHeader("Content-Type"), Matchers.is(MediaType.APPLICATION_JSON_VALUE));
+        final byte[] forwardedBody = ByteStreams.toByteArray(forwarded.getInputStream());
+        Assert.assertThat(forwarded.getContentLength(), Matchers.is(forwardedBody.length));
+
+        final JsonNode jobRequest = JsonUtils.getMapper().readTree(forwardedBody);
+        final String jobId = jobRequest.get("id").asText();
+        Assert.assertNotNull(UUID.fromString(jobId));
+        Assert.assertThat(jobRequest.get("name").asText(), Matchers.is("job"));
+
+        Mockito
+            .verify(this.attachmentService, Mockito.times(2))
+            .save(Mockito.eq(jobId), Mockito.anyString(), Mockito.any());
+        Assert.assertThat(this.saved.get("query.sql"), Matchers.is("select * from table;"));
+        Assert.assertThat(this.saved.get("script.sh"), Matchers.is("echo hello"));
+        Assert.assertThat(this.registry.counter("genie.jobs.attachments.upload.bytes").count(), Matchers.is(30L));
+    }
+
+    /**
+     * Make sure an id sent with the job request is kept.
+     *
+     * @throws Exception on error
+     */
+    @Test
+    public void keepsRequestedJobId() throws Exception {
+        final StreamingAttachmentFilter filter = this.getFilter(1024L, 1);
+        final String jobId = UUID.randomUUID().toString();
+        final byte[] body = new MultipartBuilder()
+            .part("request", null, "{\"id\":\"" + jobId + "\",\"name\":\"job\"}")
+            .part("attachment", "query.sql", "select 1;")
+            .build();
+        final MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(this.getRequest("/api/v3/jobs", body), new MockHttpServletResponse(), chain);
+
+        final JsonNode jobRequest = JsonUtils.getMapper().readTree(chain.getRequest().getReader());
+        Assert.assertThat(jobRequest.get("id").asText(), Matchers.is(jobId));
+        Mockito
+            .verify(this.attachmentService, Mockito.times(1))
+            .save(Mockito.eq(jobId), Mockito.eq("query.sql"), Mockito.any());
+    }
+
+    /**
+     * Make sure a submission with the id of an existing job is rejected without saving or deleting any attachments.
+     *
+     * @throws Exception on error
+     */
+    @Test
+    public void rejectsExistingJobId() throws Exception {
+        final StreamingAttachmentFilter filter = this.getFilter(1024L, 1);
+        final String jobId = UUID.randomUUID().toString();
+        final byte[] body = new MultipartBuilder()
+            .part("request", null, "{\"id\":\"" + jobId + "\",\"name\":\"job\"}")
+            .part("attachment", "query.sql", "select 1;")
+            .build();
+        Mockito.when(this.jobSearchService.getJobRequest(jobId)).thenReturn(Mockito.mock(JobRequest.class));
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+        final MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(this.getRequest("/api/v3/jobs", body), response, chain);
+
+        Assert.assertThat(response.getStatus(), Matchers.is(HttpServletResponse.SC_CONFLICT));
+        Assert.assertNull(chain.getRequest());
+        Mockito.verifyZeroInteractions(this.attachmentService);
+    }
+
+    /**
+     * Make sure attachments sent with earlier jobs can be referenced by their digest and the submission is rejected
+     * if the content isn't present anymore.
+     *
+     * @throws Exception on error
+     */
+    @Test
+    public void canSaveExistingAttachments() throws Exception {
+        final StreamingAttachmentFilter filter = this.getFilter(1024L, 1);
+        final String jobId = UUID.randomUUID().toString();
+        final String sha256 = UUID.randomUUID().toString();
+        final byte[] body = new MultipartBuilder()
+            .part("request", null, "{\"id\":\"" + jobId + "\"}")
+            .part("attachmentHash", "query.sql", sha256)
+            .build();
+        Mockito.when(this.attachmentService.saveExisting(jobId, "query.sql", sha256)).thenReturn(true);
+        final MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(this.getRequest("/api/v3/jobs", body), new MockHttpServletResponse(), chain);
+
+        Assert.assertNotNull(chain.getRequest());
+        Mockito.verify(this.attachmentService, Mockito.times(1)).saveExisting(jobId, "query.sql", sha256);
+
+        Mockito.when(this.attachmentService.saveExisting(jobId, "query.sql", sha256)).thenReturn(false);
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+        final MockFilterChain rejectedChain = new MockFilterChain();
+
+        filter.doFilter(this.getRequest("/api/v3/jobs", body), response, rejectedChain);
+
+        Assert.assertThat(response.getStatus(), Matchers.is(HttpServletResponse.SC_PRECONDITION_FAILED));
+        Assert.assertNull(rejectedChain.getRequest());
+        Mockito.verify(this.attachmentService, Mockito.times(1)).delete(jobId);
+    }
+
+    /**
+     * Make sure attachments sent before the job request are rejected as there's no job to save them under.
+     *
+     * @throws Exception on error
+     */
+    @Test
+    public void rejectsAttachmentsBeforeJobRequest() throws Exception {
+        final StreamingAttachmentFilter filter = this.getFilter(1024L, 1);
+        final byte[] body = new MultipartBuilder()
+            .part("attachment", "query.sql", "select 1;")
+            .part("request", null, JOB_REQUEST)
+            .build();
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+        final MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(this.getRequest("/api/v3/jobs", body), response, chain);
+
+        Assert.assertThat(response.getStatus(), Matchers.is(HttpServletResponse.SC_PRECONDITION_FAILED));
+        Assert.assertNull(chain.getRequest());
+        Mockito
+            .verify(this.attachmentService, Mockito.never())
+            .save(Mockito.anyString(), Mockito.anyString(), Mockito.any());
+    }
+
+    /**
+     * Make sure attachments over the size limit are rejected and whatever was already saved is deleted.
+     *
+     * @throws Exception on error
+     */
+    @Test
+    public void rejectsAttachmentsOverTheSizeLimit() throws Exception {
+        final StreamingAttachmentFilter filter = this.getFilter(16L, 1);
+        final String jobId = UUID.randomUUID().toString();
+        final byte[] body = new MultipartBuilder()
+            .part("request", null, "{\"id\":\"" + jobId + "\"}")
+            .part("attachment", "small.txt", "small")
+            .part("attachment", "large.txt", "this attachment is too large")
+            .build();
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+        final MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(this.getRequest("/api/v3/jobs", body), response, chain);
+
+        Assert.assertThat(response.getStatus(), Matchers.is(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE));
+        Assert.assertNull(chain.getRequest());
+        Mockito.verify(this.attachmentService, Mockito.times(1)).delete(jobId);
+        Assert.assertThat(
+            this.registry.counter("genie.jobs.attachments.upload.failure.rate").count(),
+            Matchers.is(1L)
+        );
+    }
+
+    /**
+     * Make sure uploads over the concurrency limit are turned away.
+     *
+     * @throws Exception on error
+     */
+    @Test
+    public void rejectsUploadsOverTheConcurrencyLimit() throws Exception {
+        final StreamingAttachmentFilter filter = this.getFilter(1024L, 0);
+        final byte[] body = new MultipartBuilder().part("request", null, JOB_REQUEST).build();
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+        final MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(this.getRequest("/api/v3/jobs", body), response, chain);
+
+        Assert.assertThat(response.getStatus(), Matchers.is(HttpServletResponse.SC_SERVICE_UNAVAILABLE));
+        Assert.assertNull(chain.getRequest());
+        Assert.assertThat(
+            this.registry.counter("genie.jobs.attachments.upload.rejected.rate").count(),
+            Matchers.is(1L)
+        );
+    }
+
+    private StreamingAttachmentFilter getFilter(final long maxFileSize, final int maxConcurrentUploads) {
+        return new StreamingAttachmentFilter(
+            this.attachmentService,
+            this.jobSearchService,
+            this.registry,
+            maxFileSize,
+            maxFileSize * 100,
+            maxConcurrentUploads
+        );
+    }
+
+    private MockHttpServletRequest getRequest(final String uri, final byte[] body) {
+        final MockHttpServletRequest request = new MockHttpServletRequest("POST", uri);
+        request.setContentType(MediaType.MULTIPART_FORM_DATA_VALUE + "; boundary=" + BOUNDARY);
+        request.setContent(body);
+        return request;
+    }
+
+    /**
+     * Builds the body of a multipart request.
+     */
+    private static class MultipartBuilder {
+
+        private final StringBuilder body = new StringBuilder();
+
+        MultipartBuilder part(final String name, final String filename, final String content) {
+            this.body.append("--").append(BOUNDARY).append("\r\n");
+            this.body.append("Content-Disposition: form-data; name=\"").append(name).append('"');
+            if (filename != null) {
+                this.body.append("; filename=\"").append(filename).append('"');
+            }
+            this.body.append("\r\n\r\n").append(content).append("\r\n");
+            return this;
+        }
+
+        byte[] build() {
+            return this.body.append("--").append(BOUNDARY).append("--\r\n").toString().getBytes(StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ *
+ *  Copyright 2016 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.properties;
+
+import com.netflix.genie.test.categories.UnitTest;
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+/**
+ * Unit tests for JobCleanupProperties.
+ *
+ * @author agent
+ * @since 3.0.0
+ */
+@Category(UnitTest.class)
+public class JobCleanupPropertiesUnitTests {
+
+    private JobCleanupProperties properties;
+
+    /**
+     * Setup for the tests.
+     */
+    @Before
+    public void setup() {
+        this.properties = new JobCleanupProperties();
+    }
+
+    /**
+     * Make sure the default properties are set.
+     */
+    @Test
+    public void canConstruct() {
+        Assert.assertFalse(this.properties.isEnabled());
+        Assert.assertThat(this.properties.getRetention(), Matchers.is(3600000L));
+        Assert.assertThat(this.properties.getDelay(), Matchers.is(300000L));
+        Assert.assertThat(this.properties.getMinFreeSpacePercent(), Matchers.is(10));
+        Assert.assertThat(this.properties.getTargetFreeSpacePercent(), Matchers.is(20));
+        Assert.assertThat(this.properties.getParallelism(), Matchers.is(4));
+    }
+
+    /**
+     * Make sure can enable cleanup.
+     */
+    @Test
+    public void canEnable() {
+        this.properties.setEnabled(true);
+        Assert.assertTrue(this.properties.isEnabled());
+    }
+
+    /**
+     * Make sure can set and get the retention.
+     */
+    @Test
+    public void canSetRetention() {
+        final long newRetention = 1000L;
+        this.properties.setRetention(newRetention);
+        Assert.assertThat(this.properties.getRetention(), Matchers.is(newRetention));
+    }
+
+    /**
+     * Make sure can set and get the delay.
+     */
+    @Test
+    public void canSetDelay() {
+        final long newDelay = 5000L;
+        this.properties.setDelay(newDelay);
+        Assert.assertThat(this.properties.getDelay(), Matchers.is(newDelay));
+    }
+
+    /**
+     * Make sure can set and get the free space watermarks.
+     */
+    @Test
+    public void canSetFreeSpaceWatermarks() {
+        this.properties.setMinFreeSpacePercent(5);
+        this.properties.setTargetFreeSpacePercent(15);
+        Assert.assertThat(this.properties.getMinFreeSpacePercent(), Matchers.is(5));
+        Assert.assertThat(this.properties.getTargetFreeSpacePercent(), Matchers.is(15));
+    }
+
+    /**
+     * Make sure can set and get the parallelism.
+     */
+    @Test
+    public void canSetParallelism() {
+        this.properties.setParallelism(8);
+        Assert.assertThat(this.properties.getParallelism(), Matchers.is(8));
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ *
+ *  Copyright 2016 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.properties;
+
+import com.netflix.genie.test.categories.UnitTest;
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+/**
+ * Unit tests for JobOutputListingProperties.
+ *
+ * @author agent
+ * @since 3.0.0
+ */
+@Category(UnitTest.class)
+public class JobOutputListingPropertiesUnitTests {
+
+    private JobOutputListingProperties properties;
+
+    /**
+     * Setup for the tests.
+     */
+    @Before
+    public void setup() {
+        this.properties = new JobOutputListingProperties();
+    }
+
+    /**
+     * Make sure the default properties are set.
+     */
+    @Test
+    public void canConstruct() {
+        Assert.assertThat(this.properties.getCacheMaxEntries(), Matchers.is(1000L));
+        Assert.assertThat(this.properties.getCacheExpireAfterSeconds(), Matchers.is(60L));
+    }
+
+    /**
+     * Make sure can set and get the cache max entries.
+     */
+    @Test
+    public void canSetCacheMaxEntries() {
+        final long newMaxEntries = 50L;
+        this.properties.setCacheMaxEntries(newMaxEntries);
+        Assert.assertThat(this.properties.getCacheMaxEntries(), Matchers.is(newMaxEntries));
+    }
+
+    /**
+     * Make sure can set and get the cache expiry.
+     */
+    @Test
+    public void canSetCacheExpireAfterSeconds() {
+        final long newExpiry = 300L;
+        this.properties.setCacheExpireAfterSeconds(newExpiry);
+        Assert.assertThat(this.properties.getCacheExpireAfterSeconds(), Matchers.is(newExpiry));
+    }
+}
@@ -0,0 +1,291 @@
+/*
+ *
+ *  Copyright 2016 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.resources.archives;
+
+import com.google.common.io.ByteStreams;
+import com.netflix.genie.common.dto.Job;
+import com.netflix.genie.common.dto.JobStatus;
+import com.netflix.genie.common.exceptions.GenieNotFoundException;
+import com.netflix.genie.core.services.JobSearchService;
+import com.netflix.genie.core.services.impl.GenieFileTransferService;
+import com.netflix.genie.core.util.ZipUtil;
+import com.netflix.genie.test.categories.UnitTest;
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Unit tests for the ArchivedJobOutputResolver class.
+ *
+ * @author agent
+ * @since 3.0.0
+ */
+@Category(UnitTest.class)
+public class ArchivedJobOutputResolverUnitTests {
+
+    /**
+     * Temporary folder for the job directory, its archive and the cache.
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private JobSearchService jobSearchService;
+    private GenieFileTransferService fileTransferService;
+    private Path cacheDirectory;
+    private ArchivedJobOutputResolver resolver;
+
+    /**
+     * Setup for the tests.
+     *
+     * @throws Exception on error
+     */
+    @Before
+    public void setup() throws Exception {
+        this.jobSearchService = Mockito.mock(JobSearchService.class);
+        this.fileTransferService = Mockito.mock(GenieFileTransferService.class);
+        Mockito.when(this.fileTransferService.isRangeSupported(Mockito.anyString())).thenReturn(true);
+        Mockito.when(this.fileTransferService.getFileSize(Mockito.anyString())).thenAnswer(
+            invocation -> Files.size(Paths.get((String) invocation.getArguments()[0]))
+        );
+        Mockito.when(this.fileTransferService.getFileRange(Mockito.anyString(), Mockito.anyLong(), Mockito.anyLong()))
+            .thenAnswer(
+                invocation -> {
+                    final Object[] args = invocation.getArguments();
+                    final InputStream inputStream = Files.newInputStream(Paths.get((String) args[0]));
+                    ByteStreams.skipFully(inputStream, (Long) args[1]);
+                    return ByteStreams.limit(inputStream, (Long) args[2]);
+                }
+            );
+        this.cacheDirectory = this.folder.getRoot().toPath().resolve("cache");
+        this.resolver = new ArchivedJobOutputResolver(
+            this.jobSearchService,
+            this.fileTransferService,
+            this.cacheDirectory,
+            10L,
+            3600L
+        );
+    }
+
+    /**
+     * Make sure files and directories can be resolved from the zip archive with ranged reads of only the index and
+     * the members asked for.
+     *
+     * @throws Exception on error
+     */
+    @Test
+    public void canResolveFromArchive() throws Exception {
+        final String jobId = UUID.randomUUID().toString();
+        final String contents = UUID.randomUUID().toString();
+        final Path jobDir = this.folder.newFolder(jobId).toPath();
+        Files.createDirectories(jobDir.resolve("genie/logs"));
+        Files.write(jobDir.resolve("stdout"), contents.getBytes(StandardCharsets.UTF_8));
+        final Path archive = this.folder.getRoot().toPath().resolve(jobId + ".zip");
+        ZipUtil.zipDirectory(jobDir, archive);
+        this.mockJob(jobId, JobStatus.SUCCEEDED, archive.toString());
+
+        // Listing only needs the index
+        try (
+            final ArchivedJobOutputResolver.ArchivedPath root = this.resolver.resolve(jobId, "");
+            final ArchivedJobOutputResolver.ArchivedPath logs = this.resolver.resolve(jobId, "genie/logs/")
+        ) {
+            Assert.assertNotNull(root);
+            Assert.assertTrue(Files.isDirectory(root.getPath()));
+            Assert.assertNotNull(logs);
+            Assert.assertTrue(Files.isDirectory(logs.getPath()));
+            Assert.assertThat(Files.size(root.getPath().resolve("stdout")), Matchers.is((long) contents.length()));
+        }
+        Mockito.verify(this.fileTransferService, Mockito.times(1))
+            .getFileRange(Mockito.anyString(), Mockito.anyLong(), Mockito.anyLong());
+
+        // The member is fetched once when it's asked for
+        try (final ArchivedJobOutputResolver.ArchivedPath stdout = this.resolver.resolve(jobId, "stdout")) {
+            Assert.assertNotNull(stdout);
+            Assert.assertThat(
+                new String(Files.readAllBytes(stdout.getPath()), StandardCharsets.UTF_8),
+                Matchers.is(contents)
+            );
+        }
+        try (final ArchivedJobOutputResolver.ArchivedPath stdout = this.resolver.resolve(jobId, "stdout")) {
+            Assert.assertNotNull(stdout);
+        }
+        Mockito.verify(this.fileTransferService, Mockito.times(2))
+            .getFileRange(Mockito.anyString(), Mockito.anyLong(), Mockito.anyLong());
+
+        Assert.assertNull(this.resolver.resolve(jobId, "stderr"));
+        Assert.assertNull(this.resolver.resolve(jobId, "../../etc/passwd"));
+
+        Mockito.verify(this.fileTransferService, Mockito.times(1)).getFileSize(archive.toString());
+        Mockito.verify(this.fileTransferService, Mockito.never()).getFile(Mockito.anyString(), Mockito.anyString());
+    }
+
+    /**
+     * Make sure archives on file systems which can't read ranges are downloaded once rather than once per range.
+     *
+     * @throws Exception on error
+     */
+    @Test
+    public void canResolveFromDownloadedArchive() throws Exception {
+        final String jobId = UUID.randomUUID().toString();
+        final String contents = UUID.randomUUID().toString();
+        final Path jobDir = this.folder.newFolder(jobId).toPath();
+        Files.createDirectories(jobDir.resolve("genie/logs"));
+        Files.write(jobDir.resolve("stdout"), contents.getBytes(StandardCharsets.UTF_8));
+        final Path archive = this.folder.getRoot().toPath().resolve(jobId + ".zip");
+        ZipUtil.zipDirectory(jobDir, archive);
+        this.mockJob(jobId, JobStatus.SUCCEEDED, archive.toString());
+        Mockito.when(this.fileTransferService.isRangeSupported(archive.toString())).thenReturn(false);
+        Mockito.doAnswer(
+            invocation -> {
+                final Object[] args = invocation.getArguments();
+                Files.copy(Paths.get((String) args[0]), Paths.get((String) args[1]));
+                return null;
+            }
+        ).when(this.fileTransferService).getFile(Mockito.anyString(), Mockito.anyString());
+
+        try (
+            final ArchivedJobOutputResolver.ArchivedPath logs = this.resolver.resolve(jobId, "genie/logs");
+            final ArchivedJobOutputResolver.ArchivedPath stdout = this.resolver.resolve(jobId, "stdout")
+        ) {
+            Assert.assertNotNull(logs);
+            Assert.assertTrue(Files.isDirectory(logs.getPath()));
+            Assert.assertNotNull(stdout);
+            Assert.assertThat(
+                new String(Files.readAllBytes(stdout.getPath()), StandardCharsets.UTF_8),
+                Matchers.is(contents)
+            );
+        }
+
+        Mockito.verify(this.fileTransferService, Mockito.times(1))
+            .getFile(Mockito.eq(archive.toString()), Mockito.anyString());
+        Mockito.verify(this.fileTransferService, Mockito.never()).getFileSize(Mockito.anyString());
+        Mockito.verify(this.fileTransferService, Mockito.never())
+            .getFileRange(Mockito.anyString(), Mockito.anyLong(), Mockito.anyLong());
+    }
+
+    /**
+     * Make sure an archive dropped from the cache stays open until the paths resolved within it are closed.
+     *
+     * @throws Exception on error
+     */
+    @Test
+    public void canReadFromEvictedArchiveUntilClosed() throws Exception {
+        final ArchivedJobOutputResolver singleArchive = new ArchivedJobOutputResolver(
+            this.jobSearchService,
+            this.fileTransferService,
+            this.cacheDirectory,
+            1L,
+            3600L
+        );
+        final String first = UUID.randomUUID().toString();
+        final String second = UUID.randomUUID().toString();
+        final String contents = UUID.randomUUID().toString();
+        for (final String jobId : new String[]{first, second}) {
+            final Path jobDir = this.folder.newFolder(jobId).toPath();
+            Files.write(jobDir.resolve("stdout"), contents.getBytes(StandardCharsets.UTF_8));
+            final Path archive = this.folder.getRoot().toPath().resolve(jobId + ".zip");
+            ZipUtil.zipDirectory(jobDir, archive);
+            this.mockJob(jobId, JobStatus.SUCCEEDED, archive.toString());
+        }
+
+        final ArchivedJobOutputResolver.ArchivedPath stdout = singleArchive.resolve(first, "stdout");
+        Assert.assertNotNull(stdout);
+        // Pushes the first archive out of the cache while its member is still being read
+        singleArchive.resolve(second, "stdout").close();
+        Assert.assertThat(
+            new String(Files.readAllBytes(stdout.getPath()), StandardCharsets.UTF_8),
+            Matchers.is(contents)
+        );
+        Assert.assertThat(this.countCachedArchives(), Matchers.is(2L));
+
+        stdout.close();
+        Assert.assertThat(this.countCachedArchives(), Matchers.is(1L));
+    }
+
+    /**
+     * Make sure nothing is resolved for jobs which don't exist, are still running or aren't zip archives.
+     *
+     * @throws Exception on error
+     */
+    @Test
+    public void cantResolveWithoutZipArchive() throws Exception {
+        final String missing = UUID.randomUUID().toString();
+        Mockito.when(this.jobSearchService.getJob(missing)).thenThrow(new GenieNotFoundException("missing"));
+        Assert.assertNull(this.resolver.resolve(missing, "stdout"));
+
+        final String running = UUID.randomUUID().toString();
+        this.mockJob(running, JobStatus.RUNNING, "s3://bucket/" + running + ".zip");
+        Assert.assertNull(this.resolver.resolve(running, "stdout"));
+
+        final String tarred = UUID.randomUUID().toString();
+        this.mockJob(tarred, JobStatus.SUCCEEDED, "s3://bucket/" + tarred + ".tar.gz");
+        Assert.assertNull(this.resolver.resolve(tarred, "stdout"));
+
+        final String notArchived = UUID.randomUUID().toString();
+        this.mockJob(notArchived, JobStatus.FAILED, null);
+        Assert.assertNull(this.resolver.resolve(notArchived, "stdout"));
+
+        Mockito.verify(this.fileTransferService, Mockito.never()).getFileSize(Mockito.anyString());
+    }
+
+    /**
+     * Make sure partially fetched archives left in the cache directory by a previous run are removed.
+     *
+     * @throws Exception on error
+     */
+    @Test
+    public void canCleanUpLeftoverArchives() throws Exception {
+        final Path leftover = this.cacheDirectory.resolve(UUID.randomUUID().toString() + ".cache.zip");
+        Files.write(leftover, UUID.randomUUID().toString().getBytes(StandardCharsets.UTF_8));
+        new ArchivedJobOutputResolver(this.jobSearchService, this.fileTransferService, this.cacheDirectory, 1L, 1L);
+        Assert.assertFalse(Files.exists(leftover));
+    }
+
+    private long countCachedArchives() throws IOException {
+        try (final Stream<Path> cached = Files.list(this.cacheDirectory)) {
+            return cached.count();
+        }
+    }
+
+    private void mockJob(final String jobId, final JobStatus status, final String archiveLocation) throws Exception {
+        final Job job = new Job.Builder(
+            UUID.randomUUID().toString(),
+            UUID.randomUUID().toString(),
+            UUID.randomUUID().toString(),
+            UUID.randomUUID().toString()
+        )
+            .withId(jobId)
+            .withStatus(status)
+            .withArchiveLocation(archiveLocation)
+            .build();
+        Mockito.when(this.jobSearchService.getJob(jobId)).thenReturn(job);
+    }
+}
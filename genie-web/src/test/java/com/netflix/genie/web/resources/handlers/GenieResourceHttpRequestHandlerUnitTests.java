@@ -20,10 +20,18 @@ package com.netflix.genie.web.resources.handlers;
 import com.google.common.collect.Lists;
 import com.netflix.genie.core.jobs.JobConstants;
 import com.netflix.genie.test.categories.UnitTest;
+import com.netflix.genie.web.resources.archives.ArchivedJobOutputResolver;
+import com.netflix.genie.web.resources.writers.DirectoryListingOptions;
 import com.netflix.genie.web.resources.writers.DirectoryWriter;
+import com.netflix.genie.web.resources.writers.StreamingDirectoryWriter;
+import org.hamcrest.Matchers;
+import org.junit.Assert;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
@@ -36,9 +44,13 @@ import javax.servlet.ServletException;
 import javax.servlet.ServletOutputStream;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
 import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.List;
 import java.util.UUID;
 
@@ -51,6 +63,12 @@ import java.util.UUID;
 @Category(UnitTest.class)
 public class GenieResourceHttpRequestHandlerUnitTests {
 
+    /**
+     * Temporary folder to stand in for the contents of an archive.
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
     private DirectoryWriter directoryWriter;
     private GenieResourceHttpRequestHandler handler;
     private Resource location;
@@ -261,4 +279,244 @@ public class GenieResourceHttpRequestHandlerUnitTests {
 
         this.handler.handleRequest(request, response);
     }
+
+    /**
+     * Make sure a streaming directory writer is handed the paging options and the response stream.
+     *
+     * @throws Exception On any error
+     */
+    @Test
+    public void canHandleRequestForDirectoryWithStreamingWriter() throws Exception {
+        final StreamingDirectoryWriter streamingWriter = Mockito.mock(StreamingDirectoryWriter.class);
+        final GenieResourceHttpRequestHandler streamingHandler = new GenieResourceHttpRequestHandler(streamingWriter);
+        streamingHandler.setLocations(Lists.newArrayList(this.location));
+
+        final HttpServletRequest request = Mockito.mock(HttpServletRequest.class);
+        final HttpServletResponse response = Mockito.mock(HttpServletResponse.class);
+        final String jobId = UUID.randomUUID().toString();
+        final String path = jobId + "/genie";
+        Mockito.when(request.getAttribute(HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE)).thenReturn(path);
+        Mockito.when(request.getAttribute(GenieResourceHttpRequestHandler.GENIE_JOB_IS_ROOT_DIRECTORY))
+            .thenReturn(false);
+        Mockito.when(request.getHeader(HttpHeaders.ACCEPT)).thenReturn(MediaType.TEXT_HTML_VALUE);
+        Mockito.when(request.getParameter(GenieResourceHttpRequestHandler.OFFSET_PARAM)).thenReturn("10");
+        Mockito.when(request.getParameter(GenieResourceHttpRequestHandler.LIMIT_PARAM)).thenReturn(" 5 ");
+        Mockito.when(request.getParameter(GenieResourceHttpRequestHandler.GLOB_PARAM)).thenReturn("*.log");
+        final String requestUrl = UUID.randomUUID().toString();
+        Mockito.when(request.getRequestURL()).thenReturn(new StringBuffer(requestUrl));
+        final Resource resource = Mockito.mock(Resource.class);
+        Mockito.when(this.location.createRelative(Mockito.eq(path))).thenReturn(resource);
+        Mockito.when(resource.exists()).thenReturn(true);
+        final File file = Mockito.mock(File.class);
+        Mockito.when(resource.getFile()).thenReturn(file);
+        Mockito.when(file.isDirectory()).thenReturn(true);
+        final Path directory = Paths.get(UUID.randomUUID().toString());
+        Mockito.when(file.toPath()).thenReturn(directory);
+        final Resource doneFile = Mockito.mock(Resource.class);
+        Mockito.when(this.location.createRelative(Mockito.eq(jobId + "/genie/genie.done"))).thenReturn(doneFile);
+        Mockito.when(doneFile.exists()).thenReturn(true);
+
+        final ServletOutputStream os = Mockito.mock(ServletOutputStream.class);
+        Mockito.when(response.getOutputStream()).thenReturn(os);
+
+        streamingHandler.handleRequest(request, response);
+
+        final ArgumentCaptor<DirectoryListingOptions> captor = ArgumentCaptor.forClass(DirectoryListingOptions.class);
+        Mockito.verify(response, Mockito.times(1)).setContentType(MediaType.TEXT_HTML_VALUE);
+        Mockito.verify(streamingWriter, Mockito.times(1))
+            .writeHtml(
+                Mockito.eq(directory),
+                Mockito.eq(requestUrl),
+                Mockito.eq(true),
+                captor.capture(),
+                Mockito.eq(os)
+            );
+        Mockito.verify(streamingWriter, Mockito.never())
+            .toHtml(Mockito.any(File.class), Mockito.anyString(), Mockito.anyBoolean());
+        Assert.assertThat(captor.getValue().getOffset(), Matchers.is(10));
+        Assert.assertThat(captor.getValue().getLimit(), Matchers.is(5));
+        Assert.assertThat(captor.getValue().getGlob(), Matchers.is("*.log"));
+        Assert.assertTrue(captor.getValue().isCacheable());
+    }
+
+    /**
+     * Make sure invalid paging parameters are rejected as a bad request.
+     *
+     * @throws Exception On any error
+     */
+    @Test
+    public void cantHandleRequestForDirectoryWithInvalidPaging() throws Exception {
+        final StreamingDirectoryWriter streamingWriter = Mockito.mock(StreamingDirectoryWriter.class);
+        final GenieResourceHttpRequestHandler streamingHandler = new GenieResourceHttpRequestHandler(streamingWriter);
+        streamingHandler.setLocations(Lists.newArrayList(this.location));
+
+        final HttpServletRequest request = Mockito.mock(HttpServletRequest.class);
+        final HttpServletResponse response = Mockito.mock(HttpServletResponse.class);
+        final String path = UUID.randomUUID().toString();
+        Mockito.when(request.getAttribute(HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE)).thenReturn(path);
+        Mockito.when(request.getParameter(GenieResourceHttpRequestHandler.OFFSET_PARAM)).thenReturn("-1");
+        Mockito.when(request.getParameter(GenieResourceHttpRequestHandler.LIMIT_PARAM)).thenReturn("abc");
+        Mockito.when(request.getRequestURL()).thenReturn(new StringBuffer(UUID.randomUUID().toString()));
+        final Resource resource = Mockito.mock(Resource.class);
+        Mockito.when(this.location.createRelative(Mockito.eq(path))).thenReturn(resource);
+        Mockito.when(resource.exists()).thenReturn(true);
+        final File file = Mockito.mock(File.class);
+        Mockito.when(resource.getFile()).thenReturn(file);
+        Mockito.when(file.isDirectory()).thenReturn(true);
+        final Resource doneFile = Mockito.mock(Resource.class);
+        Mockito.when(this.location.createRelative(Mockito.eq(path + "/genie/genie.done"))).thenReturn(doneFile);
+
+        streamingHandler.handleRequest(request, response);
+
+        Mockito.verify(response, Mockito.times(1))
+            .sendError(Mockito.eq(HttpStatus.BAD_REQUEST.value()), Mockito.anyString());
+        Mockito.verifyZeroInteractions(streamingWriter);
+    }
+
+    /**
+     * Make sure a malformed glob is rejected as a bad request.
+     *
+     * @throws Exception On any error
+     */
+    @Test
+    public void cantHandleRequestForDirectoryWithInvalidGlob() throws Exception {
+        final StreamingDirectoryWriter streamingWriter = Mockito.mock(StreamingDirectoryWriter.class);
+        final GenieResourceHttpRequestHandler streamingHandler = new GenieResourceHttpRequestHandler(streamingWriter);
+        streamingHandler.setLocations(Lists.newArrayList(this.location));
+
+        final HttpServletRequest request = Mockito.mock(HttpServletRequest.class);
+        final HttpServletResponse response = Mockito.mock(HttpServletResponse.class);
+        final String path = UUID.randomUUID().toString();
+        Mockito.when(request.getAttribute(HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE)).thenReturn(path);
+        Mockito.when(request.getParameter(GenieResourceHttpRequestHandler.GLOB_PARAM)).thenReturn("[");
+        Mockito.when(request.getRequestURL()).thenReturn(new StringBuffer(UUID.randomUUID().toString()));
+        final Resource resource = Mockito.mock(Resource.class);
+        Mockito.when(this.location.createRelative(Mockito.eq(path))).thenReturn(resource);
+        Mockito.when(resource.exists()).thenReturn(true);
+        final File file = Mockito.mock(File.class);
+        Mockito.when(resource.getFile()).thenReturn(file);
+        Mockito.when(file.isDirectory()).thenReturn(true);
+        final Resource doneFile = Mockito.mock(Resource.class);
+        Mockito.when(this.location.createRelative(Mockito.eq(path + "/genie/genie.done"))).thenReturn(doneFile);
+
+        streamingHandler.handleRequest(request, response);
+
+        Mockito.verify(response, Mockito.times(1))
+            .sendError(Mockito.eq(HttpStatus.BAD_REQUEST.value()), Mockito.anyString());
+        Mockito.verifyZeroInteractions(streamingWriter);
+    }
+
+    /**
+     * Make sure a file is served from the archive of the job when the job directory is gone.
+     *
+     * @throws Exception On any error
+     */
+    @Test
+    public void canHandleRequestForArchivedFile() throws Exception {
+        final ArchivedJobOutputResolver resolver = Mockito.mock(ArchivedJobOutputResolver.class);
+        final GenieResourceHttpRequestHandler archiveHandler
+            = new GenieResourceHttpRequestHandler(Mockito.mock(StreamingDirectoryWriter.class), resolver);
+        archiveHandler.setLocations(Lists.newArrayList(this.location));
+
+        final HttpServletRequest request = Mockito.mock(HttpServletRequest.class);
+        final HttpServletResponse response = Mockito.mock(HttpServletResponse.class);
+        final String jobId = UUID.randomUUID().toString();
+        final String path = jobId + "/genie/logs/genie.log";
+        Mockito.when(request.getAttribute(HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE)).thenReturn(path);
+        final Resource resource = Mockito.mock(Resource.class);
+        Mockito.when(this.location.createRelative(Mockito.eq(path))).thenReturn(resource);
+        Mockito.when(resource.exists()).thenReturn(false);
+
+        final byte[] contents = UUID.randomUUID().toString().getBytes(Charset.forName("UTF-8"));
+        final Path archived = this.folder.newFile("genie.log").toPath();
+        Files.write(archived, contents);
+        final Closeable release = Mockito.mock(Closeable.class);
+        Mockito
+            .when(resolver.resolve(jobId, "genie/logs/genie.log"))
+            .thenReturn(new ArchivedJobOutputResolver.ArchivedPath(archived, release));
+
+        final ServletOutputStream os = Mockito.mock(ServletOutputStream.class);
+        Mockito.when(response.getOutputStream()).thenReturn(os);
+
+        archiveHandler.handleRequest(request, response);
+
+        Mockito.verify(response, Mockito.never()).sendError(Mockito.anyInt());
+        Mockito.verify(response, Mockito.times(1))
+            .setHeader(HttpHeaders.CONTENT_LENGTH, Integer.toString(contents.length));
+        Mockito.verify(os, Mockito.atLeastOnce()).write(Mockito.any(byte[].class), Mockito.anyInt(), Mockito.anyInt());
+        Mockito.verify(release, Mockito.times(1)).close();
+    }
+
+    /**
+     * Make sure a directory within the archive of the job is listed with the streaming writer.
+     *
+     * @throws Exception On any error
+     */
+    @Test
+    public void canHandleRequestForArchivedDirectory() throws Exception {
+        final ArchivedJobOutputResolver resolver = Mockito.mock(ArchivedJobOutputResolver.class);
+        final StreamingDirectoryWriter streamingWriter = Mockito.mock(StreamingDirectoryWriter.class);
+        final GenieResourceHttpRequestHandler archiveHandler
+            = new GenieResourceHttpRequestHandler(streamingWriter, resolver);
+        archiveHandler.setLocations(Lists.newArrayList(this.location));
+
+        final HttpServletRequest request = Mockito.mock(HttpServletRequest.class);
+        final HttpServletResponse response = Mockito.mock(HttpServletResponse.class);
+        final String jobId = UUID.randomUUID().toString();
+        final String path = jobId + "/";
+        Mockito.when(request.getAttribute(HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE)).thenReturn(path);
+        final String requestUrl = UUID.randomUUID().toString();
+        Mockito.when(request.getRequestURL()).thenReturn(new StringBuffer(requestUrl));
+        final Resource resource = Mockito.mock(Resource.class);
+        Mockito.when(this.location.createRelative(Mockito.eq(path))).thenReturn(resource);
+        Mockito.when(resource.exists()).thenReturn(false);
+        final Path archived = this.folder.getRoot().toPath();
+        final Closeable release = Mockito.mock(Closeable.class);
+        Mockito
+            .when(resolver.resolve(jobId, ""))
+            .thenReturn(new ArchivedJobOutputResolver.ArchivedPath(archived, release));
+
+        final ServletOutputStream os = Mockito.mock(ServletOutputStream.class);
+        Mockito.when(response.getOutputStream()).thenReturn(os);
+
+        archiveHandler.handleRequest(request, response);
+
+        final ArgumentCaptor<DirectoryListingOptions> captor = ArgumentCaptor.forClass(DirectoryListingOptions.class);
+        Mockito.verify(streamingWriter, Mockito.times(1)).writeJson(
+            Mockito.eq(archived),
+            Mockito.eq(requestUrl),
+            Mockito.eq(false),
+            captor.capture(),
+            Mockito.eq(os)
+        );
+        Assert.assertTrue(captor.getValue().isCacheable());
+        Mockito.verify(release, Mockito.times(1)).close();
+    }
+
+    /**
+     * Make sure a request is still not found if the job has no archive to fall back to.
+     *
+     * @throws Exception On any error
+     */
+    @Test
+    public void cantHandleRequestIfNotInArchive() throws Exception {
+        final ArchivedJobOutputResolver resolver = Mockito.mock(ArchivedJobOutputResolver.class);
+        final GenieResourceHttpRequestHandler archiveHandler
+            = new GenieResourceHttpRequestHandler(Mockito.mock(StreamingDirectoryWriter.class), resolver);
+        archiveHandler.setLocations(Lists.newArrayList(this.location));
+
+        final HttpServletRequest request = Mockito.mock(HttpServletRequest.class);
+        final HttpServletResponse response = Mockito.mock(HttpServletResponse.class);
+        final String jobId = UUID.randomUUID().toString();
+        final String path = jobId + "/stdout";
+        Mockito.when(request.getAttribute(HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE)).thenReturn(path);
+        final Resource resource = Mockito.mock(Resource.class);
+        Mockito.when(this.location.createRelative(Mockito.eq(path))).thenReturn(resource);
+        Mockito.when(resource.exists()).thenReturn(false);
+
+        archiveHandler.handleRequest(request, response);
+
+        Mockito.verify(resolver, Mockito.times(1)).resolve(jobId, "stdout");
+        Mockito.verify(response, Mockito.times(1)).sendError(HttpStatus.NOT_FOUND.value());
+    }
 }
@@ -0,0 +1,245 @@
+/*
+ *
+ *  Copyright 2016 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.resources.writers;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.netflix.genie.common.util.JsonUtils;
+import com.netflix.genie.test.categories.UnitTest;
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.UUID;
+
+/**
+ * Unit tests for the DefaultStreamingDirectoryWriter.
+ *
+ * @author agent
+ * @since 3.0.0
+ */
+@Category(UnitTest.class)
+public class DefaultStreamingDirectoryWriterUnitTests {
+
+    private static final String REQUEST_URL
+        = "http://genie.netflix.com:8080/api/v3/jobs/" + UUID.randomUUID().toString() + "/output/dir";
+
+    /**
+     * Temporary folder to hold the directory being listed.
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private DefaultStreamingDirectoryWriter writer;
+    private File directory;
+
+    /**
+     * Setup the tests.
+     *
+     * @throws IOException on error
+     */
+    @Before
+    public void setup() throws IOException {
+        this.writer = new DefaultStreamingDirectoryWriter(10L, 60L);
+        this.directory = this.folder.newFolder("dir");
+        Assert.assertTrue(new File(this.directory, "b").mkdir());
+        Assert.assertTrue(new File(this.directory, "a").mkdir());
+        Files.write(new File(this.directory, "stdout").toPath(), "out".getBytes(StandardCharsets.UTF_8));
+        Files.write(new File(this.directory, "stderr").toPath(), "error".getBytes(StandardCharsets.UTF_8));
+        Files.write(new File(this.directory, "run.sh").toPath(), new byte[0]);
+    }
+
+    /**
+     * Make sure if the argument passed in isn't a directory an exception is thrown.
+     *
+     * @throws IOException on error
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void cantGetDirectoryIfNotDirectory() throws IOException {
+        this.writer.getDirectory(
+            new File(this.directory, "stdout"),
+            REQUEST_URL,
+            false,
+            DirectoryListingOptions.DEFAULT
+        );
+    }
+
+    /**
+     * Make sure the whole directory is listed sorted, directories first, with the parent when requested.
+     *
+     * @throws IOException on error
+     */
+    @Test
+    public void canGetWholeDirectory() throws IOException {
+        final DefaultDirectoryWriter.Directory dir
+            = this.writer.getDirectory(this.directory, REQUEST_URL, true, DirectoryListingOptions.DEFAULT);
+
+        Assert.assertThat(dir.getParent().getName(), Matchers.is("../"));
+        Assert.assertThat(dir.getParent().getUrl(), Matchers.is(REQUEST_URL.substring(0, REQUEST_URL.length() - 4)));
+        Assert.assertThat(dir.getDirectories().size(), Matchers.is(2));
+        Assert.assertThat(dir.getDirectories().get(0).getName(), Matchers.is("a/"));
+        Assert.assertThat(dir.getDirectories().get(0).getUrl(), Matchers.is(REQUEST_URL + "/a/"));
+        Assert.assertThat(dir.getDirectories().get(1).getName(), Matchers.is("b/"));
+        Assert.assertThat(dir.getFiles().size(), Matchers.is(3));
+        Assert.assertThat(dir.getFiles().get(0).getName(), Matchers.is("run.sh"));
+        Assert.assertThat(dir.getFiles().get(1).getName(), Matchers.is("stderr"));
+        Assert.assertThat(dir.getFiles().get(1).getSize(), Matchers.is(5L));
+        Assert.assertThat(dir.getFiles().get(2).getName(), Matchers.is("stdout"));
+        Assert.assertThat(dir.getFiles().get(2).getUrl(), Matchers.is(REQUEST_URL + "/stdout"));
+    }
+
+    /**
+     * Make sure paging spans the directories and the files.
+     *
+     * @throws IOException on error
+     */
+    @Test
+    public void canPageDirectory() throws IOException {
+        final DefaultDirectoryWriter.Directory dir = this.writer.getDirectory(
+            this.directory,
+            REQUEST_URL,
+            false,
+            new DirectoryListingOptions(1, 2, null, false)
+        );
+
+        Assert.assertNull(dir.getParent());
+        Assert.assertThat(dir.getDirectories().size(), Matchers.is(1));
+        Assert.assertThat(dir.getDirectories().get(0).getName(), Matchers.is("b/"));
+        Assert.assertThat(dir.getFiles().size(), Matchers.is(1));
+        Assert.assertThat(dir.getFiles().get(0).getName(), Matchers.is("run.sh"));
+
+        final DefaultDirectoryWriter.Directory pastEnd = this.writer.getDirectory(
+            this.directory,
+            REQUEST_URL,
+            false,
+            new DirectoryListingOptions(10, 2, null, false)
+        );
+        Assert.assertTrue(pastEnd.getDirectories().isEmpty());
+        Assert.assertTrue(pastEnd.getFiles().isEmpty());
+    }
+
+    /**
+     * Make sure a glob filters the entries whether or not the listing is cached.
+     *
+     * @throws IOException on error
+     */
+    @Test
+    public void canFilterDirectory() throws IOException {
+        for (final boolean cacheable : new boolean[]{false, true}) {
+            final DefaultDirectoryWriter.Directory dir = this.writer.getDirectory(
+                this.directory,
+                REQUEST_URL,
+                false,
+                new DirectoryListingOptions(0, Integer.MAX_VALUE, "std*", cacheable)
+            );
+            Assert.assertTrue(dir.getDirectories().isEmpty());
+            Assert.assertThat(dir.getFiles().size(), Matchers.is(2));
+            Assert.assertThat(dir.getFiles().get(0).getName(), Matchers.is("stderr"));
+            Assert.assertThat(dir.getFiles().get(1).getName(), Matchers.is("stdout"));
+        }
+    }
+
+    /**
+     * Make sure a cached listing is reused until the directory itself changes.
+     *
+     * @throws IOException on error
+     */
+    @Test
+    public void canCacheDirectory() throws IOException {
+        final DirectoryListingOptions options = new DirectoryListingOptions(0, Integer.MAX_VALUE, null, true);
+        final long lastModified = this.directory.lastModified();
+        Assert.assertThat(
+            this.writer.getDirectory(this.directory, REQUEST_URL, false, options).getFiles().size(),
+            Matchers.is(3)
+        );
+
+        // Changing the file without touching the directory modification time serves the cached listing
+        Files.write(new File(this.directory, "new").toPath(), new byte[0]);
+        Assert.assertTrue(this.directory.setLastModified(lastModified));
+        Assert.assertThat(
+            this.writer.getDirectory(this.directory, REQUEST_URL, false, options).getFiles().size(),
+            Matchers.is(3)
+        );
+
+        Assert.assertTrue(this.directory.setLastModified(lastModified + 10000L));
+        Assert.assertThat(
+            this.writer.getDirectory(this.directory, REQUEST_URL, false, options).getFiles().size(),
+            Matchers.is(4)
+        );
+    }
+
+    /**
+     * Make sure the JSON is written to the stream and the stream is left open.
+     *
+     * @throws IOException on error
+     */
+    @Test
+    public void canWriteJson() throws IOException {
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        this.writer.writeJson(
+            this.directory,
+            REQUEST_URL,
+            false,
+            new DirectoryListingOptions(0, 1, null, false),
+            outputStream
+        );
+
+        final JsonNode json = JsonUtils.getMapper().readTree(outputStream.toByteArray());
+        Assert.assertThat(json.get("directories").size(), Matchers.is(1));
+        Assert.assertThat(json.get("files").size(), Matchers.is(0));
+    }
+
+    /**
+     * Make sure the HTML is written to the stream.
+     *
+     * @throws IOException on error
+     */
+    @Test
+    public void canWriteHtml() throws IOException {
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        this.writer.writeHtml(this.directory, REQUEST_URL, true, DirectoryListingOptions.DEFAULT, outputStream);
+
+        final String html = new String(outputStream.toByteArray(), StandardCharsets.UTF_8);
+        Assert.assertThat(html, Matchers.containsString(REQUEST_URL + "/stdout"));
+        Assert.assertThat(html, Matchers.containsString("../"));
+    }
+
+    /**
+     * Make sure negative paging values are rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void cantCreateNegativeOptions() {
+        new DirectoryListingOptions(-1, 10, null, false);
+    }
+
+    /**
+     * Make sure malformed globs are rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void cantCreateOptionsWithInvalidGlob() {
+        new DirectoryListingOptions(0, 10, "[", false);
+    }
+}
@@ -0,0 +1,215 @@
+/*
+ *
+ *  Copyright 2016 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.tasks.node;
+
+import com.netflix.genie.core.jobs.JobConstants;
+import com.netflix.genie.core.services.AttachmentService;
+import com.netflix.genie.test.categories.UnitTest;
+import com.netflix.genie.web.properties.JobCleanupProperties;
+import com.netflix.genie.web.tasks.GenieTaskScheduleType;
+import com.netflix.spectator.api.DefaultRegistry;
+import com.netflix.spectator.api.Registry;
+import org.hamcrest.Matchers;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.UUID;
+
+/**
+ * Unit tests for JobDirectoryReaperTask.
+ *
+ * @author agent
+ * @since 3.0.0
+ */
+@Category(UnitTest.class)
+public class JobDirectoryReaperTaskUnitTests {
+
+    /**
+     * Temporary folder to use as the jobs directory.
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private JobCleanupProperties cleanupProperties;
+    private AttachmentService attachmentService;
+    private Registry registry;
+    private JobDirectoryReaperTask task;
+
+    /**
+     * Setup for the tests.
+     *
+     * @throws IOException on error
+     */
+    @Before
+    public void setup() throws IOException {
+        this.cleanupProperties = new JobCleanupProperties();
+        this.cleanupProperties.setRetention(60000L);
+        // Never under disk pressure unless a test asks for it
+        this.cleanupProperties.setMinFreeSpacePercent(0);
+        this.attachmentService = Mockito.mock(AttachmentService.class);
+        this.registry = new DefaultRegistry();
+        final Resource jobsDir = Mockito.mock(Resource.class);
+        Mockito.when(jobsDir.getFile()).thenReturn(this.folder.getRoot());
+        this.task = new JobDirectoryReaperTask(jobsDir, this.cleanupProperties, this.attachmentService, this.registry);
+    }
+
+    /**
+     * Clean up after the tests.
+     */
+    @After
+    public void cleanup() {
+        this.task.shutdown();
+    }
+
+    /**
+     * Make sure only job directories which are done, archived and past retention are deleted.
+     *
+     * @throws Exception on error
+     */
+    @Test
+    public void canReapFinishedJobDirectories() throws Exception {
+        final long old = System.currentTimeMillis() - 120000L;
+        final Path reapable = this.createJobDir(true, true, old);
+        final Path notArchived = this.createJobDir(true, false, old);
+        final Path notDone = this.createJobDir(false, true, old);
+        final Path recent = this.createJobDir(true, true, System.currentTimeMillis());
+        final Path recentNotArchived = this.createJobDir(true, false, System.currentTimeMillis());
+
+        this.task.run();
+        // Nothing changes on the next run so nothing is deleted twice
+        this.task.run();
+
+        Assert.assertFalse(Files.exists(reapable));
+        Assert.assertTrue(Files.exists(notArchived));
+        Assert.assertTrue(Files.exists(notDone));
+        Assert.assertTrue(Files.exists(recent));
+        Assert.assertTrue(Files.exists(recentNotArchived));
+
+        Assert.assertThat(this.registry.counter("genie.jobs.cleanup.evicted.rate").count(), Matchers.is(1L));
+        Assert.assertThat(this.registry.counter("genie.jobs.cleanup.freedBytes").count(), Matchers.is(36L));
+        Assert.assertThat(this.registry.timer("genie.jobs.cleanup.eviction.timer").count(), Matchers.is(1L));
+        Assert.assertThat(this.registry.counter("genie.jobs.cleanup.underPressure.rate").count(), Matchers.is(0L));
+
+        // Attachments are only removed together with the job directory
+        Mockito.verify(this.attachmentService, Mockito.times(1)).delete(reapable.getFileName().toString());
+        Mockito.verify(this.attachmentService, Mockito.times(1)).delete(Mockito.anyString());
+    }
+
+    /**
+     * Make sure archived job directories within retention are evicted when the disk is under pressure but directories
+     * which were never archived are kept.
+     *
+     * @throws IOException on error
+     */
+    @Test
+    public void canReapUnderDiskPressure() throws IOException {
+        // Any amount of free space is too little
+        this.cleanupProperties.setMinFreeSpacePercent(100);
+        this.cleanupProperties.setTargetFreeSpacePercent(100);
+        this.cleanupProperties.setParallelism(2);
+        final long now = System.currentTimeMillis();
+        final Path oldest = this.createJobDir(true, true, now - 3000L);
+        final Path middle = this.createJobDir(true, true, now - 2000L);
+        final Path newest = this.createJobDir(true, true, now - 1000L);
+        final Path notArchived = this.createJobDir(true, false, now - 4000L);
+        final Path notDone = this.createJobDir(false, false, now - 4000L);
+
+        this.task.run();
+
+        Assert.assertFalse(Files.exists(oldest));
+        Assert.assertFalse(Files.exists(middle));
+        Assert.assertFalse(Files.exists(newest));
+        Assert.assertTrue(Files.exists(notArchived));
+        Assert.assertTrue(Files.exists(notDone));
+        Assert.assertThat(this.registry.counter("genie.jobs.cleanup.evicted.rate").count(), Matchers.is(3L));
+        Assert.assertThat(this.registry.counter("genie.jobs.cleanup.underPressure.rate").count(), Matchers.is(1L));
+    }
+
+    /**
+     * Make sure a job directory which was never archived is the only copy of its output and survives even when the
+     * disk is under pressure and it's past retention.
+     *
+     * @throws IOException on error
+     */
+    @Test
+    public void cantReapUnarchivedUnderDiskPressure() throws IOException {
+        this.cleanupProperties.setMinFreeSpacePercent(100);
+        this.cleanupProperties.setTargetFreeSpacePercent(100);
+        final Path notArchived = this.createJobDir(true, false, System.currentTimeMillis() - 120000L);
+
+        this.task.run();
+
+        Assert.assertTrue(Files.exists(notArchived));
+        Assert.assertThat(this.registry.counter("genie.jobs.cleanup.evicted.rate").count(), Matchers.is(0L));
+        Assert.assertThat(this.registry.counter("genie.jobs.cleanup.underPressure.rate").count(), Matchers.is(1L));
+        Mockito.verifyZeroInteractions(this.attachmentService);
+    }
+
+    /**
+     * Make sure the task is scheduled with the configured delay.
+     */
+    @Test
+    public void canGetSchedulingInformation() {
+        this.cleanupProperties.setDelay(1234L);
+        Assert.assertThat(this.task.getScheduleType(), Matchers.is(GenieTaskScheduleType.FIXED_DELAY));
+        Assert.assertThat(this.task.getFixedDelay(), Matchers.is(1234L));
+    }
+
+    /**
+     * Make sure the task can't be scheduled with a trigger.
+     */
+    @Test(expected = UnsupportedOperationException.class)
+    public void cantGetTrigger() {
+        this.task.getTrigger();
+    }
+
+    /**
+     * Make sure the task can't be scheduled at a fixed rate.
+     */
+    @Test(expected = UnsupportedOperationException.class)
+    public void cantGetFixedRate() {
+        this.task.getFixedRate();
+    }
+
+    private Path createJobDir(final boolean done, final boolean archived, final long finishedTime) throws IOException {
+        final Path jobDir = this.folder.newFolder(UUID.randomUUID().toString()).toPath();
+        Files.createDirectories(jobDir.resolve(JobConstants.GENIE_PATH_VAR));
+        // 36 bytes
+        Files.write(jobDir.resolve("stdout"), UUID.randomUUID().toString().getBytes("UTF-8"));
+        if (done) {
+            final Path doneFile = Files.createFile(jobDir.resolve(JobConstants.GENIE_DONE_FILE_NAME));
+            Files.setLastModifiedTime(doneFile, FileTime.fromMillis(finishedTime));
+        }
+        if (archived) {
+            final Path marker = Files.createFile(jobDir.resolve(JobConstants.GENIE_ARCHIVED_FILE_NAME));
+            Files.setLastModifiedTime(marker, FileTime.fromMillis(finishedTime));
+        }
+        return jobDir;
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ *
+ *  Copyright 2016 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.tasks.node;
+
+import com.google.common.collect.Sets;
+import com.netflix.genie.test.categories.UnitTest;
+import com.netflix.genie.web.tasks.GenieTaskScheduleType;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.mockito.Mockito;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.Trigger;
+
+import java.util.Set;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * Unit tests for NodeTasksCoordinator.
+ *
+ * @author agent
+ * @since 3.0.0
+ */
+@Category(UnitTest.class)
+public class NodeTasksCoordinatorUnitTests {
+
+    private NodeTasksCoordinator coordinator;
+    private TaskScheduler scheduler;
+    private NodeTask task1;
+    private NodeTask task2;
+    private NodeTask task3;
+
+    /**
+     * Setup for the tests.
+     */
+    @Before
+    public void setup() {
+        this.scheduler = Mockito.mock(TaskScheduler.class);
+        this.task1 = Mockito.mock(NodeTask.class);
+        this.task2 = Mockito.mock(NodeTask.class);
+        this.task3 = Mockito.mock(NodeTask.class);
+        final Set<NodeTask> tasks = Sets.newHashSet(this.task1, this.task2, this.task3);
+        this.coordinator = new NodeTasksCoordinator(this.scheduler, tasks);
+    }
+
+    /**
+     * Make sure all node tasks are started once and stopped on destruction.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void canStartAndStopNodeTasks() {
+        final long task1Period = 13238;
+        Mockito.when(this.task1.getScheduleType()).thenReturn(GenieTaskScheduleType.FIXED_RATE);
+        Mockito.when(this.task1.getFixedRate()).thenReturn(task1Period);
+        final long task2Period = 3891082;
+        Mockito.when(this.task2.getScheduleType()).thenReturn(GenieTaskScheduleType.FIXED_DELAY);
+        Mockito.when(this.task2.getFixedDelay()).thenReturn(task2Period);
+        final Trigger task3Trigger = Mockito.mock(Trigger.class);
+        Mockito.when(this.task3.getScheduleType()).thenReturn(GenieTaskScheduleType.TRIGGER);
+        Mockito.when(this.task3.getTrigger()).thenReturn(task3Trigger);
+
+        final ScheduledFuture future1 = Mockito.mock(ScheduledFuture.class);
+        Mockito.when(future1.cancel(true)).thenReturn(true);
+        Mockito.when(this.scheduler.scheduleAtFixedRate(this.task1, task1Period)).thenReturn(future1);
+
+        final ScheduledFuture future2 = Mockito.mock(ScheduledFuture.class);
+        Mockito.when(future2.cancel(true)).thenReturn(true);
+        Mockito.when(this.scheduler.scheduleWithFixedDelay(this.task2, task2Period)).thenReturn(future2);
+
+        final ScheduledFuture future3 = Mockito.mock(ScheduledFuture.class);
+        Mockito.when(future3.cancel(true)).thenReturn(false);
+        Mockito.when(this.scheduler.schedule(this.task3, task3Trigger)).thenReturn(future3);
+
+        final ApplicationReadyEvent event = Mockito.mock(ApplicationReadyEvent.class);
+        this.coordinator.startNodeTasks(event);
+
+        Mockito.verify(this.scheduler, Mockito.times(1)).scheduleAtFixedRate(this.task1, task1Period);
+        Mockito.verify(this.task1, Mockito.never()).getFixedDelay();
+        Mockito.verify(this.task1, Mockito.never()).getTrigger();
+        Mockito.verify(this.scheduler, Mockito.times(1)).scheduleWithFixedDelay(this.task2, task2Period);
+        Mockito.verify(this.task2, Mockito.never()).getFixedRate();
+        Mockito.verify(this.task2, Mockito.never()).getTrigger();
+        Mockito.verify(this.scheduler, Mockito.times(1)).schedule(this.task3, task3Trigger);
+        Mockito.verify(this.task3, Mockito.never()).getFixedRate();
+        Mockito.verify(this.task3, Mockito.never()).getFixedDelay();
+
+        // Make sure a second event doesn't schedule anything again
+        this.coordinator.startNodeTasks(event);
+
+        Mockito.verify(this.scheduler, Mockito.times(1)).scheduleAtFixedRate(this.task1, task1Period);
+        Mockito.verify(this.scheduler, Mockito.times(1)).scheduleWithFixedDelay(this.task2, task2Period);
+        Mockito.verify(this.scheduler, Mockito.times(1)).schedule(this.task3, task3Trigger);
+
+        this.coordinator.preDestroy();
+
+        Mockito.verify(future1, Mockito.times(1)).cancel(true);
+        Mockito.verify(future2, Mockito.times(1)).cancel(true);
+        Mockito.verify(future3, Mockito.times(1)).cancel(true);
+    }
+}